@@ -10,14 +10,18 @@ import android.widget.Button;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.List;
-
+import clarkson.ee408.tictactoev4.client.PresenceStore;
 import clarkson.ee408.tictactoev4.model.User;
 
-public class AvailableUsersAdapter extends RecyclerView.Adapter<AvailableUsersAdapter.UserViewHolder> {
+public class AvailableUsersAdapter extends RecyclerView.Adapter<AvailableUsersAdapter.UserViewHolder>
+        implements PresenceStore.Listener {
+
+    // Ask for the next page when a row this close to the end is shown
+    private static final int LOAD_MORE_THRESHOLD = 10;
 
     private final UserClickListener mUserClickListener;
-    private List<User> users;
+    private PresenceStore presenceStore;
+    private Runnable loadMoreListener;
     private final Context mContext;
 
     /**
@@ -41,30 +45,67 @@ public class AvailableUsersAdapter extends RecyclerView.Adapter<AvailableUsersAd
 
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        User user = users.get(position);
+        User user = presenceStore.get(position);
 
         holder.userButton.setText(String.format("%s (%s)", user.getDisplayName(), user.getUsername()));
         holder.userButton.setOnClickListener(view -> mUserClickListener.onUserClicked(user));
+
+        if (loadMoreListener != null && presenceStore.hasMore()
+                && position >= getItemCount() - LOAD_MORE_THRESHOLD) {
+            loadMoreListener.run();
+        }
     }
 
     @Override
     public int getItemCount() {
-        if (users == null) {
+        if (presenceStore == null) {
             return 0;
         }
-        return users.size();
+        return presenceStore.size();
     }
 
     /**
-     * Set the list of users and update the recyclerview
-     * @param users list of User
+     * Show the users of a presence store and follow its changes row by row
+     * @param presenceStore the lobby to show
      */
     @SuppressLint("NotifyDataSetChanged")
-    public void setUsers(List<User> users) {
-        this.users = users;
+    public void setPresenceStore(PresenceStore presenceStore) {
+        if (this.presenceStore != null) {
+            this.presenceStore.setListener(null);
+        }
+        this.presenceStore = presenceStore;
+        presenceStore.setListener(this);
         notifyDataSetChanged();
     }
 
+    /**
+     * Set the callback that loads the next page once the list is scrolled near its end
+     * @param loadMoreListener the callback, which must load asynchronously
+     */
+    public void setLoadMoreListener(Runnable loadMoreListener) {
+        this.loadMoreListener = loadMoreListener;
+    }
+
+    @Override
+    public void onUserInserted(int position) {
+        notifyItemInserted(position);
+    }
+
+    @Override
+    public void onUserRemoved(int position) {
+        notifyItemRemoved(position);
+    }
+
+    @Override
+    public void onUsersRemoved(int position, int count) {
+        notifyItemRangeRemoved(position, count);
+    }
+
+    @Override
+    public void onUserChanged(int position) {
+        notifyItemChanged(position);
+    }
+
     /**
      * An interface for the adapter click listener
      */
@@ -1,31 +1,33 @@
 package clarkson.ee408.tictactoev4;
 
-import android.os.Handler;
+import clarkson.ee408.tictactoev4.client.AdaptivePollScheduler;
 
 /**
  * A {@link Runnable} to periodically poll the server for an updated game state.
+ * <p>
+ * It runs on an {@link AdaptivePollScheduler}: {@link MainActivity} reports the outcome of every
+ * poll so the delay backs off while the opponent is thinking, bursts right after our own move,
+ * and drops to zero when a long poll that the server held returns.
  */
 public class GameMoveTaskRunnable implements Runnable {
 
+    public static final int BURST_DELAY_MILLIS = 250; // right after our own move
     public static final int POLL_DELAY_MILLIS = 1000; // 1 second
+    public static final int MAX_POLL_DELAY_MILLIS = 4000; // 4 seconds while the opponent is thinking
 
     private final MainActivity mainActivity;
-    private final Handler handler;
 
     /**
      * Creates a new instance of {@code GameMoveTaskRunnable}.
      *
      * @param mainActivity the instance of MainActivity
-     * @param handler the instance of Handler that is executing this
      */
-    public GameMoveTaskRunnable(MainActivity mainActivity, Handler handler) {
+    public GameMoveTaskRunnable(MainActivity mainActivity) {
         this.mainActivity = mainActivity;
-        this.handler = handler;
     }
 
     @Override
     public void run() {
         this.mainActivity.requestMove();
-        this.handler.postDelayed(this, POLL_DELAY_MILLIS);
     }
 }
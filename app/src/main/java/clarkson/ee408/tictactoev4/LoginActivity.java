@@ -39,6 +39,10 @@ public class LoginActivity extends AppCompatActivity {
         // Initialize Gson with null serialization option
         gson = new GsonBuilder().serializeNulls().create();
 
+        // Server pushes and long polls need a multiplexed connection, which must be in place before logging in
+        SocketClient.getInstance().setMultiplexed(getResources().getBoolean(R.bool.enable_server_push)
+                || getResources().getBoolean(R.bool.enable_long_poll));
+
         //Adding Handlers
         loginButton.setOnClickListener(view -> handleLogin());
         registerButton.setOnClickListener(view -> gotoRegister());
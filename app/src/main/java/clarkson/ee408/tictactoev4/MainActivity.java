@@ -4,7 +4,7 @@ import android.content.DialogInterface;
 import android.graphics.Color;
 import android.graphics.Point;
 import android.os.Bundle;
-import android.os.Handler;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.View;
@@ -21,9 +21,14 @@ import com.google.gson.GsonBuilder;
 
 import java.io.IOException;
 
+import clarkson.ee408.tictactoev4.client.AdaptivePollScheduler;
 import clarkson.ee408.tictactoev4.client.AppExecutors;
+import clarkson.ee408.tictactoev4.client.PushListener;
 import clarkson.ee408.tictactoev4.client.SocketClient;
+import clarkson.ee408.tictactoev4.engine.AiPlayer;
 import clarkson.ee408.tictactoev4.socket.GamingResponse;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+import clarkson.ee408.tictactoev4.socket.PushType;
 import clarkson.ee408.tictactoev4.socket.Request;
 import clarkson.ee408.tictactoev4.socket.RequestType;
 import clarkson.ee408.tictactoev4.socket.Response;
@@ -36,8 +41,13 @@ public class MainActivity extends AppCompatActivity {
     private Gson gson;
     private boolean shouldRequestMove;
     private SocketClient socketClient;
-    private Handler handler;
-    private GameMoveTaskRunnable gameMoveTaskRunnable;
+    private AdaptivePollScheduler movePollScheduler;
+    private boolean pushActive;
+    private boolean moveRequestInFlight;
+    private boolean practice;
+    private AiPlayer aiPlayer;
+    private int aiMoveGeneration;
+    private final PushListener pushListener = this::onPush;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -46,76 +56,216 @@ public class MainActivity extends AppCompatActivity {
         // Get player value from PairingActivity (default to 1 if not found)
         int player = getIntent().getIntExtra("player", 1);
 
-        this.tttGame = new TicTacToe(player);
+        this.tttGame = new TicTacToe(player, getResources().getInteger(R.integer.board_side),
+                getResources().getInteger(R.integer.win_length));
         this.gson = new GsonBuilder().serializeNulls().create();
         socketClient = SocketClient.getInstance();
         shouldRequestMove = true;
 
+        // A practice game is played against the computer without the server
+        practice = getIntent().getBooleanExtra("practice", false);
+        if (practice) {
+            aiPlayer = new AiPlayer(AppExecutors.getInstance().computation(), 0,
+                    getResources().getInteger(R.integer.ai_time_budget_millis));
+            buildGuiByCode();
+            updateTurnStatus();
+            return;
+        }
+
         buildGuiByCode();
         updateTurnStatus();
 
-        handler = new Handler();
-        gameMoveTaskRunnable = new GameMoveTaskRunnable(this, handler);
-        handler.post(gameMoveTaskRunnable);
+        movePollScheduler = new AdaptivePollScheduler(new GameMoveTaskRunnable(this),
+                AppExecutors.getInstance().mainThread(), AppExecutors.getInstance().scheduler(),
+                GameMoveTaskRunnable.BURST_DELAY_MILLIS, GameMoveTaskRunnable.POLL_DELAY_MILLIS,
+                GameMoveTaskRunnable.MAX_POLL_DELAY_MILLIS);
+        movePollScheduler.start();
+
+        // Long polling multiplexes the connection as well, so being multiplexed is no reason to subscribe
+        if (getResources().getBoolean(R.bool.enable_server_push)) {
+            subscribeToPushes();
+        }
+    }
+
+    /**
+     * Asks the server to push the opponent's moves. On success polling stops; otherwise the
+     * {@link GameMoveTaskRunnable} keeps polling as before.
+     */
+    private void subscribeToPushes() {
+        AppExecutors.getInstance().networkIO().execute(() -> {
+            try {
+                if (socketClient.subscribe(pushListener)) {
+                    AppExecutors.getInstance().mainThread().execute(() -> {
+                        movePollScheduler.stop();
+                        pushActive = true;
+                        // Catch up on a move made before the subscription, then rely on pushes
+                        if (shouldRequestMove) {
+                            fetchMove(0);
+                        }
+                    });
+                }
+            } catch (IOException e) {
+                Log.e("MainActivity", "Error subscribing to pushes", e);
+            }
+        });
+    }
+
+    /**
+     * Handles an update pushed by the server. Called on the connection's reader thread.
+     *
+     * @param message the pushed update
+     */
+    private void onPush(PushMessage message) {
+        AppExecutors.getInstance().mainThread().execute(() -> {
+            if (tttGame == null || !shouldRequestMove) {
+                return; // The game already ended
+            }
+
+            if (message.getType() == PushType.MOVE) {
+                int moveValue = message.getMove();
+                int side = tttGame.getSide();
+                if (moveValue >= 0 && moveValue < side * side) {
+                    update(moveValue / side, moveValue % side);
+                }
+            } else if (message.getType() == PushType.GAME_ENDED) {
+                endInactiveGame(message.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Ends a game that the server reports as no longer active.
+     *
+     * @param message the reason to show to the player
+     */
+    private void endInactiveGame(String message) {
+        status.setText(message);
+        status.setBackgroundColor(Color.RED);
+        enableButtons(false);
+        shouldRequestMove = false;
+        tttGame = null;
     }
 
     /**
      * Sends a request to the server to ask for a game move made by the other player.
+     * <p>
+     * When the connection supports it the request is a long poll: the server holds it until the
+     * opponent moves, and the next request goes out as soon as it returns. Otherwise the
+     * {@link AdaptivePollScheduler} decides when to ask again.
      */
     public void requestMove() {
-        if (!shouldRequestMove) {
-            return; // Only request moves when it's our turn
+        if (!shouldRequestMove || pushActive) {
+            // Only request moves when it's our turn, and never when the server pushes them
+            movePollScheduler.pollCompleted(false);
+            return;
+        }
+        if (moveRequestInFlight) {
+            return; // The request in flight reports back to the scheduler
         }
 
+        moveRequestInFlight = true;
+        fetchMove(socketClient.getLongPollWaitMillis());
+    }
+
+    /**
+     * Sends a REQUEST_MOVE request and applies the answer to the board.
+     *
+     * @param waitMillis how long the server may hold the request, or 0 for an immediate answer
+     */
+    private void fetchMove(int waitMillis) {
         // Create Request object with type REQUEST_MOVE
         Request request = new Request();
         request.setType(RequestType.REQUEST_MOVE);
         // You might want to include game state or player info
         request.setData(""); // Add any necessary data
+        request.setWaitMillis(waitMillis);
 
         // Use SocketClient to send request in networkIO thread
         AppExecutors.getInstance().networkIO().execute(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
+            GamingResponse response = null;
             try {
-                GamingResponse response = socketClient.sendRequest(request, GamingResponse.class);
+                response = socketClient.sendRequest(request, GamingResponse.class);
+            } catch (Exception e) {
+                Log.e("MainActivity", "Error requesting move", e);
+            }
 
-                // Process response in main thread
-                AppExecutors.getInstance().mainThread().execute(() -> {
-                    if (response != null && response.getStatus() == ResponseStatus.SUCCESS) {
+            // Process response in main thread
+            final GamingResponse finalResponse = response;
+            final boolean held = SystemClock.elapsedRealtime() - startedAt >= waitMillis / 2;
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                boolean changed = handleMoveResponse(finalResponse);
+                moveRequestInFlight = false;
+                if (waitMillis > 0 && (changed || (finalResponse != null && held))) {
+                    // Re-issue a long poll right away after a change or a hold that timed out; a
+                    // quick unchanged answer means the server does not hold requests, so back off
+                    movePollScheduler.pollNow();
+                } else {
+                    movePollScheduler.pollCompleted(changed);
+                }
+            });
+        });
+    }
 
-                        // Check if game is not active
-                        if (!response.getActive()) {
-                            // Game is inactive - end the game
-                            status.setText(response.getMessage());
-                            status.setBackgroundColor(Color.RED);
-                            enableButtons(false);
-                            shouldRequestMove = false;
-                            tttGame = null;
-                            return; // Exit early, don't process moves
-                        }
+    /**
+     * Applies the answer to a REQUEST_MOVE request to the board.
+     *
+     * @param response the response from the server, or null if the request failed
+     * @return true if the opponent moved or the game ended
+     */
+    private boolean handleMoveResponse(GamingResponse response) {
+        if (response == null || response.getStatus() != ResponseStatus.SUCCESS || tttGame == null) {
+            return false;
+        }
 
-                        // Get the move from GamingResponse (already parsed)
-                        int moveValue = response.getMove();
+        // Check if game is not active
+        if (!response.getActive()) {
+            // Game is inactive - end the game
+            endInactiveGame(response.getMessage());
+            return true; // Exit early, don't process moves
+        }
 
-                        // Validate move value
-                        if (moveValue >= 0 && moveValue < TicTacToe.SIDE * TicTacToe.SIDE) {
-                            // Convert single integer move to row and column
-                            int row = moveValue / TicTacToe.SIDE;
-                            int col = moveValue % TicTacToe.SIDE;
+        // Get the move from GamingResponse (already parsed)
+        int moveValue = response.getMove();
 
-                            // Utilize update() function to add changes to the board
-                            update(row, col);
-                        }
+        // Validate move value
+        int side = tttGame.getSide();
+        if (moveValue >= 0 && moveValue < side * side) {
+            // Convert single integer move to row and column
+            int row = moveValue / side;
+            int col = moveValue % side;
+
+            // Utilize update() function to add changes to the board. A move the game rejects,
+            // e.g. one already played, is not a change
+            return update(row, col);
+        }
+        return false;
+    }
+
+    /**
+     * Lets the computer choose and play the opponent's move in a practice game. The search runs
+     * on the computation executor; its answer is dropped if the game was reset or closed since.
+     */
+    private void playComputerMove() {
+        final int generation = ++aiMoveGeneration;
+        aiPlayer.chooseMove(tttGame).whenComplete((result, e) ->
+                AppExecutors.getInstance().mainThread().execute(() -> {
+                    if (e != null) {
+                        Log.e("MainActivity", "Error choosing computer move", e);
+                        return;
                     }
-                });
-            } catch (Exception e) {
-                Log.e("MainActivity", "Error requesting move", e);
-            }
-        });
+                    if (generation != aiMoveGeneration || tttGame == null || isFinishing()) {
+                        return;
+                    }
+                    if (result.getMove() >= 0) {
+                        update(result.getRow(), result.getCol());
+                    }
+                }));
     }
 
     /**
      * Sends the player's move to the server.
-     * @param move The move position (0-8) to send.
+     * @param move The move position (row * side + column) to send.
      */
     public void sendMove(int move) {
         // Create a Request object with type SEND_MOVE
@@ -123,6 +273,9 @@ public class MainActivity extends AppCompatActivity {
         request.setType(RequestType.SEND_MOVE);
         request.setData("" + move);
 
+        // The opponent is likely to answer soon, so poll for it more often for a while
+        movePollScheduler.burst();
+
         // Send request asynchronously using AppExecutors
         AppExecutors.getInstance().networkIO().execute(() -> {
             try {
@@ -255,16 +408,22 @@ public class MainActivity extends AppCompatActivity {
         // Call parent's onDestroy first
         super.onDestroy();
 
-        // Stop the repetitive Handler
-        if (handler != null) {
-            // Remove the specific runnable
-            if (gameMoveTaskRunnable != null) {
-                handler.removeCallbacks(gameMoveTaskRunnable); // Use specific runnable
-            }
-            // Also remove any other callbacks/messages
-            handler.removeCallbacksAndMessages(null);
+        // A practice game has nothing to tell the server
+        if (practice) {
+            aiMoveGeneration++;
+            aiPlayer.cancel();
+            Log.d("MainActivity", "Practice game destroyed");
+            return;
+        }
+
+        // Stop polling for moves
+        if (movePollScheduler != null) {
+            movePollScheduler.stop();
         }
 
+        // Stop receiving pushed moves
+        socketClient.unsubscribe(pushListener);
+
         // Check game state and call appropriate method
         if (tttGame != null) {
             if (tttGame.isGameOver()) {
@@ -289,10 +448,15 @@ public class MainActivity extends AppCompatActivity {
             if (isMyTurn()) {
                 status.setText("Your Turn");
                 enableButtons(true);
-                requestMove();
+                if (!practice) {
+                    requestMove();
+                }
             } else {
                 status.setText("Waiting for Opponent");
                 enableButtons(false);
+                if (practice) {
+                    playComputerMove();
+                }
             }
         });
     }
@@ -301,21 +465,22 @@ public class MainActivity extends AppCompatActivity {
         // Get width of the screen
         Point size = new Point();
         getWindowManager().getDefaultDisplay().getSize(size);
-        int w = size.x / TicTacToe.SIDE;
+        int side = tttGame.getSide();
+        int w = size.x / side;
 
         // Create the layout manager as a GridLayout
         GridLayout gridLayout = new GridLayout(this);
-        gridLayout.setColumnCount(TicTacToe.SIDE);
-        gridLayout.setRowCount(TicTacToe.SIDE + 2);
+        gridLayout.setColumnCount(side);
+        gridLayout.setRowCount(side + 2);
 
         // Create the buttons and add them to gridLayout
-        buttons = new Button[TicTacToe.SIDE][TicTacToe.SIDE];
+        buttons = new Button[side][side];
         ButtonHandler bh = new ButtonHandler();
 
         gridLayout.setUseDefaultMargins(true);
 
-        for (int row = 0; row < TicTacToe.SIDE; row++) {
-            for (int col = 0; col < TicTacToe.SIDE; col++) {
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
                 buttons[row][col] = new Button(this);
                 buttons[row][col].setTextSize((int) (w * .2));
                 buttons[row][col].setOnClickListener(bh);
@@ -334,14 +499,14 @@ public class MainActivity extends AppCompatActivity {
 
         // set up layout parameters of 4th row of gridLayout
         status = new TextView(this);
-        GridLayout.Spec rowSpec = GridLayout.spec(TicTacToe.SIDE, 2);
-        GridLayout.Spec columnSpec = GridLayout.spec(0, TicTacToe.SIDE);
+        GridLayout.Spec rowSpec = GridLayout.spec(side, 2);
+        GridLayout.Spec columnSpec = GridLayout.spec(0, side);
         GridLayout.LayoutParams lpStatus
                 = new GridLayout.LayoutParams(rowSpec, columnSpec);
         status.setLayoutParams(lpStatus);
 
         // set up status' characteristics
-        status.setWidth(TicTacToe.SIDE * w);
+        status.setWidth(side * w);
         status.setHeight(w);
         status.setGravity(Gravity.CENTER);
         status.setBackgroundColor(Color.GREEN);
@@ -354,8 +519,17 @@ public class MainActivity extends AppCompatActivity {
         setContentView(gridLayout);
     }
 
-    public void update(int row, int col) {
+    /**
+     * Plays a move on the board and refreshes the buttons and the status.
+     *
+     * @param row the row of the move
+     * @param col the column of the move
+     * @return true if the move was played, false if the game rejected it, e.g. for a taken cell
+     */
+    public boolean update(int row, int col) {
         int play = tttGame.play(row, col);
+        if (play == 0)
+            return false;
         if (play == 1)
             buttons[row][col].setText("X");
         else if (play == 2)
@@ -372,17 +546,18 @@ public class MainActivity extends AppCompatActivity {
         } else {
             updateTurnStatus();
         }
+        return true;
     }
 
     public void enableButtons(boolean enabled) {
-        for (int row = 0; row < TicTacToe.SIDE; row++)
-            for (int col = 0; col < TicTacToe.SIDE; col++)
+        for (int row = 0; row < buttons.length; row++)
+            for (int col = 0; col < buttons[row].length; col++)
                 buttons[row][col].setEnabled(enabled);
     }
 
     public void resetButtons() {
-        for (int row = 0; row < TicTacToe.SIDE; row++)
-            for (int col = 0; col < TicTacToe.SIDE; col++)
+        for (int row = 0; row < buttons.length; row++)
+            for (int col = 0; col < buttons[row].length; col++)
                 buttons[row][col].setText("");
     }
 
@@ -400,14 +575,16 @@ public class MainActivity extends AppCompatActivity {
         public void onClick(View v) {
             Log.d("button clicked", "button clicked");
 
-            for (int row = 0; row < TicTacToe.SIDE; row++) {
-                for (int column = 0; column < TicTacToe.SIDE; column++) {
+            for (int row = 0; row < buttons.length; row++) {
+                for (int column = 0; column < buttons[row].length; column++) {
                     if (v == buttons[row][column]) {
                         // Calculate move index
-                        int move = row * TicTacToe.SIDE + column;
+                        int move = row * tttGame.getSide() + column;
 
-                        // 1 - Send move to server first
-                        sendMove(move);
+                        // 1 - Send move to server first, unless playing the computer
+                        if (!practice) {
+                            sendMove(move);
+                        }
 
                         // 2 - Then update board locally
                         update(row, column);
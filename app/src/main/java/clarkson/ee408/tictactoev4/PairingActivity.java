@@ -2,9 +2,13 @@ package clarkson.ee408.tictactoev4;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.View;
+import android.widget.Button;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -16,14 +20,20 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.Objects;
 
+import clarkson.ee408.tictactoev4.client.AdaptivePollScheduler;
 import clarkson.ee408.tictactoev4.client.AppExecutors;
+import clarkson.ee408.tictactoev4.client.PresenceStore;
+import clarkson.ee408.tictactoev4.client.PushListener;
 import clarkson.ee408.tictactoev4.client.SocketClient;
 import clarkson.ee408.tictactoev4.model.Event;
 import clarkson.ee408.tictactoev4.model.EventStatus;
 import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.PairingQuery;
 import clarkson.ee408.tictactoev4.socket.PairingResponse;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
 import clarkson.ee408.tictactoev4.socket.Request;
 import clarkson.ee408.tictactoev4.socket.RequestType;
 import clarkson.ee408.tictactoev4.socket.Response;
@@ -33,16 +43,29 @@ public class PairingActivity extends AppCompatActivity {
 
     private final String TAG = "PAIRING";
 
+    private static final int BURST_DELAY_MILLIS = 250; // right after sending an invitation
+    private static final int POLL_DELAY_MILLIS = 1000; // 1 second
+    private static final int MAX_POLL_DELAY_MILLIS = 8000; // 8 seconds while the lobby is quiet
+    private static final int PAGE_SIZE = 50;
+
     private Gson gson;
 
     private TextView noAvailableUsersText;
     private RecyclerView recyclerView;
     private AvailableUsersAdapter adapter;
 
-    private Handler handler;
-    private Runnable refresh;
+    private AdaptivePollScheduler pairingPollScheduler;
 
     private boolean shouldUpdatePairing = true;
+    private boolean pushActive;
+    private boolean pairingRequestInFlight;
+
+    private final PresenceStore presenceStore = new PresenceStore();
+    private String searchPrefix;
+    private int searchGeneration; // bumped whenever the filter changes, to drop answers to older queries
+    private boolean firstPageLoaded;
+    private boolean pageRequestInFlight;
+    private final PushListener pushListener = this::onPush;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -68,47 +91,265 @@ public class PairingActivity extends AppCompatActivity {
         adapter = new AvailableUsersAdapter(this, this::sendGameInvitation);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setAdapter(adapter);
+        adapter.setPresenceStore(presenceStore);
+        adapter.setLoadMoreListener(this::loadNextPage);
+
+        updateAvailableUsers();
+
+        //Practice against the computer without leaving the lobby
+        Button practiceButton = findViewById(R.id.button_practice);
+        practiceButton.setOnClickListener(v -> beginPracticeGame());
+
+        //Filter the lobby on the server as the player types
+        EditText searchText = findViewById(R.id.edit_search_players);
+        searchText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
 
-        updateAvailableUsers(null);
+            @Override
+            public void afterTextChanged(Editable s) {
+                setSearchPrefix(s.toString());
+            }
+        });
 
-        handler = new Handler();
-        refresh = () -> {
+        pairingPollScheduler = new AdaptivePollScheduler(() -> {
             //Call getPairingUpdate if shouldUpdatePairing is true
             if (shouldUpdatePairing) {
                 getPairingUpdate();
+            } else {
+                pairingPollScheduler.pollCompleted(false);
+            }
+        }, AppExecutors.getInstance().mainThread(), AppExecutors.getInstance().scheduler(),
+                BURST_DELAY_MILLIS, POLL_DELAY_MILLIS, MAX_POLL_DELAY_MILLIS);
+        pairingPollScheduler.start();
+
+        // A long-polling connection is multiplexed too, but only subscribes when pushes are enabled
+        if (getResources().getBoolean(R.bool.enable_server_push)) {
+            subscribeToPushes();
+        }
+    }
+
+    /**
+     * Asks the server to push invitations and presence changes. On success the periodic
+     * UPDATE_PAIRING requests stop; otherwise polling continues as before.
+     */
+    private void subscribeToPushes() {
+        AppExecutors.getInstance().networkIO().execute(() -> {
+            try {
+                if (SocketClient.getInstance().subscribe(pushListener)) {
+                    AppExecutors.getInstance().mainThread().execute(() -> {
+                        pairingPollScheduler.stop();
+                        pushActive = true;
+                        // One last poll for the current lobby; pushes keep it up to date from here
+                        fetchPairingUpdate(0);
+                    });
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Error subscribing to pushes", e);
+            }
+        });
+    }
+
+    /**
+     * Handles an update pushed by the server. Called on the connection's reader thread.
+     *
+     * @param message the pushed update
+     */
+    private void onPush(PushMessage message) {
+        AppExecutors.getInstance().mainThread().execute(() -> {
+            switch (message.getType()) {
+                case INVITATION:
+                    if (shouldUpdatePairing && message.getEvent() != null) {
+                        createRespondAlertDialog(message.getEvent());
+                    }
+                    break;
+                case INVITATION_RESPONSE:
+                    handleInvitationResponse(message.getEvent());
+                    break;
+                case PRESENCE:
+                    handlePresenceChange(message.getUser());
+                    break;
+                default:
+                    break;
             }
-            handler.postDelayed(refresh, 1000);
-        };
-        handler.post(refresh);
+        });
     }
 
     /**
-     * Send UPDATE_PAIRING request to the server
+     * Adds or removes a user from the lobby after a pushed presence change
+     *
+     * @param user the user that became available or unavailable
+     */
+    private void handlePresenceChange(User user) {
+        if (user == null || user.getUsername() == null) {
+            return;
+        }
+
+        if (!user.getOnline()) {
+            presenceStore.remove(user.getUsername());
+        } else if (matchesSearch(user) && presenceStore.covers(user.getUsername())) {
+            // Users past the loaded pages arrive with the page that contains them
+            presenceStore.put(user);
+        }
+        updateAvailableUsers();
+    }
+
+    /**
+     * Checks a user against the search filter the same way the server does
+     *
+     * @param user the user to check
+     * @return true if the username or display name starts with the search text, ignoring case
+     */
+    private boolean matchesSearch(User user) {
+        if (searchPrefix == null) {
+            return true;
+        }
+        return startsWithIgnoreCase(user.getUsername(), searchPrefix)
+                || startsWithIgnoreCase(user.getDisplayName(), searchPrefix);
+    }
+
+    private static boolean startsWithIgnoreCase(String text, String prefix) {
+        return text != null && text.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    /**
+     * Restarts the lobby from its first page with a new search filter
+     *
+     * @param text the search text
+     */
+    private void setSearchPrefix(String text) {
+        String prefix = text.trim().isEmpty() ? null : text.trim();
+        if (Objects.equals(prefix, searchPrefix)) {
+            return;
+        }
+
+        searchPrefix = prefix;
+        searchGeneration++;
+        firstPageLoaded = false;
+        pageRequestInFlight = false;
+        presenceStore.clear();
+        updateAvailableUsers();
+
+        // Fetch the first page right away rather than behind a poll the server may be holding
+        pairingRequestInFlight = true;
+        fetchPairingUpdate(0);
+    }
+
+    /**
+     * Builds the query for the next poll: the first page until it has loaded, then the changes
+     * within the pages loaded so far
+     *
+     * @return the query to send with UPDATE_PAIRING
+     */
+    private PairingQuery newPollQuery() {
+        PairingQuery query = firstPageLoaded ? presenceStore.newRefreshQuery() : presenceStore.newPageQuery(PAGE_SIZE);
+        query.setPrefix(searchPrefix);
+        return query;
+    }
+
+    /**
+     * Send an UPDATE_PAIRING request for the page after the ones loaded so far. Called as the
+     * list is scrolled near its end, so only the part of the lobby the player looks at is loaded.
+     * The first page comes with the regular pairing updates
+     */
+    private void loadNextPage() {
+        if (pageRequestInFlight || !firstPageLoaded || !presenceStore.hasMore()) {
+            return;
+        }
+        pageRequestInFlight = true;
+
+        PairingQuery query = presenceStore.newPageQuery(PAGE_SIZE);
+        query.setPrefix(searchPrefix);
+        Request request = new Request(RequestType.UPDATE_PAIRING, gson.toJson(query));
+        int generation = searchGeneration;
+
+        AppExecutors.getInstance().networkIO().execute(() -> {
+            PairingResponse pr = null;
+            try {
+                pr = SocketClient.getInstance().sendRequest(request, PairingResponse.class);
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading players", e);
+            }
+
+            final PairingResponse response = pr;
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                if (generation == searchGeneration) {
+                    pageRequestInFlight = false;
+                }
+                if (response != null && response.getStatus() != ResponseStatus.FAILURE) {
+                    handlePairingUpdate(response, query, generation);
+                }
+            });
+        });
+    }
+
+    /**
+     * Send UPDATE_PAIRING request to the server. When the connection supports it the request is a
+     * long poll that the server holds until the lobby changes, and the next one goes out as soon
+     * as it returns. Otherwise the delay backs off while the lobby stays the same.
      */
     private void getPairingUpdate() {
+        if (pairingRequestInFlight) {
+            return; // The request in flight reports back to the scheduler
+        }
+
+        pairingRequestInFlight = true;
+        fetchPairingUpdate(SocketClient.getInstance().getLongPollWaitMillis());
+    }
+
+    /**
+     * Send an UPDATE_PAIRING request and handle the response
+     *
+     * @param waitMillis how long the server may hold the request, or 0 for an immediate answer
+     */
+    private void fetchPairingUpdate(int waitMillis) {
         // Create Request object with type UPDATE_PAIRING
         Request request = new Request();
         request.setType(RequestType.UPDATE_PAIRING);
+        PairingQuery query = newPollQuery();
+        request.setData(gson.toJson(query));
+        request.setWaitMillis(waitMillis);
+        int generation = searchGeneration;
 
         // Send an UPDATE_PAIRING request to the server. If SUCCESS call handlePairingUpdate(). Else, Toast the error
         AppExecutors.getInstance().networkIO().execute(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
+            PairingResponse pr = null;
+            boolean sent = false;
             try {
-                PairingResponse pr = SocketClient.getInstance().sendRequest(request, PairingResponse.class);
-
-                if ((pr == null) || (pr.getStatus() == ResponseStatus.FAILURE)) {
-                    AppExecutors.getInstance().mainThread().execute(() ->
-                            Toast.makeText(this, "Pairing update failed.", Toast.LENGTH_SHORT).show()
-                    );
-                    return;
-                }
-
-                AppExecutors.getInstance().mainThread().execute(() ->
-                        handlePairingUpdate(pr)
-                );
-
+                pr = SocketClient.getInstance().sendRequest(request, PairingResponse.class);
+                sent = true;
             } catch (Exception e) {
                 Log.e(TAG, "Error updating pairing", e);
             }
+
+            final PairingResponse response = pr;
+            final boolean answered = sent;
+            final boolean held = SystemClock.elapsedRealtime() - startedAt >= waitMillis / 2;
+            AppExecutors.getInstance().mainThread().execute(() -> {
+                boolean changed = false;
+                if (answered && ((response == null) || (response.getStatus() == ResponseStatus.FAILURE))) {
+                    Toast.makeText(this, "Pairing update failed.", Toast.LENGTH_SHORT).show();
+                } else if (response != null) {
+                    changed = handlePairingUpdate(response, query, generation);
+                }
+
+                if (generation == searchGeneration) {
+                    pairingRequestInFlight = false;
+                }
+                if (waitMillis > 0 && (changed || (answered && held))) {
+                    // Re-issue a long poll right away after a change or a hold that timed out; a
+                    // quick unchanged answer means the server does not hold requests, so back off
+                    pairingPollScheduler.pollNow();
+                } else {
+                    pairingPollScheduler.pollCompleted(changed);
+                }
+            });
         });
     }
 
@@ -116,14 +357,41 @@ public class PairingActivity extends AppCompatActivity {
      * Handle the PairingResponse received from the server
      *
      * @param response PairingResponse from the server
+     * @param query the query the response answers
+     * @param generation the search generation the query was sent with
+     * @return true if the lobby changed or the response carried an invitation or a reply to one
      */
-    private void handlePairingUpdate(PairingResponse response) {
+    private boolean handlePairingUpdate(PairingResponse response, PairingQuery query, int generation) {
+        //Apply the lobby snapshot or delta, unless the search changed since, then refresh the empty-lobby message
+        boolean lobbyChanged = false;
+        if (generation == searchGeneration) {
+            lobbyChanged = presenceStore.apply(response, query);
+            if (query.getPageSize() > 0 && query.getAfter() == null) {
+                firstPageLoaded = true;
+            }
+            updateAvailableUsers();
+        }
+
+        //Handle invitationResponse
+        handleInvitationResponse(response.getInvitationResponse());
+
+        //Handle invitation by calling createRespondAlertDialog(), unless the lobby is hidden; the
+        //server sends a pending invitation with every poll, so it shows once the lobby is back
+        if (response.getInvitation() != null && shouldUpdatePairing) {
+            createRespondAlertDialog(response.getInvitation());
+        }
 
-        //Handle availableUsers by calling updateAvailableUsers()
-        updateAvailableUsers(response.getAvailableUsers());
+        return response.getInvitation() != null || response.getInvitationResponse() != null
+                || lobbyChanged;
+    }
 
-        //Handle invitationResponse. First by sending acknowledgement
-        Event invitationResponse = response.getInvitationResponse();
+    /**
+     * Handle a response to an invitation sent by the current user
+     *
+     * @param invitationResponse the invitation with status ACCEPTED or DECLINED, or null
+     */
+    private void handleInvitationResponse(Event invitationResponse) {
+        //First by sending acknowledgement
         if (invitationResponse != null) {
 
             // acknowledge it
@@ -138,21 +406,13 @@ public class PairingActivity extends AppCompatActivity {
                 Toast.makeText(this, invitationResponse.getOpponent() + " declined your request.", Toast.LENGTH_SHORT).show();
             }
         }
-
-        //Handle invitation by calling createRespondAlertDialog()
-        if (response.getInvitation() != null) {
-            createRespondAlertDialog(response.getInvitation());
-        }
     }
 
     /**
-     * Updates the list of available users
-     *
-     * @param availableUsers list of users that are available for pairing
+     * Shows the list of available users, or a message if there are none. The adapter follows
+     * the changes to the {@link PresenceStore} itself.
      */
-    public void updateAvailableUsers(List<User> availableUsers) {
-        adapter.setUsers(availableUsers);
-
+    public void updateAvailableUsers() {
         if (adapter.getItemCount() <= 0) {
             //Show noAvailableUsersText and hide recyclerView
             noAvailableUsersText.setVisibility(View.VISIBLE);
@@ -175,6 +435,9 @@ public class PairingActivity extends AppCompatActivity {
         request.setType(RequestType.SEND_INVITATION);
         request.setData(userOpponent.getUsername());
 
+        //The opponent is likely to answer soon, so poll for the response more often for a while
+        pairingPollScheduler.burst();
+
         //SEND_INVITATION request if successful, Toast success or error
         AppExecutors.getInstance().networkIO().execute(() -> {
             try {
@@ -370,19 +633,46 @@ public class PairingActivity extends AppCompatActivity {
         finish();
     }
 
+    /**
+     * Begin a practice game against the computer in MainActivity. The lobby stays open
+     * underneath, so the player returns to it when the game is closed, but stops polling while
+     * hidden; see {@link #onPause()}.
+     */
+    private void beginPracticeGame() {
+        Intent intent = new Intent(this, MainActivity.class);
+        intent.putExtra("player", 1);
+        intent.putExtra("practice", true);
+        startActivity(intent);
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
         //Set shouldUpdatePairing to true
         shouldUpdatePairing = true;
+        if (!pushActive) {
+            pairingPollScheduler.start();
+        }
+    }
+
+    /**
+     * Stops polling the lobby while it is hidden, e.g. under a practice game, so no invitation
+     * dialog opens where the player cannot see it.
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        shouldUpdatePairing = false;
+        pairingPollScheduler.stop();
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        handler.removeCallbacksAndMessages(null);
+        pairingPollScheduler.stop();
 
         shouldUpdatePairing = false;
+        SocketClient.getInstance().unsubscribe(pushListener);
 
         // Logout by calling close() of SocketClient
 
@@ -0,0 +1,59 @@
+package clarkson.ee408.tictactoev4;
+
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+
+import clarkson.ee408.tictactoev4.client.AppExecutors;
+import clarkson.ee408.tictactoev4.client.Logger;
+
+/**
+ * Connects the platform-independent client code to Android before any activity starts: its log
+ * messages go to logcat, and {@link AppExecutors#mainThread()} runs tasks on the main looper.
+ */
+public class TicTacToeApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        clarkson.ee408.tictactoev4.client.Log.setLogger(new LogcatLogger());
+        AppExecutors.setMainThread(new MainThreadExecutor());
+    }
+
+    /**
+     * A logger that writes to logcat.
+     */
+    private static class LogcatLogger implements Logger {
+        @Override
+        public void info(String tag, String message) {
+            Log.i(tag, message);
+        }
+
+        @Override
+        public void warn(String tag, String message) {
+            Log.w(tag, message);
+        }
+
+        @Override
+        public void error(String tag, String message, Throwable error) {
+            Log.e(tag, message, error);
+        }
+    }
+
+    /**
+     * An executor that posts to the main looper of the Android application
+     */
+    private static class MainThreadExecutor implements Executor {
+        private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mainThreadHandler.post(command);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import groovy.json.JsonSlurper
+
+// JMH benchmarks of the protocol messages and the game engine, run on the plain JVM:
+//   ./gradlew :benchmarks:jmh                      run every benchmark, or only some with
+//                                                  -PjmhIncludes=TicTacToeBenchmark
+//   ./gradlew :benchmarks:jmhSaveBaseline          keep the last results as the baseline
+//   ./gradlew :benchmarks:jmhCompare               compare the last results with the baseline
+plugins {
+    java
+    id("me.champeau.jmh")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    implementation(project(":core"))
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    (findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+}
+
+val jmhResults = layout.buildDirectory.file("results/jmh/results.json")
+val jmhBaseline = layout.projectDirectory.file("baselines/results.json")
+
+tasks.register<Copy>("jmhSaveBaseline") {
+    description = "Keeps the results of the last jmh run as the baseline to compare against."
+    from(jmhResults)
+    into(jmhBaseline.asFile.parentFile)
+}
+
+tasks.register("jmhCompare") {
+    description = "Compares the last jmh run with the baseline and fails on large regressions."
+    // The largest drop in throughput, or rise in bytes allocated per operation, that passes
+    val maxRegression = (findProperty("jmhMaxRegression") as String?)?.toDouble() ?: 0.10
+    doLast {
+        val baselineFile = jmhBaseline.asFile
+        val resultsFile = jmhResults.get().asFile
+        if (!baselineFile.exists()) {
+            throw GradleException("No baseline yet; run jmh and then jmhSaveBaseline")
+        }
+        if (!resultsFile.exists()) {
+            throw GradleException("No results yet; run jmh first")
+        }
+
+        fun load(file: File): Map<String, Pair<Double, Double?>> {
+            @Suppress("UNCHECKED_CAST")
+            val runs = JsonSlurper().parse(file) as List<Map<String, Any?>>
+            return runs.associate { run ->
+                @Suppress("UNCHECKED_CAST")
+                val params = (run["params"] as Map<String, Any?>?).orEmpty()
+                val name = run["benchmark"].toString().substringAfterLast("benchmarks.") +
+                    params.entries.joinToString("") { " ${it.key}=${it.value}" }
+                @Suppress("UNCHECKED_CAST")
+                val primary = run["primaryMetric"] as Map<String, Any?>
+                @Suppress("UNCHECKED_CAST")
+                val secondary = (run["secondaryMetrics"] as Map<String, Map<String, Any?>>?).orEmpty()
+                // Older JMH versions prefix the profiler metrics with a middle dot
+                val allocated = secondary.entries
+                    .firstOrNull { it.key.trimStart('·') == "gc.alloc.rate.norm" }
+                    ?.value?.get("score") as Number?
+                name to Pair((primary["score"] as Number).toDouble(), allocated?.toDouble())
+            }
+        }
+
+        val baseline = load(baselineFile)
+        val results = load(resultsFile)
+        val regressions = mutableListOf<String>()
+        println(String.format("%-70s %14s %14s %8s %12s", "benchmark", "baseline", "ops/s", "change", "B/op change"))
+        for ((name, result) in results.toSortedMap()) {
+            val before = baseline[name]
+            if (before == null) {
+                println(String.format("%-70s %14s %14.1f", name, "new", result.first))
+                continue
+            }
+            val change = result.first / before.first - 1
+            val allocationChange = if (before.second != null && result.second != null && before.second!! > 0) {
+                result.second!! / before.second!! - 1
+            } else {
+                null
+            }
+            println(String.format("%-70s %14.1f %14.1f %+7.1f%% %11s", name, before.first, result.first,
+                100 * change, allocationChange?.let { String.format("%+.1f%%", 100 * it) } ?: "-"))
+            if (change < -maxRegression || (allocationChange ?: 0.0) > maxRegression) {
+                regressions.add(name)
+            }
+        }
+        if (regressions.isNotEmpty()) {
+            throw GradleException("Slower or allocating more than the baseline: $regressions")
+        }
+    }
+}
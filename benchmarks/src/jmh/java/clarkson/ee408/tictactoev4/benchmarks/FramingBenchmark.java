@@ -0,0 +1,120 @@
+package clarkson.ee408.tictactoev4.benchmarks;
+
+import com.google.gson.GsonBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import clarkson.ee408.tictactoev4.codec.Codecs;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+
+/**
+ * Measures the whole path of a message through {@code SocketClient}'s codecs: encoding, framing,
+ * and reading the frame back from a stream. Streams are reused, so what is left is the cost of the
+ * codec itself. Lobbies stop at 500 players because a JSON frame, written with
+ * {@link DataOutputStream#writeUTF(String)}, cannot hold more than 64K.
+ */
+@State(Scope.Thread)
+public class FramingBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    public String codecName;
+
+    @Param({"10", "100", "500"})
+    public int lobbySize;
+
+    private MessageCodec codec;
+    private Request request;
+    private PairingResponse lobby;
+    private String utf;
+    private ReusableOutput output;
+    private DataOutputStream out;
+    private byte[] requestFrame;
+    private byte[] lobbyFrame;
+    private byte[] utfFrame;
+
+    /**
+     * A {@code ByteArrayOutputStream} whose buffer can be read without copying it.
+     */
+    private static final class ReusableOutput extends ByteArrayOutputStream {
+        ReusableOutput() {
+            super(1 << 16);
+        }
+
+        byte[] buffer() {
+            return this.buf;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        this.codec = Codecs.forName(this.codecName);
+        this.request = new Request(RequestType.SEND_MOVE, "4");
+        this.lobby = Lobbies.of(this.lobbySize);
+        this.output = new ReusableOutput();
+        this.out = new DataOutputStream(this.output);
+
+        this.codec.writeRequest(this.out, this.request);
+        this.requestFrame = this.output.toByteArray();
+        this.output.reset();
+        this.codec.writeResponse(this.out, this.lobby);
+        this.lobbyFrame = this.output.toByteArray();
+        this.output.reset();
+        this.utf = new GsonBuilder().serializeNulls().create().toJson(this.lobby);
+        this.out.writeUTF(this.utf);
+        this.utfFrame = this.output.toByteArray();
+        this.output.reset();
+    }
+
+    @Benchmark
+    public int writeRequest() throws IOException {
+        this.output.reset();
+        this.codec.writeRequest(this.out, this.request);
+        return this.output.buffer()[0];
+    }
+
+    @Benchmark
+    public Request readRequest() throws IOException {
+        return this.codec.readRequest(new DataInputStream(new ByteArrayInputStream(this.requestFrame)));
+    }
+
+    @Benchmark
+    public int writePairingResponse() throws IOException {
+        this.output.reset();
+        this.codec.writeResponse(this.out, this.lobby);
+        return this.output.buffer()[0];
+    }
+
+    @Benchmark
+    public PairingResponse readPairingResponse() throws IOException {
+        return this.codec.readResponse(new DataInputStream(new ByteArrayInputStream(this.lobbyFrame)),
+                PairingResponse.class);
+    }
+
+    /**
+     * The framing alone, for the JSON of the lobby, as {@code JsonCodec} does it.
+     */
+    @Benchmark
+    public int writeUtf() throws IOException {
+        this.output.reset();
+        this.out.writeUTF(this.utf);
+        return this.output.buffer()[0];
+    }
+
+    @Benchmark
+    public String readUtf() throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(this.utfFrame)).readUTF();
+    }
+}
@@ -0,0 +1,104 @@
+package clarkson.ee408.tictactoev4.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import clarkson.ee408.tictactoev4.socket.GamingResponse;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * Measures how fast Gson turns protocol messages into JSON and back, with the same settings as
+ * {@code JsonCodec}. The lobby benchmarks show how the cost of {@code UPDATE_PAIRING} grows with
+ * the number of players online; the others are the small messages sent on every move.
+ */
+@State(Scope.Thread)
+public class GsonBenchmark {
+
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+
+    private Request request;
+    private Response response;
+    private GamingResponse gamingResponse;
+    private String requestJson;
+    private String responseJson;
+    private String gamingResponseJson;
+
+    /**
+     * A lobby of a given size, with its JSON.
+     */
+    @State(Scope.Thread)
+    public static class Lobby {
+
+        @Param({"10", "100", "1000", "10000"})
+        public int size;
+
+        PairingResponse response;
+        String json;
+
+        @Setup
+        public void setUp(GsonBenchmark benchmark) {
+            this.response = Lobbies.of(this.size);
+            this.json = benchmark.gson.toJson(this.response);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        this.request = new Request(RequestType.SEND_MOVE, "4");
+        this.response = new Response(ResponseStatus.SUCCESS, "ok");
+        this.gamingResponse = new GamingResponse(4, true);
+        this.requestJson = this.gson.toJson(this.request);
+        this.responseJson = this.gson.toJson(this.response);
+        this.gamingResponseJson = this.gson.toJson(this.gamingResponse);
+    }
+
+    @Benchmark
+    public String encodeRequest() {
+        return this.gson.toJson(this.request);
+    }
+
+    @Benchmark
+    public Request decodeRequest() {
+        return this.gson.fromJson(this.requestJson, Request.class);
+    }
+
+    @Benchmark
+    public String encodeResponse() {
+        return this.gson.toJson(this.response);
+    }
+
+    @Benchmark
+    public Response decodeResponse() {
+        return this.gson.fromJson(this.responseJson, Response.class);
+    }
+
+    @Benchmark
+    public String encodeGamingResponse() {
+        return this.gson.toJson(this.gamingResponse);
+    }
+
+    @Benchmark
+    public GamingResponse decodeGamingResponse() {
+        return this.gson.fromJson(this.gamingResponseJson, GamingResponse.class);
+    }
+
+    @Benchmark
+    public String encodePairingResponse(Lobby lobby) {
+        return this.gson.toJson(lobby.response);
+    }
+
+    @Benchmark
+    public PairingResponse decodePairingResponse(Lobby lobby) {
+        return this.gson.fromJson(lobby.json, PairingResponse.class);
+    }
+}
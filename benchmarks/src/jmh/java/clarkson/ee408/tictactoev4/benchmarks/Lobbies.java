@@ -0,0 +1,31 @@
+package clarkson.ee408.tictactoev4.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+
+/**
+ * Builds the lobbies the benchmarks encode, so that every benchmark measures the same messages.
+ */
+final class Lobbies {
+
+    private Lobbies() {
+    }
+
+    /**
+     * Returns a full lobby snapshot listing {@code size} online users, with names and display names
+     * as long as those of real players.
+     *
+     * @param size the number of available users
+     * @return the pairing response
+     */
+    static PairingResponse of(int size) {
+        List<User> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(new User("player" + i, null, "Player Number " + i, true));
+        }
+        return new PairingResponse(users, null, null);
+    }
+}
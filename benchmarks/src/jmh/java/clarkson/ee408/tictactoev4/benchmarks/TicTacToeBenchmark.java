@@ -0,0 +1,83 @@
+package clarkson.ee408.tictactoev4.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * Measures the game rules: playing moves and asking whether the game is over after each one, the
+ * way the game screen and the computer player do.
+ */
+@State(Scope.Thread)
+public class TicTacToeBenchmark {
+
+    /**
+     * The board side; the win length is 3 on the classic board and 5 on larger ones.
+     */
+    @Param({"3", "15"})
+    public int side;
+
+    private TicTacToe game;
+    private TicTacToe empty;
+    private TicTacToe finished;
+    private int[] moves;
+
+    @Setup
+    public void setUp() {
+        int winLength = this.side == 3 ? 3 : 5;
+        this.game = new TicTacToe(1, this.side, winLength);
+        // Fill the board row by row, shifting every other pair of rows, so that larger boards fill
+        // up without a winner and every move is checked
+        this.moves = new int[this.side * this.side];
+        int count = 0;
+        for (int row = 0; row < this.side; row++) {
+            int shift = (row / 2) % 2;
+            for (int col = 0; col < this.side; col++) {
+                this.moves[count++] = row * this.side + (col + shift) % this.side;
+            }
+        }
+        this.empty = new TicTacToe(1, this.side, winLength);
+        this.finished = new TicTacToe(1, this.side, winLength);
+        for (int cell : this.moves) {
+            this.finished.play(cell / this.side, cell % this.side);
+        }
+    }
+
+    /**
+     * Plays a whole game on a reused board, checking for the end after each move.
+     */
+    @Benchmark
+    public int playGame() {
+        TicTacToe game = this.game;
+        game.resetGame();
+        for (int cell : this.moves) {
+            if (game.isGameOver()) {
+                break;
+            }
+            game.play(cell / this.side, cell % this.side);
+        }
+        return game.whoWon();
+    }
+
+    /**
+     * One move taken back, the step a search repeats most.
+     */
+    @Benchmark
+    public int playAndUndo() {
+        int cell = this.moves[this.moves.length / 2];
+        int mover = this.empty.play(cell / this.side, cell % this.side);
+        this.empty.undo();
+        return mover;
+    }
+
+    @Benchmark
+    public void checkFinishedGame(Blackhole blackhole) {
+        blackhole.consume(this.finished.whoWon());
+        blackhole.consume(this.finished.isGameOver());
+    }
+}
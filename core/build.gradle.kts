@@ -0,0 +1,15 @@
+// The protocol messages, codecs, game engine and client transports, in plain Java so that the
+// app, the benchmarks and tools that run on a standard JVM can all share them
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    api("com.google.code.gson:gson:2.10.1")
+    testImplementation("junit:junit:4.13.2")
+}
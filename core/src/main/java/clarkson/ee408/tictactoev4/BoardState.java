@@ -0,0 +1,294 @@
+package clarkson.ee408.tictactoev4;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of a {@link TicTacToe} board: the marks, the player to move and the winner.
+ * <p>
+ * {@link #play(int, int)} returns a new state and leaves this one alone, so a state can be handed
+ * to other threads, e.g. a computer player thinking in the background, without locks or copies.
+ * Boards of up to 32 cells, which covers every board up to 5×5, are packed in a single
+ * {@code long}, with player 1's cells in the low half and player 2's in the high half, so playing
+ * a move allocates one small object. Larger boards keep one bitset per player in an array that is
+ * copied on every move.
+ * <p>
+ * States are values: two states are equal when their boards, win lengths and marks are, which
+ * makes them usable as map keys, and {@link #key()} gives a well-mixed 64-bit key for hash tables.
+ */
+public final class BoardState {
+
+    /**
+     * The most cells a board can have to be packed in one {@code long}.
+     */
+    private static final int MAX_PACKED_CELLS = 32;
+
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private final int side;
+    private final int winLength;
+    private final long packed;  // for small boards: player 1's cells, then player 2's from bit 32
+    private final long[] words; // for large boards: player 1's bitset, then player 2's; else null
+    private final int moveCount;
+    private final int winner;
+
+    private BoardState(int side, int winLength, long packed, long[] words, int moveCount, int winner) {
+        this.side = side;
+        this.winLength = winLength;
+        this.packed = packed;
+        this.words = words;
+        this.moveCount = moveCount;
+        this.winner = winner;
+    }
+
+    /**
+     * Returns the state of a new game.
+     *
+     * @param side the number of rows and columns
+     * @param winLength how many cells in a row win the game
+     * @return an empty board with player 1 to move
+     * @throws IllegalArgumentException if the board is not valid, as in
+     *      {@link TicTacToe#TicTacToe(int, int, int)}
+     */
+    public static BoardState empty(int side, int winLength) {
+        if (side < 1 || winLength < 1 || winLength > side) {
+            throw new IllegalArgumentException("Cannot play " + winLength + " in a row on a "
+                    + side + "x" + side + " board");
+        }
+        long[] words = side * side <= MAX_PACKED_CELLS ? null : new long[2 * wordCount(side)];
+        return new BoardState(side, winLength, 0, words, 0, 0);
+    }
+
+    /**
+     * Returns the state of a game, e.g. from {@link TicTacToe#snapshot()}.
+     *
+     * @param side the number of rows and columns
+     * @param winLength how many cells in a row win the game
+     * @param boards the bitsets of player 1 and player 2, bit {@code row * side + col} for each
+     *      cell; they are copied
+     * @param moveCount the number of marks on the board
+     * @param winner the player who completed the first line, or 0
+     * @return the state
+     */
+    static BoardState of(int side, int winLength, long[][] boards, int moveCount, int winner) {
+        int wordCount = wordCount(side);
+        if (side * side <= MAX_PACKED_CELLS) {
+            return new BoardState(side, winLength, boards[0][0] | boards[1][0] << 32, null, moveCount, winner);
+        }
+        long[] words = new long[2 * wordCount];
+        System.arraycopy(boards[0], 0, words, 0, wordCount);
+        System.arraycopy(boards[1], 0, words, wordCount, wordCount);
+        return new BoardState(side, winLength, 0, words, moveCount, winner);
+    }
+
+    /**
+     * Returns the state after the player to move marks a cell.
+     *
+     * @param row the row of the cell, from 0 to {@code getSide() - 1}
+     * @param col the column of the cell, from 0 to {@code getSide() - 1}
+     * @return the new state; this one is unchanged
+     * @throws IllegalArgumentException if the cell is outside the board or already taken
+     */
+    public BoardState play(int row, int col) {
+        if (row < 0 || row >= this.side || col < 0 || col >= this.side || getCell(row, col) != 0) {
+            throw new IllegalArgumentException("Cannot play (" + row + ", " + col + ") on this board");
+        }
+
+        int mover = getTurn();
+        int cell = row * this.side + col;
+        BoardState next;
+        if (this.words == null) {
+            long bit = 1L << (mover == 1 ? cell : cell + 32);
+            next = new BoardState(this.side, this.winLength, this.packed | bit, null, this.moveCount + 1, this.winner);
+        } else {
+            long[] words = this.words.clone();
+            words[(mover - 1) * wordCount(this.side) + cell / Long.SIZE] |= 1L << cell;
+            next = new BoardState(this.side, this.winLength, 0, words, this.moveCount + 1, this.winner);
+        }
+
+        if (this.winner == 0 && next.completesLine(mover, row, col)) {
+            return new BoardState(next.side, next.winLength, next.packed, next.words, next.moveCount, mover);
+        }
+        return next;
+    }
+
+    /**
+     * Returns which player holds a cell.
+     *
+     * @param row the row of the cell, from 0 to {@code getSide() - 1}
+     * @param col the column of the cell, from 0 to {@code getSide() - 1}
+     * @return 1 or 2, or 0 if the cell is empty
+     */
+    public int getCell(int row, int col) {
+        int cell = row * this.side + col;
+        if (this.words == null) {
+            if ((this.packed >>> cell & 1) != 0) {
+                return 1;
+            }
+            return (this.packed >>> (cell + 32) & 1) != 0 ? 2 : 0;
+        }
+        int word = cell / Long.SIZE;
+        if ((this.words[word] >>> cell & 1) != 0) {
+            return 1;
+        }
+        return (this.words[wordCount(this.side) + word] >>> cell & 1) != 0 ? 2 : 0;
+    }
+
+    /**
+     * Returns whose turn it is; player 1 always moves first.
+     *
+     * @return 1 or 2
+     */
+    public int getTurn() {
+        return this.moveCount % 2 == 0 ? 1 : 2;
+    }
+
+    /**
+     * Returns the player who first completed a line of the win length.
+     *
+     * @return the winning player, or 0 if nobody has won
+     */
+    public int whoWon() {
+        return this.winner;
+    }
+
+    /**
+     * Returns whether the game is over.
+     *
+     * @return true if someone won or every cell is taken
+     */
+    public boolean isGameOver() {
+        return this.winner != 0 || this.moveCount == this.side * this.side;
+    }
+
+    /**
+     * Returns the number of marks on the board.
+     *
+     * @return the number of moves played
+     */
+    public int getMoveCount() {
+        return this.moveCount;
+    }
+
+    /**
+     * Returns the number of rows and columns.
+     *
+     * @return the side of the board
+     */
+    public int getSide() {
+        return this.side;
+    }
+
+    /**
+     * Returns how many cells in a row win the game.
+     *
+     * @return the win length
+     */
+    public int getWinLength() {
+        return this.winLength;
+    }
+
+    /**
+     * Returns a 64-bit key for the marks on the board. On boards of up to 32 cells, different
+     * boards always get different keys.
+     *
+     * @return the key, with its bits mixed well enough to index a hash table by its low bits
+     */
+    public long key() {
+        if (this.words == null) {
+            return mix(this.packed);
+        }
+        long key = this.side;
+        for (long word : this.words) {
+            key = mix(key ^ word);
+        }
+        return key;
+    }
+
+    /**
+     * Builds a game in this state, e.g. for a search to play moves on. Its history holds the marks
+     * of each player in increasing cell order, which only matters to {@link TicTacToe#undo()}, and
+     * if both players hold a line, which only happens when play went on after a win, the game may
+     * name the other one the winner.
+     *
+     * @param player the player number of the new game, as in {@link TicTacToe#TicTacToe(int)}
+     * @return a new game with the same marks and the same player to move
+     */
+    public TicTacToe toGame(int player) {
+        TicTacToe game = new TicTacToe(player, this.side, this.winLength);
+        int cells = this.side * this.side;
+        // Alternate between the players' marks, so that the turns come out right
+        int nextOne = nextCell(1, 0);
+        int nextTwo = nextCell(2, 0);
+        while (nextOne < cells || nextTwo < cells) {
+            int cell = game.getTurn() == 1 ? nextOne : nextTwo;
+            game.play(cell / this.side, cell % this.side);
+            if (game.getTurn() == 2) {
+                nextOne = nextCell(1, cell + 1);
+            } else {
+                nextTwo = nextCell(2, cell + 1);
+            }
+        }
+        return game;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BoardState that = (BoardState) o;
+        return this.side == that.side && this.winLength == that.winLength && this.packed == that.packed
+                && Arrays.equals(this.words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (key() >>> 32);
+    }
+
+    private int nextCell(int owner, int from) {
+        int cells = this.side * this.side;
+        int cell = from;
+        while (cell < cells && getCell(cell / this.side, cell % this.side) != owner) {
+            cell++;
+        }
+        return cell;
+    }
+
+    private boolean completesLine(int owner, int row, int col) {
+        for (int[] direction : DIRECTIONS) {
+            int length = 1
+                    + countFrom(owner, row, col, direction[0], direction[1])
+                    + countFrom(owner, row, col, -direction[0], -direction[1]);
+            if (length >= this.winLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int countFrom(int owner, int row, int col, int rowStep, int colStep) {
+        int count = 0;
+        int r = row + rowStep;
+        int c = col + colStep;
+        while (count < this.winLength - 1 && r >= 0 && r < this.side && c >= 0 && c < this.side
+                && getCell(r, c) == owner) {
+            count++;
+            r += rowStep;
+            c += colStep;
+        }
+        return count;
+    }
+
+    private static int wordCount(int side) {
+        return (side * side + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * The SplitMix64 finalizer: a bijection, so distinct packed boards keep distinct keys.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
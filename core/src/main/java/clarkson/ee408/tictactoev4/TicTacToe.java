@@ -0,0 +1,453 @@
+package clarkson.ee408.tictactoev4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A game of K-in-a-row on an N×N board between player 1 and player 2, who always moves second.
+ * Classic tic-tac-toe is a 3×3 board with 3 in a row; Gomoku is a 15×15 board with 5 in a row.
+ * <p>
+ * The board is kept as one bitset per player, where bit {@code row * side + col} is set when the
+ * player holds that cell. A move can only complete lines that run through it, so {@link #play}
+ * only looks at the lines through the move and remembers the first player to reach the win
+ * length. Checking for a winner or a full board therefore takes constant time.
+ * <p>
+ * Boards of up to 64 cells, classic tic-tac-toe among them, fit in a single word per player. For
+ * those every winning line is precomputed as a mask, and a move is checked against the masks of
+ * the lines through its cell: 8 lines in all on the classic board, at most 4 through any cell.
+ * Larger boards count the player's cells along the four directions through the move instead, in
+ * time proportional to the win length rather than to the size of the board.
+ */
+public class TicTacToe {
+
+    /**
+     * The side of the classic board, used when no size is given.
+     */
+    public static final int SIDE = 3;
+
+    /**
+     * The directions of the four lines through a cell: across, down, down-right and down-left.
+     */
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    /**
+     * The largest board whose winning lines are kept as masks: one that fits in a single long.
+     */
+    private static final int MAX_MASKED_CELLS = Long.SIZE;
+
+    /**
+     * The line masks of every board size and win length played so far, shared by all games.
+     */
+    private static final Map<Integer, long[][]> LINE_MASKS = new ConcurrentHashMap<>();
+
+    private final int side;
+    private final int winLength;
+    private final long[][] boards; // boards[player - 1] holds the cells of player 1 or 2
+    private final int[] history; // the cells played so far, in order, then the moves undone
+    private final long[][] cellLines; // cellLines[cell] holds the masks of the lines through it, or null
+    private int moves;
+    private int historyLength; // moves plus the number of moves that can be redone
+    private int winner;
+    private int winningMove; // the number of moves played when the winner completed a line
+    private int turn;
+    private int player;
+
+    /**
+     * Creates a new TicTacToe game board with the given {@code player}.
+     *
+     * @param player the initial player number
+     */
+    public TicTacToe(int player) {
+        this(player, SIDE, SIDE);
+    }
+
+    /**
+     * Creates a new game on a {@code side}×{@code side} board, won by the first player to get
+     * {@code winLength} cells in a row, column or diagonal.
+     *
+     * @param player the initial player number
+     * @param side the number of rows and columns
+     * @param winLength how many cells in a row win the game
+     * @throws IllegalArgumentException if {@code side} or {@code winLength} is not positive, or
+     *      {@code winLength} is larger than {@code side}
+     */
+    public TicTacToe(int player, int side, int winLength) {
+        if (side < 1 || winLength < 1 || winLength > side) {
+            throw new IllegalArgumentException("Cannot play " + winLength + " in a row on a "
+                    + side + "x" + side + " board");
+        }
+        this.side = side;
+        this.winLength = winLength;
+        this.boards = new long[2][(side * side + Long.SIZE - 1) / Long.SIZE];
+        this.history = new int[side * side];
+        this.cellLines = side * side <= MAX_MASKED_CELLS
+                ? LINE_MASKS.computeIfAbsent(side * (MAX_MASKED_CELLS + 1) + winLength,
+                        key -> lineMasks(side, winLength))
+                : null;
+        this.player = player;
+
+        resetGame();
+    }
+
+    /**
+     * Creates a copy of {@code other}, e.g. for a search to play moves on without touching the
+     * game on screen.
+     *
+     * @param other the game to copy
+     */
+    public TicTacToe(TicTacToe other) {
+        this.side = other.side;
+        this.winLength = other.winLength;
+        this.boards = new long[][]{other.boards[0].clone(), other.boards[1].clone()};
+        this.history = other.history.clone();
+        this.cellLines = other.cellLines;
+        this.moves = other.moves;
+        this.historyLength = other.historyLength;
+        this.winner = other.winner;
+        this.winningMove = other.winningMove;
+        this.turn = other.turn;
+        this.player = other.player;
+    }
+
+    /**
+     * Places a mark for the player whose turn it is and passes the turn to the other player.
+     *
+     * @param row the row of the cell, from 0 to {@code getSide() - 1}
+     * @param col the column of the cell, from 0 to {@code getSide() - 1}
+     * @return the player who moved, or 0 if the cell is outside the board or already taken
+     */
+    public int play(int row, int col) {
+        int currentTurn = turn;
+        if (!isOnBoard(row, col) || getCell(row, col) != 0)
+            return 0;
+
+        place(row * side + col);
+        // A new move forgets the moves that were undone
+        historyLength = moves;
+        return currentTurn;
+    }
+
+    /**
+     * Plays again the last move taken back by {@link #undo()}, unless a move was played since.
+     *
+     * @return true if a move was played again, false if there is nothing to redo
+     */
+    public boolean redo() {
+        if (moves == historyLength)
+            return false;
+
+        place(history[moves]);
+        return true;
+    }
+
+    /**
+     * Takes back the last move and gives the turn back to the player who made it. The move is
+     * kept, so {@link #redo()} can play it again.
+     *
+     * @return true if a move was taken back, false if the board is empty
+     */
+    public boolean undo() {
+        if (moves == 0)
+            return false;
+
+        int cell = history[--moves];
+        int previousTurn = turn == 1 ? 2 : 1;
+        boards[previousTurn - 1][cell / Long.SIZE] &= ~(1L << cell);
+        if (winningMove > moves) {
+            winner = 0;
+            winningMove = 0;
+        }
+        turn = previousTurn;
+        return true;
+    }
+
+    /**
+     * Takes an immutable snapshot of the board, which other threads can read while this game goes on.
+     *
+     * @return the current marks, player to move and winner
+     */
+    public BoardState snapshot() {
+        return BoardState.of(side, winLength, boards, moves, winner);
+    }
+
+    /**
+     * Returns a move played so far.
+     *
+     * @param index the number of the move, from 0 to {@code getMoveCount() - 1}
+     * @return the cell, {@code row * getSide() + col}
+     * @throws IndexOutOfBoundsException if no such move was played
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= moves)
+            throw new IndexOutOfBoundsException("Move " + index + " of " + moves);
+        return history[index];
+    }
+
+    /**
+     * Returns which player holds a cell.
+     *
+     * @param row the row of the cell, from 0 to {@code getSide() - 1}
+     * @param col the column of the cell, from 0 to {@code getSide() - 1}
+     * @return 1 or 2, or 0 if the cell is empty
+     */
+    public int getCell(int row, int col) {
+        if (holds(1, row, col))
+            return 1;
+        if (holds(2, row, col))
+            return 2;
+        return 0;
+    }
+
+    /**
+     * Returns the player who first completed a line of the win length.
+     *
+     * @return the winning player, or 0 if nobody has won
+     */
+    public int whoWon() {
+        return winner;
+    }
+
+    /**
+     * Scans every row for a line of the win length. Kept for subclasses; the game itself tracks
+     * the winner as moves are played.
+     *
+     * @return the player holding the first such line found, or 0 if there is none
+     */
+    protected int checkRows() {
+        for (int row = 0; row < side; row++)
+            for (int col = 0; col + winLength <= side; col++) {
+                int owner = lineOwner(row, col, 0, 1);
+                if (owner > 0)
+                    return owner;
+            }
+        return 0;
+    }
+
+    /**
+     * Scans every column for a line of the win length. Kept for subclasses; the game itself
+     * tracks the winner as moves are played.
+     *
+     * @return the player holding the first such line found, or 0 if there is none
+     */
+    protected int checkColumns() {
+        for (int col = 0; col < side; col++)
+            for (int row = 0; row + winLength <= side; row++) {
+                int owner = lineOwner(row, col, 1, 0);
+                if (owner > 0)
+                    return owner;
+            }
+        return 0;
+    }
+
+    /**
+     * Scans every diagonal for a line of the win length, down-right ones first. Kept for
+     * subclasses; the game itself tracks the winner as moves are played.
+     *
+     * @return the player holding the first such line found, or 0 if there is none
+     */
+    protected int checkDiagonals() {
+        for (int row = 0; row + winLength <= side; row++)
+            for (int col = 0; col + winLength <= side; col++) {
+                int owner = lineOwner(row, col, 1, 1);
+                if (owner > 0)
+                    return owner;
+            }
+        for (int row = 0; row + winLength <= side; row++)
+            for (int col = winLength - 1; col < side; col++) {
+                int owner = lineOwner(row, col, 1, -1);
+                if (owner > 0)
+                    return owner;
+            }
+        return 0;
+    }
+
+    /**
+     * Returns whether every cell is taken.
+     *
+     * @return true if no move is left
+     */
+    public boolean canNotPlay() {
+        if (cellLines != null)
+            return Long.bitCount(boards[0][0] | boards[1][0]) == side * side;
+        return moves == side * side;
+    }
+
+    public boolean isGameOver() {
+        return canNotPlay() || (whoWon() > 0);
+    }
+
+    public void resetGame() {
+        for (long[] board : boards)
+            Arrays.fill(board, 0L);
+        moves = 0;
+        historyLength = 0;
+        winner = 0;
+        winningMove = 0;
+        turn = 1;
+    }
+
+    public String result() {
+        final int whoWon = whoWon();
+
+        if (whoWon > 0) {
+            if (this.player == whoWon) {
+                return "You Won";
+            } else {
+                return "You Lost";
+            }
+        } else if (canNotPlay()) {
+            return "Tie Game";
+        } else {
+            return "PLAY !!";
+        }
+    }
+
+    /**
+     * Returns the number of rows, which is also the number of columns. Moves are sent to the
+     * server as {@code row * getSide() + col}.
+     *
+     * @return the side of the board
+     */
+    public int getSide() {
+        return this.side;
+    }
+
+    /**
+     * Returns how many moves have been played since the last reset.
+     *
+     * @return the number of taken cells
+     */
+    public int getMoveCount() {
+        return this.moves;
+    }
+
+    /**
+     * Returns how many cells in a row win the game.
+     *
+     * @return the win length
+     */
+    public int getWinLength() {
+        return this.winLength;
+    }
+
+    /**
+     * Return the current player number.
+     *
+     * @return the player number
+     */
+    public int getPlayer() {
+        return this.player;
+    }
+
+    /**
+     * Set the player number.
+     *
+     * @param player the new player number
+     */
+    public void setPlayer(int player) {
+        this.player = player;
+    }
+
+    /**
+     * Gets which player number currently owns the board and can make a move.
+     *
+     * @return the owner of the board
+     */
+    public int getTurn() {
+        return this.turn;
+    }
+
+    private boolean completesLine(int owner, int row, int col) {
+        if (cellLines != null) {
+            long board = boards[owner - 1][0];
+            for (long mask : cellLines[row * side + col])
+                if ((board & mask) == mask)
+                    return true;
+            return false;
+        }
+        for (int[] direction : DIRECTIONS) {
+            int length = 1
+                    + countFrom(owner, row, col, direction[0], direction[1])
+                    + countFrom(owner, row, col, -direction[0], -direction[1]);
+            if (length >= winLength)
+                return true;
+        }
+        return false;
+    }
+
+    private void place(int cell) {
+        int currentTurn = turn;
+        boards[currentTurn - 1][cell / Long.SIZE] |= 1L << cell;
+        history[moves++] = cell;
+        if (winner == 0 && completesLine(currentTurn, cell / side, cell % side)) {
+            winner = currentTurn;
+            winningMove = moves;
+        }
+        turn = currentTurn == 1 ? 2 : 1;
+    }
+
+    private static long[][] lineMasks(int side, int winLength) {
+        // Every line of winLength cells, listed under each of the cells it runs through
+        List<List<Long>> lines = new ArrayList<>(side * side);
+        for (int cell = 0; cell < side * side; cell++)
+            lines.add(new ArrayList<>());
+        for (int[] direction : DIRECTIONS)
+            for (int row = 0; row < side; row++)
+                for (int col = 0; col < side; col++) {
+                    int lastRow = row + (winLength - 1) * direction[0];
+                    int lastCol = col + (winLength - 1) * direction[1];
+                    if (lastRow < 0 || lastRow >= side || lastCol < 0 || lastCol >= side)
+                        continue;
+                    long mask = 0;
+                    for (int i = 0; i < winLength; i++)
+                        mask |= 1L << ((row + i * direction[0]) * side + col + i * direction[1]);
+                    for (int i = 0; i < winLength; i++)
+                        lines.get((row + i * direction[0]) * side + col + i * direction[1]).add(mask);
+                }
+
+        long[][] masks = new long[side * side][];
+        for (int cell = 0; cell < masks.length; cell++) {
+            masks[cell] = new long[lines.get(cell).size()];
+            for (int i = 0; i < masks[cell].length; i++)
+                masks[cell][i] = lines.get(cell).get(i);
+        }
+        return masks;
+    }
+
+    private int countFrom(int owner, int row, int col, int rowStep, int colStep) {
+        // Cells held by owner next to (row, col) in one direction; no need to look past a win
+        int count = 0;
+        int r = row + rowStep;
+        int c = col + colStep;
+        while (count < winLength - 1 && holds(owner, r, c)) {
+            count++;
+            r += rowStep;
+            c += colStep;
+        }
+        return count;
+    }
+
+    private int lineOwner(int row, int col, int rowStep, int colStep) {
+        int owner = getCell(row, col);
+        if (owner == 0)
+            return 0;
+        for (int i = 1; i < winLength; i++)
+            if (!holds(owner, row + i * rowStep, col + i * colStep))
+                return 0;
+        return owner;
+    }
+
+    private boolean holds(int owner, int row, int col) {
+        if (!isOnBoard(row, col))
+            return false;
+        int cell = row * side + col;
+        return (boards[owner - 1][cell / Long.SIZE] & (1L << cell)) != 0;
+    }
+
+    private boolean isOnBoard(int row, int col) {
+        return row >= 0 && col >= 0 && row < side && col < side;
+    }
+}
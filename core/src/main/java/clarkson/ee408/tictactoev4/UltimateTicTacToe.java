@@ -0,0 +1,362 @@
+package clarkson.ee408.tictactoev4;
+
+/**
+ * A game of ultimate tic-tac-toe: nine classic boards laid out as a 3×3 macro board, 81 cells in
+ * all, between player 1 and player 2, who always moves second.
+ * <p>
+ * Where a player moves inside a small board picks the small board the opponent must play in next:
+ * a move in the top-right cell of any small board sends the opponent to the top-right board. A
+ * small board is won by 3 in a row inside it and drawn when it fills up; once decided, nobody may
+ * play in it, and a player sent there may play in any board still open instead. The first player
+ * to win 3 small boards in a row wins the game, and the game is a tie when every small board is
+ * decided without that.
+ * <p>
+ * Cells are numbered {@code row * 9 + col} over the whole 9×9 grid, the same numbering
+ * {@link TicTacToe} uses on a board of side 9, so moves travel over the network unchanged. Each
+ * small board is one {@code int} holding player 1's nine cells in bits 0-8 and player 2's in bits
+ * 9-17, and the macro board is one 9-bit mask of small boards per player, so checking a move only
+ * looks at the lines through it in one small board, and at the macro board when it wins that
+ * board. The game allocates nothing after it is created, which makes it cheap to search.
+ */
+public class UltimateTicTacToe {
+
+    /**
+     * The number of rows and columns of the whole grid.
+     */
+    public static final int SIDE = 9;
+
+    /**
+     * The number of cells of the whole grid.
+     */
+    public static final int CELLS = SIDE * SIDE;
+
+    private static final int BOARD_MASK = 0x1FF;
+    private static final int[] LINES = {0x007, 0x038, 0x1C0, 0x049, 0x092, 0x124, 0x111, 0x054};
+
+    /**
+     * For each cell of a small board, the lines of three through it.
+     */
+    private static final int[][] LINES_THROUGH = new int[9][];
+
+    /**
+     * For each cell of the grid, its small board and its cell inside the small board.
+     */
+    private static final byte[] BOARD_OF = new byte[CELLS];
+    private static final byte[] INNER_OF = new byte[CELLS];
+
+    static {
+        for (int cell = 0; cell < 9; cell++) {
+            int count = 0;
+            for (int line : LINES) {
+                if ((line >>> cell & 1) != 0) {
+                    count++;
+                }
+            }
+            LINES_THROUGH[cell] = new int[count];
+            count = 0;
+            for (int line : LINES) {
+                if ((line >>> cell & 1) != 0) {
+                    LINES_THROUGH[cell][count++] = line;
+                }
+            }
+        }
+        for (int row = 0; row < SIDE; row++) {
+            for (int col = 0; col < SIDE; col++) {
+                BOARD_OF[row * SIDE + col] = (byte) ((row / 3) * 3 + col / 3);
+                INNER_OF[row * SIDE + col] = (byte) ((row % 3) * 3 + col % 3);
+            }
+        }
+    }
+
+    private final int[] boards = new int[9];     // player 1's cells, then player 2's from bit 9
+    private final int[] macro = new int[2];      // the small boards won by each player
+    private final int[] history = new int[CELLS];
+    private final int[] previousTargets = new int[CELLS]; // the target before each move
+    private int decided;   // the small boards won or full
+    private int target;    // the small board the player to move must play in, or -1 for any
+    private int moves;
+    private int winner;
+    private int winningMove; // the number of moves played when the winner won the macro board
+    private int turn;
+    private int player;
+
+    /**
+     * Creates a new game with the given {@code player}.
+     *
+     * @param player the initial player number
+     */
+    public UltimateTicTacToe(int player) {
+        this.player = player;
+        resetGame();
+    }
+
+    /**
+     * Creates a copy of {@code other}, e.g. for a search to play moves on.
+     *
+     * @param other the game to copy
+     */
+    public UltimateTicTacToe(UltimateTicTacToe other) {
+        System.arraycopy(other.boards, 0, this.boards, 0, this.boards.length);
+        System.arraycopy(other.macro, 0, this.macro, 0, this.macro.length);
+        System.arraycopy(other.history, 0, this.history, 0, other.moves);
+        System.arraycopy(other.previousTargets, 0, this.previousTargets, 0, other.moves);
+        this.decided = other.decided;
+        this.target = other.target;
+        this.moves = other.moves;
+        this.winner = other.winner;
+        this.winningMove = other.winningMove;
+        this.turn = other.turn;
+        this.player = other.player;
+    }
+
+    /**
+     * Places a mark for the player whose turn it is and passes the turn to the other player.
+     *
+     * @param row the row of the cell in the whole grid, from 0 to 8
+     * @param col the column of the cell in the whole grid, from 0 to 8
+     * @return the player who moved, or 0 if the move is not legal
+     */
+    public int play(int row, int col) {
+        if (row < 0 || row >= SIDE || col < 0 || col >= SIDE || !isLegal(row * SIDE + col))
+            return 0;
+
+        int currentTurn = turn;
+        int cell = row * SIDE + col;
+        int board = BOARD_OF[cell];
+        int inner = INNER_OF[cell];
+        int shift = (currentTurn - 1) * 9;
+
+        boards[board] |= 1 << (inner + shift);
+        previousTargets[moves] = target;
+        history[moves++] = cell;
+        int mine = boards[board] >>> shift & BOARD_MASK;
+        if (completesLine(mine, inner)) {
+            macro[currentTurn - 1] |= 1 << board;
+            decided |= 1 << board;
+            if (winner == 0 && completesLine(macro[currentTurn - 1], board)) {
+                winner = currentTurn;
+                winningMove = moves;
+            }
+        } else if (((boards[board] | boards[board] >>> 9) & BOARD_MASK) == BOARD_MASK) {
+            decided |= 1 << board;
+        }
+
+        target = (decided >>> inner & 1) != 0 ? -1 : inner;
+        turn = currentTurn == 1 ? 2 : 1;
+        return currentTurn;
+    }
+
+    /**
+     * Takes back the last move and gives the turn back to the player who made it.
+     *
+     * @return true if a move was taken back, false if the board is empty
+     */
+    public boolean undo() {
+        if (moves == 0)
+            return false;
+
+        int cell = history[--moves];
+        int previousTurn = turn == 1 ? 2 : 1;
+        int board = BOARD_OF[cell];
+        int inner = INNER_OF[cell];
+        boards[board] &= ~(1 << (inner + (previousTurn - 1) * 9));
+        // A small board only changes state on the move that decides it, which may be this one
+        macro[previousTurn - 1] &= ~(1 << board);
+        decided &= ~(1 << board);
+        if (winningMove > moves) {
+            winner = 0;
+            winningMove = 0;
+        }
+        target = previousTargets[moves];
+        turn = previousTurn;
+        return true;
+    }
+
+    /**
+     * Returns whether the player to move may mark a cell.
+     *
+     * @param cell the cell, {@code row * 9 + col}
+     * @return true if the cell is empty, in an open small board, and in the target board if there
+     *      is one
+     */
+    public boolean isLegal(int cell) {
+        if (cell < 0 || cell >= CELLS || isGameOver())
+            return false;
+        int board = BOARD_OF[cell];
+        int inner = INNER_OF[cell];
+        return (target < 0 || target == board)
+                && (decided >>> board & 1) == 0
+                && ((boards[board] | boards[board] >>> 9) >>> inner & 1) == 0;
+    }
+
+    /**
+     * Lists the legal moves of the player to move.
+     *
+     * @param moves where to put the cells, {@code row * 9 + col}; it must hold at least 81
+     * @return the number of moves listed, 0 if the game is over
+     */
+    public int generateMoves(int[] moves) {
+        if (isGameOver())
+            return 0;
+
+        int count = 0;
+        int first = target < 0 ? 0 : target;
+        int last = target < 0 ? 8 : target;
+        for (int board = first; board <= last; board++) {
+            if ((decided >>> board & 1) != 0)
+                continue;
+            int empty = ~(boards[board] | boards[board] >>> 9) & BOARD_MASK;
+            int top = (board / 3) * 3 * SIDE + (board % 3) * 3;
+            while (empty != 0) {
+                int inner = Integer.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+                moves[count++] = top + (inner / 3) * SIDE + inner % 3;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns which player holds a cell.
+     *
+     * @param row the row of the cell in the whole grid, from 0 to 8
+     * @param col the column of the cell in the whole grid, from 0 to 8
+     * @return 1 or 2, or 0 if the cell is empty
+     */
+    public int getCell(int row, int col) {
+        int cell = row * SIDE + col;
+        int board = boards[BOARD_OF[cell]];
+        int inner = INNER_OF[cell];
+        if ((board >>> inner & 1) != 0)
+            return 1;
+        return (board >>> (inner + 9) & 1) != 0 ? 2 : 0;
+    }
+
+    /**
+     * Returns the state of a small board.
+     *
+     * @param board the small board, {@code boardRow * 3 + boardCol}, from 0 to 8
+     * @return the player who won it, 1 or 2, 3 if it filled up without a winner, or 0 if it is open
+     */
+    public int getBoardState(int board) {
+        if ((macro[0] >>> board & 1) != 0)
+            return 1;
+        if ((macro[1] >>> board & 1) != 0)
+            return 2;
+        return (decided >>> board & 1) != 0 ? 3 : 0;
+    }
+
+    /**
+     * Returns the small board the player to move must play in.
+     *
+     * @return the small board, from 0 to 8, or -1 if any open board may be played
+     */
+    public int getTargetBoard() {
+        return target;
+    }
+
+    /**
+     * Returns the player who first won three small boards in a row.
+     *
+     * @return the winning player, or 0 if nobody has won
+     */
+    public int whoWon() {
+        return winner;
+    }
+
+    /**
+     * Returns whether the game is over.
+     *
+     * @return true if someone won, or every small board is decided
+     */
+    public boolean isGameOver() {
+        return winner != 0 || decided == BOARD_MASK;
+    }
+
+    /**
+     * Empties every board for a new game, with player 1 to move anywhere.
+     */
+    public void resetGame() {
+        for (int board = 0; board < boards.length; board++)
+            boards[board] = 0;
+        macro[0] = 0;
+        macro[1] = 0;
+        decided = 0;
+        target = -1;
+        moves = 0;
+        winner = 0;
+        winningMove = 0;
+        turn = 1;
+    }
+
+    /**
+     * Returns the outcome of the game from this player's point of view.
+     *
+     * @return a message for the end of the game, or "PLAY !!" while it is not over, the same
+     *      text as {@link TicTacToe#result()}
+     */
+    public String result() {
+        if (winner > 0)
+            return this.player == winner ? "You Won" : "You Lost";
+        if (isGameOver())
+            return "Tie Game";
+        return "PLAY !!";
+    }
+
+    /**
+     * Returns the number of moves played so far.
+     *
+     * @return the number of marks on the grid
+     */
+    public int getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * Returns a move played so far.
+     *
+     * @param index the number of the move, from 0 to {@code getMoveCount() - 1}
+     * @return the cell, {@code row * 9 + col}
+     * @throws IndexOutOfBoundsException if no such move was played
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= moves)
+            throw new IndexOutOfBoundsException("Move " + index + " of " + moves);
+        return history[index];
+    }
+
+    /**
+     * Gets the player number.
+     *
+     * @return the player number
+     */
+    public int getPlayer() {
+        return this.player;
+    }
+
+    /**
+     * Sets the player number.
+     *
+     * @param player the player number
+     */
+    public void setPlayer(int player) {
+        this.player = player;
+    }
+
+    /**
+     * Gets which player number can make the next move.
+     *
+     * @return 1 or 2
+     */
+    public int getTurn() {
+        return this.turn;
+    }
+
+    private static boolean completesLine(int mask, int cell) {
+        for (int line : LINES_THROUGH[cell]) {
+            if ((mask & line) == line)
+                return true;
+        }
+        return false;
+    }
+}
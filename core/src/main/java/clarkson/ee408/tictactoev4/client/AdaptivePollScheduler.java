@@ -0,0 +1,181 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a polling task with a delay that adapts to what the polls find.
+ * <p>
+ * The next poll is only scheduled once the current one reports back through
+ * {@link #pollCompleted(boolean)} or {@link #pollNow()}, so slow responses never pile up. Polls
+ * that find nothing new double the delay up to a maximum, a poll that finds a change resets it to
+ * the base delay, and {@link #burst()} polls at a short delay for a while when a change is likely
+ * soon, e.g. right after our own move. Every delay is jittered so that many clients do not end up
+ * polling in lockstep.
+ * <p>
+ * The timer only hands the task over to {@code executor}, so the task can touch the user
+ * interface when {@code executor} is the main thread executor. All methods are thread-safe.
+ */
+public final class AdaptivePollScheduler {
+
+    /**
+     * How many polls use the burst delay after a call to {@link #burst()}.
+     */
+    public static final int BURST_POLLS = 8;
+
+    /**
+     * Each delay is randomly stretched or shrunk by up to this fraction.
+     */
+    private static final double JITTER_FRACTION = 0.2;
+
+    private final Runnable task;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private final long burstDelayMillis;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    private long delayMillis;
+    private int burstPollsLeft;
+    private boolean running;
+    private int generation; // invalidates polls scheduled before the latest reschedule
+    private ScheduledFuture<?> pending;
+
+    /**
+     * Creates a new instance of {@code AdaptivePollScheduler}. Nothing runs until {@link #start()}.
+     *
+     * @param task the poll to run; every run must end with a call to {@link #pollCompleted(boolean)}
+     *      or {@link #pollNow()}, possibly after its response arrives
+     * @param executor the executor that runs {@code task}
+     * @param timer the executor that waits out the delays
+     * @param burstDelayMillis the delay between polls after {@link #burst()}
+     * @param baseDelayMillis the delay after a poll that found a change
+     * @param maxDelayMillis the longest delay to back off to
+     */
+    public AdaptivePollScheduler(Runnable task, Executor executor, ScheduledExecutorService timer,
+                                 long burstDelayMillis, long baseDelayMillis, long maxDelayMillis) {
+        this.task = task;
+        this.executor = executor;
+        this.timer = timer;
+        this.burstDelayMillis = burstDelayMillis;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.delayMillis = baseDelayMillis;
+    }
+
+    /**
+     * Starts polling right away at the base delay. Has no effect if already started.
+     */
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+        this.running = true;
+        this.delayMillis = this.baseDelayMillis;
+        schedule(0);
+    }
+
+    /**
+     * Stops polling. Reports from a poll that is still in flight are ignored.
+     */
+    public synchronized void stop() {
+        this.running = false;
+        cancelPending();
+    }
+
+    /**
+     * Returns whether the scheduler has been started and not stopped since.
+     *
+     * @return true if polling
+     */
+    public synchronized boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Polls at the burst delay for the next {@link #BURST_POLLS} polls, bringing a poll that is
+     * already scheduled further out forward.
+     */
+    public synchronized void burst() {
+        this.burstPollsLeft = BURST_POLLS;
+        this.delayMillis = this.baseDelayMillis;
+        if (this.running && this.pending != null
+                && this.pending.getDelay(TimeUnit.MILLISECONDS) > this.burstDelayMillis) {
+            schedule(nextDelayMillis());
+        }
+    }
+
+    /**
+     * Schedules the next poll after the one that just finished.
+     *
+     * @param changed true if the poll found something new, false to back off further
+     */
+    public synchronized void pollCompleted(boolean changed) {
+        if (!this.running) {
+            return;
+        }
+        this.delayMillis = changed
+                ? this.baseDelayMillis
+                : Math.min(this.delayMillis * 2, this.maxDelayMillis);
+        schedule(nextDelayMillis());
+    }
+
+    /**
+     * Runs the next poll right away, e.g. after a long poll that the server held returns.
+     */
+    public synchronized void pollNow() {
+        if (this.running) {
+            schedule(0);
+        }
+    }
+
+    /**
+     * Returns the delay polls currently back off to, without burst or jitter.
+     *
+     * @return the current delay in milliseconds
+     */
+    public synchronized long getDelayMillis() {
+        return this.delayMillis;
+    }
+
+    private long nextDelayMillis() {
+        // Synchronization is handled by the caller
+        long delay = this.delayMillis;
+        if (this.burstPollsLeft > 0) {
+            this.burstPollsLeft--;
+            delay = this.burstDelayMillis;
+        }
+        double jitter = 1 + ThreadLocalRandom.current().nextDouble(-JITTER_FRACTION, JITTER_FRACTION);
+        return Math.round(delay * jitter);
+    }
+
+    private void schedule(long delay) {
+        // Synchronization is handled by the caller
+        cancelPending();
+        final int scheduled = this.generation;
+        this.pending = this.timer.schedule(() -> this.executor.execute(() -> run(scheduled)),
+                delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelPending() {
+        // Synchronization is handled by the caller
+        this.generation++;
+        if (this.pending != null) {
+            this.pending.cancel(false);
+            this.pending = null;
+        }
+    }
+
+    private void run(int scheduled) {
+        synchronized (this) {
+            if (!this.running || scheduled != this.generation) {
+                return; // Stopped or rescheduled while waiting for the executor
+            }
+            this.pending = null;
+        }
+        this.task.run();
+    }
+}
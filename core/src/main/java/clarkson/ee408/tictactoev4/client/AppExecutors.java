@@ -15,13 +15,9 @@
  */
 package clarkson.ee408.tictactoev4.client;
 
-import android.os.Handler;
-import android.os.Looper;
-
-import androidx.annotation.NonNull;
-
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Global executor pools for the whole application.
@@ -34,9 +30,12 @@ public class AppExecutors {
 
     private static final Object LOCK = new Object();
     private static AppExecutors sInstance;
+    private static Executor sMainThread;
     private final Executor diskIO;
     private final Executor mainThread;
     private final Executor networkIO;
+    private final ScheduledExecutorService scheduler;
+    private final Executor computation;
 
     /**
      * A private constructor that instantiate the class and set attributes
@@ -45,11 +44,16 @@ public class AppExecutors {
      * @param diskIO Executor for disk I/O threads (e.g., save or read files, query local database)
      * @param networkIO Executor for network I/O threads (e.g., communicate with the internet)
      * @param mainThread Executor for the main thread (e.g., change text on the user interface)
+     * @param scheduler Executor for delayed tasks (e.g., wait before the next poll)
+     * @param computation Executor for CPU-bound work (e.g., search for the computer's next move)
      */
-    private AppExecutors(Executor diskIO, Executor networkIO, Executor mainThread) {
+    private AppExecutors(Executor diskIO, Executor networkIO, Executor mainThread, ScheduledExecutorService scheduler,
+                         Executor computation) {
         this.diskIO = diskIO;
         this.networkIO = networkIO;
         this.mainThread = mainThread;
+        this.scheduler = scheduler;
+        this.computation = computation;
     }
 
     /**
@@ -62,12 +66,30 @@ public class AppExecutors {
             synchronized (LOCK) {
                 sInstance = new AppExecutors(Executors.newSingleThreadExecutor(),
                         Executors.newFixedThreadPool(3),
-                        new MainThreadExecutor());
+                        sMainThread != null ? sMainThread : Executors.newSingleThreadExecutor(),
+                        Executors.newSingleThreadScheduledExecutor(),
+                        Executors.newSingleThreadExecutor());
             }
         }
         return sInstance;
     }
 
+    /**
+     * Sets the executor for the main thread, e.g. one that posts to the Android main looper.
+     * Without one, programs that have no user interface get a single background thread instead
+     *
+     * @param mainThread Executor for the main thread
+     * @throws IllegalStateException if the class instance was already created
+     */
+    public static void setMainThread(Executor mainThread) {
+        synchronized (LOCK) {
+            if (sInstance != null) {
+                throw new IllegalStateException("The main thread executor is already in use");
+            }
+            sMainThread = mainThread;
+        }
+    }
+
     /**
      * Getter for disk thread executor
      * @return disk IO thread executor
@@ -93,14 +115,19 @@ public class AppExecutors {
     }
 
     /**
-     * A subclass that links main thread executor a main looper of the Android application
+     * Getter for the scheduler executor. Delayed tasks should hand real work over to another
+     * executor, so one slow task does not hold up the timing of the others
+     * @return scheduler executor
      */
-    private static class MainThreadExecutor implements Executor {
-        private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    public ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
 
-        @Override
-        public void execute(@NonNull Runnable command) {
-            mainThreadHandler.post(command);
-        }
+    /**
+     * Getter for the computation executor
+     * @return computation thread executor
+     */
+    public Executor computation() {
+        return computation;
     }
 }
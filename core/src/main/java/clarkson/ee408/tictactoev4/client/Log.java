@@ -0,0 +1,84 @@
+package clarkson.ee408.tictactoev4.client;
+
+/**
+ * Sends the client code's log messages to the installed {@link Logger}, with the same short
+ * methods as {@code android.util.Log}. Until another logger is installed, messages are written to
+ * standard error.
+ */
+public final class Log {
+
+    private static final Logger STANDARD_ERROR = new Logger() {
+        @Override
+        public void info(String tag, String message) {
+            System.err.println("I/" + tag + ": " + message);
+        }
+
+        @Override
+        public void warn(String tag, String message) {
+            System.err.println("W/" + tag + ": " + message);
+        }
+
+        @Override
+        public void error(String tag, String message, Throwable error) {
+            System.err.println("E/" + tag + ": " + message);
+            if (error != null) {
+                error.printStackTrace();
+            }
+        }
+    };
+
+    private static volatile Logger logger = STANDARD_ERROR;
+
+    private Log() {
+    }
+
+    /**
+     * Installs the logger every message goes to from now on.
+     *
+     * @param logger the logger, or null to go back to standard error
+     */
+    public static void setLogger(Logger logger) {
+        Log.logger = logger == null ? STANDARD_ERROR : logger;
+    }
+
+    /**
+     * Logs an informational message.
+     *
+     * @param tag the class that logs
+     * @param message the message
+     */
+    public static void i(String tag, String message) {
+        logger.info(tag, message);
+    }
+
+    /**
+     * Logs a warning.
+     *
+     * @param tag the class that logs
+     * @param message the message
+     */
+    public static void w(String tag, String message) {
+        logger.warn(tag, message);
+    }
+
+    /**
+     * Logs an error.
+     *
+     * @param tag the class that logs
+     * @param message the message
+     */
+    public static void e(String tag, String message) {
+        logger.error(tag, message, null);
+    }
+
+    /**
+     * Logs an error with its cause.
+     *
+     * @param tag the class that logs
+     * @param message the message
+     * @param error the cause
+     */
+    public static void e(String tag, String message, Throwable error) {
+        logger.error(tag, message, error);
+    }
+}
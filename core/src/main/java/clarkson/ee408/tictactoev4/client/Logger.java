@@ -0,0 +1,34 @@
+package clarkson.ee408.tictactoev4.client;
+
+/**
+ * Where the client code sends its log messages. The Android app installs one that writes to
+ * logcat; elsewhere the messages go to standard error. Install a logger with
+ * {@link Log#setLogger(Logger)}.
+ */
+public interface Logger {
+
+    /**
+     * Logs something worth knowing that went as expected, e.g. a connection being opened.
+     *
+     * @param tag the class that logs
+     * @param message the message
+     */
+    void info(String tag, String message);
+
+    /**
+     * Logs something unexpected that the client recovered from, e.g. a response nobody waited for.
+     *
+     * @param tag the class that logs
+     * @param message the message
+     */
+    void warn(String tag, String message);
+
+    /**
+     * Logs an error.
+     *
+     * @param tag the class that logs
+     * @param message the message
+     * @param error the cause, or null
+     */
+    void error(String tag, String message, Throwable error);
+}
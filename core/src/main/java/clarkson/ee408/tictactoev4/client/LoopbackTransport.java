@@ -0,0 +1,90 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.Response;
+
+/**
+ * A {@link Transport} to a server running in the same process. Requests are handed to a
+ * {@link RequestHandler} on the calling thread and its responses come straight back: nothing is
+ * encoded, copied or sent through the kernel, so tests and benchmarks measure the client and
+ * server logic alone, and take the same time on every run.
+ * <p>
+ * Each connection gets its own handler from the supplier, made on the first request, just as a
+ * socket server makes a session for every connection it accepts. Closing the transport closes
+ * the handler, and the next request connects again with a new one.
+ * <p>
+ * Because the client gets the very object the server returned, the server must not change a
+ * response after returning it, and the client must not change it either, as with
+ * {@link RequestCoalescer}.
+ */
+public final class LoopbackTransport implements Transport {
+
+    private final Object connectionLock = new Object();
+    private final Supplier<? extends RequestHandler> server;
+
+    private RequestHandler connection;
+
+    /**
+     * Creates a new instance of {@code LoopbackTransport}. No connection is made until the first
+     * request.
+     *
+     * @param server makes the handler of each new connection
+     */
+    public LoopbackTransport(Supplier<? extends RequestHandler> server) {
+        this.server = server;
+    }
+
+    /**
+     * Hands a {@code Request} to the server and returns its response. A plain {@code Response},
+     * such as a failure, is copied into a {@code responseClass} with its other fields left at
+     * their defaults, as the codecs do.
+     *
+     * @return the response, or {@code null} if the server returned none or one of another
+     *      subclass, like a frame that cannot be decoded on a socket
+     */
+    @Override
+    public <T extends Response> T sendRequest(Request request, Class<T> responseClass)
+            throws IOException {
+        RequestHandler handler;
+        synchronized (this.connectionLock) {
+            if (this.connection == null) {
+                this.connection = this.server.get();
+            }
+            handler = this.connection;
+        }
+
+        Response response = handler.handle(request);
+        if (responseClass.isInstance(response)) {
+            return responseClass.cast(response);
+        }
+        if (response == null || response.getClass() != Response.class) {
+            return null;
+        }
+        try {
+            T adapted = responseClass.getDeclaredConstructor().newInstance();
+            adapted.setStatus(response.getStatus());
+            adapted.setMessage(response.getMessage());
+            return adapted;
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Closes the current connection, if any, and lets its handler know.
+     */
+    @Override
+    public void close() {
+        RequestHandler handler;
+        synchronized (this.connectionLock) {
+            handler = this.connection;
+            this.connection = null;
+        }
+        if (handler != null) {
+            handler.close();
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import clarkson.ee408.tictactoev4.codec.JsonCodec;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * A {@link Transport} built on a non-blocking {@link SocketChannel} driven by a single
+ * {@link Selector} thread.
+ * <p>
+ * Callers never touch the socket: {@link #sendRequestAsync(Request, Class)} queues the request and
+ * returns immediately, and the selector thread performs the connect, the encoding, the framed
+ * writes and the framed reads. Requests are pipelined and the server answers them in order, so
+ * responses are matched to callers first-in, first-out.
+ * <p>
+ * Like {@link SocketTransport}, every connection starts on JSON and negotiates the preferred codec
+ * first. No other request is written until the server has answered the negotiation.
+ */
+public final class NioTransport implements Transport {
+
+    private static final String TAG = "NioTransport";
+    private static final int INITIAL_READ_BUFFER_BYTES = 2 + 0xFFFF; // one maximal writeUTF frame
+
+    private final Object stateLock = new Object();
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+    private final MessageCodec jsonCodec;
+
+    private MessageCodec preferredCodec;
+    private Connection connection;
+
+    /**
+     * Creates a new instance of {@code NioTransport}. No connection is made until the first request.
+     *
+     * @param host the server host name or address
+     * @param port the server port
+     * @param timeoutMillis how long a blocking caller waits for a response before giving up
+     */
+    public NioTransport(String host, int port, int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = timeoutMillis;
+        this.jsonCodec = new JsonCodec();
+        this.preferredCodec = this.jsonCodec;
+    }
+
+    /**
+     * Sets the codec to negotiate on the next connection. Changing it closes the current connection.
+     *
+     * @param preferredCodec the codec to ask the server for; JSON is always the fallback
+     */
+    public void setPreferredCodec(MessageCodec preferredCodec) {
+        synchronized (this.stateLock) {
+            if (!this.preferredCodec.getName().equals(preferredCodec.getName())) {
+                this.preferredCodec = preferredCodec;
+                close();
+            }
+        }
+    }
+
+    /**
+     * Sends a {@code Request} and waits for the response. The calling thread only blocks on the
+     * result; all socket I/O happens on the selector thread.
+     */
+    @Override
+    public <T extends Response> T sendRequest(Request request, Class<T> responseClass)
+            throws IOException {
+
+        CompletableFuture<T> future = sendRequestAsync(request, responseClass);
+        try {
+            return future.get(this.timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            // The response stream can no longer be matched to callers, so start over
+            close();
+            throw new SocketTimeoutException("No response within " + this.timeoutMillis + " ms");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a response", ex);
+        }
+    }
+
+    /**
+     * Queues a {@code Request} for the selector thread and returns without blocking.
+     *
+     * @param request the object to send to the server
+     * @param responseClass the class of T
+     * @param <T> the type of the desired object
+     * @return a future completed with the decoded response, with {@code null} if the response
+     *      cannot be decoded, or exceptionally with an {@link IOException} if the connection fails
+     */
+    public <T extends Response> CompletableFuture<T> sendRequestAsync(Request request, Class<T> responseClass) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        PendingCall<T> call = new PendingCall<>(request, responseClass, future);
+        try {
+            synchronized (this.stateLock) {
+                if (this.connection == null || !this.connection.isOpen()) {
+                    this.connection = new Connection(this.preferredCodec);
+                }
+                this.connection.enqueue(call);
+            }
+        } catch (IOException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Closes the channel, stops the selector thread and fails every request still waiting.
+     */
+    @Override
+    public void close() {
+        synchronized (this.stateLock) {
+            if (this.connection != null) {
+                this.connection.shutdown();
+                this.connection = null;
+            }
+            Log.i(TAG, "Connection closed");
+        }
+    }
+
+    /**
+     * One channel with its selector thread. Everything except {@code outbox} is owned by the
+     * selector thread, so a reconnect never mixes calls from two connections.
+     */
+    private final class Connection {
+        private final Selector selector;
+        private final SocketChannel channel;
+        private final Queue<PendingCall<?>> outbox;
+        private final Queue<PendingCall<?>> inFlight;
+        private final Thread thread;
+        private final MessageCodec preferred;
+        private MessageCodec codec;
+        private PendingCall<Response> handshake;
+        private boolean handshakeSent;
+        private ByteBuffer readBuffer;
+        private ByteBuffer writeBuffer;
+        private volatile boolean open;
+
+        private Connection(MessageCodec preferred) throws IOException {
+            this.selector = Selector.open();
+            this.channel = SocketChannel.open();
+            this.outbox = new ConcurrentLinkedQueue<>();
+            this.inFlight = new ArrayDeque<>();
+            this.readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_BYTES);
+            this.preferred = preferred;
+            this.codec = jsonCodec;
+            this.open = true;
+
+            if (!jsonCodec.getName().equals(preferred.getName())) {
+                this.handshake = new PendingCall<>(new Request(RequestType.NEGOTIATE_CODEC, preferred.getName()),
+                        Response.class, new CompletableFuture<>());
+                // Runs on the selector thread as soon as the negotiation response is decoded
+                this.handshake.future.whenComplete((response, error) -> {
+                    if (response != null && response.getStatus() == ResponseStatus.SUCCESS) {
+                        this.codec = this.preferred;
+                        Log.i(TAG, "Using " + this.codec.getName() + " codec");
+                    } else {
+                        Log.i(TAG, "Server declined " + this.preferred.getName() + " codec, using JSON");
+                    }
+                    this.handshake = null;
+                });
+            }
+
+            try {
+                this.channel.configureBlocking(false);
+                this.channel.connect(new InetSocketAddress(host, port));
+                this.channel.register(this.selector, SelectionKey.OP_CONNECT);
+            } catch (IOException ex) {
+                this.channel.close();
+                this.selector.close();
+                throw ex;
+            }
+
+            this.thread = new Thread(this::runLoop, TAG + "-selector");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private boolean isOpen() {
+            return this.open;
+        }
+
+        private void enqueue(PendingCall<?> call) {
+            this.outbox.add(call);
+            this.selector.wakeup();
+            if (!this.open && this.outbox.remove(call)) {
+                // The loop may have exited before seeing the call
+                call.future.completeExceptionally(new IOException("Connection closed"));
+            }
+        }
+
+        private void shutdown() {
+            this.open = false;
+            this.thread.interrupt();
+            this.selector.wakeup();
+        }
+
+        private void runLoop() {
+            IOException failure = null;
+            try {
+                while (this.open && !Thread.currentThread().isInterrupted()) {
+                    this.selector.select();
+
+                    Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+
+                        if (key.isValid() && key.isConnectable() && this.channel.finishConnect()) {
+                            Log.i(TAG, "Client connected to server");
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            readFrames();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            writeFrames();
+                        }
+                    }
+
+                    // Pick up requests queued since the last pass and decide what to wait for next
+                    if (this.channel.isConnected()) {
+                        writeFrames();
+                        int interest = SelectionKey.OP_READ;
+                        if (this.writeBuffer != null || (this.handshake == null && !this.outbox.isEmpty())) {
+                            interest |= SelectionKey.OP_WRITE;
+                        }
+                        this.channel.keyFor(this.selector).interestOps(interest);
+                    }
+                }
+            } catch (IOException ex) {
+                failure = ex;
+                Log.i(TAG, "Selector loop stopped: " + ex.getMessage());
+            } finally {
+                this.open = false;
+                try {
+                    this.channel.close();
+                    this.selector.close();
+                } catch (IOException ex) {
+                    // nom-nom the exception
+                }
+                failPendingCalls(failure != null ? failure : new IOException("Connection closed"));
+            }
+        }
+
+        private void writeFrames() throws IOException {
+            while (true) {
+                if (this.writeBuffer == null) {
+                    PendingCall<?> call;
+                    if (this.handshake != null) {
+                        if (this.handshakeSent) {
+                            return; // Hold everything else until the codec is settled
+                        }
+                        call = this.handshake;
+                        this.handshakeSent = true;
+                    } else {
+                        call = this.outbox.poll();
+                        if (call == null) {
+                            return;
+                        }
+                    }
+
+                    try {
+                        this.writeBuffer = encode(call.request);
+                    } catch (IOException ex) {
+                        // Only this request is affected, e.g. a frame over the codec's limit
+                        call.future.completeExceptionally(ex);
+                        continue;
+                    }
+                    this.inFlight.add(call);
+                }
+
+                this.channel.write(this.writeBuffer);
+                if (this.writeBuffer.hasRemaining()) {
+                    return; // The socket buffer is full; wait for OP_WRITE
+                }
+                this.writeBuffer = null;
+            }
+        }
+
+        private void readFrames() throws IOException {
+            if (this.channel.read(this.readBuffer) < 0) {
+                throw new IOException("Server closed the connection");
+            }
+
+            this.readBuffer.flip();
+            while (true) {
+                int frameLength = this.codec.frameLength(this.readBuffer);
+                if (frameLength < 0 || this.readBuffer.remaining() < frameLength) {
+                    break;
+                }
+
+                PendingCall<?> call = this.inFlight.poll();
+                DataInputStream frame = new DataInputStream(new ByteArrayInputStream(this.readBuffer.array(),
+                        this.readBuffer.arrayOffset() + this.readBuffer.position(), frameLength));
+                this.readBuffer.position(this.readBuffer.position() + frameLength);
+
+                if (call == null) {
+                    Log.w(TAG, "Dropping unsolicited response");
+                } else {
+                    call.complete(this.codec, frame);
+                }
+            }
+
+            int frameLength = this.codec.frameLength(this.readBuffer);
+            if (frameLength > this.readBuffer.capacity()) {
+                // A frame larger than the buffer, which only non-JSON codecs can produce
+                ByteBuffer grown = ByteBuffer.allocate(frameLength);
+                grown.put(this.readBuffer);
+                this.readBuffer = grown;
+            } else {
+                this.readBuffer.compact();
+            }
+        }
+
+        private ByteBuffer encode(Request request) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            this.codec.writeRequest(new DataOutputStream(bytes), request);
+            return ByteBuffer.wrap(bytes.toByteArray());
+        }
+
+        private synchronized void failPendingCalls(IOException cause) {
+            // inFlight is only touched here once the loop has exited
+            PendingCall<?> call;
+            while ((call = this.inFlight.poll()) != null) {
+                call.future.completeExceptionally(cause);
+            }
+            while ((call = this.outbox.poll()) != null) {
+                call.future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    /**
+     * A request waiting to be written or answered.
+     */
+    private static final class PendingCall<T extends Response> {
+        private final Request request;
+        private final Class<T> responseClass;
+        private final CompletableFuture<T> future;
+
+        private PendingCall(Request request, Class<T> responseClass, CompletableFuture<T> future) {
+            this.request = request;
+            this.responseClass = responseClass;
+            this.future = future;
+        }
+
+        private void complete(MessageCodec codec, DataInputStream frame) {
+            try {
+                T response = codec.readResponse(frame, this.responseClass);
+                if (response == null) {
+                    Log.e(TAG, "Error decoding " + this.responseClass.getSimpleName());
+                }
+                this.future.complete(response);
+            } catch (IOException ex) {
+                this.future.completeExceptionally(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.PairingQuery;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+
+/**
+ * The client's copy of the lobby, kept sorted by username and updated from versioned
+ * {@link PairingResponse}s.
+ * <p>
+ * Only the pages loaded so far are held: every user up to {@link #getNextCursor()}, or the whole
+ * lobby once there are no more pages. {@link #newPageQuery(int)} asks for the next page and
+ * {@link #newRefreshQuery()} for changes within the pages already loaded, so memory and bandwidth
+ * depend on how far the player scrolled rather than on how many players are online.
+ * <p>
+ * Deltas are applied in place. Snapshots are merged against the current lobby, so both report
+ * exactly which positions changed to the {@link Listener}, which lets a list view animate single
+ * rows instead of rebinding everything. A delta that does not apply to the version held here
+ * (for instance one that arrived out of order) is dropped and the version is reset, so the next
+ * {@link PairingQuery} asks for a fresh snapshot.
+ * <p>
+ * Instances are not thread-safe and are meant to be used from the main thread.
+ */
+public final class PresenceStore {
+
+    private static final Comparator<User> BY_USERNAME = (a, b) -> a.getUsername().compareTo(b.getUsername());
+
+    private final List<User> users;
+    private long version;
+    private String nextCursor;
+    private Listener listener;
+
+    /**
+     * Creates an empty {@code PresenceStore} that holds no version.
+     */
+    public PresenceStore() {
+        this.users = new ArrayList<>();
+    }
+
+    /**
+     * Returns the presence version of the lobby held here.
+     *
+     * @return the version to send in the next {@link PairingQuery}, or 0 to ask for a snapshot
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns where the next page starts.
+     *
+     * @return the last username loaded, or null if every page is loaded or none has been
+     */
+    public String getNextCursor() {
+        return this.nextCursor;
+    }
+
+    /**
+     * Returns whether the server has more users after the pages loaded so far.
+     *
+     * @return true if {@link #newPageQuery(int)} would load more users
+     */
+    public boolean hasMore() {
+        return this.nextCursor != null;
+    }
+
+    /**
+     * Returns whether {@code username} falls within the pages loaded so far, e.g. to decide
+     * whether a pushed presence change belongs in the store.
+     *
+     * @param username the username to check
+     * @return true if the user would be held here when available
+     */
+    public boolean covers(String username) {
+        return this.nextCursor == null || username.compareTo(this.nextCursor) <= 0;
+    }
+
+    /**
+     * Creates the query for the page after the ones loaded so far, or for the first page if the
+     * store is empty.
+     *
+     * @param pageSize the most users to load
+     * @return the query to send; its filter is left unset
+     */
+    public PairingQuery newPageQuery(int pageSize) {
+        // A page we do not hold yet can only come as a snapshot
+        PairingQuery query = new PairingQuery();
+        query.setAfter(this.nextCursor);
+        query.setPageSize(pageSize);
+        return query;
+    }
+
+    /**
+     * Creates the query for the changes within the pages loaded so far.
+     *
+     * @return the query to send; its filter is left unset
+     */
+    public PairingQuery newRefreshQuery() {
+        PairingQuery query = new PairingQuery(this.version);
+        query.setThrough(this.nextCursor);
+        return query;
+    }
+
+    /**
+     * Returns the number of available users.
+     *
+     * @return the number of users in the lobby
+     */
+    public int size() {
+        return this.users.size();
+    }
+
+    /**
+     * Returns the user at {@code position} in username order.
+     *
+     * @param position the position of the user
+     * @return the user at that position
+     */
+    public User get(int position) {
+        return this.users.get(position);
+    }
+
+    /**
+     * Returns a read-only view of the available users in username order.
+     *
+     * @return the users in the lobby
+     */
+    public List<User> getUsers() {
+        return Collections.unmodifiableList(this.users);
+    }
+
+    /**
+     * Sets the listener told about every change.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Applies the lobby part of the response to a query for the whole lobby.
+     *
+     * @param response the response from the server
+     * @return true if any user was added, removed or changed
+     */
+    public boolean apply(PairingResponse response) {
+        return apply(response, new PairingQuery(this.version));
+    }
+
+    /**
+     * Applies the lobby part of an UPDATE_PAIRING response to the range the query covered.
+     *
+     * @param response the response from the server
+     * @param query the query the response answers, from {@link #newPageQuery(int)} or
+     *      {@link #newRefreshQuery()}
+     * @return true if any user was added, removed or changed
+     */
+    public boolean apply(PairingResponse response, PairingQuery query) {
+        boolean page = query.getPageSize() > 0;
+        String low = query.getAfter();
+        String high = response.getNextCursor() != null ? response.getNextCursor() : query.getThrough();
+
+        if (response.isSnapshot()) {
+            boolean changed = replaceRange(response.getAvailableUsers(), low, high);
+            if (page) {
+                this.nextCursor = response.getNextCursor();
+            }
+            if (!page || low == null) {
+                // The first page or a refresh is a snapshot of everything held. Later pages keep
+                // the version; applying changes they already include again does no harm
+                this.version = response.getPresenceVersion();
+            }
+            return changed;
+        }
+
+        if (page || response.getBaseVersion() != this.version) {
+            // Not based on what we hold; start over from a snapshot
+            this.version = 0;
+            return false;
+        }
+
+        boolean changed = false;
+        if (response.getRemovedUsernames() != null) {
+            for (String username : response.getRemovedUsernames()) {
+                changed |= remove(username);
+            }
+        }
+        if (response.getAvailableUsers() != null) {
+            for (User user : response.getAvailableUsers()) {
+                if (user != null && user.getUsername() != null && inRange(user.getUsername(), low, high)) {
+                    changed |= put(user);
+                }
+            }
+        }
+        this.version = response.getPresenceVersion();
+        return changed;
+    }
+
+    /**
+     * Adds a user to the lobby, or replaces the user with the same username. Does not change the
+     * presence version, e.g. for presence changes pushed outside of UPDATE_PAIRING.
+     *
+     * @param user the user that is available
+     * @return true if the user was added or changed
+     */
+    public boolean put(User user) {
+        if (user == null || user.getUsername() == null) {
+            return false;
+        }
+
+        int position = indexOf(user.getUsername());
+        if (position >= 0) {
+            boolean changed = !sameContent(this.users.get(position), user);
+            this.users.set(position, user);
+            if (changed && this.listener != null) {
+                this.listener.onUserChanged(position);
+            }
+            return changed;
+        }
+
+        position = -position - 1;
+        this.users.add(position, user);
+        if (this.listener != null) {
+            this.listener.onUserInserted(position);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a user from the lobby. Does not change the presence version.
+     *
+     * @param username the username of the user that is no longer available
+     * @return true if the user was in the lobby
+     */
+    public boolean remove(String username) {
+        int position = username == null ? -1 : indexOf(username);
+        if (position < 0) {
+            return false;
+        }
+
+        this.users.remove(position);
+        if (this.listener != null) {
+            this.listener.onUserRemoved(position);
+        }
+        return true;
+    }
+
+    /**
+     * Empties the lobby and forgets the version and loaded pages, e.g. when the filter changes.
+     */
+    public void clear() {
+        int count = this.users.size();
+        this.users.clear();
+        this.version = 0;
+        this.nextCursor = null;
+        if (count > 0 && this.listener != null) {
+            this.listener.onUsersRemoved(0, count);
+        }
+    }
+
+    private boolean replaceRange(List<User> snapshot, String low, String high) {
+        List<User> incoming = new ArrayList<>();
+        if (snapshot != null) {
+            for (User user : snapshot) {
+                if (user != null && user.getUsername() != null && inRange(user.getUsername(), low, high)) {
+                    incoming.add(user);
+                }
+            }
+        }
+        Collections.sort(incoming, BY_USERNAME);
+
+        // The users currently held in the range are [start, end)
+        int start = low == null ? 0 : upperBound(low);
+        int end = high == null ? this.users.size() : upperBound(high);
+
+        // Merge the incoming users into the range in place, so every change has been made by the
+        // time the listener hears of it; [start, position) is merged and [position, end) still old
+        boolean changed = false;
+        int position = start;
+        for (User user : incoming) {
+            while (position < end && BY_USERNAME.compare(this.users.get(position), user) < 0) {
+                this.users.remove(position);
+                end--;
+                changed = true;
+                if (this.listener != null) {
+                    this.listener.onUserRemoved(position);
+                }
+            }
+
+            if (position < end && BY_USERNAME.compare(this.users.get(position), user) == 0) {
+                boolean userChanged = !sameContent(this.users.get(position), user);
+                this.users.set(position, user);
+                if (userChanged) {
+                    changed = true;
+                    if (this.listener != null) {
+                        this.listener.onUserChanged(position);
+                    }
+                }
+                position++;
+            } else if (position == start || BY_USERNAME.compare(this.users.get(position - 1), user) != 0) {
+                this.users.add(position, user);
+                end++;
+                changed = true;
+                if (this.listener != null) {
+                    this.listener.onUserInserted(position);
+                }
+                position++;
+            }
+        }
+
+        int removedTail = end - position;
+        if (removedTail > 0) {
+            this.users.subList(position, end).clear();
+            changed = true;
+            if (this.listener != null) {
+                this.listener.onUsersRemoved(position, removedTail);
+            }
+        }
+        return changed;
+    }
+
+    private static boolean inRange(String username, String low, String high) {
+        return (low == null || username.compareTo(low) > 0) && (high == null || username.compareTo(high) <= 0);
+    }
+
+    private int upperBound(String username) {
+        // The position of the first user after username
+        int position = indexOf(username);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    private int indexOf(String username) {
+        // Binary search by username; returns -(insertion point) - 1 when absent
+        int low = 0;
+        int high = this.users.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = this.users.get(middle).getUsername().compareTo(username);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static boolean sameContent(User a, User b) {
+        return Objects.equals(a.getDisplayName(), b.getDisplayName()) && a.getOnline() == b.getOnline();
+    }
+
+    /**
+     * Receives the position of every change, in the order the changes are made.
+     */
+    public interface Listener {
+
+        /**
+         * Called after a user was inserted at {@code position}.
+         *
+         * @param position the position of the new user
+         */
+        void onUserInserted(int position);
+
+        /**
+         * Called after the user at {@code position} was removed.
+         *
+         * @param position the position the user had
+         */
+        void onUserRemoved(int position);
+
+        /**
+         * Called after {@code count} users starting at {@code position} were removed.
+         *
+         * @param position the position of the first removed user
+         * @param count the number of users removed
+         */
+        void onUsersRemoved(int position, int count);
+
+        /**
+         * Called after the user at {@code position} was replaced with different details.
+         *
+         * @param position the position of the changed user
+         */
+        void onUserChanged(int position);
+    }
+}
@@ -0,0 +1,17 @@
+package clarkson.ee408.tictactoev4.client;
+
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+
+/**
+ * Receives the updates the server pushes after a successful {@link SocketClient#subscribe(PushListener)}.
+ */
+public interface PushListener {
+
+    /**
+     * Called on the connection's reader thread for every pushed update. Implementations that touch
+     * the user interface must hand the message over to the main thread.
+     *
+     * @param message the pushed update
+     */
+    void onPush(PushMessage message);
+}
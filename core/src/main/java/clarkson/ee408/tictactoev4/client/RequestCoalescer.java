@@ -0,0 +1,155 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+
+/**
+ * Lets identical read-only requests that are in flight at the same time share one network call.
+ * <p>
+ * The first caller for a given request type, data, long-poll wait and response class sends the
+ * request; callers that arrive before it returns wait for the same result, or the same exception,
+ * instead of queueing a duplicate behind the connection. Only {@link RequestType#REQUEST_MOVE} and
+ * {@link RequestType#UPDATE_PAIRING} are coalesced, because answering them twice in a row gives
+ * the same result. Coalesced callers receive the same response object, which must therefore be
+ * treated as read-only.
+ */
+public final class RequestCoalescer {
+
+    private final Map<Key, CompletableFuture<Response>> inFlight;
+    private final AtomicLong sentCount;
+    private final AtomicLong coalescedCount;
+
+    /**
+     * Creates a new instance of {@code RequestCoalescer}.
+     */
+    public RequestCoalescer() {
+        this.inFlight = new ConcurrentHashMap<>();
+        this.sentCount = new AtomicLong();
+        this.coalescedCount = new AtomicLong();
+    }
+
+    /**
+     * Sends {@code request} through {@code transport}, or waits for an identical request that is
+     * already in flight.
+     *
+     * @param transport the transport to send the request with if no identical request is in flight
+     * @param request the object to send to the server
+     * @param responseClass the class of T
+     * @param <T> the type of the desired object
+     * @return the response from the server as an object of class T, or {@code null} if the
+     *      response could not be decoded
+     * @throws IOException on errors connecting or communicating with the server
+     */
+    public <T extends Response> T sendRequest(Transport transport, Request request, Class<T> responseClass)
+            throws IOException {
+
+        if (!isCoalescable(request.getType())) {
+            return transport.sendRequest(request, responseClass);
+        }
+
+        Key key = new Key(request, responseClass);
+        CompletableFuture<Response> call = new CompletableFuture<>();
+        CompletableFuture<Response> existing = this.inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            this.coalescedCount.incrementAndGet();
+            return responseClass.cast(await(existing));
+        }
+
+        this.sentCount.incrementAndGet();
+        try {
+            T response = transport.sendRequest(request, responseClass);
+            call.complete(response);
+            return response;
+        } catch (IOException | RuntimeException ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            this.inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Returns how many coalescable requests actually went out to the server.
+     *
+     * @return the number of network calls made for coalescable requests
+     */
+    public long getSentCount() {
+        return this.sentCount.get();
+    }
+
+    /**
+     * Returns how many requests were answered by sharing an identical request's network call.
+     *
+     * @return the number of network calls saved
+     */
+    public long getCoalescedCount() {
+        return this.coalescedCount.get();
+    }
+
+    /**
+     * Returns whether requests of the given type can share a network call.
+     *
+     * @param type the request type
+     * @return true for idempotent polling requests
+     */
+    public static boolean isCoalescable(RequestType type) {
+        return type == RequestType.REQUEST_MOVE || type == RequestType.UPDATE_PAIRING;
+    }
+
+    private static Response await(CompletableFuture<Response> call) throws IOException {
+        try {
+            return call.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a coalesced request", ex);
+        }
+    }
+
+    /**
+     * Identifies requests that would get the same answer.
+     */
+    private static final class Key {
+        private final RequestType type;
+        private final String data;
+        private final int waitMillis;
+        private final Class<?> responseClass;
+
+        private Key(Request request, Class<?> responseClass) {
+            this.type = request.getType();
+            this.data = request.getData();
+            this.waitMillis = request.getWaitMillis();
+            this.responseClass = responseClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return this.type == key.type
+                    && this.waitMillis == key.waitMillis
+                    && Objects.equals(this.data, key.data)
+                    && this.responseClass == key.responseClass;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.type, this.data, this.waitMillis, this.responseClass);
+        }
+    }
+}
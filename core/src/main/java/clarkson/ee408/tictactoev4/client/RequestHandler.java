@@ -0,0 +1,31 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.io.IOException;
+
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.Response;
+
+/**
+ * The server side of one {@link LoopbackTransport} connection: answers each request the way the
+ * server would answer it on a socket, keeping whatever the server keeps per connection, such as
+ * the logged-in user.
+ */
+public interface RequestHandler {
+
+    /**
+     * Answers one request. Calls may come from many threads at once, like multiplexed requests on
+     * one socket.
+     *
+     * @param request the request, exactly as the client built it
+     * @return the response, of the class the client decodes that request's response as, e.g. a
+     *      {@code PairingResponse} for {@code UPDATE_PAIRING}
+     * @throws IOException if the connection should fail as if the socket had broken
+     */
+    Response handle(Request request) throws IOException;
+
+    /**
+     * Called once when the client closes the connection. Does nothing by default.
+     */
+    default void close() {
+    }
+}
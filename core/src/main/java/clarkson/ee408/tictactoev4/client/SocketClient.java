@@ -0,0 +1,286 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.io.IOException;
+
+import clarkson.ee408.tictactoev4.codec.JsonCodec;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * Connects the Android application to the socket server. The application shares one instance,
+ * {@link #getInstance()}; tools that act as many users create their own.
+ * <p>
+ * The actual I/O is delegated to a {@link Transport}. The default {@link SocketTransport} uses a
+ * blocking socket and can optionally multiplex requests with correlation ids. The
+ * {@link NioTransport} drives the connection from a single selector thread instead. Both speak
+ * JSON unless another codec is negotiated with {@link #setPreferredCodec(MessageCodec)}.
+ * <p>
+ * Any other {@link Transport} can be plugged in with {@link #setTransport(Transport)}, e.g. a
+ * {@link LoopbackTransport} that hands requests straight to a server in the same process.
+ * <p>
+ * Identical polling requests issued while one is already in flight share its network call through
+ * a {@link RequestCoalescer}.
+ */
+public final class SocketClient {
+
+    private static final Object LOCK_OBJECT = new Object();
+    private static final String DEFAULT_HOST = "10.0.2.2"; // the host machine, seen from the emulator
+    private static final int DEFAULT_PORT = 5000;
+    private static final int SOCKET_TIMEOUT = 10000; // 10 seconds
+    private static final int LONG_POLL_WAIT = 8000; // 8 seconds, safely inside SOCKET_TIMEOUT
+
+    private static SocketClient INSTANCE;
+    private static String serverHost = DEFAULT_HOST;
+    private static int serverPort = DEFAULT_PORT;
+
+    private final String host;
+    private final int port;
+    private final SocketTransport socketTransport;
+    private final RequestCoalescer requestCoalescer;
+    private final Object connectionLock = new Object(); // guards this client's transport only
+    private NioTransport nioTransport;
+    private MessageCodec preferredCodec;
+    private volatile Transport transport;
+
+    /**
+     * Creates a client of its own, e.g. for a tool that plays as many users at once. The
+     * application uses the shared {@link #getInstance()} instead.
+     *
+     * @param host the server host name or address
+     * @param port the server port
+     */
+    public SocketClient(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.preferredCodec = new JsonCodec();
+        this.socketTransport = new SocketTransport(host, port, SOCKET_TIMEOUT);
+        this.requestCoalescer = new RequestCoalescer();
+        this.transport = this.socketTransport;
+    }
+
+    /**
+     * Close the socket connection and all I/O streams.
+     */
+    public void close() {
+        synchronized (this.connectionLock) {
+            this.transport.close();
+        }
+    }
+
+    /**
+     * Returns whether requests are multiplexed over the connection using correlation ids.
+     *
+     * @return true if multiplexing is enabled
+     */
+    public boolean isMultiplexed() {
+        return this.socketTransport.isMultiplexed();
+    }
+
+    /**
+     * Enables or disables multiplexing on the blocking socket transport. Switching modes closes
+     * the current connection so that the next request reconnects with a consistent reader setup.
+     *
+     * @param multiplexed true to allow many requests in flight on the connection at once
+     */
+    public void setMultiplexed(boolean multiplexed) {
+        this.socketTransport.setMultiplexed(multiplexed);
+    }
+
+    /**
+     * Returns whether requests go through the non-blocking {@link NioTransport}.
+     *
+     * @return true if the NIO transport is in use
+     */
+    public boolean isNonBlocking() {
+        return this.transport == this.nioTransport;
+    }
+
+    /**
+     * Switches between the blocking socket transport and the non-blocking NIO transport. The
+     * transport that is no longer used is closed, including one set with
+     * {@link #setTransport(Transport)}.
+     *
+     * @param nonBlocking true to use the NIO transport, false for the blocking socket transport
+     */
+    public void setNonBlocking(boolean nonBlocking) {
+        synchronized (this.connectionLock) {
+            Transport wanted = nonBlocking ? this.nioTransport : this.socketTransport;
+            if (wanted != null && this.transport == wanted) {
+                return;
+            }
+            this.transport.close();
+            if (nonBlocking) {
+                if (this.nioTransport == null) {
+                    this.nioTransport = new NioTransport(this.host, this.port, SOCKET_TIMEOUT);
+                    this.nioTransport.setPreferredCodec(this.preferredCodec);
+                }
+                this.transport = this.nioTransport;
+            } else {
+                this.transport = this.socketTransport;
+            }
+        }
+    }
+
+    /**
+     * Sends requests through {@code transport} from now on, e.g. a {@link LoopbackTransport} for
+     * tests and benchmarks that run the server in the same process. The current transport is
+     * closed. {@link #setNonBlocking(boolean)} switches back to one of the socket transports.
+     *
+     * @param transport the transport to use
+     */
+    public void setTransport(Transport transport) {
+        synchronized (this.connectionLock) {
+            if (transport == this.transport) {
+                return;
+            }
+            this.transport.close();
+            this.transport = transport;
+        }
+    }
+
+    /**
+     * Returns the transport requests currently go through.
+     *
+     * @return the transport
+     */
+    public Transport getTransport() {
+        return this.transport;
+    }
+
+    /**
+     * Sets the wire format to negotiate with the server. JSON stays the fallback if the server
+     * declines, and changing the codec closes the current connection.
+     *
+     * @param preferredCodec the codec to ask the server for
+     */
+    public void setPreferredCodec(MessageCodec preferredCodec) {
+        synchronized (this.connectionLock) {
+            this.preferredCodec = preferredCodec;
+            this.socketTransport.setPreferredCodec(preferredCodec);
+            if (this.nioTransport != null) {
+                this.nioTransport.setPreferredCodec(preferredCodec);
+            }
+        }
+    }
+
+    /**
+     * Sends a {@code Request} to the server encoded with the negotiated codec and returns the response decoded as {@code responseClass}.
+     * <p>
+     * REQUEST_MOVE and UPDATE_PAIRING requests identical to one already in flight wait for its
+     * response instead of being sent again, so callers must not modify the returned object.
+     *
+     * @param request the object to serialize and send to the server
+     * @param responseClass the class of T
+     * @param <T> the type of the desired object
+     * @return the response from the server decoded to an object of class T. Returns
+     *      {@code null} if the response is null, empty, or cannot be decoded
+     * @throws IOException on errors connecting or communicating with the server
+     */
+    public <T extends Response> T sendRequest(Request request, Class<T> responseClass)
+            throws IOException {
+        return this.requestCoalescer.sendRequest(this.transport, request, responseClass);
+    }
+
+    /**
+     * Returns the coalescer shared by all requests, e.g. to read how many network calls it saved.
+     *
+     * @return the {@code RequestCoalescer} instance
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return this.requestCoalescer;
+    }
+
+    /**
+     * Returns how long the server may hold a REQUEST_MOVE or UPDATE_PAIRING request waiting for a
+     * change, to be set with {@link Request#setWaitMillis(int)}. A held request only waits on its
+     * own correlation id with the multiplexed socket transport; on the other transports it would
+     * hold up every request queued behind it, so they always ask for an immediate answer.
+     *
+     * @return the longest hold in milliseconds, or 0 if requests should not be held
+     */
+    public int getLongPollWaitMillis() {
+        return this.transport == this.socketTransport && isMultiplexed() ? LONG_POLL_WAIT : 0;
+    }
+
+    /**
+     * Asks the server to push updates to {@code listener} instead of waiting to be polled. Pushes
+     * share the connection with regular responses, so this only works on the multiplexed socket
+     * transport; enable it with {@link #setMultiplexed(boolean)} before logging in, since the
+     * server tracks the logged-in user per connection.
+     *
+     * @param listener the listener that receives pushed updates on the reader thread
+     * @return true if the server accepted the subscription, false if pushes are unavailable and
+     *      the caller should keep polling
+     * @throws IOException on errors connecting or communicating with the server
+     */
+    public boolean subscribe(PushListener listener) throws IOException {
+        if (this.transport != this.socketTransport || !isMultiplexed()) {
+            return false;
+        }
+
+        synchronized (this.connectionLock) {
+            this.socketTransport.setPushListener(listener);
+        }
+        Response response = sendRequest(new Request(RequestType.SUBSCRIBE, null), Response.class);
+        if (response != null && response.getStatus() == ResponseStatus.SUCCESS) {
+            return true;
+        }
+        unsubscribe(listener);
+        return false;
+    }
+
+    /**
+     * Stops delivering pushed updates to {@code listener}. Has no effect if another listener has
+     * subscribed since, so an activity being destroyed cannot silence the one that replaced it.
+     *
+     * @param listener the listener to remove
+     */
+    public void unsubscribe(PushListener listener) {
+        synchronized (this.connectionLock) {
+            if (this.socketTransport.getPushListener() == listener) {
+                this.socketTransport.setPushListener(null);
+            }
+        }
+    }
+
+    /**
+     * Sets the server the shared instance connects to, e.g. a real device's view of a server on
+     * the network instead of the emulator's alias for the host machine. It must be called before
+     * the first {@link #getInstance()}.
+     *
+     * @param host the server host name or address
+     * @param port the server port
+     * @throws IllegalStateException if the shared instance was already created
+     */
+    public static void setServerAddress(String host, int port) {
+        synchronized (LOCK_OBJECT) {
+            if (INSTANCE != null) {
+                throw new IllegalStateException("The shared client is already connected to "
+                        + serverHost + ":" + serverPort);
+            }
+            serverHost = host;
+            serverPort = port;
+        }
+    }
+
+    /**
+     * Returns the shared instance of {@code SocketClient}, connecting to {@code 10.0.2.2:5000}
+     * unless {@link #setServerAddress(String, int)} was called first.
+     *
+     * @return the {@code SocketClient} instance
+     */
+    public static SocketClient getInstance() {
+        if (INSTANCE == null) {
+            synchronized (LOCK_OBJECT) {
+                if (INSTANCE == null) {
+                    INSTANCE = new SocketClient(serverHost, serverPort);
+                }
+            }
+        }
+
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,359 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import clarkson.ee408.tictactoev4.codec.JsonCodec;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.codec.ResponseFrame;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * A {@link Transport} over a blocking {@link Socket} wrapped in data streams.
+ * <p>
+ * By default every call to {@link #sendRequest(Request, Class)} holds the connection for the whole
+ * write-then-read round trip. When multiplexing is enabled with {@link #setMultiplexed(boolean)},
+ * each request is tagged with a correlation id, many requests can be in flight on the one socket,
+ * and a dedicated reader thread routes every response back to the caller waiting for it. This mode
+ * requires a server that echoes {@link Request#getId()} in {@link Response#getId()}. Frames with
+ * id 0 are {@link PushMessage}s and go to the {@link PushListener}, if one is set.
+ * <p>
+ * Messages are JSON unless a different codec is preferred with
+ * {@link #setPreferredCodec(MessageCodec)}. The preferred codec is negotiated with
+ * {@link RequestType#NEGOTIATE_CODEC} right after connecting, and the connection falls back to
+ * JSON if the server declines.
+ */
+public final class SocketTransport implements Transport {
+
+    private static final String TAG = "SocketTransport";
+
+    private final Object connectionLock = new Object();
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+    private final MessageCodec jsonCodec;
+    private final AtomicInteger nextRequestId;
+    private final Map<Integer, CompletableFuture<ResponseFrame>> pendingResponses;
+
+    private MessageCodec preferredCodec;
+    private MessageCodec codec;
+    private Socket socket;
+    private DataInputStream inputStream;
+    private DataOutputStream outputStream;
+    private volatile boolean multiplexed;
+    private volatile PushListener pushListener;
+
+    /**
+     * Creates a new instance of {@code SocketTransport}. No connection is made until the first request.
+     *
+     * @param host the server host name or address
+     * @param port the server port
+     * @param timeoutMillis how long to wait for a response before giving up
+     */
+    public SocketTransport(String host, int port, int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = timeoutMillis;
+        this.jsonCodec = new JsonCodec();
+        this.preferredCodec = this.jsonCodec;
+        this.nextRequestId = new AtomicInteger();
+        this.pendingResponses = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Close the socket connection and all I/O streams.
+     */
+    @Override
+    public void close() {
+        synchronized (this.connectionLock) {
+            quietClose(this.inputStream);
+            quietClose(this.outputStream);
+            quietClose(this.socket);
+            this.codec = null;
+            failPendingResponses(new IOException("Connection closed"));
+            Log.i(TAG, "Connection closed");
+        }
+    }
+
+    /**
+     * Returns whether requests are multiplexed over the connection using correlation ids.
+     *
+     * @return true if multiplexing is enabled
+     */
+    public boolean isMultiplexed() {
+        return this.multiplexed;
+    }
+
+    /**
+     * Enables or disables multiplexing. Switching modes closes the current connection so that the
+     * next request reconnects with a consistent reader setup.
+     *
+     * @param multiplexed true to allow many requests in flight on the connection at once
+     */
+    public void setMultiplexed(boolean multiplexed) {
+        synchronized (this.connectionLock) {
+            if (this.multiplexed != multiplexed) {
+                this.multiplexed = multiplexed;
+                close();
+            }
+        }
+    }
+
+    /**
+     * Sets the listener that receives pushed updates on a multiplexed connection.
+     *
+     * @param pushListener the listener, or null to drop pushed updates
+     */
+    public void setPushListener(PushListener pushListener) {
+        this.pushListener = pushListener;
+    }
+
+    /**
+     * Returns the listener that receives pushed updates.
+     *
+     * @return the listener, or null if none is set
+     */
+    public PushListener getPushListener() {
+        return this.pushListener;
+    }
+
+    /**
+     * Returns the codec used by the current connection.
+     *
+     * @return the negotiated codec, or the preferred codec if not connected
+     */
+    public MessageCodec getCodec() {
+        synchronized (this.connectionLock) {
+            return this.codec != null ? this.codec : this.preferredCodec;
+        }
+    }
+
+    /**
+     * Sets the codec to negotiate on the next connection. Changing it closes the current connection.
+     *
+     * @param preferredCodec the codec to ask the server for; JSON is always the fallback
+     */
+    public void setPreferredCodec(MessageCodec preferredCodec) {
+        synchronized (this.connectionLock) {
+            if (!this.preferredCodec.getName().equals(preferredCodec.getName())) {
+                this.preferredCodec = preferredCodec;
+                close();
+            }
+        }
+    }
+
+    @Override
+    public <T extends Response> T sendRequest(Request request, Class<T> responseClass)
+            throws IOException {
+
+        if (this.multiplexed) {
+            return sendMultiplexedRequest(request, responseClass);
+        }
+
+        synchronized (this.connectionLock) {
+            // Open the connection to the server
+            connect();
+
+            // Encode the request and send it to the server
+            this.codec.writeRequest(this.outputStream, request);
+            this.outputStream.flush();
+
+            // Wait for the response and decode it
+            T response = this.codec.readResponse(this.inputStream, responseClass);
+            if (response == null) {
+                Log.e(TAG, "Error decoding " + responseClass.getSimpleName());
+            }
+            return response;
+        }
+    }
+
+    private <T extends Response> T sendMultiplexedRequest(Request request, Class<T> responseClass)
+            throws IOException {
+
+        // Correlation ids are never 0, which is reserved for uncorrelated messages
+        int id = this.nextRequestId.updateAndGet(current -> current == Integer.MAX_VALUE ? 1 : current + 1);
+
+        // The caller's request is left untouched; only the copy on the wire carries the id
+        Request tagged = new Request(request.getType(), request.getData());
+        tagged.setWaitMillis(request.getWaitMillis());
+        tagged.setId(id);
+
+        CompletableFuture<ResponseFrame> pending = new CompletableFuture<>();
+        this.pendingResponses.put(id, pending);
+
+        try {
+            // Only the write needs the connection lock; the reader thread handles the response
+            synchronized (this.connectionLock) {
+                connect();
+                this.codec.writeRequest(this.outputStream, tagged);
+                this.outputStream.flush();
+            }
+
+            T response = pending.get(this.timeoutMillis, TimeUnit.MILLISECONDS).as(responseClass);
+            if (response == null) {
+                Log.e(TAG, "Error decoding " + responseClass.getSimpleName());
+            }
+            return response;
+        } catch (TimeoutException ex) {
+            throw new SocketTimeoutException("No response for request " + id);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for request " + id, ex);
+        } finally {
+            this.pendingResponses.remove(id);
+        }
+    }
+
+    private void readResponses(Socket readerSocket, DataInputStream readerStream, MessageCodec readerCodec) {
+        while (!readerSocket.isClosed()) {
+            ResponseFrame frame;
+            try {
+                frame = readerCodec.readResponseFrame(readerStream);
+            } catch (IOException ex) {
+                Log.i(TAG, "Reader stopped: " + ex.getMessage());
+                synchronized (this.connectionLock) {
+                    if (this.socket == readerSocket) {
+                        quietClose(readerSocket);
+                        failPendingResponses(ex);
+                    }
+                }
+                return;
+            }
+
+            if (frame == null) {
+                // The frame was consumed whole, so the connection can carry on with the next one
+                Log.w(TAG, "Skipping malformed response");
+                continue;
+            }
+            try {
+                dispatch(frame);
+            } catch (RuntimeException ex) {
+                // A bad frame must not stop the reader thread, or every caller would wait out its timeout
+                Log.e(TAG, "Error handling response", ex);
+            }
+        }
+    }
+
+    private void dispatch(ResponseFrame frame) {
+        if (frame.getId() == 0) {
+            deliverPush(frame);
+            return;
+        }
+
+        CompletableFuture<ResponseFrame> pending = this.pendingResponses.get(frame.getId());
+        if (pending != null) {
+            pending.complete(frame);
+        } else {
+            Log.w(TAG, "Dropping response with unknown id " + frame.getId());
+        }
+    }
+
+    private void deliverPush(ResponseFrame frame) {
+        PushListener listener = this.pushListener;
+        PushMessage push = frame.as(PushMessage.class);
+        if (listener == null || push == null || push.getType() == null) {
+            Log.w(TAG, "Dropping pushed update");
+            return;
+        }
+        try {
+            listener.onPush(push);
+        } catch (RuntimeException ex) {
+            // A faulty listener must not stop the reader thread
+            Log.e(TAG, "Error handling pushed update", ex);
+        }
+    }
+
+    private void failPendingResponses(IOException cause) {
+        for (CompletableFuture<ResponseFrame> pending : this.pendingResponses.values()) {
+            pending.completeExceptionally(cause);
+        }
+    }
+
+    private void quietClose(Closeable closeable) {
+        try {
+            if (closeable != null) {
+                closeable.close();
+            }
+        } catch (IOException ex) {
+            // nom-nom the exception
+        }
+    }
+
+    private void connect() throws IOException {
+        // Synchronization is handled by the caller
+        if (this.socket == null || !this.socket.isConnected() || this.socket.isClosed()) {
+            // Create socket and connect
+            this.socket = new Socket();
+            this.socket.connect(new InetSocketAddress(this.host, this.port));
+
+            Log.i(TAG, "Client connected to server");
+
+            // Don't want to wait forever for input from the server
+            this.socket.setSoTimeout(this.timeoutMillis);
+            // Every request is flushed whole, so there is nothing for Nagle's algorithm to coalesce
+            this.socket.setTcpNoDelay(true);
+
+            // Set up streams, buffered so that a frame goes out in one write rather than a few
+            // bytes at a time
+            this.inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            // Every connection starts on JSON
+            this.codec = this.jsonCodec;
+            if (!this.jsonCodec.getName().equals(this.preferredCodec.getName())) {
+                negotiateCodec();
+            }
+
+            if (this.multiplexed) {
+                // The reader blocks for as long as the connection is idle; waiting callers enforce
+                // their own timeouts. A read timing out partway through a frame would leave the
+                // stream misaligned for every frame after it.
+                this.socket.setSoTimeout(0);
+
+                // Responses are read by a dedicated thread and routed by correlation id
+                final Socket readerSocket = this.socket;
+                final DataInputStream readerStream = this.inputStream;
+                final MessageCodec readerCodec = this.codec;
+                Thread readerThread = new Thread(() -> readResponses(readerSocket, readerStream, readerCodec), TAG + "-reader");
+                readerThread.setDaemon(true);
+                readerThread.start();
+            }
+        }
+    }
+
+    private void negotiateCodec() throws IOException {
+        // Synchronization is handled by the caller
+        Request request = new Request(RequestType.NEGOTIATE_CODEC, this.preferredCodec.getName());
+        this.jsonCodec.writeRequest(this.outputStream, request);
+        this.outputStream.flush();
+
+        Response response = this.jsonCodec.readResponse(this.inputStream, Response.class);
+        if (response != null && response.getStatus() == ResponseStatus.SUCCESS) {
+            this.codec = this.preferredCodec;
+            Log.i(TAG, "Using " + this.codec.getName() + " codec");
+        } else {
+            Log.i(TAG, "Server declined " + this.preferredCodec.getName() + " codec, using JSON");
+        }
+    }
+}
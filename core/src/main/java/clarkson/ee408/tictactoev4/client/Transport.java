@@ -0,0 +1,32 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.io.IOException;
+
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.Response;
+
+/**
+ * Carries {@link Request} objects to the server and returns its {@link Response}s.
+ * {@link SocketClient} delegates to one implementation at a time, so the activities never depend
+ * on how the bytes reach the wire.
+ */
+public interface Transport {
+
+    /**
+     * Sends a {@code Request} to the server and returns the response deserialized as {@code responseClass}.
+     *
+     * @param request the object to send to the server
+     * @param responseClass the class of T
+     * @param <T> the type of the desired object
+     * @return the response from the server as an object of class T, or {@code null} if the
+     *      response could not be deserialized
+     * @throws IOException on errors connecting or communicating with the server
+     */
+    <T extends Response> T sendRequest(Request request, Class<T> responseClass) throws IOException;
+
+    /**
+     * Closes the connection and releases any threads owned by the transport. A later call to
+     * {@link #sendRequest(Request, Class)} reconnects.
+     */
+    void close();
+}
@@ -0,0 +1,491 @@
+package clarkson.ee408.tictactoev4.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import clarkson.ee408.tictactoev4.model.Event;
+import clarkson.ee408.tictactoev4.model.EventStatus;
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.GamingResponse;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+import clarkson.ee408.tictactoev4.socket.PushType;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * A compact binary wire format negotiated with {@code NEGOTIATE_CODEC}.
+ * <p>
+ * Every frame is a 4-byte big-endian payload length followed by the payload. The payload starts
+ * with a 1-byte kind telling which class was encoded, so a response frame can always be decoded
+ * without knowing what the caller expects. Within the payload:
+ * <ul>
+ *     <li>enums ({@code RequestType}, {@code ResponseStatus}, {@code EventStatus}) are a single
+ *     byte holding {@code ordinal + 1}, with 0 meaning null</li>
+ *     <li>correlation ids, event ids, long-poll waits, presence versions and list sizes are
+ *     unsigned varints</li>
+ *     <li>moves are zig-zag varints, so classic moves (0-8) take one byte and ultimate ones (0-80) at
+ *     most two</li>
+ *     <li>strings are a varint of {@code byteLength + 1} followed by UTF-8 bytes, with 0 meaning null</li>
+ *     <li>nested objects start with a presence byte</li>
+ * </ul>
+ */
+public final class BinaryCodec implements MessageCodec {
+
+    public static final String NAME = "BINARY";
+
+    /**
+     * Upper bound on a payload, so a corrupt header cannot make the reader allocate without limit.
+     */
+    public static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+
+    private static final int FRAME_HEADER_BYTES = 4;
+
+    private static final int KIND_REQUEST = 1;
+    private static final int KIND_RESPONSE = 2;
+    private static final int KIND_GAMING_RESPONSE = 3;
+    private static final int KIND_PAIRING_RESPONSE = 4;
+    private static final int KIND_PUSH_MESSAGE = 5;
+
+    private static final RequestType[] REQUEST_TYPES = RequestType.values();
+    private static final ResponseStatus[] RESPONSE_STATUSES = ResponseStatus.values();
+    private static final EventStatus[] EVENT_STATUSES = EventStatus.values();
+    private static final PushType[] PUSH_TYPES = PushType.values();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void writeRequest(DataOutputStream out, Request request) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.writeByte(KIND_REQUEST);
+        encoder.writeEnum(request.getType());
+        encoder.writeVarint(request.getId());
+        encoder.writeString(request.getData());
+        encoder.writeVarint(request.getWaitMillis());
+        encoder.writeFrame(out);
+    }
+
+    @Override
+    public Request readRequest(DataInputStream in) throws IOException {
+        Decoder decoder = Decoder.readFrame(in);
+        if (decoder.readByte() != KIND_REQUEST) {
+            throw new IOException("Frame does not contain a request");
+        }
+        Request request = new Request();
+        request.setType(decoder.readEnum(REQUEST_TYPES));
+        request.setId(decoder.readVarint());
+        request.setData(decoder.readString());
+        request.setWaitMillis(decoder.readVarint());
+        return request;
+    }
+
+    @Override
+    public void writeResponse(DataOutputStream out, Response response) throws IOException {
+        Encoder encoder = new Encoder();
+        if (response instanceof GamingResponse) {
+            encoder.writeByte(KIND_GAMING_RESPONSE);
+        } else if (response instanceof PairingResponse) {
+            encoder.writeByte(KIND_PAIRING_RESPONSE);
+        } else if (response instanceof PushMessage) {
+            encoder.writeByte(KIND_PUSH_MESSAGE);
+        } else {
+            encoder.writeByte(KIND_RESPONSE);
+        }
+
+        encoder.writeEnum(response.getStatus());
+        encoder.writeVarint(response.getId());
+        encoder.writeString(response.getMessage());
+
+        if (response instanceof GamingResponse) {
+            GamingResponse gaming = (GamingResponse) response;
+            encoder.writeZigZag(gaming.getMove());
+            encoder.writeBoolean(gaming.getActive());
+        } else if (response instanceof PairingResponse) {
+            PairingResponse pairing = (PairingResponse) response;
+            encoder.writeUsers(pairing.getAvailableUsers());
+            encoder.writeEvent(pairing.getInvitation());
+            encoder.writeEvent(pairing.getInvitationResponse());
+            encoder.writeStrings(pairing.getRemovedUsernames());
+            encoder.writeVarlong(pairing.getPresenceVersion());
+            encoder.writeVarlong(pairing.getBaseVersion());
+            encoder.writeString(pairing.getNextCursor());
+        } else if (response instanceof PushMessage) {
+            PushMessage push = (PushMessage) response;
+            encoder.writeEnum(push.getType());
+            encoder.writeZigZag(push.getMove());
+            encoder.writeEvent(push.getEvent());
+            encoder.writeUser(push.getUser());
+        }
+        encoder.writeFrame(out);
+    }
+
+    @Override
+    public <T extends Response> T readResponse(DataInputStream in, Class<T> responseClass) throws IOException {
+        Decoder decoder = Decoder.readFrame(in);
+        try {
+            return adapt(decodeResponse(decoder), responseClass);
+        } catch (IOException ex) {
+            return null; // The whole payload has been read, so the stream is still aligned
+        }
+    }
+
+    @Override
+    public ResponseFrame readResponseFrame(DataInputStream in) throws IOException {
+        Decoder decoder = Decoder.readFrame(in);
+        final Response response;
+        try {
+            response = decodeResponse(decoder);
+        } catch (IOException ex) {
+            return null; // The whole payload has been read, so the stream is still aligned
+        }
+        return new ResponseFrame() {
+            @Override
+            public int getId() {
+                return response.getId();
+            }
+
+            @Override
+            public <T extends Response> T as(Class<T> responseClass) {
+                return adapt(response, responseClass);
+            }
+        };
+    }
+
+    @Override
+    public int frameLength(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < FRAME_HEADER_BYTES) {
+            return -1;
+        }
+        int payloadLength = buffer.getInt(buffer.position());
+        if (payloadLength < 0 || payloadLength > MAX_PAYLOAD_BYTES) {
+            throw new IOException("Invalid frame length " + payloadLength);
+        }
+        return FRAME_HEADER_BYTES + payloadLength;
+    }
+
+    private static Response decodeResponse(Decoder decoder) throws IOException {
+        int kind = decoder.readByte();
+        Response response;
+        switch (kind) {
+            case KIND_RESPONSE:
+                response = new Response();
+                break;
+            case KIND_GAMING_RESPONSE:
+                response = new GamingResponse();
+                break;
+            case KIND_PAIRING_RESPONSE:
+                response = new PairingResponse();
+                break;
+            case KIND_PUSH_MESSAGE:
+                response = new PushMessage();
+                break;
+            default:
+                throw new IOException("Frame does not contain a response: kind " + kind);
+        }
+
+        response.setStatus(decoder.readEnum(RESPONSE_STATUSES));
+        response.setId(decoder.readVarint());
+        response.setMessage(decoder.readString());
+
+        if (response instanceof GamingResponse) {
+            GamingResponse gaming = (GamingResponse) response;
+            gaming.setMove(decoder.readZigZag());
+            gaming.setActive(decoder.readBoolean());
+        } else if (response instanceof PairingResponse) {
+            PairingResponse pairing = (PairingResponse) response;
+            pairing.setAvailableUsers(decoder.readUsers());
+            pairing.setInvitation(decoder.readEvent());
+            pairing.setInvitationResponse(decoder.readEvent());
+            pairing.setRemovedUsernames(decoder.readStrings());
+            pairing.setPresenceVersion(decoder.readVarlong());
+            pairing.setBaseVersion(decoder.readVarlong());
+            pairing.setNextCursor(decoder.readString());
+        } else if (response instanceof PushMessage) {
+            PushMessage push = (PushMessage) response;
+            push.setType(decoder.readEnum(PUSH_TYPES));
+            push.setMove(decoder.readZigZag());
+            push.setEvent(decoder.readEvent());
+            push.setUser(decoder.readUser());
+        }
+        return response;
+    }
+
+    /**
+     * Returns {@code response} as T. A plain {@code Response} (for instance a failure) is copied
+     * into a fresh T, which mirrors how JSON decoding leaves the missing fields at their defaults.
+     */
+    private static <T extends Response> T adapt(Response response, Class<T> responseClass) {
+        if (responseClass.isInstance(response)) {
+            return responseClass.cast(response);
+        }
+        if (response.getClass() != Response.class) {
+            return null; // A different subclass; the fields cannot be mapped
+        }
+        try {
+            T adapted = responseClass.getDeclaredConstructor().newInstance();
+            adapted.setStatus(response.getStatus());
+            adapted.setId(response.getId());
+            adapted.setMessage(response.getMessage());
+            return adapted;
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds one payload in a growable array and writes it out with its length prefix.
+     */
+    private static final class Encoder {
+        private byte[] buffer = new byte[64];
+        private int size;
+
+        private void ensureCapacity(int extra) throws IOException {
+            int required = this.size + extra;
+            if (required > MAX_PAYLOAD_BYTES) {
+                throw new IOException("Frame exceeds " + MAX_PAYLOAD_BYTES + " bytes");
+            }
+            if (required > this.buffer.length) {
+                byte[] grown = new byte[Math.max(required, this.buffer.length * 2)];
+                System.arraycopy(this.buffer, 0, grown, 0, this.size);
+                this.buffer = grown;
+            }
+        }
+
+        private void writeByte(int value) throws IOException {
+            ensureCapacity(1);
+            this.buffer[this.size++] = (byte) value;
+        }
+
+        private void writeBoolean(boolean value) throws IOException {
+            writeByte(value ? 1 : 0);
+        }
+
+        private void writeVarint(int value) throws IOException {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.size++] = (byte) value;
+        }
+
+        private void writeVarlong(long value) throws IOException {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.size++] = (byte) value;
+        }
+
+        private void writeZigZag(int value) throws IOException {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        private void writeEnum(Enum<?> value) throws IOException {
+            writeByte(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.size, bytes.length);
+            this.size += bytes.length;
+        }
+
+        private void writeStrings(List<String> values) throws IOException {
+            if (values == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(values.size() + 1);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        private void writeUsers(List<User> users) throws IOException {
+            if (users == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(users.size() + 1);
+            for (User user : users) {
+                writeUser(user);
+            }
+        }
+
+        private void writeUser(User user) throws IOException {
+            writeBoolean(user != null);
+            if (user != null) {
+                writeString(user.getUsername());
+                writeString(user.getPassword());
+                writeString(user.getDisplayName());
+                writeBoolean(user.getOnline());
+            }
+        }
+
+        private void writeEvent(Event event) throws IOException {
+            writeBoolean(event != null);
+            if (event != null) {
+                writeVarint(event.getEventId());
+                writeString(event.getSender());
+                writeString(event.getOpponent());
+                writeEnum(event.getStatus());
+                writeString(event.getTurn());
+                writeZigZag(event.getMove());
+            }
+        }
+
+        private void writeFrame(DataOutputStream out) throws IOException {
+            out.writeInt(this.size);
+            out.write(this.buffer, 0, this.size);
+        }
+    }
+
+    /**
+     * Reads fields back from one payload, rejecting anything that runs past its end.
+     */
+    private static final class Decoder {
+        private final byte[] buffer;
+        private int position;
+
+        private Decoder(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private static Decoder readFrame(DataInputStream in) throws IOException {
+            int payloadLength = in.readInt();
+            if (payloadLength < 0 || payloadLength > MAX_PAYLOAD_BYTES) {
+                throw new IOException("Invalid frame length " + payloadLength);
+            }
+            byte[] payload = new byte[payloadLength];
+            in.readFully(payload);
+            return new Decoder(payload);
+        }
+
+        private void require(int count) throws IOException {
+            if (count < 0 || this.buffer.length - this.position < count) {
+                throw new IOException("Truncated frame");
+            }
+        }
+
+        private int readByte() throws IOException {
+            require(1);
+            return this.buffer[this.position++] & 0xFF;
+        }
+
+        private boolean readBoolean() throws IOException {
+            return readByte() != 0;
+        }
+
+        private int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private long readVarlong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private int readZigZag() throws IOException {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+            int tag = readByte();
+            if (tag == 0) {
+                return null;
+            }
+            if (tag > values.length) {
+                throw new IOException("Unknown enum tag " + tag);
+            }
+            return values[tag - 1];
+        }
+
+        private String readString() throws IOException {
+            int length = readVarint();
+            if (length == 0) {
+                return null;
+            }
+            require(length - 1);
+            String value = new String(this.buffer, this.position, length - 1, StandardCharsets.UTF_8);
+            this.position += length - 1;
+            return value;
+        }
+
+        private List<String> readStrings() throws IOException {
+            int count = readVarint();
+            if (count == 0) {
+                return null;
+            }
+            // Every string takes at least one byte, which bounds the list before allocating it
+            require(count - 1);
+            List<String> values = new ArrayList<>(count - 1);
+            for (int i = 1; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        private List<User> readUsers() throws IOException {
+            int count = readVarint();
+            if (count == 0) {
+                return null;
+            }
+            // Every user takes at least one byte, which bounds the list before allocating it
+            require(count - 1);
+            List<User> users = new ArrayList<>(count - 1);
+            for (int i = 1; i < count; i++) {
+                users.add(readUser());
+            }
+            return users;
+        }
+
+        private User readUser() throws IOException {
+            if (!readBoolean()) {
+                return null;
+            }
+            return new User(readString(), readString(), readString(), readBoolean());
+        }
+
+        private Event readEvent() throws IOException {
+            if (!readBoolean()) {
+                return null;
+            }
+            return new Event(readVarint(), readString(), readString(), readEnum(EVENT_STATUSES),
+                    readString(), readZigZag());
+        }
+    }
+}
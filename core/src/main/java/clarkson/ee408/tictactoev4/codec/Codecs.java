@@ -0,0 +1,26 @@
+package clarkson.ee408.tictactoev4.codec;
+
+/**
+ * Looks up the codecs that can be negotiated with {@code NEGOTIATE_CODEC}.
+ */
+public final class Codecs {
+
+    private Codecs() {
+    }
+
+    /**
+     * Returns a new codec for the given negotiated name.
+     *
+     * @param name the codec name, as returned by {@link MessageCodec#getName()}
+     * @return the codec, or {@code null} if the name is not supported
+     */
+    public static MessageCodec forName(String name) {
+        if (JsonCodec.NAME.equals(name)) {
+            return new JsonCodec();
+        }
+        if (BinaryCodec.NAME.equals(name)) {
+            return new BinaryCodec();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,250 @@
+package clarkson.ee408.tictactoev4.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * The moves of a game, packed small enough to keep thousands of finished games or to send a whole
+ * game in one frame.
+ * <p>
+ * A record is the board side, the win length and the move count as unsigned varints, followed by
+ * the moves. On boards of up to 16 cells each move is a 4-bit cell index, two per byte with the
+ * first move in the low nibble; on larger boards each move is an unsigned varint. A finished 3×3
+ * game takes 8 bytes at most.
+ * <p>
+ * Records are immutable. They hold the moves rather than the board, so a game can be replayed,
+ * checked move by move, or stepped through with {@link TicTacToe#undo()} and
+ * {@link TicTacToe#redo()}.
+ */
+public final class GameRecord {
+
+    /**
+     * The largest board whose cells fit in 4 bits.
+     */
+    private static final int MAX_NIBBLE_CELLS = 16;
+
+    /**
+     * Upper bound on the board side, so a corrupt header cannot make the reader allocate without limit.
+     */
+    private static final int MAX_SIDE = 256;
+
+    private final int side;
+    private final int winLength;
+    private final int moveCount;
+    private final byte[] bytes;
+    private final int movesOffset; // where the moves start, after the header
+
+    private GameRecord(int side, int winLength, int moveCount, byte[] bytes, int movesOffset) {
+        this.side = side;
+        this.winLength = winLength;
+        this.moveCount = moveCount;
+        this.bytes = bytes;
+        this.movesOffset = movesOffset;
+    }
+
+    /**
+     * Records the moves played so far in {@code game}.
+     *
+     * @param game the game to record; it is not modified
+     * @return the record of the game
+     */
+    public static GameRecord of(TicTacToe game) {
+        int side = game.getSide();
+        int moveCount = game.getMoveCount();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(6 + moveCount);
+        writeVarint(out, side);
+        writeVarint(out, game.getWinLength());
+        writeVarint(out, moveCount);
+        int movesOffset = out.size();
+        if (side * side <= MAX_NIBBLE_CELLS) {
+            for (int i = 0; i < moveCount; i += 2) {
+                int high = i + 1 < moveCount ? game.getMove(i + 1) : 0;
+                out.write(high << 4 | game.getMove(i));
+            }
+        } else {
+            for (int i = 0; i < moveCount; i++) {
+                writeVarint(out, game.getMove(i));
+            }
+        }
+        return new GameRecord(side, game.getWinLength(), moveCount, out.toByteArray(), movesOffset);
+    }
+
+    /**
+     * Reads a record written by {@link #toBytes()}, checking that its moves are legal.
+     *
+     * @param bytes the encoded record
+     * @return the record
+     * @throws IOException if the bytes are not a valid record
+     */
+    public static GameRecord fromBytes(byte[] bytes) throws IOException {
+        int[] position = {0};
+        int side = readVarint(bytes, position);
+        int winLength = readVarint(bytes, position);
+        int moveCount = readVarint(bytes, position);
+        if (side < 1 || side > MAX_SIDE || winLength < 1 || winLength > side
+                || moveCount < 0 || moveCount > side * side) {
+            throw new IOException("Invalid game record header: " + side + "x" + side + ", "
+                    + winLength + " in a row, " + moveCount + " moves");
+        }
+
+        GameRecord record = new GameRecord(side, winLength, moveCount, bytes.clone(), position[0]);
+        int end = record.decode(new TicTacToe(1, side, winLength));
+        if (end != bytes.length) {
+            throw new IOException("Game record has " + (bytes.length - end) + " trailing bytes");
+        }
+        return record;
+    }
+
+    /**
+     * Returns the encoded record.
+     *
+     * @return a copy of the bytes, as read by {@link #fromBytes(byte[])}
+     */
+    public byte[] toBytes() {
+        return this.bytes.clone();
+    }
+
+    /**
+     * Returns the number of bytes of the encoded record.
+     *
+     * @return the size of {@link #toBytes()}
+     */
+    public int size() {
+        return this.bytes.length;
+    }
+
+    /**
+     * Plays the recorded moves on a new game.
+     *
+     * @param player the player number of the new game, as in {@link TicTacToe#TicTacToe(int)}
+     * @return a game in the recorded position, with every move in its history
+     */
+    public TicTacToe replay(int player) {
+        TicTacToe game = new TicTacToe(player, this.side, this.winLength);
+        try {
+            decode(game);
+        } catch (IOException e) {
+            // The moves were checked when the record was made
+            throw new IllegalStateException(e);
+        }
+        return game;
+    }
+
+    /**
+     * Returns the recorded moves.
+     *
+     * @return the cells, {@code row * side + col}, in the order they were played
+     */
+    public int[] getMoves() {
+        TicTacToe game = replay(1);
+        int[] moves = new int[this.moveCount];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = game.getMove(i);
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the side of the board.
+     *
+     * @return the number of rows and columns
+     */
+    public int getSide() {
+        return this.side;
+    }
+
+    /**
+     * Returns how many cells in a row win.
+     *
+     * @return the win length
+     */
+    public int getWinLength() {
+        return this.winLength;
+    }
+
+    /**
+     * Returns the number of moves recorded.
+     *
+     * @return the move count
+     */
+    public int getMoveCount() {
+        return this.moveCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GameRecord that = (GameRecord) o;
+        return Arrays.equals(this.bytes, that.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.bytes);
+    }
+
+    /**
+     * Plays the recorded moves on {@code game}.
+     *
+     * @return the offset just past the last move
+     */
+    private int decode(TicTacToe game) throws IOException {
+        int cells = this.side * this.side;
+        int[] position = {this.movesOffset};
+        for (int i = 0; i < this.moveCount; i++) {
+            int cell;
+            if (cells <= MAX_NIBBLE_CELLS) {
+                if (position[0] >= this.bytes.length) {
+                    throw new IOException("Game record ends after " + i + " of " + this.moveCount + " moves");
+                }
+                int packed = this.bytes[position[0]] & 0xFF;
+                cell = i % 2 == 0 ? packed & 0x0F : packed >>> 4;
+                if (i % 2 == 1) {
+                    position[0]++;
+                } else if (i == this.moveCount - 1) {
+                    if (packed >>> 4 != 0) {
+                        throw new IOException("Game record pads its last move with " + (packed >>> 4));
+                    }
+                    position[0]++;
+                }
+            } else {
+                cell = readVarint(this.bytes, position);
+            }
+            if (cell >= cells || game.play(cell / this.side, cell % this.side) == 0) {
+                throw new IOException("Illegal move " + cell + " at move " + i + " of game record");
+            }
+        }
+        return position[0];
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] bytes, int[] position) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IOException("Game record ends in the middle of a number");
+            }
+            int b = bytes[position[0]++];
+            if (shift == 28 && (b & 0x7F) > 0x07) {
+                // Every number in a record is a non-negative int, which has 31 bits
+                throw new IOException("Number out of range in game record");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in game record");
+    }
+}
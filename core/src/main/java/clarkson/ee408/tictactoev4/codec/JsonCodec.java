@@ -0,0 +1,162 @@
+package clarkson.ee408.tictactoev4.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.Response;
+
+/**
+ * The original wire format: every message is serialized to JSON with Gson and framed with
+ * {@link DataOutputStream#writeUTF(String)}, i.e. a 2-byte length followed by modified UTF-8.
+ * Frames are therefore limited to 65,535 bytes.
+ * <p>
+ * Incoming frames are never materialized as a String. The payload is decoded from modified UTF-8
+ * through a small reusable buffer straight into a Gson {@link JsonReader}, so a large
+ * {@code PairingResponse} is built field by field as its bytes arrive.
+ */
+public final class JsonCodec implements MessageCodec {
+
+    public static final String NAME = "JSON";
+
+    private static final int FRAME_HEADER_BYTES = 2;
+
+    private final Gson gson;
+    private final ThreadLocal<ModifiedUtf8Reader> frameReaders;
+
+    /**
+     * Creates a new instance of {@code JsonCodec} with null serialization enabled.
+     */
+    public JsonCodec() {
+        this.gson = new GsonBuilder().serializeNulls().create();
+        this.frameReaders = new ThreadLocal<ModifiedUtf8Reader>() {
+            @Override
+            protected ModifiedUtf8Reader initialValue() {
+                return new ModifiedUtf8Reader();
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void writeRequest(DataOutputStream out, Request request) throws IOException {
+        out.writeUTF(this.gson.toJson(request));
+    }
+
+    @Override
+    public Request readRequest(DataInputStream in) throws IOException {
+        ModifiedUtf8Reader reader = beginFrame(in);
+        try {
+            Request request = this.gson.fromJson(new JsonReader(reader), Request.class);
+            reader.rethrowStreamFailure();
+            if (request == null) {
+                // Gson reads an empty document or a JSON null as no object at all
+                throw new IOException("Malformed request: no object");
+            }
+            return request;
+        } catch (JsonParseException ex) {
+            reader.rethrowStreamFailure();
+            throw new IOException("Malformed request", ex);
+        } finally {
+            reader.skipRest();
+        }
+    }
+
+    @Override
+    public void writeResponse(DataOutputStream out, Response response) throws IOException {
+        out.writeUTF(this.gson.toJson(response));
+    }
+
+    @Override
+    public <T extends Response> T readResponse(DataInputStream in, Class<T> responseClass) throws IOException {
+        ModifiedUtf8Reader reader = beginFrame(in);
+        try {
+            T response = this.gson.fromJson(new JsonReader(reader), responseClass);
+            // Gson reports a stream that ended before the first token as an empty document
+            reader.rethrowStreamFailure();
+            return response;
+        } catch (JsonParseException ex) {
+            // The length prefix delimits the frame, so only a failing stream is worse than bad content
+            reader.rethrowStreamFailure();
+            return null;
+        } finally {
+            reader.skipRest();
+        }
+    }
+
+    @Override
+    public ResponseFrame readResponseFrame(DataInputStream in) throws IOException {
+        ModifiedUtf8Reader reader = beginFrame(in);
+        try {
+            JsonObject json = JsonParser.parseReader(new JsonReader(reader)).getAsJsonObject();
+            JsonElement id = json.get("id");
+            if (id == null || id.isJsonNull()) {
+                return new JsonFrame(json, 0);
+            }
+            if (!id.isJsonPrimitive() || !id.getAsJsonPrimitive().isNumber()) {
+                return null;
+            }
+            return new JsonFrame(json, id.getAsInt());
+        } catch (JsonParseException | IllegalStateException ex) {
+            reader.rethrowStreamFailure();
+            return null;
+        } finally {
+            reader.skipRest();
+        }
+    }
+
+    @Override
+    public int frameLength(ByteBuffer buffer) {
+        if (buffer.remaining() < FRAME_HEADER_BYTES) {
+            return -1;
+        }
+        return FRAME_HEADER_BYTES + (buffer.getShort(buffer.position()) & 0xFFFF);
+    }
+
+    private ModifiedUtf8Reader beginFrame(DataInputStream in) throws IOException {
+        ModifiedUtf8Reader reader = this.frameReaders.get();
+        reader.reset(in);
+        return reader;
+    }
+
+    /**
+     * A response parsed into a JSON tree and converted once the caller's class is known.
+     */
+    private final class JsonFrame implements ResponseFrame {
+        private final JsonObject json;
+        private final int id;
+
+        private JsonFrame(JsonObject json, int id) {
+            this.json = json;
+            this.id = id;
+        }
+
+        @Override
+        public int getId() {
+            return this.id;
+        }
+
+        @Override
+        public <T extends Response> T as(Class<T> responseClass) {
+            try {
+                return gson.fromJson(this.json, responseClass);
+            } catch (JsonParseException ex) {
+                return null;
+            }
+        }
+    }
+}
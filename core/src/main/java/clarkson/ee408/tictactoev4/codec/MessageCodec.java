@@ -0,0 +1,83 @@
+package clarkson.ee408.tictactoev4.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.Response;
+
+/**
+ * Encodes protocol messages into length-prefixed frames and decodes them back. Both directions are
+ * covered so that the same codec can be used by the client and by a server stand-in.
+ */
+public interface MessageCodec {
+
+    /**
+     * Returns the name used to negotiate this codec with {@code NEGOTIATE_CODEC}.
+     *
+     * @return the codec name
+     */
+    String getName();
+
+    /**
+     * Writes one {@code Request} frame.
+     *
+     * @param out the stream to write to
+     * @param request the request to encode
+     * @throws IOException on errors writing to the stream or if the frame is too large
+     */
+    void writeRequest(DataOutputStream out, Request request) throws IOException;
+
+    /**
+     * Reads one {@code Request} frame.
+     *
+     * @param in the stream to read from
+     * @return the decoded request
+     * @throws IOException on errors reading from the stream or if the frame is malformed
+     */
+    Request readRequest(DataInputStream in) throws IOException;
+
+    /**
+     * Writes one {@code Response} frame. Subclasses such as {@code GamingResponse} and
+     * {@code PairingResponse} are encoded with all of their fields.
+     *
+     * @param out the stream to write to
+     * @param response the response to encode
+     * @throws IOException on errors writing to the stream or if the frame is too large
+     */
+    void writeResponse(DataOutputStream out, Response response) throws IOException;
+
+    /**
+     * Reads one {@code Response} frame as an object of {@code responseClass}.
+     *
+     * @param in the stream to read from
+     * @param responseClass the class of T
+     * @param <T> the type of the desired object
+     * @return the decoded response, or {@code null} if the frame does not contain a valid response
+     * @throws IOException on errors reading from the stream
+     */
+    <T extends Response> T readResponse(DataInputStream in, Class<T> responseClass) throws IOException;
+
+    /**
+     * Reads one {@code Response} frame without committing to a response class yet. Used when a
+     * reader thread has to look at the correlation id before it knows who is waiting for the frame.
+     *
+     * @param in the stream to read from
+     * @return the frame, ready to be converted once its caller is known, or {@code null} if the frame
+     *      does not contain a valid response; the frame is consumed either way
+     * @throws IOException on errors reading from the stream
+     */
+    ResponseFrame readResponseFrame(DataInputStream in) throws IOException;
+
+    /**
+     * Returns the total length, header included, of the frame starting at the buffer's position.
+     * The buffer's position is not changed.
+     *
+     * @param buffer a buffer in read mode
+     * @return the frame length in bytes, or -1 if the buffer does not yet hold the whole header
+     * @throws IOException if the header announces a frame larger than the codec allows
+     */
+    int frameLength(ByteBuffer buffer) throws IOException;
+}
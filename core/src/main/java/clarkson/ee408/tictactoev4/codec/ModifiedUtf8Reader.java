@@ -0,0 +1,144 @@
+package clarkson.ee408.tictactoev4.codec;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UTFDataFormatException;
+
+/**
+ * A {@link Reader} over exactly one {@link DataInputStream#readUTF()} frame that decodes the
+ * modified UTF-8 bytes as they arrive, instead of building the whole payload as a String first.
+ * <p>
+ * The byte buffer is fixed in size and the reader is meant to be reused with
+ * {@link #reset(DataInputStream)}, so decoding a frame allocates nothing beyond what the consumer
+ * of the characters allocates. Instances are not thread-safe.
+ */
+final class ModifiedUtf8Reader extends Reader {
+
+    private static final int BUFFER_BYTES = 8192;
+
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private DataInputStream in;
+    private int remaining; // bytes of the frame not yet pulled into the buffer
+    private int position;
+    private int limit;
+    private IOException streamFailure; // set once the underlying stream fails mid-frame
+
+    /**
+     * Reads the 2-byte length of the next frame and prepares to decode its payload.
+     *
+     * @param in the stream positioned at the start of a {@code writeUTF} frame
+     * @throws IOException on errors reading the frame header
+     */
+    void reset(DataInputStream in) throws IOException {
+        this.in = in;
+        this.remaining = in.readUnsignedShort();
+        this.position = 0;
+        this.limit = 0;
+        this.streamFailure = null;
+    }
+
+    /**
+     * Rethrows the error, if any, that the underlying stream raised while this frame was being
+     * decoded. A parser wraps such errors, and they must not be mistaken for bad content: once
+     * the stream has failed, the rest of the frame can no longer be skipped.
+     *
+     * @throws IOException the error raised by the underlying stream
+     */
+    void rethrowStreamFailure() throws IOException {
+        if (this.streamFailure != null) {
+            throw this.streamFailure;
+        }
+    }
+
+    /**
+     * Discards whatever is left of the current frame so the stream stays aligned on frame
+     * boundaries, e.g. after the JSON value ended early or failed to parse. Does nothing if the
+     * underlying stream has already failed.
+     *
+     * @throws IOException on errors reading from the stream
+     */
+    void skipRest() throws IOException {
+        if (this.streamFailure != null) {
+            return;
+        }
+        this.position = this.limit;
+        while (this.remaining > 0) {
+            int skipped = this.in.skipBytes(this.remaining);
+            if (skipped <= 0) {
+                this.in.readByte(); // skipBytes may return 0 without reaching the end; force progress
+                skipped = 1;
+            }
+            this.remaining -= skipped;
+        }
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+        int produced = 0;
+        while (produced < length) {
+            // Keep at least one whole character (up to 3 bytes) in the buffer
+            if (this.limit - this.position < 3 && this.remaining > 0) {
+                fill();
+            }
+            if (this.position >= this.limit) {
+                break;
+            }
+
+            int b = this.buffer[this.position] & 0xFF;
+            if (b < 0x80) {
+                chars[offset + produced] = (char) b;
+                this.position += 1;
+            } else if ((b & 0xE0) == 0xC0) {
+                requireBytes(2);
+                int b2 = continuation(this.position + 1);
+                chars[offset + produced] = (char) (((b & 0x1F) << 6) | b2);
+                this.position += 2;
+            } else if ((b & 0xF0) == 0xE0) {
+                requireBytes(3);
+                int b2 = continuation(this.position + 1);
+                int b3 = continuation(this.position + 2);
+                chars[offset + produced] = (char) (((b & 0x0F) << 12) | (b2 << 6) | b3);
+                this.position += 3;
+            } else {
+                throw new UTFDataFormatException("Malformed input around byte " + this.position);
+            }
+            produced++;
+        }
+        return (produced == 0 && length > 0) ? -1 : produced;
+    }
+
+    @Override
+    public void close() {
+        // The underlying stream belongs to the connection and stays open
+    }
+
+    private void fill() throws IOException {
+        int leftover = this.limit - this.position;
+        System.arraycopy(this.buffer, this.position, this.buffer, 0, leftover);
+        int count = Math.min(this.buffer.length - leftover, this.remaining);
+        try {
+            this.in.readFully(this.buffer, leftover, count);
+        } catch (IOException ex) {
+            this.streamFailure = ex;
+            throw ex;
+        }
+        this.remaining -= count;
+        this.position = 0;
+        this.limit = leftover + count;
+    }
+
+    private void requireBytes(int count) throws UTFDataFormatException {
+        if (this.limit - this.position < count) {
+            throw new UTFDataFormatException("Partial character at end of input");
+        }
+    }
+
+    private int continuation(int index) throws UTFDataFormatException {
+        int b = this.buffer[index] & 0xFF;
+        if ((b & 0xC0) != 0x80) {
+            throw new UTFDataFormatException("Malformed input around byte " + index);
+        }
+        return b & 0x3F;
+    }
+}
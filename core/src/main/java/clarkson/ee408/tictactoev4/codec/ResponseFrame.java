@@ -0,0 +1,25 @@
+package clarkson.ee408.tictactoev4.codec;
+
+import clarkson.ee408.tictactoev4.socket.Response;
+
+/**
+ * A decoded response frame whose target class is not known yet.
+ */
+public interface ResponseFrame {
+
+    /**
+     * Returns the correlation id carried by the frame.
+     *
+     * @return the correlation id, or 0 if the frame is not correlated
+     */
+    int getId();
+
+    /**
+     * Converts the frame to an object of {@code responseClass}.
+     *
+     * @param responseClass the class of T
+     * @param <T> the type of the desired object
+     * @return the response, or {@code null} if the frame cannot be represented as T
+     */
+    <T extends Response> T as(Class<T> responseClass);
+}
@@ -0,0 +1,99 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import clarkson.ee408.tictactoev4.BoardState;
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * A computer opponent that picks its moves with an {@link AlphaBetaSearch}, or by looking them up
+ * in the {@link PerfectPlayTable} on the classic 3×3 board.
+ * <p>
+ * Searches run on the executor given to the constructor, so the calling thread never blocks, and
+ * one at a time, so one {@code AiPlayer} can serve several games, e.g. bots kept in a lobby for
+ * load tests. The search works from an immutable {@link BoardState}, so the game can be changed
+ * while it runs.
+ */
+public final class AiPlayer {
+
+    /**
+     * The base-2 logarithm of the number of transposition table slots, about 1 MB.
+     */
+    private static final int TABLE_SIZE_BITS = 16;
+
+    private final Executor executor;
+    private final AlphaBetaSearch search;
+    private final int maxDepth;
+    private final long timeBudgetMillis;
+
+    /**
+     * Creates a new instance of {@code AiPlayer}.
+     *
+     * @param executor the executor to search on, e.g. {@code AppExecutors.computation()}
+     * @param maxDepth the most plies to look ahead, or 0 to search to the end of the game
+     * @param timeBudgetMillis how long to think about each move, or 0 for no time limit
+     */
+    public AiPlayer(Executor executor, int maxDepth, long timeBudgetMillis) {
+        this.executor = executor;
+        this.search = new AlphaBetaSearch(new TranspositionTable(TABLE_SIZE_BITS));
+        this.maxDepth = maxDepth;
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Starts choosing a move for the player whose turn it is in {@code game}.
+     *
+     * @param game the game to move in; a snapshot is taken on the calling thread
+     * @return a future completed with the chosen move on the executor's thread
+     */
+    public CompletableFuture<SearchResult> chooseMove(TicTacToe game) {
+        return chooseMove(game.snapshot());
+    }
+
+    /**
+     * Starts choosing a move for the player whose turn it is in {@code state}.
+     *
+     * @param state the position to move in
+     * @return a future completed with the chosen move on the executor's thread
+     */
+    public CompletableFuture<SearchResult> chooseMove(BoardState state) {
+        return CompletableFuture.supplyAsync(() -> {
+            TicTacToe position = state.toGame(1);
+            if (PerfectPlayTable.supports(position)) {
+                return lookUp(PerfectPlayTable.getInstance(), position);
+            }
+            synchronized (this.search) {
+                return this.search.search(position, this.maxDepth, this.timeBudgetMillis);
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Answers with the move stored in the table, scored like a search to the end of the game
+     * would; the table does not keep how far away a win is, so wins score just past
+     * {@link AlphaBetaSearch#WIN_THRESHOLD}.
+     *
+     * @param table the solved 3×3 positions
+     * @param game the position to move in
+     * @return the best move, searched to the end of the game without visiting any node, or a
+     *      result with move -1 if the game is already over
+     */
+    static SearchResult lookUp(PerfectPlayTable table, TicTacToe game) {
+        int side = game.getSide();
+        if (game.isGameOver()) {
+            return new SearchResult(-1, side, 0, 0, 0);
+        }
+        int move = table.bestMove(game);
+        int score = table.value(game) * (AlphaBetaSearch.WIN_THRESHOLD + 1);
+        return new SearchResult(move, side, score, side * side - game.getMoveCount(), 0);
+    }
+
+    /**
+     * Cuts the search in progress short, e.g. when the game it is for is closed. Its future still
+     * completes, with the best move found so far.
+     */
+    public void cancel() {
+        this.search.stop();
+    }
+}
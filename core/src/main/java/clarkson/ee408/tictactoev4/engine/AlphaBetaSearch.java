@@ -0,0 +1,120 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * Finds the best move for the player to move with negamax and alpha-beta pruning.
+ * <p>
+ * The search deepens one ply at a time until it reaches the depth limit, runs out of time, or
+ * proves a win or loss, and answers with the best move of the deepest iteration that completed.
+ * Positions are identified by their {@link Zobrist} hash, and results are kept in a
+ * {@link TranspositionTable} so that positions reached through different move orders are only
+ * searched once and the best move of the previous iteration is tried first.
+ * <p>
+ * This search runs on the calling thread; {@link ParallelAlphaBetaSearch} spreads the same search
+ * over a {@code ForkJoinPool}. Instances are not thread-safe, except for {@link #stop()}.
+ */
+public final class AlphaBetaSearch {
+
+    /**
+     * The score of winning right away. A win found {@code n} plies ahead scores
+     * {@code WIN_SCORE - n}, so the search prefers quick wins and slow losses.
+     */
+    public static final int WIN_SCORE = 1_000_000;
+
+    /**
+     * Scores beyond this are forced wins, and scores below its negation forced losses.
+     */
+    public static final int WIN_THRESHOLD = WIN_SCORE - 1_000;
+
+    private final TranspositionTable table;
+    private final SearchControl control;
+    private Zobrist zobrist;
+
+    /**
+     * Creates a new instance of {@code AlphaBetaSearch}.
+     *
+     * @param table the table to keep results in; it is reused across searches
+     */
+    public AlphaBetaSearch(TranspositionTable table) {
+        this.table = table;
+        this.control = new SearchControl();
+    }
+
+    /**
+     * Searches for the best move for the player whose turn it is in {@code game}.
+     *
+     * @param game the position to search; it is not modified
+     * @param maxDepth the most plies to look ahead, or 0 to search to the end of the game
+     * @param timeBudgetMillis how long to search for, or 0 for no time limit. The first
+     *      iteration always completes, so a move is found even with a tiny budget
+     * @return the best move found, or a result with move -1 if the game is already over
+     */
+    public SearchResult search(TicTacToe game, int maxDepth, long timeBudgetMillis) {
+        this.control.start(timeBudgetMillis);
+        this.zobrist = zobristFor(this.table, this.zobrist, game);
+        int side = game.getSide();
+        if (game.isGameOver()) {
+            return new SearchResult(-1, side, 0, 0, 0);
+        }
+
+        SearchWorker worker = new SearchWorker(this.table, this.zobrist, this.control, game);
+        long hash = worker.hash();
+        int limit = depthLimit(game, maxDepth);
+
+        int bestMove = -1;
+        int bestScore = 0;
+        int completed = 0;
+        for (int depth = 1; depth <= limit; depth++) {
+            int score = worker.negamax(hash, depth, 0, -SearchWorker.INFINITY, SearchWorker.INFINITY);
+            if (worker.isAborted()) {
+                break; // Keep the result of the last iteration that completed
+            }
+
+            bestMove = worker.getRootBestMove();
+            bestScore = score;
+            completed = depth;
+            this.control.allowTimeout();
+            if (Math.abs(score) > WIN_THRESHOLD || this.control.isPastDeadline()) {
+                break; // The outcome is proven, or there is no time for another iteration
+            }
+        }
+
+        if (bestMove < 0) {
+            // Only if stopped before the first iteration completed; any legal move will do
+            worker.generateMoves(0, -1);
+            bestMove = worker.getMoves(0)[0];
+        }
+        return new SearchResult(bestMove, side, bestScore, completed, worker.getNodes());
+    }
+
+    /**
+     * Asks the search in progress to return as soon as possible with the best move of its
+     * deepest completed iteration. May be called from any thread.
+     */
+    public void stop() {
+        this.control.stop();
+    }
+
+    /**
+     * Returns the keys for the board size and win length of {@code game}, reusing {@code current}
+     * if it fits and otherwise clearing the table. Its hashes mean nothing for another board size,
+     * and its scores are wrong for another win length even though the hashes are the same.
+     */
+    static Zobrist zobristFor(TranspositionTable table, Zobrist current, TicTacToe game) {
+        if (current != null && current.getSide() == game.getSide()
+                && current.getWinLength() == game.getWinLength()) {
+            return current;
+        }
+        table.clear();
+        return new Zobrist(game.getSide(), game.getWinLength());
+    }
+
+    /**
+     * Returns how deep a search of {@code game} may go: no deeper than the moves left.
+     */
+    static int depthLimit(TicTacToe game, int maxDepth) {
+        int remaining = game.getSide() * game.getSide() - game.getMoveCount();
+        return maxDepth > 0 ? Math.min(maxDepth, remaining) : remaining;
+    }
+}
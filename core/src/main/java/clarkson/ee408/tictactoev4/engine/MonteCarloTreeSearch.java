@@ -0,0 +1,260 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * Finds a good move by Monte Carlo tree search, for boards too large for {@link AlphaBetaSearch}
+ * to see far ahead.
+ * <p>
+ * Each playout walks down a tree of the moves tried so far, picking at every node the child with
+ * the best UCT bound, adds one untried move to the tree, and then plays random moves on a
+ * {@link PlayoutBoard} until the game ends. The result is credited to every node on the way down.
+ * As in {@link SearchWorker}, only cells near the marks already played enter the tree, while the
+ * random games may use any cell.
+ * <p>
+ * The search is root-parallel: every worker grows its own tree from the same position with its
+ * own random numbers, on the threads of a {@link ForkJoinPool}, and the visits of the root moves
+ * are added up at the end. Nothing is shared while the workers run, so no locks or virtual losses
+ * are needed, and the outcome only depends on the seed, the number of workers and the number of
+ * playouts, not on how the threads were scheduled. Searches limited by time are not repeatable.
+ * <p>
+ * Scores go from {@code -SCORE_SCALE}, every playout lost, to {@code SCORE_SCALE}, every playout
+ * won, so they never look like the proven wins of the other searches.
+ * Instances are not thread-safe, except for {@link #stop()}.
+ */
+public final class MonteCarloTreeSearch {
+
+    /**
+     * The score of a move that won every playout.
+     */
+    public static final int SCORE_SCALE = 1000;
+
+    /**
+     * How much UCT favors moves tried less often over moves that did well, the usual √2.
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    /**
+     * Only cells within this many rows and columns of a mark enter the tree.
+     */
+    private static final int NEIGHBOR_RADIUS = 2;
+
+    /**
+     * The clock is read once every this many playouts, plus one.
+     */
+    private static final int CLOCK_CHECK_MASK = 63;
+
+    private final ForkJoinPool pool;
+    private final int workers;
+    private final long seed;
+    private final SearchControl control;
+
+    /**
+     * Creates a new instance of {@code MonteCarloTreeSearch}.
+     *
+     * @param pool the pool to run the workers on
+     * @param workers how many trees to grow at once, usually the parallelism of the pool
+     * @param seed the seed of the random numbers; every search starts from it again
+     */
+    public MonteCarloTreeSearch(ForkJoinPool pool, int workers, long seed) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is needed, not " + workers);
+        }
+        this.pool = pool;
+        this.workers = workers;
+        this.seed = seed;
+        this.control = new SearchControl();
+    }
+
+    /**
+     * Searches for the best move for the player whose turn it is in {@code game}, blocking until
+     * the search is done.
+     *
+     * @param game the position to search; it is not modified
+     * @param maxPlayouts the most random games to play, split evenly between the workers, or 0
+     *      for no limit
+     * @param timeBudgetMillis how long to search for, or 0 for no time limit. Every worker plays
+     *      at least one game, so a move is found even with a tiny budget
+     * @return the move visited most often, or a result with move -1 if the game is already over
+     * @throws IllegalArgumentException if there is neither a playout limit nor a time limit
+     */
+    public SearchResult search(TicTacToe game, int maxPlayouts, long timeBudgetMillis) {
+        if (maxPlayouts <= 0 && timeBudgetMillis <= 0) {
+            throw new IllegalArgumentException("A search needs a playout limit or a time limit");
+        }
+        this.control.start(timeBudgetMillis);
+        this.control.allowTimeout();
+        int side = game.getSide();
+        if (game.isGameOver()) {
+            return new SearchResult(-1, side, 0, 0, 0);
+        }
+
+        // Split the seed on this thread, so each worker's numbers do not depend on scheduling
+        SplittableRandom random = new SplittableRandom(this.seed);
+        PlayoutBoard root = new PlayoutBoard(game);
+        List<Worker> tasks = new ArrayList<>(this.workers);
+        for (int i = 0; i < this.workers; i++) {
+            int playouts = maxPlayouts <= 0 ? Integer.MAX_VALUE
+                    : maxPlayouts / this.workers + (i < maxPlayouts % this.workers ? 1 : 0);
+            tasks.add(new Worker(root, random.split(), Math.max(1, playouts)));
+        }
+        this.pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        // Add up the root moves of every tree; the most visited move is the most trusted one
+        long[] visits = new long[side * side];
+        long[] points = new long[side * side];
+        long playouts = 0;
+        int depth = 0;
+        for (Worker worker : tasks) {
+            playouts += worker.playouts;
+            depth = Math.max(depth, worker.maxDepth);
+            Node rootNode = worker.rootNode;
+            for (int i = 0; i < rootNode.childCount; i++) {
+                Node child = rootNode.children[i];
+                visits[child.move] += child.visits;
+                points[child.move] += child.points;
+            }
+        }
+        int bestMove = -1;
+        for (int cell = 0; cell < visits.length; cell++) {
+            if (visits[cell] > 0 && (bestMove < 0 || visits[cell] > visits[bestMove])) {
+                bestMove = cell;
+            }
+        }
+        // Points count 2 for a win and 1 for a tie
+        int score = (int) Math.round(SCORE_SCALE * ((double) points[bestMove] / visits[bestMove] - 1));
+        return new SearchResult(bestMove, side, score, depth, playouts);
+    }
+
+    /**
+     * Asks the search in progress to return as soon as possible with the best move found so far.
+     * May be called from any thread.
+     */
+    public void stop() {
+        this.control.stop();
+    }
+
+    /**
+     * A move in the tree and the results of the playouts that went through it.
+     */
+    private static final class Node {
+        private final int move;
+        private final int mover;
+        private final Node parent;
+        private final int winner; // of the game this move ended, if it did
+        private final boolean terminal;
+        private Node[] children;
+        private int childCount;
+        private int[] untried;    // allocated when the node is first expanded
+        private int untriedCount;
+        private int visits;
+        private long points;      // 2 per win and 1 per tie for the mover
+
+        private Node(int move, int mover, Node parent, PlayoutBoard board) {
+            this.move = move;
+            this.mover = mover;
+            this.parent = parent;
+            this.winner = board.getWinner();
+            this.terminal = board.isGameOver();
+        }
+
+        private Node selectChild() {
+            double logVisits = Math.log(this.visits);
+            Node best = null;
+            double bestBound = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < this.childCount; i++) {
+                Node child = this.children[i];
+                double bound = child.points / (2.0 * child.visits)
+                        + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (bound > bestBound) {
+                    bestBound = bound;
+                    best = child;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Grows one tree on its own boards.
+     */
+    private final class Worker extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final PlayoutBoard root;
+        private final SplittableRandom random;
+        private final int maxPlayouts;
+        private Node rootNode;
+        private long playouts;
+        private int maxDepth;
+
+        private Worker(PlayoutBoard root, SplittableRandom random, int maxPlayouts) {
+            this.root = root;
+            this.random = random;
+            this.maxPlayouts = maxPlayouts;
+        }
+
+        @Override
+        protected void compute() {
+            PlayoutBoard board = new PlayoutBoard(this.root);
+            int[] moves = new int[board.cellCount()];
+            this.rootNode = new Node(-1, board.getTurn() == 1 ? 2 : 1, null, board);
+
+            while (this.playouts < this.maxPlayouts) {
+                if (this.playouts > 0 && (control.isStopped()
+                        || (this.playouts & CLOCK_CHECK_MASK) == 0 && control.isTimeUp())) {
+                    break;
+                }
+                board.copyFrom(this.root);
+
+                // Select, then expand one move
+                Node node = this.rootNode;
+                int depth = 0;
+                while (!node.terminal) {
+                    if (node.untried == null) {
+                        int count = board.nearbyMoves(NEIGHBOR_RADIUS, moves);
+                        node.untried = new int[count];
+                        System.arraycopy(moves, 0, node.untried, 0, count);
+                        node.untriedCount = count;
+                        node.children = new Node[count];
+                    }
+                    if (node.untriedCount > 0) {
+                        int index = this.random.nextInt(node.untriedCount);
+                        int move = node.untried[index];
+                        node.untried[index] = node.untried[--node.untriedCount];
+                        int mover = board.getTurn();
+                        board.play(move);
+                        Node child = new Node(move, mover, node, board);
+                        node.children[node.childCount++] = child;
+                        node = child;
+                        depth++;
+                        break;
+                    }
+                    node = node.selectChild();
+                    board.play(node.move);
+                    depth++;
+                }
+
+                // Simulate, then credit the result to every node on the way back up
+                int winner = node.terminal ? node.winner : board.playOut(this.random);
+                for (Node n = node; n != null; n = n.parent) {
+                    n.visits++;
+                    n.points += winner == 0 ? 1 : winner == n.mover ? 2 : 0;
+                }
+                this.playouts++;
+                this.maxDepth = Math.max(this.maxDepth, depth);
+            }
+        }
+    }
+}
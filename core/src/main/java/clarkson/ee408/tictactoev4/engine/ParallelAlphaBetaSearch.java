@@ -0,0 +1,225 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * The search of {@link AlphaBetaSearch}, spread over the threads of a {@link ForkJoinPool}.
+ * <p>
+ * Each iteration splits the work at the root following the young brothers wait concept: the first
+ * move, usually the best one of the previous iteration, is searched alone to get a score to beat,
+ * and then all the other moves are searched at once, one {@link SearchWorker} per move, each only
+ * looking for moves better than the best score found so far. Every worker shares one lock-free
+ * {@link TranspositionTable}, so work done by one thread also cuts the search of the others short.
+ * <p>
+ * A search that reaches the end of the game finds the same score as {@link AlphaBetaSearch}.
+ * Scores of depth-limited searches can differ slightly between runs, because results that other
+ * threads stored in the table may come from deeper searches, and when several moves share the
+ * best score, which of them is returned may vary too.
+ * Instances are not thread-safe, except for {@link #stop()}.
+ */
+public final class ParallelAlphaBetaSearch {
+
+    /**
+     * Shallower iterations are over too quickly to be worth splitting.
+     */
+    private static final int MIN_SPLIT_DEPTH = 3;
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable table;
+    private final SearchControl control;
+    private Zobrist zobrist;
+
+    /**
+     * Creates a new instance of {@code ParallelAlphaBetaSearch}.
+     *
+     * @param pool the pool to search on; its parallelism decides how many moves are searched at once
+     * @param table the table to keep results in; it is reused across searches
+     */
+    public ParallelAlphaBetaSearch(ForkJoinPool pool, TranspositionTable table) {
+        this.pool = pool;
+        this.table = table;
+        this.control = new SearchControl();
+    }
+
+    /**
+     * Searches for the best move for the player whose turn it is in {@code game}, blocking until
+     * the search is done.
+     *
+     * @param game the position to search; it is not modified
+     * @param maxDepth the most plies to look ahead, or 0 to search to the end of the game
+     * @param timeBudgetMillis how long to search for, or 0 for no time limit. The first
+     *      iteration always completes, so a move is found even with a tiny budget
+     * @return the best move found, or a result with move -1 if the game is already over
+     */
+    public SearchResult search(TicTacToe game, int maxDepth, long timeBudgetMillis) {
+        this.control.start(timeBudgetMillis);
+        this.zobrist = AlphaBetaSearch.zobristFor(this.table, this.zobrist, game);
+        int side = game.getSide();
+        if (game.isGameOver()) {
+            return new SearchResult(-1, side, 0, 0, 0);
+        }
+
+        SearchWorker eldest = new SearchWorker(this.table, this.zobrist, this.control, game);
+        long hash = eldest.hash();
+        int limit = AlphaBetaSearch.depthLimit(game, maxDepth);
+        AtomicLong youngerNodes = new AtomicLong();
+
+        int bestMove = -1;
+        int bestScore = 0;
+        int completed = 0;
+        for (int depth = 1; depth <= limit; depth++) {
+            RootSplit split = depth < MIN_SPLIT_DEPTH
+                    ? null
+                    : new RootSplit(eldest, hash, depth, youngerNodes);
+            if (split == null) {
+                int score = eldest.negamax(hash, depth, 0, -SearchWorker.INFINITY, SearchWorker.INFINITY);
+                if (eldest.isAborted()) {
+                    break;
+                }
+                bestMove = eldest.getRootBestMove();
+                bestScore = score;
+            } else {
+                this.pool.invoke(split);
+                if (split.aborted) {
+                    break; // Keep the result of the last iteration that completed
+                }
+                bestMove = split.bestMove;
+                bestScore = split.bestScore;
+            }
+
+            completed = depth;
+            this.control.allowTimeout();
+            if (Math.abs(bestScore) > AlphaBetaSearch.WIN_THRESHOLD || this.control.isPastDeadline()) {
+                break; // The outcome is proven, or there is no time for another iteration
+            }
+        }
+
+        if (bestMove < 0) {
+            // Only if stopped before the first iteration completed; any legal move will do
+            eldest.generateMoves(0, -1);
+            bestMove = eldest.getMoves(0)[0];
+        }
+        return new SearchResult(bestMove, side, bestScore, completed, eldest.getNodes() + youngerNodes.get());
+    }
+
+    /**
+     * Asks the search in progress to return as soon as possible with the best move of its
+     * deepest completed iteration. May be called from any thread.
+     */
+    public void stop() {
+        this.control.stop();
+    }
+
+    /**
+     * One iteration: the eldest move on the calling thread, then its younger brothers in parallel.
+     */
+    private final class RootSplit extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SearchWorker eldest;
+        private final long hash;
+        private final int depth;
+        private final AtomicLong youngerNodes;
+
+        // Written by the younger brothers while they run, read once invoke() returns
+        private volatile int bestScore;
+        private volatile int bestMove;
+        private volatile boolean aborted;
+
+        private RootSplit(SearchWorker eldest, long hash, int depth, AtomicLong youngerNodes) {
+            this.eldest = eldest;
+            this.hash = hash;
+            this.depth = depth;
+            this.youngerNodes = youngerNodes;
+        }
+
+        @Override
+        protected void compute() {
+            long entry = table.probe(this.hash);
+            int count = this.eldest.generateMoves(0, entry != 0 ? TranspositionTable.getMove(entry) : -1);
+            int[] moves = Arrays.copyOf(this.eldest.getMoves(0), count);
+            TicTacToe position = this.eldest.getPosition();
+            int mover = position.getTurn();
+            int side = position.getSide();
+
+            position.play(moves[0] / side, moves[0] % side);
+            int score = -this.eldest.negamax(this.hash ^ zobrist.key(mover, moves[0]), this.depth - 1, 1,
+                    -SearchWorker.INFINITY, SearchWorker.INFINITY);
+            position.undo();
+            if (this.eldest.isAborted()) {
+                this.aborted = true;
+                return;
+            }
+            this.bestScore = score;
+            this.bestMove = moves[0];
+
+            List<YoungerBrother> brothers = new ArrayList<>(count - 1);
+            for (int i = 1; i < count; i++) {
+                brothers.add(new YoungerBrother(this, position, moves[i], mover));
+            }
+            invokeAll(brothers);
+
+            if (!this.aborted) {
+                table.store(this.hash, this.depth, TranspositionTable.EXACT, this.bestScore, this.bestMove);
+            }
+        }
+
+        private int getBestScore() {
+            return this.bestScore;
+        }
+
+        private synchronized void offer(int score, int move) {
+            if (score > this.bestScore) {
+                this.bestScore = score;
+                this.bestMove = move;
+            }
+        }
+    }
+
+    /**
+     * One root move other than the first, searched on its own copy of the position.
+     */
+    private final class YoungerBrother extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RootSplit split;
+        private final TicTacToe root;
+        private final int move;
+        private final int mover;
+
+        private YoungerBrother(RootSplit split, TicTacToe root, int move, int mover) {
+            this.split = split;
+            this.root = root;
+            this.move = move;
+            this.mover = mover;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.split.aborted) {
+                return;
+            }
+
+            SearchWorker worker = new SearchWorker(table, zobrist, control, this.root);
+            int side = this.root.getSide();
+            worker.getPosition().play(this.move / side, this.move % side);
+            // Only a score above the best so far matters, so the window is (best, infinity)
+            int alpha = this.split.getBestScore();
+            int score = -worker.negamax(this.split.hash ^ zobrist.key(this.mover, this.move),
+                    this.split.depth - 1, 1, -SearchWorker.INFINITY, -alpha);
+            this.split.youngerNodes.addAndGet(worker.getNodes());
+            if (worker.isAborted()) {
+                this.split.aborted = true;
+            } else if (score > alpha) {
+                this.split.offer(score, this.move);
+            }
+        }
+    }
+}
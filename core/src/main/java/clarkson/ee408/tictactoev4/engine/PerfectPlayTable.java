@@ -0,0 +1,271 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * The game-theoretic value and best move of every position of classic 3×3 tic-tac-toe.
+ * <p>
+ * A position is encoded in base 3, cell {@code row * 3 + col} being the digit worth
+ * {@code 3^(row * 3 + col)}, with 0 for an empty cell, 1 for player 1 and 2 for player 2, so every
+ * board fits in {@code 3^9 = 19683} codes. The eight rotations and reflections of a board have
+ * the same value, so only the smallest code of each group, its canonical code, is solved and
+ * stored: 765 positions instead of 5478. Each gets 2 bits for its value and 4 bits for its best
+ * move, indexed directly by canonical code, about 15 KB in all.
+ * <p>
+ * The table is solved on first use, which takes a few milliseconds, and then answers in constant
+ * time. It serves as the computer's 3×3 player and as an oracle for testing the searches.
+ * Instances are immutable and thread-safe.
+ */
+public final class PerfectPlayTable {
+
+    /**
+     * The player to move can force a win.
+     */
+    public static final int WIN = 1;
+
+    /**
+     * Best play on both sides ends in a tie.
+     */
+    public static final int DRAW = 0;
+
+    /**
+     * The opponent can force a win.
+     */
+    public static final int LOSS = -1;
+
+    private static final int SIDE = 3;
+    private static final int CELLS = SIDE * SIDE;
+    private static final int CODES = 19683; // 3^9
+    private static final int[] POWERS = {1, 3, 9, 27, 81, 243, 729, 2187, 6561};
+
+    /**
+     * For each symmetry, the cell every cell moves to: identity, the three rotations, then the
+     * reflections across the middle column, the middle row and the two diagonals.
+     */
+    private static final int[][] SYMMETRIES = new int[8][CELLS];
+
+    static {
+        for (int row = 0; row < SIDE; row++) {
+            for (int col = 0; col < SIDE; col++) {
+                int last = SIDE - 1;
+                int[][] images = {
+                        {row, col}, {col, last - row}, {last - row, last - col}, {last - col, row},
+                        {row, last - col}, {last - row, col}, {col, row}, {last - col, last - row}
+                };
+                for (int s = 0; s < SYMMETRIES.length; s++) {
+                    SYMMETRIES[s][row * SIDE + col] = images[s][0] * SIDE + images[s][1];
+                }
+            }
+        }
+    }
+
+    private final long[] values; // 2 bits per code: 0 unsolved, 1 loss, 2 draw, 3 win
+    private final long[] moves;  // 4 bits per code: the best move in canonical orientation, plus 1
+    private final int size;
+
+    private PerfectPlayTable() {
+        this.values = new long[(CODES * 2 + Long.SIZE - 1) / Long.SIZE];
+        this.moves = new long[(CODES * 4 + Long.SIZE - 1) / Long.SIZE];
+        this.size = new Solver().solveAll();
+    }
+
+    /**
+     * Returns the table, solving it on the first call.
+     *
+     * @return the only {@code PerfectPlayTable} instance
+     */
+    public static PerfectPlayTable getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns whether the table covers a game: a 3×3 board with 3 in a row.
+     *
+     * @param game the game to check
+     * @return true if {@link #value(TicTacToe)} and {@link #bestMove(TicTacToe)} accept it
+     */
+    public static boolean supports(TicTacToe game) {
+        return game.getSide() == SIDE && game.getWinLength() == SIDE;
+    }
+
+    /**
+     * Returns the outcome of {@code game} with best play on both sides.
+     *
+     * @param game a 3×3 game with 3 in a row
+     * @return {@link #WIN}, {@link #DRAW} or {@link #LOSS} for the player whose turn it is
+     * @throws IllegalArgumentException if the table does not cover the game
+     */
+    public int value(TicTacToe game) {
+        checkSupported(game);
+        if (game.isGameOver()) {
+            int winner = game.whoWon();
+            return winner == 0 ? DRAW : winner == game.getTurn() ? WIN : LOSS;
+        }
+        int code = canonical(encode(game));
+        return read(this.values, code, 2) - 2;
+    }
+
+    /**
+     * Returns a move that keeps the best outcome: the quickest win, else a draw, else the slowest
+     * loss.
+     *
+     * @param game a 3×3 game with 3 in a row
+     * @return the cell, {@code row * 3 + col}, or -1 if the game is over
+     * @throws IllegalArgumentException if the table does not cover the game
+     */
+    public int bestMove(TicTacToe game) {
+        checkSupported(game);
+        if (game.isGameOver()) {
+            return -1;
+        }
+
+        int code = encode(game);
+        int symmetry = canonicalSymmetry(code);
+        int canonicalMove = read(this.moves, transform(code, symmetry), 4) - 1;
+        // The symmetry moved each cell to its image; find the cell whose image is the move
+        int[] map = SYMMETRIES[symmetry];
+        for (int cell = 0; cell < CELLS; cell++) {
+            if (map[cell] == canonicalMove) {
+                return cell;
+            }
+        }
+        throw new IllegalStateException("No move stored for position " + code);
+    }
+
+    /**
+     * Returns the number of positions stored, one for each group of symmetric positions that can
+     * be reached in a game.
+     *
+     * @return the number of canonical positions
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Encodes the board of a 3×3 game in base 3.
+     *
+     * @param game the game to encode
+     * @return the code, from 0 to 19682
+     */
+    public static int encode(TicTacToe game) {
+        int code = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            code += game.getCell(cell / SIDE, cell % SIDE) * POWERS[cell];
+        }
+        return code;
+    }
+
+    private static void checkSupported(TicTacToe game) {
+        if (!supports(game)) {
+            throw new IllegalArgumentException("Only 3x3 games with 3 in a row are solved, not "
+                    + game.getSide() + "x" + game.getSide() + " with " + game.getWinLength());
+        }
+    }
+
+    private static int transform(int code, int symmetry) {
+        int[] map = SYMMETRIES[symmetry];
+        int image = 0;
+        for (int cell = 0; cell < CELLS; cell++) {
+            image += (code / POWERS[cell] % 3) * POWERS[map[cell]];
+        }
+        return image;
+    }
+
+    private static int canonicalSymmetry(int code) {
+        int best = 0;
+        int bestCode = code;
+        for (int s = 1; s < SYMMETRIES.length; s++) {
+            int image = transform(code, s);
+            if (image < bestCode) {
+                bestCode = image;
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    private static int canonical(int code) {
+        return transform(code, canonicalSymmetry(code));
+    }
+
+    private static int read(long[] table, int index, int bits) {
+        long position = (long) index * bits;
+        return (int) (table[(int) (position / Long.SIZE)] >>> (position % Long.SIZE)) & ((1 << bits) - 1);
+    }
+
+    private static void write(long[] table, int index, int bits, int value) {
+        // Entries never straddle two words, since 64 is a multiple of 2 and 4
+        long position = (long) index * bits;
+        table[(int) (position / Long.SIZE)] |= (long) value << (position % Long.SIZE);
+    }
+
+    /**
+     * Solves every canonical position reachable from the empty board by negamax.
+     */
+    private final class Solver {
+        private final int[] scores = new int[CODES]; // plies to the end, signed; 0 unsolved
+        private final TicTacToe game = new TicTacToe(1);
+
+        private int solveAll() {
+            solve();
+            int count = 0;
+            for (int score : this.scores) {
+                if (score != 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Returns the score of the current position for the side to move: 10 minus the plies to
+         * a win, 1 for a draw, or the negation of 10 minus the plies to a loss.
+         */
+        private int solve() {
+            int code = canonical(encode(this.game));
+            if (this.scores[code] != 0) {
+                return this.scores[code];
+            }
+
+            int score;
+            int bestMove = -1;
+            if (this.game.whoWon() != 0) {
+                score = -CELLS - 1; // The player who just moved won
+            } else if (this.game.canNotPlay()) {
+                score = 1;
+            } else {
+                score = Integer.MIN_VALUE;
+                // Solve in canonical orientation, so the stored move needs no mapping back
+                int symmetry = canonicalSymmetry(encode(this.game));
+                for (int cell = 0; cell < CELLS; cell++) {
+                    if (this.game.play(cell / SIDE, cell % SIDE) == 0) {
+                        continue;
+                    }
+                    // One ply further from the end, in either direction; a draw stays a draw
+                    int child = -solve();
+                    int moveScore = child == -1 ? 1 : child > 0 ? child - 1 : child + 1;
+                    this.game.undo();
+                    if (moveScore > score
+                            || moveScore == score && SYMMETRIES[symmetry][cell] < bestMove) {
+                        score = moveScore;
+                        bestMove = SYMMETRIES[symmetry][cell];
+                    }
+                }
+            }
+
+            this.scores[code] = score;
+            int value = score > 1 ? WIN : score < -1 ? LOSS : DRAW;
+            write(PerfectPlayTable.this.values, code, 2, value + 2);
+            write(PerfectPlayTable.this.moves, code, 4, bestMove + 1);
+            return score;
+        }
+    }
+
+    /**
+     * Solves the table on first use, safely across threads.
+     */
+    private static final class Holder {
+        private static final PerfectPlayTable INSTANCE = new PerfectPlayTable();
+    }
+}
@@ -0,0 +1,211 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import java.util.SplittableRandom;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * A bare copy of a {@link TicTacToe} board for playing random games to the end.
+ * <p>
+ * The cells are a byte per cell and the empty cells an array kept in no particular order, so a
+ * random move is picked and played in constant time. Once created, a board never allocates:
+ * {@link #copyFrom(PlayoutBoard)} rewinds a scratch board to a saved position between playouts.
+ * The rules are those of {@code TicTacToe}: the first player to complete a line wins.
+ * Instances are not thread-safe.
+ */
+final class PlayoutBoard {
+
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private final int side;
+    private final int winLength;
+    private final byte[] cells;
+    private final int[] empties;     // the empty cells, in the first emptyCount slots
+    private final int[] emptyIndex;  // where each empty cell sits in empties
+    private int emptyCount;
+    private int turn;
+    private int winner;
+
+    /**
+     * Creates a copy of the board of {@code game}.
+     *
+     * @param game the game to copy; it is not modified
+     */
+    PlayoutBoard(TicTacToe game) {
+        this.side = game.getSide();
+        this.winLength = game.getWinLength();
+        this.cells = new byte[this.side * this.side];
+        this.empties = new int[this.cells.length];
+        this.emptyIndex = new int[this.cells.length];
+        for (int cell = 0; cell < this.cells.length; cell++) {
+            this.cells[cell] = (byte) game.getCell(cell / this.side, cell % this.side);
+            if (this.cells[cell] == 0) {
+                this.emptyIndex[cell] = this.emptyCount;
+                this.empties[this.emptyCount++] = cell;
+            }
+        }
+        this.turn = game.getTurn();
+        this.winner = game.whoWon();
+    }
+
+    /**
+     * Creates a copy of another board, e.g. a scratch board to play out a saved position on.
+     *
+     * @param other the board to copy
+     */
+    PlayoutBoard(PlayoutBoard other) {
+        this.side = other.side;
+        this.winLength = other.winLength;
+        this.cells = new byte[other.cells.length];
+        this.empties = new int[other.cells.length];
+        this.emptyIndex = new int[other.cells.length];
+        copyFrom(other);
+    }
+
+    /**
+     * Makes this board a copy of another board of the same size.
+     *
+     * @param other the board to copy
+     */
+    void copyFrom(PlayoutBoard other) {
+        System.arraycopy(other.cells, 0, this.cells, 0, this.cells.length);
+        System.arraycopy(other.empties, 0, this.empties, 0, other.emptyCount);
+        System.arraycopy(other.emptyIndex, 0, this.emptyIndex, 0, this.emptyIndex.length);
+        this.emptyCount = other.emptyCount;
+        this.turn = other.turn;
+        this.winner = other.winner;
+    }
+
+    /**
+     * Marks an empty cell for the player whose turn it is.
+     *
+     * @param cell the cell, {@code row * side + col}; it must be empty
+     * @return true if the move completed the first line of the game
+     */
+    boolean play(int cell) {
+        int mover = this.turn;
+        this.cells[cell] = (byte) mover;
+        int last = this.empties[--this.emptyCount];
+        this.empties[this.emptyIndex[cell]] = last;
+        this.emptyIndex[last] = this.emptyIndex[cell];
+        this.turn = mover == 1 ? 2 : 1;
+
+        if (this.winner == 0 && completesLine(mover, cell)) {
+            this.winner = mover;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Plays random moves until someone wins or the board is full.
+     *
+     * @param random the source of the moves
+     * @return the player who won, or 0 for a tie
+     */
+    int playOut(SplittableRandom random) {
+        while (this.winner == 0 && this.emptyCount > 0) {
+            play(this.empties[random.nextInt(this.emptyCount)]);
+        }
+        return this.winner;
+    }
+
+    /**
+     * Lists the empty cells within {@code radius} rows and columns of a mark, or the center of an
+     * empty board.
+     *
+     * @param radius how far from the marks to look
+     * @param moves where to put the cells; it must hold every cell of the board
+     * @return the number of cells listed, in increasing order
+     */
+    int nearbyMoves(int radius, int[] moves) {
+        int count = 0;
+        if (this.emptyCount == this.cells.length) {
+            moves[count++] = (this.side / 2) * this.side + this.side / 2;
+            return count;
+        }
+
+        for (int cell = 0; cell < this.cells.length; cell++) {
+            if (this.cells[cell] == 0 && isNearMark(cell / this.side, cell % this.side, radius)) {
+                moves[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of cells of the board.
+     *
+     * @return side × side
+     */
+    int cellCount() {
+        return this.cells.length;
+    }
+
+    /**
+     * Returns whose turn it is.
+     *
+     * @return 1 or 2
+     */
+    int getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * Returns the player who completed the first line.
+     *
+     * @return 1 or 2, or 0 if nobody has won
+     */
+    int getWinner() {
+        return this.winner;
+    }
+
+    /**
+     * Returns whether the game is over.
+     *
+     * @return true if someone won or the board is full
+     */
+    boolean isGameOver() {
+        return this.winner != 0 || this.emptyCount == 0;
+    }
+
+    private boolean isNearMark(int row, int col, int radius) {
+        int top = Math.max(0, row - radius);
+        int bottom = Math.min(this.side - 1, row + radius);
+        int left = Math.max(0, col - radius);
+        int right = Math.min(this.side - 1, col + radius);
+        for (int r = top; r <= bottom; r++) {
+            for (int c = left; c <= right; c++) {
+                if (this.cells[r * this.side + c] != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean completesLine(int mover, int cell) {
+        int row = cell / this.side;
+        int col = cell % this.side;
+        for (int[] direction : DIRECTIONS) {
+            int count = 1 + count(mover, row, col, direction[0], direction[1])
+                    + count(mover, row, col, -direction[0], -direction[1]);
+            if (count >= this.winLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int count(int mover, int row, int col, int dRow, int dCol) {
+        int count = 0;
+        int r = row + dRow;
+        int c = col + dCol;
+        while (r >= 0 && r < this.side && c >= 0 && c < this.side && this.cells[r * this.side + c] == mover) {
+            count++;
+            r += dRow;
+            c += dCol;
+        }
+        return count;
+    }
+}
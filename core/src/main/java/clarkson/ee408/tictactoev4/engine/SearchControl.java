@@ -0,0 +1,66 @@
+package clarkson.ee408.tictactoev4.engine;
+
+/**
+ * The time limit and stop request shared by every {@link SearchWorker} of one search.
+ * <p>
+ * The first iteration of a search must always complete, so the deadline only applies once
+ * {@link #allowTimeout()} has been called. {@link #stop()} applies right away.
+ */
+final class SearchControl {
+
+    private volatile boolean stopped;
+    private volatile boolean timeoutAllowed;
+    private volatile long deadline;
+
+    /**
+     * Resets the control for a new search.
+     *
+     * @param timeBudgetMillis how long the search may take, or 0 for no time limit
+     */
+    void start(long timeBudgetMillis) {
+        this.deadline = timeBudgetMillis > 0 ? System.currentTimeMillis() + timeBudgetMillis : Long.MAX_VALUE;
+        this.timeoutAllowed = false;
+        this.stopped = false;
+    }
+
+    /**
+     * Lets the deadline end the search, once an iteration has produced a move.
+     */
+    void allowTimeout() {
+        this.timeoutAllowed = true;
+    }
+
+    /**
+     * Asks every worker to return as soon as possible.
+     */
+    void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Returns whether {@link #stop()} was called since the search started.
+     *
+     * @return true if the search should end right away
+     */
+    boolean isStopped() {
+        return this.stopped;
+    }
+
+    /**
+     * Reads the clock to decide whether the search has run out of time.
+     *
+     * @return true if the search should end
+     */
+    boolean isTimeUp() {
+        return this.timeoutAllowed && System.currentTimeMillis() >= this.deadline;
+    }
+
+    /**
+     * Returns whether there is time for another iteration.
+     *
+     * @return true if the deadline has passed
+     */
+    boolean isPastDeadline() {
+        return System.currentTimeMillis() >= this.deadline;
+    }
+}
@@ -0,0 +1,85 @@
+package clarkson.ee408.tictactoev4.engine;
+
+/**
+ * The outcome of a search: the move to play and what the search learned about the position.
+ */
+public final class SearchResult {
+
+    private final int move;
+    private final int side;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+
+    /**
+     * Creates a new instance of {@code SearchResult}.
+     *
+     * @param move the best move, {@code row * side + col}, or -1 if the game is over
+     * @param side the side of the board searched
+     * @param score the score of the move from the mover's point of view
+     * @param depth the deepest iteration that completed
+     * @param nodes the number of positions visited
+     */
+    public SearchResult(int move, int side, int score, int depth, long nodes) {
+        this.move = move;
+        this.side = side;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns the best move found.
+     *
+     * @return the cell, {@code row * side + col}, or -1 if there was no move to make
+     */
+    public int getMove() {
+        return this.move;
+    }
+
+    /**
+     * Returns the row of the best move.
+     *
+     * @return the row, or -1 if there was no move to make
+     */
+    public int getRow() {
+        return this.move < 0 ? -1 : this.move / this.side;
+    }
+
+    /**
+     * Returns the column of the best move.
+     *
+     * @return the column, or -1 if there was no move to make
+     */
+    public int getCol() {
+        return this.move < 0 ? -1 : this.move % this.side;
+    }
+
+    /**
+     * Returns the score of the best move from the mover's point of view. Scores above
+     * {@link AlphaBetaSearch#WIN_THRESHOLD} are forced wins, below its negation forced losses.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Returns how many plies the deepest completed iteration searched.
+     *
+     * @return the depth
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Returns how many positions were visited, including unfinished iterations.
+     *
+     * @return the number of nodes
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+}
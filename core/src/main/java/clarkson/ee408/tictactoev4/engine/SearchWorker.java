@@ -0,0 +1,327 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * Runs negamax with alpha-beta pruning on its own copy of a position.
+ * <p>
+ * A worker is confined to one thread, but any number of workers may share a
+ * {@link TranspositionTable}, a {@link Zobrist} and a {@link SearchControl}, which is how
+ * {@link ParallelAlphaBetaSearch} searches several moves at once.
+ * <p>
+ * Only cells near the marks already played are considered, which on large boards leaves out
+ * moves that cannot matter yet. Positions at the depth limit are scored by counting, for every
+ * stretch of win-length cells, how many marks one player has in it when the other has none.
+ */
+final class SearchWorker {
+
+    /**
+     * Larger than any score, so that it works as the bound of a full window.
+     */
+    static final int INFINITY = AlphaBetaSearch.WIN_SCORE + 1;
+
+    /**
+     * Only cells within this many rows and columns of a mark are searched.
+     */
+    private static final int NEIGHBOR_RADIUS = 2;
+
+    /**
+     * The clock is read once every this many nodes, plus one.
+     */
+    private static final int CLOCK_CHECK_MASK = 1023;
+
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private final TranspositionTable table;
+    private final Zobrist zobrist;
+    private final SearchControl control;
+    private final TicTacToe position;
+    private final int side;
+    private final long[] windowWeights;
+    private final int[][] moveBuffers; // one per ply, allocated on first use
+    private final int[] nearStamps;
+    private int nearStamp;
+    private int rootBestMove;
+    private long nodes;
+    private boolean aborted;
+
+    /**
+     * Creates a worker that searches a copy of {@code game}.
+     *
+     * @param table the table shared by every worker of the search
+     * @param zobrist the keys for the board size of {@code game}
+     * @param control the limits shared by every worker of the search
+     * @param game the position to start from; it is copied
+     */
+    SearchWorker(TranspositionTable table, Zobrist zobrist, SearchControl control, TicTacToe game) {
+        this.table = table;
+        this.zobrist = zobrist;
+        this.control = control;
+        this.position = new TicTacToe(game);
+        this.side = game.getSide();
+        this.moveBuffers = new int[this.side * this.side + 1][];
+        this.nearStamps = new int[this.side * this.side];
+
+        int winLength = game.getWinLength();
+        this.windowWeights = new long[winLength];
+        for (int count = 1; count < winLength; count++) {
+            // Each extra mark in an open stretch is worth a lot more than the last
+            this.windowWeights[count] = 1L << Math.min(3 * count, 40);
+        }
+    }
+
+    /**
+     * Returns the position this worker plays moves on.
+     *
+     * @return the worker's copy of the position
+     */
+    TicTacToe getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Returns the Zobrist hash of the position as it is now.
+     *
+     * @return the hash
+     */
+    long hash() {
+        return this.zobrist.hash(this.position);
+    }
+
+    /**
+     * Returns the number of positions visited so far.
+     *
+     * @return the node count
+     */
+    long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Returns whether the last search was cut short, in which case its score means nothing.
+     *
+     * @return true if stopped or out of time
+     */
+    boolean isAborted() {
+        return this.aborted;
+    }
+
+    /**
+     * Returns the best move of the last search that started at ply 0.
+     *
+     * @return the cell, or -1 if none
+     */
+    int getRootBestMove() {
+        return this.rootBestMove;
+    }
+
+    /**
+     * Searches the position to {@code depth} plies within the window {@code (alpha, beta)}.
+     *
+     * @param hash the Zobrist hash of the position
+     * @param depth how many plies to look ahead
+     * @param ply how many plies the position is below the root, for scoring wins by distance
+     * @param alpha the score the side to move is already guaranteed
+     * @param beta the score the opponent is already guaranteed, negated
+     * @return the score from the side to move's point of view
+     */
+    int negamax(long hash, int depth, int ply, int alpha, int beta) {
+        this.nodes++;
+        if ((this.nodes & CLOCK_CHECK_MASK) == 0 && this.control.isTimeUp()) {
+            this.aborted = true;
+        }
+        if (this.control.isStopped()) {
+            this.aborted = true;
+        }
+        if (this.aborted) {
+            return 0;
+        }
+
+        if (this.position.whoWon() != 0) {
+            return -(AlphaBetaSearch.WIN_SCORE - ply); // The player who just moved won
+        }
+        if (this.position.canNotPlay()) {
+            return 0;
+        }
+        if (depth == 0) {
+            return evaluate();
+        }
+
+        int originalAlpha = alpha;
+        int tableMove = -1;
+        long entry = this.table.probe(hash);
+        if (entry != 0) {
+            tableMove = TranspositionTable.getMove(entry);
+            if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.getScore(entry), ply);
+                int flag = TranspositionTable.getFlag(entry);
+                if (flag == TranspositionTable.EXACT) {
+                    return score;
+                } else if (flag == TranspositionTable.LOWER_BOUND) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+                if (alpha >= beta) {
+                    return score;
+                }
+            }
+        }
+
+        int count = generateMoves(ply, tableMove);
+        int[] moves = this.moveBuffers[ply];
+        int mover = this.position.getTurn();
+        int bestScore = -INFINITY;
+        int bestMove = -1;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            this.position.play(move / this.side, move % this.side);
+            int score = -negamax(hash ^ this.zobrist.key(mover, move), depth - 1, ply + 1, -beta, -alpha);
+            this.position.undo();
+            if (this.aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+            if (bestScore > alpha) {
+                alpha = bestScore;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int flag = bestScore <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                : TranspositionTable.EXACT;
+        this.table.store(hash, depth, flag, toTable(bestScore, ply), bestMove);
+        if (ply == 0) {
+            this.rootBestMove = bestMove;
+        }
+        return bestScore;
+    }
+
+    /**
+     * Lists the moves to search, the empty cells near a mark, into the buffer for {@code ply}.
+     *
+     * @param ply the ply whose buffer to fill
+     * @param firstMove a move to put first if it is in the list, e.g. from the table, or -1
+     * @return the number of moves, which are read with {@link #getMoves(int)}
+     */
+    int generateMoves(int ply, int firstMove) {
+        int[] moves = getMoves(ply);
+        int count = 0;
+        if (this.position.getMoveCount() == 0) {
+            moves[count++] = (this.side / 2) * this.side + this.side / 2;
+            return count;
+        }
+
+        this.nearStamp++;
+        for (int row = 0; row < this.side; row++) {
+            for (int col = 0; col < this.side; col++) {
+                if (this.position.getCell(row, col) != 0) {
+                    markNear(row, col);
+                }
+            }
+        }
+        for (int cell = 0; cell < moves.length; cell++) {
+            if (this.nearStamps[cell] == this.nearStamp
+                    && this.position.getCell(cell / this.side, cell % this.side) == 0) {
+                moves[count++] = cell;
+            }
+        }
+
+        for (int i = 1; i < count; i++) {
+            if (moves[i] == firstMove) {
+                moves[i] = moves[0];
+                moves[0] = firstMove;
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the move buffer of a ply.
+     *
+     * @param ply the ply
+     * @return the buffer filled by {@link #generateMoves(int, int)}
+     */
+    int[] getMoves(int ply) {
+        if (this.moveBuffers[ply] == null) {
+            this.moveBuffers[ply] = new int[this.side * this.side];
+        }
+        return this.moveBuffers[ply];
+    }
+
+    private void markNear(int row, int col) {
+        int fromRow = Math.max(0, row - NEIGHBOR_RADIUS);
+        int toRow = Math.min(this.side - 1, row + NEIGHBOR_RADIUS);
+        int fromCol = Math.max(0, col - NEIGHBOR_RADIUS);
+        int toCol = Math.min(this.side - 1, col + NEIGHBOR_RADIUS);
+        for (int r = fromRow; r <= toRow; r++) {
+            for (int c = fromCol; c <= toCol; c++) {
+                this.nearStamps[r * this.side + c] = this.nearStamp;
+            }
+        }
+    }
+
+    private int evaluate() {
+        // Open stretches of the win length, from player 1's point of view
+        int winLength = this.position.getWinLength();
+        long score = 0;
+        for (int[] direction : DIRECTIONS) {
+            for (int row = 0; row < this.side; row++) {
+                for (int col = 0; col < this.side; col++) {
+                    int endRow = row + (winLength - 1) * direction[0];
+                    int endCol = col + (winLength - 1) * direction[1];
+                    if (endRow >= this.side || endCol < 0 || endCol >= this.side) {
+                        continue;
+                    }
+
+                    int ones = 0;
+                    int twos = 0;
+                    for (int i = 0; i < winLength; i++) {
+                        int owner = this.position.getCell(row + i * direction[0], col + i * direction[1]);
+                        if (owner == 1) {
+                            ones++;
+                        } else if (owner == 2) {
+                            twos++;
+                        }
+                    }
+                    if (twos == 0) {
+                        score += this.windowWeights[ones];
+                    } else if (ones == 0) {
+                        score -= this.windowWeights[twos];
+                    }
+                }
+            }
+        }
+
+        int limit = AlphaBetaSearch.WIN_THRESHOLD - 1;
+        score = Math.max(-limit, Math.min(limit, score));
+        return this.position.getTurn() == 1 ? (int) score : (int) -score;
+    }
+
+    private static int toTable(int score, int ply) {
+        // Forced results are stored relative to the position, not to the root
+        if (score > AlphaBetaSearch.WIN_THRESHOLD) {
+            return score + ply;
+        } else if (score < -AlphaBetaSearch.WIN_THRESHOLD) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > AlphaBetaSearch.WIN_THRESHOLD) {
+            return score - ply;
+        } else if (score < -AlphaBetaSearch.WIN_THRESHOLD) {
+            return score + ply;
+        }
+        return score;
+    }
+}
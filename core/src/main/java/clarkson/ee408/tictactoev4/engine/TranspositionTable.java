@@ -0,0 +1,158 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results, indexed by Zobrist hash.
+ * <p>
+ * Each slot holds one packed {@code long} with the score, the depth searched, whether the score
+ * is exact or a bound, and the best move, plus a check word to tell positions that share a slot
+ * apart. A new result replaces the old one unless the old one was searched deeper and belongs to
+ * another position. Scores are stored as seen from the side to move.
+ * <p>
+ * The table is shared by the threads of a {@link ParallelAlphaBetaSearch} without any locking.
+ * The check word is the hash XORed with the entry, so an entry only reads back for its own hash
+ * if both words come from the same store: a reader that sees half of a concurrent store, or one
+ * of the two words torn on a 32-bit JVM, gets a miss rather than another position's result. A
+ * store that another thread does not see yet is also just a miss, which costs time, not
+ * correctness.
+ */
+public final class TranspositionTable {
+
+    /**
+     * The stored score is the exact value of the position.
+     */
+    public static final int EXACT = 1;
+
+    /**
+     * The stored score is a lower bound; the search failed high.
+     */
+    public static final int LOWER_BOUND = 2;
+
+    /**
+     * The stored score is an upper bound; the search failed low.
+     */
+    public static final int UPPER_BOUND = 3;
+
+    private static final int DEPTH_SHIFT = 32;
+    private static final int FLAG_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+
+    private final long[] checks; // hash ^ entry
+    private final long[] entries; // 0 marks an empty slot, since the flag is never 0
+    private final int mask;
+
+    /**
+     * Creates an empty table with {@code 2^sizeBits} slots.
+     *
+     * @param sizeBits the base-2 logarithm of the number of slots, from 1 to 28
+     */
+    public TranspositionTable(int sizeBits) {
+        if (sizeBits < 1 || sizeBits > 28) {
+            throw new IllegalArgumentException("Table size out of range: 2^" + sizeBits);
+        }
+        this.checks = new long[1 << sizeBits];
+        this.entries = new long[1 << sizeBits];
+        this.mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Looks up the result stored for a position.
+     *
+     * @param hash the Zobrist hash of the position
+     * @return the packed entry, to be read with the static getters, or 0 if there is none
+     */
+    public long probe(long hash) {
+        int slot = slot(hash);
+        long entry = this.entries[slot];
+        return (this.checks[slot] ^ entry) == hash ? entry : 0;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     *
+     * @param hash the Zobrist hash of the position
+     * @param depth how many plies deep the position was searched
+     * @param flag {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     * @param score the score from the side to move's point of view
+     * @param move the best move found, or -1 if none
+     */
+    public void store(long hash, int depth, int flag, int score, int move) {
+        int slot = slot(hash);
+        long existing = this.entries[slot];
+        if (existing != 0 && (this.checks[slot] ^ existing) != hash && getDepth(existing) > depth) {
+            return; // Keep the deeper result of another position
+        }
+        long entry = pack(depth, flag, score, move);
+        this.checks[slot] = hash ^ entry;
+        this.entries[slot] = entry;
+    }
+
+    /**
+     * Empties the table. Must not be called while a search uses it.
+     */
+    public void clear() {
+        Arrays.fill(this.checks, 0);
+        Arrays.fill(this.entries, 0);
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return the capacity of the table
+     */
+    public int capacity() {
+        return this.entries.length;
+    }
+
+    /**
+     * Reads the score of a packed entry.
+     *
+     * @param entry an entry returned by {@link #probe(long)}
+     * @return the stored score
+     */
+    public static int getScore(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Reads the depth of a packed entry.
+     *
+     * @param entry an entry returned by {@link #probe(long)}
+     * @return how many plies deep the position was searched
+     */
+    public static int getDepth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Reads the bound type of a packed entry.
+     *
+     * @param entry an entry returned by {@link #probe(long)}
+     * @return {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     */
+    public static int getFlag(long entry) {
+        return (int) (entry >>> FLAG_SHIFT) & 0x3;
+    }
+
+    /**
+     * Reads the best move of a packed entry.
+     *
+     * @param entry an entry returned by {@link #probe(long)}
+     * @return the best move found, or -1 if none
+     */
+    public static int getMove(long entry) {
+        return (int) (entry >>> MOVE_SHIFT & 0xFFFF) - 1;
+    }
+
+    static long pack(int depth, int flag, int score, int move) {
+        return (score & 0xFFFFFFFFL)
+                | (long) (depth & 0xFF) << DEPTH_SHIFT
+                | (long) flag << FLAG_SHIFT
+                | (long) ((move + 1) & 0xFFFF) << MOVE_SHIFT;
+    }
+
+    private int slot(long hash) {
+        return (int) (hash ^ hash >>> 32) & this.mask;
+    }
+}
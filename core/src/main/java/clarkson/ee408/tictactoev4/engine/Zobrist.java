@@ -0,0 +1,99 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import java.util.Random;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * Zobrist keys for the cells of one board size, labelled with the win length of the game they
+ * hash, since the same position scores differently under another win length.
+ * <p>
+ * Every (player, cell) pair gets a random 64-bit key, and a position hashes to the XOR of the
+ * keys of its marks. Playing or taking back a move therefore updates the hash with a single XOR.
+ * The side to move follows from the number of marks, so it needs no key of its own. Keys come
+ * from a fixed seed, so a position hashes the same in every run.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final int side;
+    private final int winLength;
+    private final long[][] keys;
+
+    /**
+     * Creates the keys for a {@code side}×{@code side} board won by a full row, column or diagonal.
+     *
+     * @param side the number of rows and columns
+     */
+    public Zobrist(int side) {
+        this(side, side);
+    }
+
+    /**
+     * Creates the keys for a {@code side}×{@code side} board won by {@code winLength} in a row.
+     * The keys only depend on the side.
+     *
+     * @param side the number of rows and columns
+     * @param winLength how many cells in a row win the game
+     */
+    public Zobrist(int side, int winLength) {
+        this.side = side;
+        this.winLength = winLength;
+        this.keys = new long[2][side * side];
+        Random random = new Random(SEED + side);
+        for (long[] playerKeys : this.keys) {
+            for (int cell = 0; cell < playerKeys.length; cell++) {
+                playerKeys[cell] = random.nextLong();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows and columns the keys are for.
+     *
+     * @return the side of the board
+     */
+    public int getSide() {
+        return this.side;
+    }
+
+    /**
+     * Returns the win length of the game the keys are for.
+     *
+     * @return how many cells in a row win the game
+     */
+    public int getWinLength() {
+        return this.winLength;
+    }
+
+    /**
+     * Returns the key of a mark.
+     *
+     * @param player the player who holds the cell, 1 or 2
+     * @param cell the cell, {@code row * side + col}
+     * @return the key to XOR into the hash
+     */
+    public long key(int player, int cell) {
+        return this.keys[player - 1][cell];
+    }
+
+    /**
+     * Hashes a position from scratch.
+     *
+     * @param game the position to hash; its side must match these keys
+     * @return the XOR of the keys of every mark on the board
+     */
+    public long hash(TicTacToe game) {
+        long hash = 0;
+        for (int row = 0; row < this.side; row++) {
+            for (int col = 0; col < this.side; col++) {
+                int owner = game.getCell(row, col);
+                if (owner != 0) {
+                    hash ^= key(owner, row * this.side + col);
+                }
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,22 @@
+package clarkson.ee408.tictactoev4.simulation;
+
+/**
+ * Receives every game played by a {@link GameSimulator}, e.g. to write out the moves for load
+ * tests to replay.
+ * <p>
+ * It is called on the simulator's threads, several at once, and games arrive in no particular
+ * order.
+ */
+public interface GameListener {
+
+    /**
+     * Called when a game ends.
+     *
+     * @param index the number of the game in the simulation, from 0
+     * @param moves the cells played, {@code row * side + col}, in order; the array is reused for
+     *      the next game, so copy what must be kept
+     * @param moveCount how many moves of {@code moves} were played
+     * @param winner the player who won, 1 for the first player and 2 for the second, or 0 for a tie
+     */
+    void onGameOver(long index, int[] moves, int moveCount, int winner);
+}
@@ -0,0 +1,183 @@
+package clarkson.ee408.tictactoev4.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * Plays many games between two {@link Strategy strategies} without any user interface or server,
+ * to compare engines and to produce games for load tests to replay.
+ * <p>
+ * Every thread of the pool gets its own game, move buffer and strategies, reused from game to
+ * game, so the simulator itself allocates nothing per game or per move. Threads take games in
+ * chunks from a shared counter and keep their own totals, which are only added up at the end.
+ * <p>
+ * The seed of each game depends only on the seed of the run and the number of the game, so the
+ * totals of a run are the same whatever the parallelism of the pool.
+ */
+public final class GameSimulator {
+
+    /**
+     * How many games a thread takes at once, enough to make the shared counter cheap.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a new instance of {@code GameSimulator}.
+     *
+     * @param pool the pool to play on; its parallelism decides how many games are played at once
+     */
+    public GameSimulator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Plays {@code games} games and returns the totals.
+     *
+     * @param side the side of the board
+     * @param winLength how many marks in a row win
+     * @param first makes the strategy of the player who moves first, once per thread
+     * @param second makes the strategy of the player who moves second, once per thread
+     * @param games how many games to play
+     * @param seed the seed every game's seed is derived from
+     * @return how the games went
+     */
+    public SimulationStats run(int side, int winLength, Supplier<Strategy> first, Supplier<Strategy> second,
+                               long games, long seed) {
+        return run(side, winLength, first, second, games, seed, null);
+    }
+
+    /**
+     * Plays {@code games} games, telling a listener about each one, and returns the totals.
+     *
+     * @param side the side of the board
+     * @param winLength how many marks in a row win
+     * @param first makes the strategy of the player who moves first, once per thread
+     * @param second makes the strategy of the player who moves second, once per thread
+     * @param games how many games to play
+     * @param seed the seed every game's seed is derived from
+     * @param listener told about every game as it ends, or null
+     * @return how the games went
+     * @throws IllegalStateException if a strategy chooses a cell that is not empty
+     */
+    public SimulationStats run(int side, int winLength, Supplier<Strategy> first, Supplier<Strategy> second,
+                               long games, long seed, GameListener listener) {
+        // Fail here rather than on every thread if the board is invalid
+        new TicTacToe(1, side, winLength);
+
+        AtomicLong nextGame = new AtomicLong();
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < this.pool.getParallelism(); i++) {
+            players.add(new Player(side, winLength, first, second, games, seed, nextGame, listener));
+        }
+
+        long startedAt = System.nanoTime();
+        this.pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(players);
+            }
+        });
+        long elapsed = System.nanoTime() - startedAt;
+
+        long firstWins = 0;
+        long secondWins = 0;
+        long moves = 0;
+        for (Player player : players) {
+            firstWins += player.firstWins;
+            secondWins += player.secondWins;
+            moves += player.moves;
+        }
+        return new SimulationStats(games, firstWins, secondWins, moves, elapsed);
+    }
+
+    /**
+     * Derives the seed of one player in one game, mixing the bits so that nearby games do not get
+     * related seeds.
+     */
+    private static long seedFor(long seed, long game, int player) {
+        long z = seed + (2 * game + player + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays games on one thread until there are none left.
+     */
+    private static final class Player extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int side;
+        private final int winLength;
+        private final Supplier<Strategy> first;
+        private final Supplier<Strategy> second;
+        private final long games;
+        private final long seed;
+        private final AtomicLong nextGame;
+        private final GameListener listener;
+        private long firstWins;
+        private long secondWins;
+        private long moves;
+
+        private Player(int side, int winLength, Supplier<Strategy> first, Supplier<Strategy> second, long games,
+                       long seed, AtomicLong nextGame, GameListener listener) {
+            this.side = side;
+            this.winLength = winLength;
+            this.first = first;
+            this.second = second;
+            this.games = games;
+            this.seed = seed;
+            this.nextGame = nextGame;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void compute() {
+            TicTacToe game = new TicTacToe(1, this.side, this.winLength);
+            int[] played = new int[this.side * this.side];
+            Strategy firstStrategy = this.first.get();
+            Strategy secondStrategy = this.second.get();
+
+            long start;
+            while ((start = this.nextGame.getAndAdd(CHUNK_SIZE)) < this.games) {
+                long end = Math.min(start + CHUNK_SIZE, this.games);
+                for (long index = start; index < end; index++) {
+                    game.resetGame();
+                    firstStrategy.newGame(seedFor(this.seed, index, 0));
+                    secondStrategy.newGame(seedFor(this.seed, index, 1));
+
+                    int count = 0;
+                    while (!game.isGameOver()) {
+                        Strategy strategy = game.getTurn() == 1 ? firstStrategy : secondStrategy;
+                        int cell = strategy.chooseMove(game);
+                        if (cell < 0 || cell >= played.length
+                                || game.play(cell / this.side, cell % this.side) == 0) {
+                            throw new IllegalStateException("Strategy chose cell " + cell + " after " + count
+                                    + " moves of game " + index);
+                        }
+                        played[count++] = cell;
+                    }
+
+                    int winner = game.whoWon();
+                    if (winner == 1) {
+                        this.firstWins++;
+                    } else if (winner == 2) {
+                        this.secondWins++;
+                    }
+                    this.moves += count;
+                    if (this.listener != null) {
+                        this.listener.onGameOver(index, played, count, winner);
+                    }
+                }
+            }
+        }
+    }
+}
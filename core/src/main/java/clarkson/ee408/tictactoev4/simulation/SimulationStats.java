@@ -0,0 +1,134 @@
+package clarkson.ee408.tictactoev4.simulation;
+
+/**
+ * What a {@link GameSimulator} run found: how the games ended, how long they were and how fast
+ * they were played.
+ */
+public final class SimulationStats {
+
+    private final long games;
+    private final long firstWins;
+    private final long secondWins;
+    private final long moves;
+    private final long elapsedNanos;
+
+    /**
+     * Creates a new instance of {@code SimulationStats}.
+     *
+     * @param games the number of games played
+     * @param firstWins the number of games won by the first player
+     * @param secondWins the number of games won by the second player
+     * @param moves the number of moves played in all games
+     * @param elapsedNanos the wall-clock time of the run
+     */
+    public SimulationStats(long games, long firstWins, long secondWins, long moves, long elapsedNanos) {
+        this.games = games;
+        this.firstWins = firstWins;
+        this.secondWins = secondWins;
+        this.moves = moves;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of games played.
+     *
+     * @return the number of games
+     */
+    public long getGames() {
+        return this.games;
+    }
+
+    /**
+     * Returns the number of games won by the first player.
+     *
+     * @return the number of wins of player 1
+     */
+    public long getFirstWins() {
+        return this.firstWins;
+    }
+
+    /**
+     * Returns the number of games won by the second player.
+     *
+     * @return the number of wins of player 2
+     */
+    public long getSecondWins() {
+        return this.secondWins;
+    }
+
+    /**
+     * Returns the number of games that ended in a tie.
+     *
+     * @return the number of draws
+     */
+    public long getDraws() {
+        return this.games - this.firstWins - this.secondWins;
+    }
+
+    /**
+     * Returns the number of moves played in all games.
+     *
+     * @return the number of moves
+     */
+    public long getMoves() {
+        return this.moves;
+    }
+
+    /**
+     * Returns how long the run took.
+     *
+     * @return the wall-clock time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Returns the share of games won by the first player.
+     *
+     * @return a rate from 0 to 1
+     */
+    public double getFirstWinRate() {
+        return rate(this.firstWins);
+    }
+
+    /**
+     * Returns the share of games won by the second player.
+     *
+     * @return a rate from 0 to 1
+     */
+    public double getSecondWinRate() {
+        return rate(this.secondWins);
+    }
+
+    /**
+     * Returns the share of games that ended in a tie.
+     *
+     * @return a rate from 0 to 1
+     */
+    public double getDrawRate() {
+        return rate(getDraws());
+    }
+
+    /**
+     * Returns the average number of moves in a game.
+     *
+     * @return the average game length
+     */
+    public double getAverageLength() {
+        return rate(this.moves);
+    }
+
+    /**
+     * Returns how many moves were played per second, over all threads.
+     *
+     * @return the throughput of the run
+     */
+    public double getMovesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.moves * 1e9 / this.elapsedNanos;
+    }
+
+    private double rate(long count) {
+        return this.games == 0 ? 0 : (double) count / this.games;
+    }
+}
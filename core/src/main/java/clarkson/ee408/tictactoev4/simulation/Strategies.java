@@ -0,0 +1,106 @@
+package clarkson.ee408.tictactoev4.simulation;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+import clarkson.ee408.tictactoev4.engine.AlphaBetaSearch;
+import clarkson.ee408.tictactoev4.engine.PerfectPlayTable;
+import clarkson.ee408.tictactoev4.engine.TranspositionTable;
+
+/**
+ * The strategies {@link GameSimulator} is usually run with.
+ */
+public final class Strategies {
+
+    /**
+     * The base-2 logarithm of the number of transposition table slots of a search strategy, small
+     * enough to clear before every game.
+     */
+    private static final int TABLE_SIZE_BITS = 12;
+
+    private Strategies() {
+    }
+
+    /**
+     * Returns a strategy that plays any empty cell, each with the same chance.
+     *
+     * @return a new strategy, which does not allocate
+     */
+    public static Strategy random() {
+        return new RandomStrategy();
+    }
+
+    /**
+     * Returns a strategy that plays the best move of the {@link PerfectPlayTable}, so it only
+     * plays the 3×3 game with 3 in a row.
+     *
+     * @return a new strategy, which does not allocate
+     */
+    public static Strategy perfect() {
+        PerfectPlayTable table = PerfectPlayTable.getInstance();
+        return table::bestMove;
+    }
+
+    /**
+     * Returns a strategy that plays the move found by an {@link AlphaBetaSearch}. Its table is
+     * cleared before every game, so every game is played as if it were the first.
+     *
+     * @param maxDepth the most plies to look ahead, or 0 to search to the end of the game
+     * @return a new strategy
+     */
+    public static Strategy search(int maxDepth) {
+        return new SearchStrategy(maxDepth);
+    }
+
+    /**
+     * Draws from a SplitMix64 sequence instead of a {@code Random}, so that reseeding before each
+     * game does not allocate.
+     */
+    private static final class RandomStrategy implements Strategy {
+        private long state;
+
+        @Override
+        public void newGame(long seed) {
+            this.state = seed;
+        }
+
+        @Override
+        public int chooseMove(TicTacToe game) {
+            int side = game.getSide();
+            int empty = side * side - game.getMoveCount();
+            int skip = (int) ((nextLong() >>> 33) % empty);
+            for (int cell = 0; ; cell++) {
+                if (game.getCell(cell / side, cell % side) == 0 && skip-- == 0) {
+                    return cell;
+                }
+            }
+        }
+
+        private long nextLong() {
+            long z = this.state += 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    private static final class SearchStrategy implements Strategy {
+        private final TranspositionTable table;
+        private final AlphaBetaSearch search;
+        private final int maxDepth;
+
+        private SearchStrategy(int maxDepth) {
+            this.table = new TranspositionTable(TABLE_SIZE_BITS);
+            this.search = new AlphaBetaSearch(this.table);
+            this.maxDepth = maxDepth;
+        }
+
+        @Override
+        public void newGame(long seed) {
+            this.table.clear();
+        }
+
+        @Override
+        public int chooseMove(TicTacToe game) {
+            return this.search.search(game, this.maxDepth, 0).getMove();
+        }
+    }
+}
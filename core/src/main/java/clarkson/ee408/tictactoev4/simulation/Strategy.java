@@ -0,0 +1,29 @@
+package clarkson.ee408.tictactoev4.simulation;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * A way of choosing moves, played by {@link GameSimulator}.
+ * <p>
+ * The simulator gives each of its threads its own instance, so a strategy may keep scratch state
+ * between moves without any synchronization.
+ */
+public interface Strategy {
+
+    /**
+     * Prepares for a new game. Strategies that use random numbers must draw them from
+     * {@code seed} alone, so that a simulation can be repeated.
+     *
+     * @param seed the seed of this game, different for every game and player
+     */
+    default void newGame(long seed) {
+    }
+
+    /**
+     * Chooses a move for the player whose turn it is.
+     *
+     * @param game the game in progress, which is not over; it must not be modified
+     * @return an empty cell, {@code row * side + col}
+     */
+    int chooseMove(TicTacToe game);
+}
@@ -13,8 +13,8 @@ public class GamingResponse extends Response {
 
     /**
      * An integer representing the last move made by the current player's opponent.
-     * The value ranges from 0-8, representing the cells of the TicTacToe board
-     * from top to bottom, left to right:
+     * The value is {@code row * side + column}, numbering the cells of the board from
+     * top to bottom, left to right. On the classic 3×3 board it ranges from 0-8:
      * <pre>
      * 0 | 1 | 2
      * --+---+--
@@ -22,6 +22,7 @@ public class GamingResponse extends Response {
      * --+---+--
      * 6 | 7 | 8
      * </pre>
+     * Ultimate tic-tac-toe numbers the cells of its whole 9×9 grid the same way, from 0-80.
      */
     private int move;
 
@@ -45,7 +46,7 @@ public class GamingResponse extends Response {
      * Parameterized constructor that creates a GamingResponse with specific move and status.
      * Calls the superclass constructor and initializes all attributes with provided values.
      *
-     * @param move the integer representing the opponent's last move (0-8)
+     * @param move the integer representing the opponent's last move ({@code row * side + column})
      * @param active the boolean indicating if the opponent is still active in the game
      */
     public GamingResponse(int move, boolean active) {
@@ -57,7 +58,8 @@ public class GamingResponse extends Response {
     /**
      * Returns the opponent's last move on the TicTacToe board.
      *
-     * @return an integer from 0-8 representing the cell position of the last move
+     * @return {@code row * side + column} of the last move, 0-8 on the classic board,
+     *      0-80 in ultimate tic-tac-toe
      */
     public int getMove() {
         return move;
@@ -75,7 +77,8 @@ public class GamingResponse extends Response {
     /**
      * Sets the opponent's last move position.
      *
-     * @param move an integer from 0-8 representing the TicTacToe cell position
+     * @param move {@code row * side + column} of the cell, 0-8 on the classic board,
+     *      0-80 in ultimate tic-tac-toe
      */
     public void setMove(int move) {
         this.move = move;
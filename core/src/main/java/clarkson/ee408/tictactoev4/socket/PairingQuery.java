@@ -0,0 +1,152 @@
+package clarkson.ee408.tictactoev4.socket;
+
+/**
+ * Models the parameters of an UPDATE_PAIRING request, sent as JSON in {@link Request#getData()}.
+ * <p>
+ * The lobby is ordered by username and queried by range, so the client only ever holds the pages
+ * it has scrolled through. A query covers the users whose username or display name starts with
+ * {@code prefix}, whose username comes after {@code after} and, if set, not after
+ * {@code through}, capped at {@code pageSize} users. Loading the next page sets {@code after} and
+ * {@code pageSize}; refreshing the pages already loaded sets {@code through} instead.
+ * <p>
+ * Servers that predate the query ignore the request data and always answer with the whole lobby,
+ * which the client treats the same as a snapshot of everything.
+ */
+public class PairingQuery {
+
+    /**
+     * The presence version of the lobby the client already holds, taken from the last
+     * {@link PairingResponse#getPresenceVersion()}. The server answers with only the users added
+     * and removed since that version, or with a full snapshot if the client holds no version (0)
+     * or the server no longer remembers it.
+     */
+    private long presenceVersion;
+
+    /**
+     * Only users whose username or display name starts with this text, ignoring case, or null
+     * for everyone.
+     */
+    private String prefix;
+
+    /**
+     * Only users whose username comes after this one, or null to start from the beginning. This
+     * is the {@link PairingResponse#getNextCursor()} of the previous page.
+     */
+    private String after;
+
+    /**
+     * Only users whose username is not after this one, or null for no upper bound.
+     */
+    private String through;
+
+    /**
+     * The most users to return, or 0 for no limit.
+     */
+    private int pageSize;
+
+    /**
+     * Default constructor that creates a {@code PairingQuery} asking for a full snapshot.
+     */
+    public PairingQuery() {
+        this(0);
+    }
+
+    /**
+     * Creates a new instance of {@code PairingQuery}.
+     *
+     * @param presenceVersion the presence version the client already holds, or 0 for a snapshot
+     */
+    public PairingQuery(long presenceVersion) {
+        this.presenceVersion = presenceVersion;
+    }
+
+    /**
+     * Returns the presence version the client already holds.
+     *
+     * @return the presence version, or 0 if the client wants a full snapshot
+     */
+    public long getPresenceVersion() {
+        return this.presenceVersion;
+    }
+
+    /**
+     * Returns the filter on username and display name.
+     *
+     * @return the prefix users must start with, or null for everyone
+     */
+    public String getPrefix() {
+        return this.prefix;
+    }
+
+    /**
+     * Returns the username the range starts after.
+     *
+     * @return the exclusive lower bound, or null to start from the beginning
+     */
+    public String getAfter() {
+        return this.after;
+    }
+
+    /**
+     * Returns the last username the range may include.
+     *
+     * @return the inclusive upper bound, or null for no upper bound
+     */
+    public String getThrough() {
+        return this.through;
+    }
+
+    /**
+     * Returns the most users to return.
+     *
+     * @return the page size, or 0 for no limit
+     */
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    /**
+     * Sets the presence version the client already holds.
+     *
+     * @param presenceVersion the presence version, or 0 to ask for a full snapshot
+     */
+    public void setPresenceVersion(long presenceVersion) {
+        this.presenceVersion = presenceVersion;
+    }
+
+    /**
+     * Sets the filter on username and display name.
+     *
+     * @param prefix the prefix users must start with, or null for everyone
+     */
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Sets the username the range starts after.
+     *
+     * @param after the exclusive lower bound, or null to start from the beginning
+     */
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    /**
+     * Sets the last username the range may include.
+     *
+     * @param through the inclusive upper bound, or null for no upper bound
+     */
+    public void setThrough(String through) {
+        this.through = through;
+    }
+
+    /**
+     * Sets the most users to return.
+     *
+     * @param pageSize the page size, or 0 for no limit
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+}
@@ -0,0 +1,215 @@
+package clarkson.ee408.tictactoev4.socket;
+
+import java.util.Collections;
+import java.util.List;
+
+import clarkson.ee408.tictactoev4.model.Event;
+import clarkson.ee408.tictactoev4.model.User;
+
+/**
+ * Models the server's response to an UPDATE_PAIRING request in the TicTacToe game.
+ * <p>
+ * The lobby is either a full snapshot or a delta. A snapshot ({@code baseVersion} of 0) lists
+ * every available user. A delta applies on top of the lobby at {@code baseVersion}:
+ * {@code availableUsers} then holds only the users that became available or changed, and
+ * {@code removedUsernames} the users that are no longer available. Either way
+ * {@code presenceVersion} is the version to send in the next {@link PairingQuery}.
+ * <p>
+ * Both only cover the range of the lobby the query asked for. When a page was cut short by the
+ * query's page size, {@code nextCursor} is where the next page starts.
+ */
+public class PairingResponse extends Response {
+
+    /**
+     * Represents players that are available to receive game invitations.
+     */
+    private List<User> availableUsers;
+
+    /**
+     * The usernames of players that are no longer available, for a delta.
+     */
+    private List<String> removedUsernames;
+
+    /**
+     * The presence version of the lobby after this response is applied, or 0 if the server does
+     * not version the lobby.
+     */
+    private long presenceVersion;
+
+    /**
+     * The presence version this delta applies to, or 0 if the response is a full snapshot.
+     */
+    private long baseVersion;
+
+    /**
+     * The username to send as {@link PairingQuery#getAfter()} for the next page, or null if the
+     * response reaches the end of the requested range.
+     */
+    private String nextCursor;
+
+    /**
+     * Represents a game invitation from another user.
+     */
+    private Event invitation;
+
+    /**
+     * Represents a response to a game invitation previously sent by the current user.
+     */
+    private Event invitationResponse;
+
+    /**
+     * Default constructor that creates a {@code PairingResponse} with default values.
+     */
+    public PairingResponse() {
+        this(Collections.emptyList(), null, null);
+    }
+
+    /**
+     * Creates a new instance of {@code PairingResponse}.
+     *
+     * @param availableUsers a list of players that are available to receive game invitations
+     * @param invitation a game invitation from another user
+     * @param invitationResponse a response to a game invitation
+     */
+    public PairingResponse(List<User> availableUsers, Event invitation, Event invitationResponse) {
+        super();
+        this.availableUsers = availableUsers;
+        this.invitation = invitation;
+        this.invitationResponse = invitationResponse;
+    }
+
+    /**
+     * Returns the list of available users that can receive game invitations.
+     *
+     * @return the available users
+     */
+    public List<User> getAvailableUsers() {
+        return this.availableUsers;
+    }
+
+    /**
+     * Returns the usernames of players that are no longer available.
+     *
+     * @return the removed usernames, or null if none were removed
+     */
+    public List<String> getRemovedUsernames() {
+        return this.removedUsernames;
+    }
+
+    /**
+     * Returns the presence version of the lobby after this response is applied.
+     *
+     * @return the presence version, or 0 if the server does not version the lobby
+     */
+    public long getPresenceVersion() {
+        return this.presenceVersion;
+    }
+
+    /**
+     * Returns the presence version this delta applies to.
+     *
+     * @return the base version, or 0 if the response is a full snapshot
+     */
+    public long getBaseVersion() {
+        return this.baseVersion;
+    }
+
+    /**
+     * Returns where the next page starts.
+     *
+     * @return the cursor for the next page, or null if there are no more users in the range
+     */
+    public String getNextCursor() {
+        return this.nextCursor;
+    }
+
+    /**
+     * Returns whether the response lists every available user rather than the changes.
+     *
+     * @return true for a full snapshot
+     */
+    public boolean isSnapshot() {
+        return this.baseVersion == 0;
+    }
+
+    /**
+     * Returns the game invitation from another user.
+     *
+     * @return the game invitation
+     */
+    public Event getInvitation() {
+        return this.invitation;
+    }
+
+    /**
+     * Returns the game invitation response.
+     *
+     * @return the game invitation
+     */
+    public Event getInvitationResponse() {
+        return this.invitationResponse;
+    }
+
+    /**
+     * Sets the list of available users that can receive game invitations.
+     *
+     * @param availableUsers the available users to set
+     */
+    public void setAvailableUsers(List<User> availableUsers) {
+        this.availableUsers = availableUsers;
+    }
+
+    /**
+     * Sets the usernames of players that are no longer available.
+     *
+     * @param removedUsernames the removed usernames to set
+     */
+    public void setRemovedUsernames(List<String> removedUsernames) {
+        this.removedUsernames = removedUsernames;
+    }
+
+    /**
+     * Sets the presence version of the lobby after this response is applied.
+     *
+     * @param presenceVersion the presence version to set
+     */
+    public void setPresenceVersion(long presenceVersion) {
+        this.presenceVersion = presenceVersion;
+    }
+
+    /**
+     * Sets the presence version this delta applies to.
+     *
+     * @param baseVersion the base version to set, or 0 for a full snapshot
+     */
+    public void setBaseVersion(long baseVersion) {
+        this.baseVersion = baseVersion;
+    }
+
+    /**
+     * Sets where the next page starts.
+     *
+     * @param nextCursor the cursor for the next page, or null if there are no more users in the range
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Sets the game invitation from another user.
+     *
+     * @param invitation the invitation to set
+     */
+    public void setInvitation(Event invitation) {
+        this.invitation = invitation;
+    }
+
+    /**
+     * Sets the game invitation response.
+     *
+     * @param invitationResponse the game invitation response to set
+     */
+    public void setInvitationResponse(Event invitationResponse) {
+        this.invitationResponse = invitationResponse;
+    }
+}
@@ -0,0 +1,130 @@
+package clarkson.ee408.tictactoev4.socket;
+
+import clarkson.ee408.tictactoev4.model.Event;
+import clarkson.ee408.tictactoev4.model.User;
+
+/**
+ * Models an update the server pushes to a client that sent a SUBSCRIBE request.
+ * <p>
+ * Push messages travel on the same connection as regular responses but always carry a
+ * correlation id of 0, which is how the client tells them apart from the answer to one of its
+ * own requests. The push type determines which of the remaining fields is meaningful.
+ */
+public class PushMessage extends Response {
+
+    /**
+     * The kind of update being pushed.
+     */
+    private PushType type;
+
+    /**
+     * The cell ({@code row * side + column}) played by the opponent, for MOVE pushes.
+     */
+    private int move;
+
+    /**
+     * The invitation or game event concerned, for INVITATION, INVITATION_RESPONSE and GAME_ENDED pushes.
+     */
+    private Event event;
+
+    /**
+     * The user whose availability changed, for PRESENCE pushes.
+     */
+    private User user;
+
+    /**
+     * Default constructor that creates a {@code PushMessage} with default values.
+     */
+    public PushMessage() {
+        this(null, 0, null, null);
+    }
+
+    /**
+     * Creates a new instance of {@code PushMessage}.
+     *
+     * @param type the kind of update being pushed
+     * @param move the cell played by the opponent, for MOVE pushes
+     * @param event the invitation or game event concerned
+     * @param user the user whose availability changed
+     */
+    public PushMessage(PushType type, int move, Event event, User user) {
+        super(ResponseStatus.SUCCESS, null);
+        this.type = type;
+        this.move = move;
+        this.event = event;
+        this.user = user;
+    }
+
+    /**
+     * Returns the kind of update being pushed.
+     *
+     * @return the push type
+     */
+    public PushType getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the cell played by the opponent.
+     *
+     * @return {@code row * side + column} of the cell, meaningful for MOVE pushes
+     */
+    public int getMove() {
+        return this.move;
+    }
+
+    /**
+     * Returns the invitation or game event concerned by this push.
+     *
+     * @return the event, or null if the push type carries none
+     */
+    public Event getEvent() {
+        return this.event;
+    }
+
+    /**
+     * Returns the user whose availability changed.
+     *
+     * @return the user, or null if the push type carries none
+     */
+    public User getUser() {
+        return this.user;
+    }
+
+    /**
+     * Sets the kind of update being pushed.
+     *
+     * @param type the push type to set
+     */
+    public void setType(PushType type) {
+        this.type = type;
+    }
+
+    /**
+     * Sets the cell played by the opponent.
+     *
+     * @param move {@code row * side + column} of the cell, 0-8 on the classic board,
+     *      0-80 in ultimate tic-tac-toe
+     */
+    public void setMove(int move) {
+        this.move = move;
+    }
+
+    /**
+     * Sets the invitation or game event concerned by this push.
+     *
+     * @param event the event to set
+     */
+    public void setEvent(Event event) {
+        this.event = event;
+    }
+
+    /**
+     * Sets the user whose availability changed.
+     *
+     * @param user the user to set
+     */
+    public void setUser(User user) {
+        this.user = user;
+    }
+}
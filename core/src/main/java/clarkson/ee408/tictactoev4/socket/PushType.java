@@ -0,0 +1,35 @@
+package clarkson.ee408.tictactoev4.socket;
+
+/**
+ * Enumeration defining the kinds of updates the server pushes to a subscribed client.
+ * Each push type determines which fields of {@link PushMessage} are populated.
+ */
+public enum PushType {
+    /**
+     * The opponent made a move. The move field contains the cell ({@code row * side + column}) that was played.
+     */
+    MOVE,
+
+    /**
+     * Another user sent a game invitation. The event field contains the PENDING invitation.
+     */
+    INVITATION,
+
+    /**
+     * The opponent accepted or declined an invitation sent by the current user.
+     * The event field contains the invitation with status ACCEPTED or DECLINED.
+     */
+    INVITATION_RESPONSE,
+
+    /**
+     * A user became available or unavailable for pairing. The user field contains the user,
+     * whose online flag tells whether they joined or left the lobby.
+     */
+    PRESENCE,
+
+    /**
+     * The current game was ended by the opponent, e.g. aborted or disconnected.
+     * The event field contains the game event and the message explains why.
+     */
+    GAME_ENDED
+}
@@ -26,6 +26,20 @@ public class Request {
      */
     private String data;
 
+    /**
+     * A client-assigned correlation id echoed back by the server in the matching {@link Response}.
+     * Allows several requests to be in flight on the same connection at once. A value of 0 means
+     * the request is not correlated and the server answers requests in the order they arrive.
+     */
+    private int id;
+
+    /**
+     * How long the server may hold a REQUEST_MOVE or UPDATE_PAIRING request open waiting for a
+     * change before answering with the current state. A value of 0 asks for an immediate answer,
+     * which is also what servers that do not support holding requests give.
+     */
+    private int waitMillis;
+
     /**
      * Default constructor that creates a Request with null type and data.
      * Used for initialization before setting specific request parameters.
@@ -63,6 +77,24 @@ public class Request {
         return data;
     }
 
+    /**
+     * Returns the correlation id of this request.
+     *
+     * @return the correlation id, or 0 if the request is not correlated
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns how long the server may hold this request waiting for a change.
+     *
+     * @return the longest hold in milliseconds, or 0 for an immediate answer
+     */
+    public int getWaitMillis() {
+        return waitMillis;
+    }
+
     /**
      * Sets the type of this request.
      *
@@ -80,4 +112,22 @@ public class Request {
     public void setData(String data) {
         this.data = data;
     }
+
+    /**
+     * Sets the correlation id of this request.
+     *
+     * @param id the correlation id to set, or 0 for an uncorrelated request
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Sets how long the server may hold this request waiting for a change.
+     *
+     * @param waitMillis the longest hold in milliseconds, or 0 for an immediate answer
+     */
+    public void setWaitMillis(int waitMillis) {
+        this.waitMillis = waitMillis;
+    }
 }
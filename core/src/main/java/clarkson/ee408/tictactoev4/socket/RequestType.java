@@ -54,7 +54,7 @@ public enum RequestType {
     REQUEST_MOVE,
 
     /**
-     * Sent during gameplay to submit a player's move. Data contains serialized Integer (0-8) representing the grid cell selected.
+     * Sent during gameplay to submit a player's move. Data contains serialized Integer (row * side + column) representing the grid cell selected.
      * Server responds with standard Response indicating success/failure.
      */
     SEND_MOVE,
@@ -69,5 +69,19 @@ public enum RequestType {
      * Sent when a game is over after receiving a final move. Data is null.
      * Server updates Event status from PLAYING to COMPLETED and responds with standard Response.
      */
-    COMPLETE_GAME
+    COMPLETE_GAME,
+
+    /**
+     * Sent right after connecting to ask the server to switch the wire format. Data contains the name of the desired codec (e.g. "BINARY").
+     * Always sent as JSON. Server responds with standard Response; on SUCCESS both sides use the named codec for the rest of the connection,
+     * on anything else the connection stays on JSON.
+     */
+    NEGOTIATE_CODEC,
+
+    /**
+     * Sent after login to receive updates as they happen instead of polling. Data is null. Requires a multiplexed connection.
+     * Server responds with standard Response; on SUCCESS it pushes PushMessage objects with id 0 on the same connection for opponent moves,
+     * invitations, invitation responses, presence changes and ended games.
+     */
+    SUBSCRIBE
 }
@@ -26,6 +26,13 @@ public class Response {
      */
     private String message;
 
+    /**
+     * The correlation id of the {@link Request} this response answers. The server copies it from
+     * the request so that a client with several requests in flight can route each response to its
+     * caller. A value of 0 means the response is not correlated with a specific request.
+     */
+    private int id;
+
     /**
      * Default constructor that creates a Response with null status and message.
      * Used for initialization before setting specific response values.
@@ -63,6 +70,15 @@ public class Response {
         return message;
     }
 
+    /**
+     * Returns the correlation id of the request this response answers.
+     *
+     * @return the correlation id, or 0 if the response is not correlated
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Sets the status of this response.
      *
@@ -80,4 +96,13 @@ public class Response {
     public void setMessage(String message) {
         this.message = message;
     }
+
+    /**
+     * Sets the correlation id of the request this response answers.
+     *
+     * @param id the correlation id to set
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
 }
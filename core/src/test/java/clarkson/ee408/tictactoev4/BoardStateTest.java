@@ -0,0 +1,98 @@
+package clarkson.ee408.tictactoev4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class BoardStateTest {
+
+    @Test
+    public void playsLikeTheMutableGame() {
+        Random random = new Random(11);
+        int[][] sizes = {{3, 3}, {5, 4}, {7, 4}, {15, 5}};
+        for (int[] size : sizes) {
+            for (int round = 0; round < 100; round++) {
+                TicTacToe game = new TicTacToe(1, size[0], size[1]);
+                BoardState state = BoardState.empty(size[0], size[1]);
+                while (!game.isGameOver()) {
+                    int row = random.nextInt(size[0]);
+                    int col = random.nextInt(size[0]);
+                    if (game.play(row, col) == 0) {
+                        continue;
+                    }
+                    BoardState before = state;
+                    state = state.play(row, col);
+                    assertEquals(0, before.getCell(row, col));
+                    assertEquals(game.whoWon(), state.whoWon());
+                    assertEquals(game.getTurn(), state.getTurn());
+                    assertEquals(game.isGameOver(), state.isGameOver());
+                    assertEquals(game.snapshot(), state);
+                    assertEquals(game.snapshot().key(), state.key());
+                }
+                for (int cell = 0; cell < size[0] * size[0]; cell++) {
+                    assertEquals(game.getCell(cell / size[0], cell % size[0]),
+                            state.getCell(cell / size[0], cell % size[0]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void snapshotsIgnoreLaterMoves() {
+        TicTacToe game = new TicTacToe(1);
+        game.play(1, 1);
+        BoardState state = game.snapshot();
+        game.play(0, 0);
+        game.undo();
+        game.undo();
+        assertEquals(1, state.getCell(1, 1));
+        assertEquals(2, state.getTurn());
+        assertEquals(1, state.getMoveCount());
+    }
+
+    @Test
+    public void toGameRebuildsThePosition() {
+        BoardState state = BoardState.empty(9, 4).play(4, 4).play(0, 8).play(8, 0).play(4, 5).play(3, 3);
+        TicTacToe game = state.toGame(2);
+        assertEquals(2, game.getPlayer());
+        assertEquals(5, game.getMoveCount());
+        assertEquals(2, game.getTurn());
+        assertEquals(state, game.snapshot());
+    }
+
+    @Test
+    public void everyClassicPositionHasItsOwnKey() {
+        Set<BoardState> states = new HashSet<>();
+        Set<Long> keys = new HashSet<>();
+        visit(BoardState.empty(3, 3), states, keys);
+        assertEquals(5478, states.size());
+        assertEquals(5478, keys.size());
+        assertNotEquals(BoardState.empty(3, 3), BoardState.empty(3, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void takenCellsCannotBePlayed() {
+        BoardState.empty(3, 3).play(1, 1).play(1, 1);
+    }
+
+    private void visit(BoardState state, Set<BoardState> states, Set<Long> keys) {
+        if (!states.add(state)) {
+            return;
+        }
+        assertTrue(keys.add(state.key()));
+        if (state.isGameOver()) {
+            return;
+        }
+        for (int cell = 0; cell < 9; cell++) {
+            if (state.getCell(cell / 3, cell % 3) == 0) {
+                visit(state.play(cell / 3, cell % 3), states, keys);
+            }
+        }
+    }
+}
@@ -1,17 +1,20 @@
 package clarkson.ee408.tictactoev4;
 
-public class TicTacToe {
+/**
+ * The original array-backed {@link TicTacToe}, kept verbatim as the reference for equivalence tests.
+ */
+class LegacyTicTacToe {
     public static final int SIDE = 3;
     private final int[][] game;
     private int turn;
     private int player;
 
     /**
-     * Creates a new TicTacToe game board with the given {@code player}.
+     * Creates a new LegacyTicTacToe game board with the given {@code player}.
      *
      * @param player the initial player number
      */
-    public TicTacToe(int player) {
+    LegacyTicTacToe(int player) {
         this.game = new int[SIDE][SIDE];
         this.player = player;
 
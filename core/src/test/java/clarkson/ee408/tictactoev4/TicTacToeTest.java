@@ -0,0 +1,251 @@
+package clarkson.ee408.tictactoev4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class TicTacToeTest {
+
+    @Test
+    public void everyGameMatchesTheLegacyImplementation() {
+        // Every position reachable before the game is over
+        int[] checked = new int[1];
+        explore(new TicTacToe(1), new LegacyTicTacToe(1), new int[TicTacToe.SIDE * TicTacToe.SIDE], 0, checked);
+        assertEquals(549946, checked[0]);
+    }
+
+    @Test
+    public void invalidMovesMatchTheLegacyImplementation() {
+        Random random = new Random(408);
+        for (int game = 0; game < 2000; game++) {
+            int player = 1 + random.nextInt(2);
+            TicTacToe bitboard = new TicTacToe(player);
+            LegacyTicTacToe legacy = new LegacyTicTacToe(player);
+            for (int move = 0; move < 20 && !legacy.isGameOver(); move++) {
+                int row = random.nextInt(TicTacToe.SIDE + 2) - 1;
+                int col = random.nextInt(TicTacToe.SIDE + 2) - 1;
+                assertEquals(legacy.play(row, col), bitboard.play(row, col));
+                assertSameState(legacy, bitboard);
+            }
+            if (random.nextBoolean()) {
+                bitboard.resetGame();
+                legacy.resetGame();
+                assertSameState(legacy, bitboard);
+            }
+        }
+    }
+
+    @Test
+    public void firstLineCompletedWinsEvenIfPlayContinues() {
+        // X completes the middle row, then O completes the top row
+        TicTacToe game = new TicTacToe(2);
+        int[][] moves = {{1, 0}, {0, 0}, {1, 1}, {0, 1}, {1, 2}, {0, 2}};
+        for (int[] move : moves) {
+            game.play(move[0], move[1]);
+        }
+        assertEquals(1, game.whoWon());
+        assertEquals("You Lost", game.result());
+    }
+
+    @Test
+    public void gomokuNeedsFiveInARowInEveryDirection() {
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        for (int[] direction : directions) {
+            TicTacToe game = new TicTacToe(1, 15, 5);
+            // X plays the line out of order, so the winning move lands in the middle; O plays far away
+            int[] order = {0, 1, 3, 4, 2};
+            for (int i = 0; i < order.length; i++) {
+                assertEquals(0, game.whoWon());
+                int row = 5 + order[i] * direction[0];
+                int col = 7 + order[i] * direction[1];
+                assertEquals(1, game.play(row, col));
+                if (i < order.length - 1) {
+                    assertEquals(2, game.play(14, i));
+                }
+            }
+            assertEquals(1, game.whoWon());
+            assertTrue(game.isGameOver());
+            assertEquals("You Won", game.result());
+        }
+    }
+
+    @Test
+    public void fourInARowDoesNotWinGomoku() {
+        TicTacToe game = new TicTacToe(2, 15, 5);
+        for (int col = 11; col < 15; col++) {
+            game.play(0, col);
+            game.play(1, col);
+        }
+        // A line of the win length would need the cell past the edge
+        assertEquals(0, game.whoWon());
+        assertEquals(0, game.checkRows());
+        assertFalse(game.isGameOver());
+
+        game.play(0, 10);
+        assertEquals(1, game.whoWon());
+        assertEquals(1, game.checkRows());
+        assertEquals("You Lost", game.result());
+    }
+
+    @Test
+    public void lineMasksAgreeWithFullScansOnEveryMaskedBoard() {
+        Random random = new Random(11);
+        for (int side = 1; side <= 8; side++) {
+            for (int winLength = 1; winLength <= side; winLength++) {
+                for (int game = 0; game < 50; game++) {
+                    TicTacToe masked = new TicTacToe(1, side, winLength);
+                    while (!masked.isGameOver()) {
+                        assertEquals(0, masked.checkRows() + masked.checkColumns() + masked.checkDiagonals());
+                        masked.play(random.nextInt(side), random.nextInt(side));
+                    }
+                    int winner = masked.whoWon();
+                    if (winner > 0) {
+                        assertTrue(masked.checkRows() == winner || masked.checkColumns() == winner
+                                || masked.checkDiagonals() == winner);
+                    } else {
+                        assertEquals(side * side, masked.getMoveCount());
+                        assertEquals(0, masked.checkRows() + masked.checkColumns() + masked.checkDiagonals());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void largeBoardsUseCellsPastTheFirstWord() {
+        TicTacToe game = new TicTacToe(1, 15, 5);
+        assertEquals(15, game.getSide());
+        assertEquals(5, game.getWinLength());
+        assertEquals(0, game.play(15, 0));
+        assertEquals(1, game.play(14, 14));
+        assertEquals(0, game.play(14, 14));
+        assertEquals(1, game.getCell(14, 14));
+        assertEquals(0, game.getCell(0, 0));
+        assertEquals(2, game.play(4, 4)); // bit 64, the first cell of the second word
+        assertEquals(2, game.getCell(4, 4));
+        assertEquals(0, game.getCell(0, 0));
+
+        game.resetGame();
+        assertEquals(0, game.getCell(14, 14));
+        assertEquals(1, game.getTurn());
+    }
+
+    @Test
+    public void fullBoardWithoutALineIsATie() {
+        TicTacToe game = new TicTacToe(1, 4, 4);
+        // X X O O / O O X X / X X O O / O O X X
+        int[][] moves = {{0, 0}, {0, 2}, {0, 1}, {0, 3}, {1, 2}, {1, 0}, {1, 3}, {1, 1},
+                {2, 0}, {2, 2}, {2, 1}, {2, 3}, {3, 2}, {3, 0}, {3, 3}, {3, 1}};
+        for (int[] move : moves) {
+            assertFalse(game.canNotPlay());
+            game.play(move[0], move[1]);
+        }
+        assertTrue(game.canNotPlay());
+        assertEquals(0, game.whoWon());
+        assertEquals("Tie Game", game.result());
+    }
+
+    @Test
+    public void undoTakesBackMovesAndWins() {
+        TicTacToe game = new TicTacToe(1);
+        int[][] moves = {{0, 0}, {1, 0}, {0, 1}, {1, 1}, {0, 2}};
+        for (int[] move : moves) {
+            game.play(move[0], move[1]);
+        }
+        assertEquals(1, game.whoWon());
+
+        assertTrue(game.undo());
+        assertEquals(0, game.whoWon());
+        assertEquals(1, game.getTurn());
+        assertEquals(0, game.getCell(0, 2));
+        assertEquals(4, game.getMoveCount());
+
+        TicTacToe copy = new TicTacToe(game);
+        assertEquals(1, game.play(1, 2)); // X moves elsewhere; the copy is unaffected
+        assertEquals(0, copy.getCell(1, 2));
+        assertEquals(1, copy.play(0, 2));
+        assertEquals(1, copy.whoWon());
+
+        while (game.undo()) {
+            assertEquals(0, game.whoWon());
+        }
+        assertEquals(0, game.getMoveCount());
+        assertEquals(1, game.getTurn());
+    }
+
+    @Test
+    public void redoReplaysUndoneMovesUntilANewMove() {
+        TicTacToe game = new TicTacToe(1);
+        int[][] moves = {{0, 0}, {1, 0}, {0, 1}, {1, 1}, {0, 2}};
+        for (int[] move : moves) {
+            game.play(move[0], move[1]);
+        }
+        assertFalse(game.redo());
+
+        assertTrue(game.undo());
+        assertTrue(game.undo());
+        assertTrue(game.redo());
+        assertEquals(2, game.getCell(1, 1));
+        assertEquals(1, game.getTurn());
+        assertTrue(game.redo());
+        assertEquals(1, game.whoWon());
+        assertEquals(2, game.getMove(4));
+        assertFalse(game.redo());
+
+        game.undo();
+        game.undo();
+        assertEquals(2, game.play(2, 2));
+        assertFalse(game.redo());
+        assertEquals(4, game.getMoveCount());
+        assertEquals(8, game.getMove(3));
+
+        game.resetGame();
+        assertFalse(game.redo());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void winLengthCannotExceedTheBoard() {
+        new TicTacToe(1, 3, 4);
+    }
+
+    private static void explore(TicTacToe bitboard, LegacyTicTacToe legacy, int[] moves, int depth, int[] checked) {
+        assertSameState(legacy, bitboard);
+        checked[0]++;
+        if (legacy.isGameOver()) {
+            return;
+        }
+
+        for (int cell = 0; cell < TicTacToe.SIDE * TicTacToe.SIDE; cell++) {
+            TicTacToe nextBitboard = new TicTacToe(1 + depth % 2);
+            LegacyTicTacToe nextLegacy = new LegacyTicTacToe(1 + depth % 2);
+            for (int i = 0; i < depth; i++) {
+                nextBitboard.play(moves[i] / TicTacToe.SIDE, moves[i] % TicTacToe.SIDE);
+                nextLegacy.play(moves[i] / TicTacToe.SIDE, moves[i] % TicTacToe.SIDE);
+            }
+
+            int row = cell / TicTacToe.SIDE;
+            int col = cell % TicTacToe.SIDE;
+            int played = nextLegacy.play(row, col);
+            assertEquals(played, nextBitboard.play(row, col));
+            if (played != 0) {
+                moves[depth] = cell;
+                explore(nextBitboard, nextLegacy, moves, depth + 1, checked);
+            }
+        }
+    }
+
+    private static void assertSameState(LegacyTicTacToe legacy, TicTacToe bitboard) {
+        assertEquals(legacy.whoWon(), bitboard.whoWon());
+        assertEquals(legacy.checkRows(), bitboard.checkRows());
+        assertEquals(legacy.checkColumns(), bitboard.checkColumns());
+        assertEquals(legacy.checkDiagonals(), bitboard.checkDiagonals());
+        assertEquals(legacy.canNotPlay(), bitboard.canNotPlay());
+        assertEquals(legacy.isGameOver(), bitboard.isGameOver());
+        assertEquals(legacy.result(), bitboard.result());
+        assertEquals(legacy.getTurn(), bitboard.getTurn());
+    }
+}
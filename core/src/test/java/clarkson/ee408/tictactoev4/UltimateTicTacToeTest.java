@@ -0,0 +1,169 @@
+package clarkson.ee408.tictactoev4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class UltimateTicTacToeTest {
+
+    private static final int[][] LINES = {
+            {0, 1, 2}, {3, 4, 5}, {6, 7, 8}, {0, 3, 6}, {1, 4, 7}, {2, 5, 8}, {0, 4, 8}, {2, 4, 6}
+    };
+
+    @Test
+    public void eachMoveSendsTheOpponentToABoard() {
+        UltimateTicTacToe game = new UltimateTicTacToe(1);
+        assertEquals(-1, game.getTargetBoard());
+        assertEquals(1, game.play(0, 2));  // top-left board, top-right cell
+        assertEquals(2, game.getTargetBoard());
+        assertEquals(0, game.play(4, 4));  // not in the top-right board
+        assertEquals(2, game.play(1, 7));  // top-right board, middle cell
+        assertEquals(4, game.getTargetBoard());
+        assertEquals(2, game.getCell(1, 7));
+
+        int[] moves = new int[UltimateTicTacToe.CELLS];
+        assertEquals(9, game.generateMoves(moves));
+        assertEquals(3 * 9 + 3, moves[0]);
+    }
+
+    @Test
+    public void decidedBoardsAreClosed() {
+        UltimateTicTacToe game = new UltimateTicTacToe(1);
+        // X takes the top row of the center board, and O keeps sending X back there
+        int[][] moves = {{3, 3}, {1, 1}, {3, 4}, {1, 4}, {3, 5}};
+        for (int[] move : moves) {
+            assertTrue(game.play(move[0], move[1]) != 0);
+        }
+        assertEquals(1, game.getBoardState(4));
+        // X's last cell was the top-right one, so O must play in the top-right board
+        assertEquals(2, game.getTargetBoard());
+        assertEquals(2, game.play(1, 7));
+        // Sent to the center board, which is won, so X may play in any open board but that one
+        assertEquals(-1, game.getTargetBoard());
+        assertFalse(game.isLegal(4 * 9 + 4));
+        assertTrue(game.isLegal(8 * 9 + 8));
+
+        assertTrue(game.undo());
+        assertTrue(game.undo());
+        assertEquals(0, game.getBoardState(4));
+        assertEquals(4, game.getTargetBoard());
+        assertTrue(game.isLegal(3 * 9 + 5));
+    }
+
+    @Test
+    public void matchesAPlainImplementationOfTheRules() {
+        Random random = new Random(5);
+        int[] moves = new int[UltimateTicTacToe.CELLS];
+        UltimateTicTacToe game = new UltimateTicTacToe(1);
+        for (int round = 0; round < 2000; round++) {
+            game.resetGame();
+            int[] grid = new int[UltimateTicTacToe.CELLS];
+            int lastInner = -1;
+            int expectedWinner = 0;
+            while (!game.isGameOver()) {
+                int count = game.generateMoves(moves);
+                int legal = 0;
+                for (int cell = 0; cell < grid.length; cell++) {
+                    boolean expected = isLegal(grid, lastInner, cell);
+                    assertEquals(expected, game.isLegal(cell));
+                    if (expected) {
+                        legal++;
+                    }
+                }
+                assertEquals(legal, count);
+
+                int cell = moves[random.nextInt(count)];
+                int mover = game.getTurn();
+                assertEquals(mover, game.play(cell / 9, cell % 9));
+                grid[cell] = mover;
+                lastInner = (cell / 9 % 3) * 3 + cell % 9 % 3;
+                if (expectedWinner == 0 && wonBoards(grid, mover) != 0
+                        && completes(wonBoards(grid, mover))) {
+                    expectedWinner = mover;
+                }
+                for (int board = 0; board < 9; board++) {
+                    assertEquals(boardState(grid, board), game.getBoardState(board));
+                }
+                assertEquals(expectedWinner, game.whoWon());
+            }
+            assertEquals(0, game.generateMoves(moves));
+
+            // Taking every move back must retrace the same states
+            UltimateTicTacToe copy = new UltimateTicTacToe(game);
+            while (copy.undo()) {
+                int cell = game.getMove(copy.getMoveCount());
+                assertEquals(0, copy.getCell(cell / 9, cell % 9));
+            }
+            assertEquals(-1, copy.getTargetBoard());
+            assertEquals(0, copy.whoWon());
+            assertEquals(81, copy.generateMoves(moves));
+        }
+    }
+
+    @Test
+    public void resultIsFromThePlayersPointOfView() {
+        Random random = new Random(8);
+        int[] moves = new int[UltimateTicTacToe.CELLS];
+        UltimateTicTacToe game = new UltimateTicTacToe(2);
+        assertEquals("PLAY !!", game.result());
+        int[] outcomes = new int[3];
+        for (int round = 0; round < 300; round++) {
+            game.resetGame();
+            while (!game.isGameOver()) {
+                int cell = moves[random.nextInt(game.generateMoves(moves))];
+                game.play(cell / 9, cell % 9);
+            }
+            outcomes[game.whoWon()]++;
+            String expected = game.whoWon() == 2 ? "You Won" : game.whoWon() == 1 ? "You Lost" : "Tie Game";
+            assertEquals(expected, game.result());
+        }
+        assertTrue(outcomes[0] > 0 && outcomes[1] > 0 && outcomes[2] > 0);
+    }
+
+    private static boolean isLegal(int[] grid, int lastInner, int cell) {
+        int board = (cell / 9 / 3) * 3 + cell % 9 / 3;
+        if (grid[cell] != 0 || boardState(grid, board) != 0) {
+            return false;
+        }
+        return lastInner < 0 || boardState(grid, lastInner) != 0 || lastInner == board;
+    }
+
+    private static int boardState(int[] grid, int board) {
+        int top = (board / 3) * 27 + (board % 3) * 3;
+        boolean full = true;
+        for (int inner = 0; inner < 9; inner++) {
+            full &= grid[top + (inner / 3) * 9 + inner % 3] != 0;
+        }
+        for (int[] line : LINES) {
+            int owner = grid[top + (line[0] / 3) * 9 + line[0] % 3];
+            if (owner != 0 && owner == grid[top + (line[1] / 3) * 9 + line[1] % 3]
+                    && owner == grid[top + (line[2] / 3) * 9 + line[2] % 3]) {
+                return owner;
+            }
+        }
+        return full ? 3 : 0;
+    }
+
+    private static int wonBoards(int[] grid, int owner) {
+        int mask = 0;
+        for (int board = 0; board < 9; board++) {
+            if (boardState(grid, board) == owner) {
+                mask |= 1 << board;
+            }
+        }
+        return mask;
+    }
+
+    private static boolean completes(int mask) {
+        for (int[] line : LINES) {
+            if ((mask >>> line[0] & 1) != 0 && (mask >>> line[1] & 1) != 0 && (mask >>> line[2] & 1) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package clarkson.ee408.tictactoev4.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class AdaptivePollSchedulerTest {
+
+    private final ManualTimer timer = new ManualTimer();
+    private int polls;
+    private final AdaptivePollScheduler scheduler = new AdaptivePollScheduler(
+            () -> polls++, Runnable::run, timer, 10, 100, 400);
+
+    @After
+    public void tearDown() {
+        scheduler.stop();
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void unchangedPollsBackOffUpToTheMaximum() {
+        scheduler.start();
+        timer.advance(0);
+        assertEquals(1, polls);
+
+        long[] expected = {200, 400, 400};
+        for (long delay : expected) {
+            scheduler.pollCompleted(false);
+            assertEquals(delay, scheduler.getDelayMillis());
+
+            // Every delay is jittered by up to a fifth either way
+            int before = polls;
+            timer.advance(delay * 4 / 5 - 1);
+            assertEquals(before, polls);
+            timer.advance(delay * 2 / 5 + 2);
+            assertEquals(before + 1, polls);
+        }
+        assertEquals(4, polls);
+
+        scheduler.pollCompleted(true);
+        assertEquals(100, scheduler.getDelayMillis());
+    }
+
+    @Test
+    public void burstBringsTheNextPollForward() {
+        scheduler.start();
+        timer.advance(0);
+        scheduler.pollCompleted(false);
+        scheduler.pollCompleted(false); // the next poll is now 320 to 480 ms out
+
+        timer.advance(300);
+        assertEquals(1, polls);
+        scheduler.burst();
+        timer.advance(12);
+        assertEquals(2, polls);
+        assertEquals(100, scheduler.getDelayMillis());
+
+        // The polls that follow keep to the burst delay
+        scheduler.pollCompleted(false);
+        timer.advance(12);
+        assertEquals(3, polls);
+    }
+
+    @Test
+    public void stoppedSchedulerIgnoresLateReports() {
+        scheduler.start();
+        timer.advance(0);
+        assertEquals(1, polls);
+
+        scheduler.stop();
+        scheduler.pollNow();
+        scheduler.pollCompleted(true);
+
+        assertFalse(scheduler.isRunning());
+        timer.advance(1000);
+        assertEquals(1, polls);
+    }
+}
@@ -0,0 +1,181 @@
+package clarkson.ee408.tictactoev4.client;
+
+import com.google.gson.Gson;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import clarkson.ee408.tictactoev4.codec.Codecs;
+import clarkson.ee408.tictactoev4.codec.JsonCodec;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.model.Event;
+import clarkson.ee408.tictactoev4.model.EventStatus;
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+import clarkson.ee408.tictactoev4.socket.PushType;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * A minimal in-process stand-in for the game server, just enough to exercise SUBSCRIBE end to end.
+ * It echoes correlation ids, negotiates codecs and pushes invitations, invitation responses,
+ * presence changes, moves and aborted games to subscribed connections.
+ */
+public class LocalPushServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final Map<String, Session> sessions;
+    private final AtomicInteger nextEventId;
+    private final Gson gson;
+
+    public LocalPushServer() throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        this.executor = Executors.newCachedThreadPool();
+        this.sessions = new ConcurrentHashMap<>();
+        this.nextEventId = new AtomicInteger();
+        this.gson = new Gson();
+        this.executor.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        for (Session session : this.sessions.values()) {
+            session.socket.close();
+        }
+        this.executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        try {
+            while (!this.serverSocket.isClosed()) {
+                Socket socket = this.serverSocket.accept();
+                this.executor.execute(new Session(socket)::serve);
+            }
+        } catch (IOException ex) {
+            // Server closed
+        }
+    }
+
+    private void push(String username, PushMessage message) throws IOException {
+        Session session = username == null ? null : this.sessions.get(username);
+        if (session != null && session.subscribed) {
+            session.send(message);
+        }
+    }
+
+    private class Session {
+        private final Socket socket;
+        private MessageCodec codec = new JsonCodec();
+        private DataOutputStream out;
+        private String username;
+        private String opponent;
+        private volatile boolean subscribed;
+
+        private Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        private void serve() {
+            try {
+                DataInputStream in = new DataInputStream(this.socket.getInputStream());
+                this.out = new DataOutputStream(this.socket.getOutputStream());
+                while (true) {
+                    Request request = this.codec.readRequest(in);
+                    Response response = handle(request);
+                    response.setId(request.getId());
+                    send(response);
+                    if (response.getStatus() == ResponseStatus.SUCCESS && request.getType() == RequestType.NEGOTIATE_CODEC) {
+                        synchronized (this) {
+                            this.codec = Codecs.forName(request.getData());
+                        }
+                    }
+                }
+            } catch (IOException ex) {
+                if (this.username != null) {
+                    sessions.remove(this.username);
+                }
+            }
+        }
+
+        private synchronized void send(Response response) throws IOException {
+            this.codec.writeResponse(this.out, response);
+            this.out.flush();
+        }
+
+        private Response handle(Request request) throws IOException {
+            switch (request.getType()) {
+                case NEGOTIATE_CODEC:
+                    return Codecs.forName(request.getData()) != null
+                            ? new Response(ResponseStatus.SUCCESS, null)
+                            : new Response(ResponseStatus.FAILURE, "Unknown codec");
+                case LOGIN:
+                    this.username = gson.fromJson(request.getData(), User.class).getUsername();
+                    sessions.put(this.username, this);
+                    for (String other : sessions.keySet()) {
+                        if (!other.equals(this.username)) {
+                            push(other, new PushMessage(PushType.PRESENCE, 0, null,
+                                    new User(this.username, null, this.username, true)));
+                        }
+                    }
+                    return new Response(ResponseStatus.SUCCESS, null);
+                case SUBSCRIBE:
+                    this.subscribed = true;
+                    return new Response(ResponseStatus.SUCCESS, null);
+                case SEND_INVITATION:
+                    push(request.getData(), new PushMessage(PushType.INVITATION, 0,
+                            new Event(nextEventId.incrementAndGet(), this.username, request.getData(),
+                                    EventStatus.PENDING, null, -1), null));
+                    return new Response(ResponseStatus.SUCCESS, null);
+                case ACCEPT_INVITATION: {
+                    Session sender = findSenderOf(Integer.parseInt(request.getData()));
+                    this.opponent = sender == null ? null : sender.username;
+                    if (sender != null) {
+                        sender.opponent = this.username;
+                    }
+                    push(this.opponent, new PushMessage(PushType.INVITATION_RESPONSE, 0,
+                            new Event(Integer.parseInt(request.getData()), this.opponent, this.username,
+                                    EventStatus.ACCEPTED, null, -1), null));
+                    return new Response(ResponseStatus.SUCCESS, null);
+                }
+                case SEND_MOVE:
+                    push(this.opponent, new PushMessage(PushType.MOVE, Integer.parseInt(request.getData()), null, null));
+                    return new Response(ResponseStatus.SUCCESS, null);
+                case ABORT_GAME: {
+                    PushMessage ended = new PushMessage(PushType.GAME_ENDED, 0, null, null);
+                    ended.setMessage(this.username + " left the game");
+                    push(this.opponent, ended);
+                    return new Response(ResponseStatus.SUCCESS, null);
+                }
+                default:
+                    return new Response(ResponseStatus.FAILURE, "Unsupported by the stand-in server");
+            }
+        }
+
+        private Session findSenderOf(int eventId) {
+            // The stand-in does not keep events; every other logged-in user is a candidate sender
+            for (Session session : sessions.values()) {
+                if (session != this) {
+                    return session;
+                }
+            }
+            return null;
+        }
+    }
+}
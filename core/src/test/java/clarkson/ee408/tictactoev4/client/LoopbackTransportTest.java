@@ -0,0 +1,109 @@
+package clarkson.ee408.tictactoev4.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import clarkson.ee408.tictactoev4.socket.GamingResponse;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+public class LoopbackTransportTest {
+
+    private final List<Session> sessions = new ArrayList<>();
+    private final LoopbackTransport transport = new LoopbackTransport(() -> {
+        Session session = new Session();
+        sessions.add(session);
+        return session;
+    });
+
+    @Test
+    public void responsesComeBackWithoutCopies() throws Exception {
+        Request request = new Request(RequestType.SEND_MOVE, "4");
+        GamingResponse response = transport.sendRequest(request, GamingResponse.class);
+
+        assertEquals(1, sessions.size());
+        assertSame(request, sessions.get(0).requests.get(0));
+        assertSame(sessions.get(0).lastResponse, response);
+        assertEquals(4, response.getMove());
+    }
+
+    @Test
+    public void responsesOfAnotherClassCannotBeDecoded() throws Exception {
+        assertNull(transport.sendRequest(new Request(RequestType.SEND_MOVE, "4"), PairingResponse.class));
+        Response response = transport.sendRequest(new Request(RequestType.SEND_MOVE, "4"), Response.class);
+        assertTrue(response instanceof GamingResponse);
+    }
+
+    @Test
+    public void plainResponsesAreAdaptedLikeTheCodecsDo() throws Exception {
+        LoopbackTransport failing = new LoopbackTransport(() -> request ->
+                new Response(ResponseStatus.FAILURE, "Not logged in"));
+
+        PairingResponse response = failing.sendRequest(new Request(RequestType.UPDATE_PAIRING, null),
+                PairingResponse.class);
+        assertEquals(ResponseStatus.FAILURE, response.getStatus());
+        assertEquals("Not logged in", response.getMessage());
+    }
+
+    @Test
+    public void closingEndsTheConnectionAndTheNextRequestReconnects() throws Exception {
+        transport.sendRequest(new Request(RequestType.SEND_MOVE, "1"), GamingResponse.class);
+        transport.sendRequest(new Request(RequestType.SEND_MOVE, "2"), GamingResponse.class);
+        transport.close();
+        assertTrue(sessions.get(0).closed);
+
+        transport.sendRequest(new Request(RequestType.SEND_MOVE, "3"), GamingResponse.class);
+        assertEquals(2, sessions.size());
+        assertEquals(2, sessions.get(0).requests.size());
+        assertFalse(sessions.get(1).closed);
+    }
+
+    @Test
+    public void socketClientSendsThroughAPluggedTransport() throws Exception {
+        SocketClient client = new SocketClient("127.0.0.1", 1);
+        client.setTransport(transport);
+
+        GamingResponse response = client.sendRequest(new Request(RequestType.SEND_MOVE, "7"), GamingResponse.class);
+        assertEquals(7, response.getMove());
+        assertSame(transport, client.getTransport());
+        assertFalse(client.isNonBlocking());
+        assertEquals(0, client.getLongPollWaitMillis());
+        assertFalse(client.subscribe(message -> { }));
+
+        client.setNonBlocking(false);
+        assertTrue(sessions.get(0).closed);
+        client.close();
+    }
+
+    /**
+     * Echoes moves back the way the server acknowledges them.
+     */
+    private static class Session implements RequestHandler {
+        private final List<Request> requests = new ArrayList<>();
+        private Response lastResponse;
+        private boolean closed;
+
+        @Override
+        public Response handle(Request request) {
+            this.requests.add(request);
+            this.lastResponse = new GamingResponse(Integer.parseInt(request.getData()), true);
+            return this.lastResponse;
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ScheduledExecutorService} on a virtual clock, for tests of code that waits out delays.
+ * Nothing runs until {@link #advance(long)} moves the clock past a task's due time; tasks then run
+ * on the calling thread in the order they fall due. Only one-shot scheduling is supported.
+ */
+public class ManualTimer extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final List<Task> tasks = new ArrayList<>();
+    private long nowMillis;
+    private boolean shutdown;
+
+    /**
+     * Moves the clock forward and runs every task that falls due, including tasks that those
+     * tasks schedule within the window.
+     *
+     * @param millis how far to move the clock
+     */
+    public void advance(long millis) {
+        long target = this.nowMillis + millis;
+        while (true) {
+            Task next = null;
+            for (Task task : this.tasks) {
+                if (task.dueMillis <= target && (next == null || task.dueMillis < next.dueMillis)) {
+                    next = task;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            this.tasks.remove(next);
+            this.nowMillis = Math.max(this.nowMillis, next.dueMillis);
+            next.run();
+        }
+        this.nowMillis = target;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        Task task = new Task(command, this.nowMillis + unit.toMillis(delay));
+        this.tasks.add(task);
+        return task;
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdown = true;
+        this.tasks.clear();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return this.shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return this.shutdown;
+    }
+
+    private final class Task implements ScheduledFuture<Object> {
+        private final Runnable command;
+        private final long dueMillis;
+        private boolean cancelled;
+        private boolean done;
+
+        private Task(Runnable command, long dueMillis) {
+            this.command = command;
+            this.dueMillis = dueMillis;
+        }
+
+        private void run() {
+            this.done = true;
+            this.command.run();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(this.dueMillis - nowMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (this.done) {
+                return false;
+            }
+            this.cancelled = true;
+            this.done = true;
+            return tasks.remove(this);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return this.done;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package clarkson.ee408.tictactoev4.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import clarkson.ee408.tictactoev4.codec.BinaryCodec;
+import clarkson.ee408.tictactoev4.codec.Codecs;
+import clarkson.ee408.tictactoev4.codec.JsonCodec;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * {@link NioTransport} against a {@link ScriptedServer} that answers requests in order, the way
+ * the game server does.
+ */
+public class NioTransportTest {
+
+    private static final int TIMEOUT_MILLIS = 5000;
+
+    private final Queue<String> negotiated = new ConcurrentLinkedQueue<>();
+    private ScriptedServer server;
+    private NioTransport transport;
+
+    @After
+    public void tearDown() throws IOException {
+        if (this.transport != null) {
+            this.transport.close();
+        }
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    @Test
+    public void pipelinedRequestsAreAnsweredInOrder() throws Exception {
+        this.server = new ScriptedServer(echo(true));
+        this.transport = new NioTransport("127.0.0.1", this.server.getPort(), TIMEOUT_MILLIS);
+
+        List<CompletableFuture<Response>> responses = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            responses.add(this.transport.sendRequestAsync(new Request(RequestType.UPDATE_PAIRING, "r" + i),
+                    Response.class));
+        }
+        for (int i = 0; i < responses.size(); i++) {
+            assertEquals("r" + i, responses.get(i).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getMessage());
+        }
+    }
+
+    @Test
+    public void jsonNeedsNoNegotiation() throws Exception {
+        this.server = new ScriptedServer(echo(true));
+        this.transport = new NioTransport("127.0.0.1", this.server.getPort(), TIMEOUT_MILLIS);
+        this.transport.setPreferredCodec(new JsonCodec());
+
+        assertEquals("hello", send("hello").getMessage());
+        assertTrue(this.negotiated.isEmpty());
+    }
+
+    @Test
+    public void binaryIsNegotiatedBeforeAnyOtherRequest() throws Exception {
+        this.server = new ScriptedServer(echo(true));
+        this.transport = new NioTransport("127.0.0.1", this.server.getPort(), TIMEOUT_MILLIS);
+        this.transport.setPreferredCodec(new BinaryCodec());
+
+        // Queued at once, so they are held back until the server has answered the negotiation
+        CompletableFuture<Response> first = this.transport.sendRequestAsync(
+                new Request(RequestType.UPDATE_PAIRING, "first"), Response.class);
+        CompletableFuture<Response> second = this.transport.sendRequestAsync(
+                new Request(RequestType.UPDATE_PAIRING, "second"), Response.class);
+        assertEquals("first", first.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getMessage());
+        assertEquals("second", second.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getMessage());
+        assertEquals(BinaryCodec.NAME, this.negotiated.poll());
+    }
+
+    @Test
+    public void aDeclinedCodecFallsBackToJson() throws Exception {
+        this.server = new ScriptedServer(echo(false));
+        this.transport = new NioTransport("127.0.0.1", this.server.getPort(), TIMEOUT_MILLIS);
+        this.transport.setPreferredCodec(new BinaryCodec());
+
+        assertEquals("hello", send("hello").getMessage());
+        assertEquals(BinaryCodec.NAME, this.negotiated.poll());
+    }
+
+    @Test
+    public void framesLargerThanTheReadBufferArriveInPieces() throws Exception {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            message.append((char) ('a' + i % 26));
+        }
+        this.server = new ScriptedServer((socket, in, out) -> {
+            MessageCodec codec = negotiate(in, out, true);
+            Request request = codec.readRequest(in);
+            Response response = new Response(ResponseStatus.SUCCESS, message.toString());
+            response.setId(request.getId());
+
+            // Send the frame in small pieces, so the client sees it partially read several times
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            codec.writeResponse(new DataOutputStream(bytes), response);
+            byte[] frame = bytes.toByteArray();
+            for (int offset = 0; offset < frame.length; offset += 1000) {
+                out.write(frame, offset, Math.min(1000, frame.length - offset));
+                out.flush();
+            }
+            codec.readRequest(in);
+        });
+        this.transport = new NioTransport("127.0.0.1", this.server.getPort(), TIMEOUT_MILLIS);
+        this.transport.setPreferredCodec(new BinaryCodec());
+
+        assertEquals(message.toString(), send("large").getMessage());
+    }
+
+    @Test
+    public void aTimeoutClosesTheConnectionAndFailsEveryCallInFlight() throws Exception {
+        AtomicInteger connections = new AtomicInteger();
+        this.server = new ScriptedServer((socket, in, out) -> {
+            if (connections.incrementAndGet() > 1) {
+                echo(true).run(socket, in, out);
+            }
+            // The first connection never answers
+            while (true) {
+                new JsonCodec().readRequest(in);
+            }
+        });
+        this.transport = new NioTransport("127.0.0.1", this.server.getPort(), 300);
+
+        CompletableFuture<Response> inFlight = this.transport.sendRequestAsync(
+                new Request(RequestType.UPDATE_PAIRING, "in flight"), Response.class);
+        try {
+            send("times out");
+            fail("The call should have timed out");
+        } catch (SocketTimeoutException ex) {
+            // Expected
+        }
+        try {
+            inFlight.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            fail("The call in flight should have failed with the connection");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+
+        // The next request starts over on a new connection
+        assertEquals("again", send("again").getMessage());
+        assertEquals(2, connections.get());
+    }
+
+    private Response send(String data) throws IOException {
+        return this.transport.sendRequest(new Request(RequestType.UPDATE_PAIRING, data), Response.class);
+    }
+
+    /**
+     * Negotiates codecs like the game server, then echoes the data of every request as the message
+     * of its response, in order.
+     */
+    private ScriptedServer.Script echo(boolean acceptCodecs) {
+        return (socket, in, out) -> {
+            MessageCodec codec = negotiate(in, out, acceptCodecs);
+            while (true) {
+                Request request = codec.readRequest(in);
+                Response response = new Response(ResponseStatus.SUCCESS, request.getData());
+                response.setId(request.getId());
+                codec.writeResponse(out, response);
+                out.flush();
+            }
+        };
+    }
+
+    /**
+     * Answers a codec negotiation if the client opens with one, and returns the codec to use.
+     */
+    private MessageCodec negotiate(DataInputStream in, DataOutputStream out, boolean accept)
+            throws IOException {
+        MessageCodec json = new JsonCodec();
+        in.mark(1 << 16);
+        Request request = json.readRequest(in);
+        if (request.getType() != RequestType.NEGOTIATE_CODEC) {
+            in.reset();
+            return json;
+        }
+        this.negotiated.add(request.getData());
+        MessageCodec codec = accept ? Codecs.forName(request.getData()) : null;
+        json.writeResponse(out, codec != null
+                ? new Response(ResponseStatus.SUCCESS, null)
+                : new Response(ResponseStatus.FAILURE, "Unknown codec"));
+        out.flush();
+        return codec != null ? codec : json;
+    }
+}
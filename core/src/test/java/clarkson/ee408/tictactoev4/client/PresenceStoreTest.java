@@ -0,0 +1,190 @@
+package clarkson.ee408.tictactoev4.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.PairingQuery;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+
+public class PresenceStoreTest {
+
+    private final PresenceStore store = new PresenceStore();
+    private final List<String> events = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        store.setListener(new PresenceStore.Listener() {
+            @Override
+            public void onUserInserted(int position) {
+                events.add("+" + position);
+            }
+
+            @Override
+            public void onUserRemoved(int position) {
+                events.add("-" + position);
+            }
+
+            @Override
+            public void onUsersRemoved(int position, int count) {
+                events.add("-" + position + "x" + count);
+            }
+
+            @Override
+            public void onUserChanged(int position) {
+                events.add("~" + position);
+            }
+        });
+    }
+
+    @Test
+    public void snapshotIsSortedAndMergedRowByRow() {
+        assertTrue(store.apply(snapshot(3, user("carol"), user("alice"), user("dave"))));
+        assertEquals(Arrays.asList("alice", "carol", "dave"), usernames());
+        assertEquals(3, store.getVersion());
+        events.clear();
+
+        PairingResponse next = snapshot(7, user("bob"), user("dave", "Dave!"), user("alice"));
+        assertTrue(store.apply(next));
+        assertEquals(Arrays.asList("alice", "bob", "dave"), usernames());
+        // bob inserted after alice, carol removed from where bob now ends, dave renamed
+        assertEquals(Arrays.asList("+1", "-2", "~2"), events);
+    }
+
+    @Test
+    public void unchangedSnapshotReportsNothing() {
+        store.apply(snapshot(1, user("alice"), user("bob")));
+        events.clear();
+
+        assertFalse(store.apply(snapshot(2, user("bob"), user("alice"))));
+        assertTrue(events.isEmpty());
+        assertEquals(2, store.getVersion());
+    }
+
+    @Test
+    public void deltaAppliesOnItsBaseVersion() {
+        store.apply(snapshot(5, user("alice"), user("carol")));
+        events.clear();
+
+        assertTrue(store.apply(delta(5, 6, Collections.singletonList(user("bob")), Collections.singletonList("carol"))));
+        assertEquals(Arrays.asList("alice", "bob"), usernames());
+        assertEquals(Arrays.asList("-1", "+1"), events);
+        assertEquals(6, store.getVersion());
+    }
+
+    @Test
+    public void deltaOnAnotherVersionForcesSnapshot() {
+        store.apply(snapshot(5, user("alice")));
+
+        assertFalse(store.apply(delta(4, 6, Collections.singletonList(user("bob")), null)));
+        assertEquals(Collections.singletonList("alice"), usernames());
+        assertEquals(0, store.getVersion());
+    }
+
+    @Test
+    public void pagesLoadByRangeAndRefreshCoversOnlyLoadedPages() {
+        PairingQuery first = store.newPageQuery(2);
+        assertNull(first.getAfter());
+        PairingResponse page = snapshot(10, user("bob"), user("alice"));
+        page.setNextCursor("bob");
+        store.apply(page, first);
+        assertTrue(store.hasMore());
+        assertEquals(10, store.getVersion());
+
+        PairingQuery refresh = store.newRefreshQuery();
+        assertEquals("bob", refresh.getThrough());
+        assertEquals(10, refresh.getPresenceVersion());
+        assertFalse(store.covers("carol"));
+
+        PairingQuery second = store.newPageQuery(2);
+        assertEquals("bob", second.getAfter());
+        assertEquals(0, second.getPresenceVersion());
+        store.apply(snapshot(12, user("dave"), user("carol")), second);
+        assertEquals(Arrays.asList("alice", "bob", "carol", "dave"), usernames());
+        assertFalse(store.hasMore());
+        assertEquals(10, store.getVersion()); // later pages keep the version of the first
+
+        // A refresh snapshot of the loaded range replaces only that range
+        events.clear();
+        store.apply(snapshot(13, user("alice"), user("dave")), store.newRefreshQuery());
+        assertEquals(Arrays.asList("alice", "dave"), usernames());
+        assertEquals(Arrays.asList("-1", "-1"), events);
+        assertEquals(13, store.getVersion());
+    }
+
+    @Test
+    public void listenersSeeEachChangeAlreadyMade() {
+        // Mirrors the store the way an adapter does, reading each user when it is reported
+        List<String> mirror = new ArrayList<>();
+        store.setListener(new PresenceStore.Listener() {
+            @Override
+            public void onUserInserted(int position) {
+                mirror.add(position, store.get(position).getDisplayName());
+            }
+
+            @Override
+            public void onUserRemoved(int position) {
+                mirror.remove(position);
+            }
+
+            @Override
+            public void onUsersRemoved(int position, int count) {
+                mirror.subList(position, position + count).clear();
+            }
+
+            @Override
+            public void onUserChanged(int position) {
+                mirror.set(position, store.get(position).getDisplayName());
+            }
+        });
+
+        store.apply(snapshot(1, user("alice"), user("carol"), user("dave"), user("erin")));
+        store.apply(snapshot(2, user("bob"), user("carol", "Carol!"), user("dave"), user("frank")));
+        List<String> displayNames = new ArrayList<>();
+        for (User user : store.getUsers()) {
+            displayNames.add(user.getDisplayName());
+        }
+        assertEquals(displayNames, mirror);
+        assertEquals(Arrays.asList("bob", "carol", "dave", "frank"), usernames());
+    }
+
+    private List<String> usernames() {
+        List<String> usernames = new ArrayList<>();
+        for (User user : store.getUsers()) {
+            usernames.add(user.getUsername());
+        }
+        return usernames;
+    }
+
+    private static User user(String username) {
+        return user(username, username);
+    }
+
+    private static User user(String username, String displayName) {
+        return new User(username, null, displayName, true);
+    }
+
+    private static PairingResponse snapshot(long version, User... users) {
+        PairingResponse response = new PairingResponse(Arrays.asList(users), null, null);
+        response.setPresenceVersion(version);
+        return response;
+    }
+
+    private static PairingResponse delta(long base, long version, List<User> added, List<String> removed) {
+        PairingResponse response = new PairingResponse(added, null, null);
+        response.setRemovedUsernames(removed);
+        response.setBaseVersion(base);
+        response.setPresenceVersion(version);
+        return response;
+    }
+}
@@ -0,0 +1,120 @@
+package clarkson.ee408.tictactoev4.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import clarkson.ee408.tictactoev4.codec.BinaryCodec;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.model.EventStatus;
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+import clarkson.ee408.tictactoev4.socket.PushType;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * End-to-end check of SUBSCRIBE against {@link LocalPushServer}: two subscribed clients receive
+ * each other's presence, invitations, invitation responses and moves without polling.
+ */
+public class PushSubscriptionTest {
+
+    private static final int TIMEOUT_MILLIS = 5000;
+
+    private LocalPushServer server;
+    private SocketTransport alice;
+    private SocketTransport bob;
+    private final BlockingQueue<PushMessage> alicePushes = new LinkedBlockingQueue<>();
+    private final BlockingQueue<PushMessage> bobPushes = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new LocalPushServer();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (this.alice != null) {
+            this.alice.close();
+        }
+        if (this.bob != null) {
+            this.bob.close();
+        }
+        this.server.close();
+    }
+
+    @Test
+    public void pushesReachSubscribersOverJson() throws Exception {
+        playInvitationAndMove(null);
+    }
+
+    @Test
+    public void pushesReachSubscribersOverBinary() throws Exception {
+        playInvitationAndMove(new BinaryCodec());
+    }
+
+    private void playInvitationAndMove(MessageCodec codec) throws Exception {
+        this.alice = connect("alice", codec, this.alicePushes);
+        this.bob = connect("bob", codec, this.bobPushes);
+
+        PushMessage presence = next(this.alicePushes);
+        assertEquals(PushType.PRESENCE, presence.getType());
+        assertEquals("bob", presence.getUser().getUsername());
+
+        send(this.alice, RequestType.SEND_INVITATION, "bob");
+        PushMessage invitation = next(this.bobPushes);
+        assertEquals(PushType.INVITATION, invitation.getType());
+        assertEquals("alice", invitation.getEvent().getSender());
+
+        send(this.bob, RequestType.ACCEPT_INVITATION, String.valueOf(invitation.getEvent().getEventId()));
+        PushMessage accepted = next(this.alicePushes);
+        assertEquals(PushType.INVITATION_RESPONSE, accepted.getType());
+        assertEquals(EventStatus.ACCEPTED, accepted.getEvent().getStatus());
+
+        send(this.alice, RequestType.SEND_MOVE, "4");
+        PushMessage move = next(this.bobPushes);
+        assertEquals(PushType.MOVE, move.getType());
+        assertEquals(4, move.getMove());
+
+        send(this.bob, RequestType.ABORT_GAME, null);
+        assertEquals(PushType.GAME_ENDED, next(this.alicePushes).getType());
+    }
+
+    private SocketTransport connect(String username, MessageCodec codec, BlockingQueue<PushMessage> pushes)
+            throws IOException {
+        SocketTransport transport = new SocketTransport("127.0.0.1", this.server.getPort(), TIMEOUT_MILLIS);
+        transport.setMultiplexed(true);
+        if (codec != null) {
+            transport.setPreferredCodec(codec);
+        }
+        transport.setPushListener(pushes::add);
+
+        send(transport, RequestType.LOGIN, new Gson().toJson(new User(username, "secret", username, true)));
+        send(transport, RequestType.SUBSCRIBE, null);
+        return transport;
+    }
+
+    private void send(SocketTransport transport, RequestType type, String data) throws IOException {
+        Response response = transport.sendRequest(new Request(type, data), Response.class);
+        assertNotNull(response);
+        assertEquals(ResponseStatus.SUCCESS, response.getStatus());
+    }
+
+    private PushMessage next(BlockingQueue<PushMessage> pushes) throws InterruptedException {
+        PushMessage push = pushes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertNotNull("Timed out waiting for a pushed update", push);
+        return push;
+    }
+}
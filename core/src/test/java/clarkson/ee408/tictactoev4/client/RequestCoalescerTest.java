@@ -0,0 +1,131 @@
+package clarkson.ee408.tictactoev4.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import clarkson.ee408.tictactoev4.socket.GamingResponse;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+
+public class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @Test
+    public void identicalPollsShareOneCall() throws Exception {
+        GatedTransport transport = new GatedTransport();
+
+        Future<GamingResponse> first = executor.submit(() ->
+                coalescer.sendRequest(transport, new Request(RequestType.REQUEST_MOVE, ""), GamingResponse.class));
+        assertTrue(transport.started.await(5, TimeUnit.SECONDS));
+        Future<GamingResponse> second = executor.submit(() ->
+                coalescer.sendRequest(transport, new Request(RequestType.REQUEST_MOVE, ""), GamingResponse.class));
+        awaitCoalesced(1);
+
+        transport.release.countDown();
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, transport.calls.get());
+        assertEquals(1, coalescer.getSentCount());
+        assertEquals(1, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void differentRequestsAreSentSeparately() throws Exception {
+        GatedTransport transport = new GatedTransport();
+        transport.release.countDown();
+
+        Request held = new Request(RequestType.REQUEST_MOVE, "");
+        held.setWaitMillis(1000);
+        coalescer.sendRequest(transport, new Request(RequestType.REQUEST_MOVE, ""), GamingResponse.class);
+        coalescer.sendRequest(transport, held, GamingResponse.class);
+        coalescer.sendRequest(transport, new Request(RequestType.SEND_MOVE, "4"), GamingResponse.class);
+        coalescer.sendRequest(transport, new Request(RequestType.SEND_MOVE, "4"), GamingResponse.class);
+
+        assertEquals(4, transport.calls.get());
+        assertEquals(2, coalescer.getSentCount());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void failureReachesEveryCoalescedCaller() throws Exception {
+        GatedTransport transport = new GatedTransport();
+        transport.failure = new IOException("Connection reset");
+
+        Future<?> first = executor.submit(() ->
+                coalescer.sendRequest(transport, new Request(RequestType.UPDATE_PAIRING, null), Response.class));
+        assertTrue(transport.started.await(5, TimeUnit.SECONDS));
+        Future<?> second = executor.submit(() ->
+                coalescer.sendRequest(transport, new Request(RequestType.UPDATE_PAIRING, null), Response.class));
+        awaitCoalesced(1);
+
+        transport.release.countDown();
+        assertFailsWith(first, transport.failure);
+        assertFailsWith(second, transport.failure);
+        assertEquals(1, transport.calls.get());
+    }
+
+    private void awaitCoalesced(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalescer.getCoalescedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, coalescer.getCoalescedCount());
+    }
+
+    private static void assertFailsWith(Future<?> future, IOException expected) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            assertSame(expected, ex.getCause());
+            return;
+        }
+        throw new AssertionError("Expected " + expected);
+    }
+
+    /**
+     * A transport whose calls block until released and then answer a fresh response or fail.
+     */
+    private static final class GatedTransport implements Transport {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private IOException failure;
+
+        @Override
+        public <T extends Response> T sendRequest(Request request, Class<T> responseClass) throws IOException {
+            this.calls.incrementAndGet();
+            this.started.countDown();
+            try {
+                this.release.await();
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            try {
+                return responseClass.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException ex) {
+                throw new IOException(ex);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package clarkson.ee408.tictactoev4.client;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A stand-in server that plays a fixed script on every connection it accepts, for tests that need
+ * a server to misbehave in a precise way: answer out of order, stall partway through a frame or
+ * drop the connection.
+ */
+public class ScriptedServer implements Closeable {
+
+    /**
+     * What the server does with one connection.
+     */
+    public interface Script {
+        void run(Socket socket, DataInputStream in, DataOutputStream out) throws Exception;
+    }
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final Script script;
+
+    public ScriptedServer(Script script) throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        this.executor = Executors.newCachedThreadPool();
+        this.script = script;
+        this.executor.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        this.executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        try {
+            while (!this.serverSocket.isClosed()) {
+                Socket socket = this.serverSocket.accept();
+                this.executor.execute(() -> serve(socket));
+            }
+        } catch (IOException ex) {
+            // Server closed
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket connection = socket) {
+            this.script.run(connection, new DataInputStream(new BufferedInputStream(connection.getInputStream())),
+                    new DataOutputStream(connection.getOutputStream()));
+        } catch (Exception ex) {
+            // The client went away, or the script ended the connection on purpose
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package clarkson.ee408.tictactoev4.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import clarkson.ee408.tictactoev4.codec.JsonCodec;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * Multiplexing over {@link SocketTransport} against a {@link ScriptedServer} that answers in its
+ * own order, sends frames nobody asked for and drops the connection.
+ */
+public class SocketTransportTest {
+
+    private static final int TIMEOUT_MILLIS = 5000;
+
+    private final MessageCodec codec = new JsonCodec();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private ScriptedServer server;
+    private SocketTransport transport;
+
+    @After
+    public void tearDown() throws IOException {
+        if (this.transport != null) {
+            this.transport.close();
+        }
+        if (this.server != null) {
+            this.server.close();
+        }
+        this.callers.shutdownNow();
+    }
+
+    @Test
+    public void responsesAnsweredOutOfOrderReachTheirCallers() throws Exception {
+        this.server = new ScriptedServer((socket, in, out) -> {
+            List<Request> requests = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                requests.add(this.codec.readRequest(in));
+            }
+            for (int i = requests.size() - 1; i >= 0; i--) {
+                this.codec.writeResponse(out, echo(requests.get(i)));
+            }
+            out.flush();
+        });
+        this.transport = connect(TIMEOUT_MILLIS);
+
+        List<Future<Response>> responses = new ArrayList<>();
+        for (String data : new String[]{"a", "b", "c"}) {
+            responses.add(this.callers.submit(() -> send(data)));
+        }
+        assertEquals("a", responses.get(0).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getMessage());
+        assertEquals("b", responses.get(1).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getMessage());
+        assertEquals("c", responses.get(2).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getMessage());
+    }
+
+    @Test
+    public void unknownIdsAndMalformedFramesAreSkipped() throws Exception {
+        this.server = new ScriptedServer((socket, in, out) -> {
+            while (true) {
+                Request request = this.codec.readRequest(in);
+                Response stray = echo(request);
+                stray.setId(request.getId() + 1000);
+                this.codec.writeResponse(out, stray);
+                out.writeUTF("{\"id\": oops");
+                out.writeUTF("{\"id\": \"oops\"}");
+                this.codec.writeResponse(out, echo(request));
+                out.flush();
+            }
+        });
+        this.transport = connect(TIMEOUT_MILLIS);
+
+        assertEquals("first", send("first").getMessage());
+        assertEquals("second", send("second").getMessage());
+    }
+
+    @Test
+    public void aReaderFailureFailsEveryPendingCaller() throws Exception {
+        this.server = new ScriptedServer((socket, in, out) -> {
+            this.codec.readRequest(in);
+            this.codec.readRequest(in);
+            // Both calls are now waiting; drop the connection without answering either
+        });
+        this.transport = connect(TIMEOUT_MILLIS);
+
+        Future<Response> first = this.callers.submit(() -> send("first"));
+        Future<Response> second = this.callers.submit(() -> send("second"));
+        for (Future<Response> pending : new Future[]{first, second}) {
+            try {
+                pending.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                fail("The call should have failed with the connection");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof IOException);
+                assertFalse("Failed by the reader, not by a timeout", ex.getCause() instanceof SocketTimeoutException);
+            }
+        }
+    }
+
+    @Test
+    public void aSlowFrameDoesNotMisalignTheFramesAfterIt() throws Exception {
+        int timeoutMillis = 300;
+        this.server = new ScriptedServer((socket, in, out) -> {
+            // Answer the first request with a frame that stalls partway for longer than the timeout
+            Request slow = this.codec.readRequest(in);
+            out.write(new byte[]{0, 40, '{'});
+            out.flush();
+            Request next = this.codec.readRequest(in);
+            String rest = "\"id\":" + slow.getId() + ",\"message\":\"slow\"}";
+            StringBuilder padded = new StringBuilder(rest);
+            while (padded.length() < 39) {
+                padded.insert(0, ' ');
+            }
+            out.writeBytes(padded.toString());
+            this.codec.writeResponse(out, echo(next));
+            out.flush();
+        });
+        this.transport = connect(timeoutMillis);
+
+        try {
+            send("slow");
+            fail("The first call should have timed out");
+        } catch (SocketTimeoutException ex) {
+            // Expected; its response is still on its way
+        }
+        assertEquals("next", send("next").getMessage());
+    }
+
+    @Test
+    public void theCallersRequestIsNotTagged() throws Exception {
+        this.server = new ScriptedServer((socket, in, out) -> {
+            while (true) {
+                this.codec.writeResponse(out, echo(this.codec.readRequest(in)));
+                out.flush();
+            }
+        });
+        this.transport = connect(TIMEOUT_MILLIS);
+
+        Request request = new Request(RequestType.UPDATE_PAIRING, "data");
+        request.setWaitMillis(10);
+        assertNotNull(this.transport.sendRequest(request, Response.class));
+        assertEquals(0, request.getId());
+        assertEquals(10, request.getWaitMillis());
+    }
+
+    private SocketTransport connect(int timeoutMillis) {
+        SocketTransport transport = new SocketTransport("127.0.0.1", this.server.getPort(), timeoutMillis);
+        transport.setMultiplexed(true);
+        return transport;
+    }
+
+    private Response send(String data) throws IOException {
+        return this.transport.sendRequest(new Request(RequestType.UPDATE_PAIRING, data), Response.class);
+    }
+
+    private static Response echo(Request request) {
+        Response response = new Response(ResponseStatus.SUCCESS, request.getData());
+        response.setId(request.getId());
+        return response;
+    }
+}
@@ -0,0 +1,245 @@
+package clarkson.ee408.tictactoev4.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import clarkson.ee408.tictactoev4.model.Event;
+import clarkson.ee408.tictactoev4.model.EventStatus;
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.GamingResponse;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+import clarkson.ee408.tictactoev4.socket.PushType;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+public class BinaryCodecTest {
+
+    private final BinaryCodec codec = new BinaryCodec();
+
+    @Test
+    public void requestsRoundTrip() throws IOException {
+        Request request = new Request(RequestType.UPDATE_PAIRING, "{\"cursor\":\"é😀\"}");
+        request.setId(Integer.MAX_VALUE);
+        request.setWaitMillis(25000);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.codec.writeRequest(new DataOutputStream(bytes), request);
+        Request decoded = this.codec.readRequest(input(bytes.toByteArray()));
+
+        assertEquals(RequestType.UPDATE_PAIRING, decoded.getType());
+        assertEquals(Integer.MAX_VALUE, decoded.getId());
+        assertEquals(request.getData(), decoded.getData());
+        assertEquals(25000, decoded.getWaitMillis());
+    }
+
+    @Test
+    public void nullStringsAndEnumsRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.codec.writeRequest(new DataOutputStream(bytes), new Request(null, null));
+        Request request = this.codec.readRequest(input(bytes.toByteArray()));
+        assertNull(request.getType());
+        assertNull(request.getData());
+
+        Response response = roundTrip(new Response(null, null));
+        assertNull(response.getStatus());
+        assertNull(response.getMessage());
+
+        PushMessage push = (PushMessage) roundTrip(new PushMessage(null, 0, null, null));
+        assertNull(push.getType());
+        assertNull(push.getEvent());
+        assertNull(push.getUser());
+
+        Event event = new Event(1, null, null, null, null, -1);
+        PairingResponse pairing = (PairingResponse) roundTrip(new PairingResponse(null, event, null));
+        assertNull(pairing.getAvailableUsers());
+        assertNull(pairing.getRemovedUsernames());
+        assertNull(pairing.getNextCursor());
+        assertNull(pairing.getInvitationResponse());
+        assertNull(pairing.getInvitation().getSender());
+        assertNull(pairing.getInvitation().getStatus());
+    }
+
+    @Test
+    public void responsesRoundTrip() throws IOException {
+        Response response = new Response(ResponseStatus.FAILURE, "Nope");
+        response.setId(300);
+        Response decoded = roundTrip(response);
+        assertEquals(Response.class, decoded.getClass());
+        assertEquals(ResponseStatus.FAILURE, decoded.getStatus());
+        assertEquals(300, decoded.getId());
+        assertEquals("Nope", decoded.getMessage());
+    }
+
+    @Test
+    public void gamingResponsesRoundTripWithNegativeMoves() throws IOException {
+        for (int move : new int[]{-1, -80, 0, 8, 80, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+            GamingResponse decoded = (GamingResponse) roundTrip(new GamingResponse(move, move % 2 == 0));
+            assertEquals(move, decoded.getMove());
+            assertEquals(move % 2 == 0, decoded.getActive());
+        }
+    }
+
+    @Test
+    public void pushMessagesRoundTrip() throws IOException {
+        Event event = new Event(12, "alice", "bob", EventStatus.PLAYING, "bob", -1);
+        User user = new User("carol", null, "Carol", true);
+        PushMessage push = new PushMessage(PushType.MOVE, -1, event, user);
+        push.setMessage("moved");
+
+        PushMessage decoded = (PushMessage) roundTrip(push);
+        assertEquals(PushType.MOVE, decoded.getType());
+        assertEquals(0, decoded.getId());
+        assertEquals(-1, decoded.getMove());
+        assertEquals("moved", decoded.getMessage());
+        assertEvent(event, decoded.getEvent());
+        assertUser(user, decoded.getUser());
+    }
+
+    @Test
+    public void pairingResponsesRoundTripWithEverything() throws IOException {
+        User alice = new User("alice", "secret", "Alice", true);
+        User bob = new User("bob", null, "Böb 😀", false);
+        Event invitation = new Event(5, "bob", "alice", EventStatus.PENDING, null, -1);
+        Event answer = new Event(6, "alice", "carol", EventStatus.ACCEPTED, "alice", 4);
+        PairingResponse pairing = new PairingResponse(Arrays.asList(alice, null, bob), invitation, answer);
+        pairing.setId(9);
+        pairing.setRemovedUsernames(Arrays.asList("dave", "", "erin"));
+        pairing.setPresenceVersion(1L << 40);
+        pairing.setBaseVersion(17);
+        pairing.setNextCursor("bob");
+
+        PairingResponse decoded = (PairingResponse) roundTrip(pairing);
+        assertEquals(9, decoded.getId());
+        assertEquals(3, decoded.getAvailableUsers().size());
+        assertUser(alice, decoded.getAvailableUsers().get(0));
+        assertNull(decoded.getAvailableUsers().get(1));
+        assertUser(bob, decoded.getAvailableUsers().get(2));
+        assertEvent(invitation, decoded.getInvitation());
+        assertEvent(answer, decoded.getInvitationResponse());
+        assertEquals(Arrays.asList("dave", "", "erin"), decoded.getRemovedUsernames());
+        assertEquals(1L << 40, decoded.getPresenceVersion());
+        assertEquals(17, decoded.getBaseVersion());
+        assertFalse(decoded.isSnapshot());
+        assertEquals("bob", decoded.getNextCursor());
+
+        pairing.setAvailableUsers(Collections.<User>emptyList());
+        assertTrue(((PairingResponse) roundTrip(pairing)).getAvailableUsers().isEmpty());
+    }
+
+    @Test
+    public void plainResponsesAreAdaptedToTheExpectedClass() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Response failure = new Response(ResponseStatus.FAILURE, "Not in a game");
+        failure.setId(4);
+        this.codec.writeResponse(new DataOutputStream(bytes), failure);
+        this.codec.writeResponse(new DataOutputStream(bytes), new GamingResponse(3, true));
+        DataInputStream in = input(bytes.toByteArray());
+
+        GamingResponse adapted = this.codec.readResponse(in, GamingResponse.class);
+        assertEquals(ResponseStatus.FAILURE, adapted.getStatus());
+        assertEquals(4, adapted.getId());
+        assertEquals("Not in a game", adapted.getMessage());
+        assertNull(this.codec.readResponse(in, PairingResponse.class));
+    }
+
+    @Test
+    public void truncatedPayloadsAreNull() throws IOException {
+        byte[] frame = frameOf(new GamingResponse(42, true));
+        for (int length = 0; length < frame.length - 4; length++) {
+            ByteBuffer truncated = ByteBuffer.allocate(4 + length);
+            truncated.putInt(length).put(frame, 4, length);
+            assertNull("A payload of " + length + " bytes should have been rejected",
+                    this.codec.readResponse(input(truncated.array()), GamingResponse.class));
+        }
+    }
+
+    @Test
+    public void unknownKindsAreNullAndSkippedWhole() throws IOException {
+        byte[] frame = frameOf(new GamingResponse(42, true));
+        ByteBuffer stream = ByteBuffer.allocate(frame.length * 2);
+        stream.put(frame).put(frame);
+        stream.put(4, (byte) 99);
+        DataInputStream in = input(stream.array());
+
+        assertNull(this.codec.readResponse(in, GamingResponse.class));
+        assertEquals(42, this.codec.readResponse(in, GamingResponse.class).getMove());
+    }
+
+    @Test
+    public void truncatedFramesAreSkippedWhole() throws IOException {
+        byte[] frame = frameOf(new GamingResponse(42, true));
+        ByteBuffer stream = ByteBuffer.allocate(frame.length - 1 + frame.length);
+        stream.putInt(frame.length - 5).put(frame, 4, frame.length - 5).put(frame);
+        DataInputStream in = input(stream.array());
+
+        assertNull(this.codec.readResponseFrame(in));
+        assertEquals(42, this.codec.readResponseFrame(in).as(GamingResponse.class).getMove());
+    }
+
+    @Test(expected = EOFException.class)
+    public void aStreamEndingMidFrameIsAnError() throws IOException {
+        byte[] frame = frameOf(new GamingResponse(42, true));
+        this.codec.readResponse(input(Arrays.copyOf(frame, frame.length - 1)), GamingResponse.class);
+    }
+
+    @Test
+    public void frameLengthsAreReadFromTheHeader() throws IOException {
+        byte[] frame = frameOf(new Response(ResponseStatus.SUCCESS, "ok"));
+        assertEquals(-1, this.codec.frameLength(ByteBuffer.wrap(frame, 0, 3)));
+        assertEquals(frame.length, this.codec.frameLength(ByteBuffer.wrap(frame)));
+        try {
+            this.codec.frameLength(ByteBuffer.allocate(4).putInt(0, BinaryCodec.MAX_PAYLOAD_BYTES + 1));
+            fail("An oversized frame should have been rejected");
+        } catch (IOException ex) {
+            // Expected
+        }
+    }
+
+    private Response roundTrip(Response response) throws IOException {
+        return this.codec.readResponse(input(frameOf(response)), Response.class);
+    }
+
+    private byte[] frameOf(Response response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.codec.writeResponse(new DataOutputStream(bytes), response);
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static void assertEvent(Event expected, Event actual) {
+        assertEquals(expected.getEventId(), actual.getEventId());
+        assertEquals(expected.getSender(), actual.getSender());
+        assertEquals(expected.getOpponent(), actual.getOpponent());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getTurn(), actual.getTurn());
+        assertEquals(expected.getMove(), actual.getMove());
+    }
+
+    private static void assertUser(User expected, User actual) {
+        assertEquals(expected.getUsername(), actual.getUsername());
+        assertEquals(expected.getPassword(), actual.getPassword());
+        assertEquals(expected.getDisplayName(), actual.getDisplayName());
+        assertEquals(expected.getOnline(), actual.getOnline());
+    }
+}
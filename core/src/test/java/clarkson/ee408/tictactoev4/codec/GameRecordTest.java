@@ -0,0 +1,101 @@
+package clarkson.ee408.tictactoev4.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+public class GameRecordTest {
+
+    @Test
+    public void classicGamesTakeAFewBytes() throws IOException {
+        TicTacToe game = new TicTacToe(1);
+        int[] cells = {4, 0, 8, 2, 1, 7, 6, 3, 5};
+        for (int cell : cells) {
+            game.play(cell / 3, cell % 3);
+        }
+        GameRecord record = GameRecord.of(game);
+        assertEquals(8, record.size());
+        assertArrayEquals(new byte[]{3, 3, 9, 0x04, 0x28, 0x71, 0x36, 0x05}, record.toBytes());
+        assertArrayEquals(cells, record.getMoves());
+
+        GameRecord decoded = GameRecord.fromBytes(record.toBytes());
+        assertEquals(record, decoded);
+        TicTacToe replayed = decoded.replay(2);
+        assertEquals(2, replayed.getPlayer());
+        assertEquals(game.whoWon(), replayed.whoWon());
+        assertEquals(9, replayed.getMoveCount());
+    }
+
+    @Test
+    public void largerBoardsUseVarints() throws IOException {
+        Random random = new Random(3);
+        TicTacToe game = new TicTacToe(1, 15, 5);
+        while (!game.isGameOver()) {
+            game.play(random.nextInt(15), random.nextInt(15));
+        }
+        GameRecord record = GameRecord.fromBytes(GameRecord.of(game).toBytes());
+        assertEquals(15, record.getSide());
+        assertEquals(5, record.getWinLength());
+        assertEquals(game.getMoveCount(), record.getMoveCount());
+
+        TicTacToe replayed = record.replay(1);
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            assertEquals(game.getMove(i), replayed.getMove(i));
+        }
+        assertEquals(game.whoWon(), replayed.whoWon());
+    }
+
+    @Test
+    public void replayedGamesCanBeSteppedThrough() throws IOException {
+        TicTacToe game = new TicTacToe(1, 4, 3);
+        game.play(0, 0);
+        game.play(3, 3);
+        game.play(1, 1);
+        GameRecord record = GameRecord.fromBytes(GameRecord.of(game).toBytes());
+        assertEquals(5, record.size());
+
+        TicTacToe replayed = record.replay(1);
+        while (replayed.undo()) {
+            // Rewind to the start
+        }
+        assertEquals(0, replayed.getCell(0, 0));
+        while (replayed.redo()) {
+            // And forward to the end again
+        }
+        assertEquals(record, GameRecord.of(replayed));
+    }
+
+    @Test
+    public void malformedRecordsAreRejected() {
+        byte[][] malformed = {
+                {},
+                {3, 3},
+                {3, 4, 0},                   // win length larger than the board
+                {3, 3, 2, 0x00},             // a cell played twice
+                {3, 3, 1, 0x09},             // a cell off the board
+                {3, 3, 1, 0x14},             // padding that is not zero
+                {3, 3, 2, 0x10, 0x00},       // a trailing byte
+                {(byte) 0x81, 0x08, 3, 0},   // a board too large
+                {3, 3, 3, 0x10},             // fewer moves than announced
+                {3, 3, -1, -1, -1, -1, 15},  // a move count that overflows to -1
+                {3, 3, -1, -1, -1, -1, 7},   // a move count too large for the board
+                {3, 3, -1, -1, -1, -1, -1, 0}, // a number longer than five bytes
+        };
+        for (byte[] bytes : malformed) {
+            try {
+                GameRecord.fromBytes(bytes);
+                fail("Accepted " + Arrays.toString(bytes));
+            } catch (IOException expected) {
+                // Rejected as it should be
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package clarkson.ee408.tictactoev4.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+public class JsonCodecTest {
+
+    private final JsonCodec codec = new JsonCodec();
+
+    @Test
+    public void responsesNearTheFrameLimitRoundTrip() throws IOException {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 21000; i++) {
+            message.append(i % 100 == 0 ? "😀" : "€");
+        }
+        Response response = new Response(ResponseStatus.SUCCESS, message.toString());
+        response.setId(7);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.codec.writeResponse(new DataOutputStream(bytes), response);
+        assertTrue(bytes.size() > 63000);
+
+        Response decoded = this.codec.readResponse(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), Response.class);
+        assertEquals(ResponseStatus.SUCCESS, decoded.getStatus());
+        assertEquals(7, decoded.getId());
+        assertEquals(message.toString(), decoded.getMessage());
+    }
+
+    @Test
+    public void truncatedJsonInACompleteFrameIsNull() throws IOException {
+        DataInputStream in = ModifiedUtf8ReaderTest.framesOf("{\"status\":\"SUCC", "{\"status\":\"SUCCESS\"}");
+        assertNull(this.codec.readResponse(in, Response.class));
+        assertEquals(ResponseStatus.SUCCESS, this.codec.readResponse(in, Response.class).getStatus());
+    }
+
+    @Test
+    public void malformedFramesAreSkipped() throws IOException {
+        DataInputStream in = ModifiedUtf8ReaderTest.framesOf("not json {", "[1, 2]", "{\"id\":", "{\"id\":3}");
+        assertNull(this.codec.readResponseFrame(in));
+        assertNull(this.codec.readResponseFrame(in));
+        assertNull(this.codec.readResponseFrame(in));
+        assertEquals(3, this.codec.readResponseFrame(in).getId());
+    }
+
+    @Test
+    public void framesWithIdsThatAreNotNumbersAreMalformed() throws IOException {
+        DataInputStream in = ModifiedUtf8ReaderTest.framesOf("{\"id\":\"x\"}", "{\"id\":true}",
+                "{\"id\":{}}", "{\"id\":null}");
+        assertNull(this.codec.readResponseFrame(in));
+        assertNull(this.codec.readResponseFrame(in));
+        assertNull(this.codec.readResponseFrame(in));
+        assertEquals(0, this.codec.readResponseFrame(in).getId());
+    }
+
+    @Test
+    public void invalidJsonIsSkippedWholeBeforeTheNextFrame() throws IOException {
+        // The parser gives up early, so most of the first frame is still unread when it does
+        StringBuilder invalid = new StringBuilder("{\"status\":}");
+        for (int i = 0; i < 10000; i++) {
+            invalid.append("é€");
+        }
+        DataInputStream in = ModifiedUtf8ReaderTest.framesOf(invalid.toString(), "{\"id\":4,\"message\":\"é\"}");
+        assertNull(this.codec.readResponse(in, Response.class));
+        Response next = this.codec.readResponse(in, Response.class);
+        assertEquals(4, next.getId());
+        assertEquals("é", next.getMessage());
+    }
+
+    @Test
+    public void emptyAndNullRequestsAreMalformed() throws IOException {
+        DataInputStream in = ModifiedUtf8ReaderTest.framesOf("", "null", "{\"type\":\"LOGIN\"}");
+        for (int i = 0; i < 2; i++) {
+            try {
+                this.codec.readRequest(in);
+                fail("Frame " + i + " should have been rejected");
+            } catch (IOException ex) {
+                assertFalse(ex instanceof EOFException);
+            }
+        }
+        assertEquals(RequestType.LOGIN, this.codec.readRequest(in).getType());
+    }
+
+    @Test(expected = EOFException.class)
+    public void aStreamEndingMidFrameIsAnError() throws IOException {
+        byte[] frame = {0, 100, '{', '"', 'i', 'd', '"', ':', '1'};
+        this.codec.readResponse(new DataInputStream(new ByteArrayInputStream(frame)), Response.class);
+    }
+
+    @Test(expected = EOFException.class)
+    public void aStreamEndingMidFrameIsAnErrorForFramesToo() throws IOException {
+        byte[] frame = {0, 100, '{', '"', 'i', 'd', '"', ':', '1'};
+        this.codec.readResponseFrame(new DataInputStream(new ByteArrayInputStream(frame)));
+    }
+}
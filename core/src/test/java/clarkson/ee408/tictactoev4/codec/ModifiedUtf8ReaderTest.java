@@ -0,0 +1,97 @@
+package clarkson.ee408.tictactoev4.codec;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+
+public class ModifiedUtf8ReaderTest {
+
+    @Test
+    public void multiByteCharactersAndSurrogatePairsAreDecoded() throws IOException {
+        // NUL takes 2 bytes in modified UTF-8, and each half of a surrogate pair takes 3
+        String text = "a\u0000é€😀z";
+        ModifiedUtf8Reader reader = new ModifiedUtf8Reader();
+        reader.reset(framesOf(text));
+        assertEquals(text, readAll(reader));
+    }
+
+    @Test
+    public void charactersStraddlingTheBufferAreDecoded() throws IOException {
+        // The buffer holds 8192 bytes; put a 3-byte character across its end at every split
+        for (int offset = 8189; offset <= 8192; offset++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < offset; i++) {
+                text.append('a');
+            }
+            text.append('€').append('é').append("tail");
+            ModifiedUtf8Reader reader = new ModifiedUtf8Reader();
+            reader.reset(framesOf(text.toString()));
+            assertEquals("offset " + offset, text.toString(), readAll(reader));
+        }
+    }
+
+    @Test
+    public void framesAtTheLengthLimitAreDecoded() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 0xFFFF / 3; i++) {
+            text.append('€');
+        }
+        DataInputStream in = framesOf(text.toString(), "next");
+        ModifiedUtf8Reader reader = new ModifiedUtf8Reader();
+        reader.reset(in);
+        assertEquals(text.toString(), readAll(reader));
+        reader.reset(in);
+        assertEquals("next", readAll(reader));
+    }
+
+    @Test
+    public void skipRestLeavesTheStreamOnTheNextFrame() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append(i % 2 == 0 ? 'x' : 'é');
+        }
+        DataInputStream in = framesOf(text.toString(), "second");
+        ModifiedUtf8Reader reader = new ModifiedUtf8Reader();
+        reader.reset(in);
+        char[] chars = new char[10];
+        assertEquals(10, reader.read(chars, 0, chars.length));
+        reader.skipRest();
+
+        reader.reset(in);
+        assertEquals("second", readAll(reader));
+    }
+
+    @Test(expected = UTFDataFormatException.class)
+    public void partialCharactersAreRejected() throws IOException {
+        byte[] frame = {0, 2, (byte) 0xE2, (byte) 0x82};
+        ModifiedUtf8Reader reader = new ModifiedUtf8Reader();
+        reader.reset(new DataInputStream(new ByteArrayInputStream(frame)));
+        readAll(reader);
+    }
+
+    static DataInputStream framesOf(String... payloads) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (String payload : payloads) {
+            out.writeUTF(payload);
+        }
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static String readAll(ModifiedUtf8Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] chars = new char[1000];
+        int count;
+        while ((count = reader.read(chars, 0, chars.length)) >= 0) {
+            text.append(chars, 0, count);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,158 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+public class AlphaBetaSearchTest {
+
+    private final AlphaBetaSearch search = new AlphaBetaSearch(new TranspositionTable(16));
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void emptyBoardIsADraw() {
+        SearchResult result = search.search(new TicTacToe(1), 0, 0);
+        assertEquals(0, result.getScore());
+        assertEquals(9, result.getDepth());
+        assertTrue(result.getMove() >= 0);
+    }
+
+    @Test
+    public void everyPositionGetsAnOptimalMove() {
+        // Compare with plain minimax on every reachable position
+        Set<Long> visited = new HashSet<>();
+        visit(new TicTacToe(1), new Zobrist(3), visited);
+        assertEquals(5478, visited.size());
+    }
+
+    @Test
+    public void takesAWinOverBlocking() {
+        TicTacToe game = gomoku();
+        // X has four in a row with an open end, O threatens to do the same
+        for (int col = 3; col < 7; col++) {
+            game.play(7, col);
+            game.play(9, col);
+        }
+        SearchResult result = search.search(game, 4, 0);
+        assertTrue(result.getMove() == 7 * 15 + 2 || result.getMove() == 7 * 15 + 7);
+        assertEquals(AlphaBetaSearch.WIN_SCORE - 1, result.getScore());
+    }
+
+    @Test
+    public void blocksAnOpenThree() {
+        TicTacToe game = gomoku();
+        game.play(0, 0);
+        game.play(7, 6);
+        game.play(0, 14);
+        game.play(7, 7);
+        game.play(14, 0);
+        game.play(7, 8);
+        // O threatens to make an open four, which X could not stop
+        SearchResult result = search.search(game, 4, 0);
+        assertTrue("" + result.getMove(), result.getMove() == 7 * 15 + 5 || result.getMove() == 7 * 15 + 9);
+    }
+
+    @Test
+    public void stopsWhenTheTimeBudgetRunsOut() {
+        TicTacToe game = gomoku();
+        game.play(7, 7);
+        game.play(7, 8);
+        long startedAt = System.currentTimeMillis();
+        SearchResult result = search.search(game, 0, 200);
+        long elapsed = System.currentTimeMillis() - startedAt;
+        assertTrue("took " + elapsed + " ms", elapsed < 2000);
+        assertTrue(result.getDepth() >= 1);
+        assertTrue(result.getMove() >= 0);
+        assertEquals(0, game.getCell(result.getRow(), result.getCol()));
+    }
+
+    @Test
+    public void anotherWinLengthStartsFromAFreshTable() {
+        // X forces three in a row within three plies, but not four; the hashes are the same
+        int[][] moves = {{3, 2}, {3, 4}};
+        SearchResult threeInARow = search.search(position(5, 3, moves), 3, 0);
+        assertEquals(AlphaBetaSearch.WIN_SCORE - 3, threeInARow.getScore());
+
+        SearchResult fourInARow = search.search(position(5, 4, moves), 3, 0);
+        SearchResult fresh = new AlphaBetaSearch(new TranspositionTable(16)).search(position(5, 4, moves), 3, 0);
+        assertEquals(fresh.getScore(), fourInARow.getScore());
+        assertTrue(fourInARow.getScore() < AlphaBetaSearch.WIN_THRESHOLD);
+    }
+
+    @Test
+    public void aiPlayerSearchesInTheBackgroundOnACopy() throws Exception {
+        AiPlayer player = new AiPlayer(executor, 0, 0);
+        TicTacToe game = new TicTacToe(1);
+        game.play(1, 1);
+        SearchResult result = player.chooseMove(game).get(10, TimeUnit.SECONDS);
+        assertEquals(1, game.getMoveCount());
+        assertEquals(0, result.getScore());
+        // Only a corner holds the draw against a center opening
+        assertTrue(result.getRow() != 1 && result.getCol() != 1);
+    }
+
+    private void visit(TicTacToe game, Zobrist zobrist, Set<Long> visited) {
+        if (!visited.add(zobrist.hash(game)) || game.isGameOver()) {
+            return;
+        }
+
+        int value = minimax(game);
+        SearchResult result = search.search(game, 0, 0);
+        assertEquals(Integer.signum(value), Integer.signum(result.getScore()));
+        game.play(result.getRow(), result.getCol());
+        assertEquals(value, -minimax(game));
+        game.undo();
+
+        for (int cell = 0; cell < 9; cell++) {
+            if (game.play(cell / 3, cell % 3) != 0) {
+                visit(game, zobrist, visited);
+                game.undo();
+            }
+        }
+    }
+
+    private static int minimax(TicTacToe game) {
+        // 1 if the player to move can force a win, 0 for a draw, -1 for a loss
+        if (game.whoWon() != 0) {
+            return -1;
+        }
+        if (game.canNotPlay()) {
+            return 0;
+        }
+        int best = -1;
+        for (int cell = 0; cell < 9 && best < 1; cell++) {
+            if (game.play(cell / 3, cell % 3) != 0) {
+                best = Math.max(best, -minimax(game));
+                game.undo();
+            }
+        }
+        return best;
+    }
+
+    private static TicTacToe position(int side, int winLength, int[][] moves) {
+        TicTacToe game = new TicTacToe(1, side, winLength);
+        for (int[] move : moves) {
+            game.play(move[0], move[1]);
+        }
+        return game;
+    }
+
+    private static TicTacToe gomoku() {
+        return new TicTacToe(1, 15, 5);
+    }
+}
@@ -0,0 +1,101 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+public class MonteCarloTreeSearchTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void playoutBoardFollowsTheGameRules() {
+        SplittableRandom random = new SplittableRandom(7);
+        int[][] sizes = {{3, 3}, {7, 4}, {15, 5}};
+        for (int[] size : sizes) {
+            for (int round = 0; round < 200; round++) {
+                TicTacToe game = new TicTacToe(1, size[0], size[1]);
+                PlayoutBoard board = new PlayoutBoard(game);
+                while (!game.isGameOver()) {
+                    int cell;
+                    do {
+                        cell = random.nextInt(size[0] * size[0]);
+                    } while (game.getCell(cell / size[0], cell % size[0]) != 0);
+                    game.play(cell / size[0], cell % size[0]);
+                    assertEquals(game.whoWon() != 0, board.play(cell));
+                    assertEquals(game.getTurn(), board.getTurn());
+                    assertEquals(game.isGameOver(), board.isGameOver());
+                }
+                assertEquals(game.whoWon(), board.getWinner());
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedGivesTheSameResult() {
+        TicTacToe game = new TicTacToe(1, 9, 4);
+        game.play(4, 4);
+        game.play(4, 5);
+        SearchResult first = new MonteCarloTreeSearch(pool, 3, 42).search(game, 3000, 0);
+        // A different pool size must not change anything either
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            SearchResult second = new MonteCarloTreeSearch(single, 3, 42).search(game, 3000, 0);
+            assertEquals(first.getMove(), second.getMove());
+            assertEquals(first.getScore(), second.getScore());
+            assertEquals(first.getDepth(), second.getDepth());
+            assertEquals(3000, second.getNodes());
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void takesAWinAndBlocksALoss() {
+        MonteCarloTreeSearch search = new MonteCarloTreeSearch(pool, 2, 1);
+        TicTacToe game = new TicTacToe(1, 7, 4);
+        game.play(3, 1);
+        game.play(0, 6);
+        game.play(3, 2);
+        game.play(6, 6);
+        game.play(3, 3);
+        SearchResult result = search.search(game, 20_000, 0);
+        // X's open three wins anyway, but only blocking an end does not lose at once
+        assertTrue("" + result.getMove(), result.getMove() == 3 * 7 || result.getMove() == 3 * 7 + 4);
+
+        // Once O blocks one end, X completes four at the other
+        game.play(3, 0);
+        result = search.search(game, 20_000, 0);
+        assertEquals(3 * 7 + 4, result.getMove());
+        assertTrue(result.getScore() > 0);
+    }
+
+    @Test
+    public void stopsWhenTheTimeBudgetRunsOut() {
+        MonteCarloTreeSearch search = new MonteCarloTreeSearch(pool, 2, 1);
+        TicTacToe game = new TicTacToe(1, 15, 5);
+        long startedAt = System.currentTimeMillis();
+        SearchResult result = search.search(game, 0, 200);
+        long elapsed = System.currentTimeMillis() - startedAt;
+        assertTrue("took " + elapsed + " ms", elapsed < 5000);
+        assertEquals(7 * 15 + 7, result.getMove());
+        assertTrue(result.getNodes() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void needsALimit() {
+        new MonteCarloTreeSearch(pool, 1, 1).search(new TicTacToe(1), 0, 0);
+    }
+}
@@ -0,0 +1,111 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+public class ParallelAlphaBetaSearchTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final ParallelAlphaBetaSearch search = new ParallelAlphaBetaSearch(pool, new TranspositionTable(16));
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void everyPositionGetsAnOptimalMove() {
+        Set<Long> visited = new HashSet<>();
+        visit(new TicTacToe(1), new Zobrist(3), visited);
+        assertEquals(5478, visited.size());
+    }
+
+    @Test
+    public void findsTheSameTacticsAsTheSequentialSearch() {
+        TicTacToe game = new TicTacToe(1, 15, 5);
+        game.play(0, 0);
+        game.play(7, 6);
+        game.play(0, 14);
+        game.play(7, 7);
+        game.play(14, 0);
+        game.play(7, 8);
+        SearchResult result = search.search(game, 4, 0);
+        assertTrue("" + result.getMove(), result.getMove() == 7 * 15 + 5 || result.getMove() == 7 * 15 + 9);
+        assertEquals(4, result.getDepth());
+
+        // After X blocks one end, O can still make four, so X must not fall for a slow move
+        game.play(7, 5);
+        game.play(7, 9);
+        result = search.search(game, 4, 0);
+        assertEquals(7 * 15 + 10, result.getMove());
+    }
+
+    @Test
+    public void stopEndsTheSearchEarly() {
+        TicTacToe game = new TicTacToe(1, 15, 5);
+        game.play(7, 7);
+        game.play(7, 8);
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        try {
+            timer.schedule(search::stop, 200, TimeUnit.MILLISECONDS);
+            long startedAt = System.currentTimeMillis();
+            SearchResult result = search.search(game, 0, 0);
+            long elapsed = System.currentTimeMillis() - startedAt;
+            assertTrue("took " + elapsed + " ms", elapsed < 5000);
+            assertTrue(result.getMove() >= 0);
+            assertEquals(0, game.getCell(result.getRow(), result.getCol()));
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    private void visit(TicTacToe game, Zobrist zobrist, Set<Long> visited) {
+        if (!visited.add(zobrist.hash(game)) || game.isGameOver()) {
+            return;
+        }
+
+        int value = minimax(game);
+        SearchResult result = search.search(game, 0, 0);
+        assertEquals(Integer.signum(value), Integer.signum(result.getScore()));
+        game.play(result.getRow(), result.getCol());
+        assertEquals(value, -minimax(game));
+        game.undo();
+
+        for (int cell = 0; cell < 9; cell++) {
+            if (game.play(cell / 3, cell % 3) != 0) {
+                visit(game, zobrist, visited);
+                game.undo();
+            }
+        }
+    }
+
+    private static int minimax(TicTacToe game) {
+        // 1 if the player to move can force a win, 0 for a draw, -1 for a loss
+        if (game.whoWon() != 0) {
+            return -1;
+        }
+        if (game.canNotPlay()) {
+            return 0;
+        }
+        int best = -1;
+        for (int cell = 0; cell < 9 && best < 1; cell++) {
+            if (game.play(cell / 3, cell % 3) != 0) {
+                best = Math.max(best, -minimax(game));
+                game.undo();
+            }
+        }
+        return best;
+    }
+}
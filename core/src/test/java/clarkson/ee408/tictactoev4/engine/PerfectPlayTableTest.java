@@ -0,0 +1,127 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+public class PerfectPlayTableTest {
+
+    private final PerfectPlayTable table = PerfectPlayTable.getInstance();
+
+    @Test
+    public void storesOnePositionPerSymmetryGroup() {
+        assertEquals(765, table.size());
+        assertEquals(PerfectPlayTable.DRAW, table.value(new TicTacToe(1)));
+    }
+
+    @Test
+    public void everyPositionMatchesMinimax() {
+        Set<Integer> visited = new HashSet<>();
+        visit(new TicTacToe(1), visited);
+        assertEquals(5478, visited.size());
+    }
+
+    @Test
+    public void prefersTheQuickestWin() {
+        // X can win at once at (2, 0), or later after any of four other moves
+        TicTacToe game = new TicTacToe(1);
+        game.play(0, 0);
+        game.play(0, 1);
+        game.play(1, 0);
+        game.play(0, 2);
+        assertEquals(PerfectPlayTable.WIN, table.value(game));
+        assertEquals(6, table.bestMove(game));
+    }
+
+    @Test
+    public void finishedGamesHaveNoMove() {
+        TicTacToe game = new TicTacToe(1);
+        game.play(0, 0);
+        game.play(1, 0);
+        game.play(0, 1);
+        game.play(1, 1);
+        game.play(0, 2);
+        assertEquals(PerfectPlayTable.LOSS, table.value(game));
+        assertEquals(-1, table.bestMove(game));
+    }
+
+    @Test
+    public void aiPlayerLooksUpTheMove() {
+        TicTacToe game = new TicTacToe(1);
+        game.play(1, 1);
+        SearchResult result = AiPlayer.lookUp(table, game);
+        assertEquals(0, result.getNodes());
+        assertEquals(0, result.getScore());
+        assertEquals(8, result.getDepth());
+        assertTrue(result.getRow() != 1 && result.getCol() != 1);
+    }
+
+    @Test
+    public void isAnOracleForTheSearch() {
+        // In self-play, every move the search picks must keep the value of the position
+        AlphaBetaSearch search = new AlphaBetaSearch(new TranspositionTable(12));
+        TicTacToe game = new TicTacToe(1);
+        while (!game.isGameOver()) {
+            int value = table.value(game);
+            SearchResult result = search.search(game, 0, 0);
+            assertEquals(value, Integer.signum(result.getScore()));
+            game.play(result.getRow(), result.getCol());
+            assertEquals(value, -table.value(game));
+        }
+        assertEquals(0, game.whoWon());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLargerBoards() {
+        table.value(new TicTacToe(1, 4, 3));
+    }
+
+    private void visit(TicTacToe game, Set<Integer> visited) {
+        if (!visited.add(PerfectPlayTable.encode(game))) {
+            return;
+        }
+
+        int value = minimax(game);
+        assertEquals(value, table.value(game));
+        if (game.isGameOver()) {
+            assertEquals(-1, table.bestMove(game));
+            return;
+        }
+
+        int move = table.bestMove(game);
+        assertTrue(game.play(move / 3, move % 3) != 0);
+        assertEquals(value, -minimax(game));
+        game.undo();
+
+        for (int cell = 0; cell < 9; cell++) {
+            if (game.play(cell / 3, cell % 3) != 0) {
+                visit(game, visited);
+                game.undo();
+            }
+        }
+    }
+
+    private static int minimax(TicTacToe game) {
+        // 1 if the player to move can force a win, 0 for a draw, -1 for a loss
+        if (game.whoWon() != 0) {
+            return -1;
+        }
+        if (game.canNotPlay()) {
+            return 0;
+        }
+        int best = -1;
+        for (int cell = 0; cell < 9 && best < 1; cell++) {
+            if (game.play(cell / 3, cell % 3) != 0) {
+                best = Math.max(best, -minimax(game));
+                game.undo();
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,66 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * Measures how many playouts per second {@link MonteCarloTreeSearch} plays with 1 to N threads,
+ * overall and per thread.
+ * <p>
+ * This is not a unit test; run its {@code main} from the IDE, or on the unit test classpath with
+ * {@code java clarkson.ee408.tictactoev4.engine.PlayoutBenchmark [maxThreads] [millis]}. Each
+ * thread count searches the opening of every board for the same time, with one worker per thread,
+ * so playouts per thread stays flat as long as the workers scale. Playouts on emptier and larger
+ * boards take longer, which is why the boards are reported separately.
+ */
+public final class PlayoutBenchmark {
+
+    /**
+     * Board side and win length.
+     */
+    private static final int[][] BOARDS = {{3, 3}, {7, 4}, {15, 5}};
+
+    private PlayoutBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+
+        // Warm up the JIT before timing anything
+        for (int[] board : BOARDS) {
+            run(board, 1, millis / 2);
+        }
+
+        System.out.println(" board threads     playouts  playouts/s  per thread");
+        for (int[] board : BOARDS) {
+            for (int threads = 1; threads <= maxThreads; threads++) {
+                long startedAt = System.nanoTime();
+                long playouts = run(board, threads, millis);
+                double seconds = (System.nanoTime() - startedAt) / 1e9;
+                System.out.println(String.format(Locale.US, "%3dx%-2d %7d %12d %11.0f %11.0f",
+                        board[0], board[1], threads, playouts, playouts / seconds, playouts / seconds / threads));
+            }
+        }
+    }
+
+    /**
+     * Searches the empty board for {@code millis} milliseconds.
+     *
+     * @param board the board side and win length
+     * @param threads the parallelism of the pool and the number of workers
+     * @param millis how long to search
+     * @return the number of playouts played
+     */
+    static long run(int[] board, int threads, long millis) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            MonteCarloTreeSearch search = new MonteCarloTreeSearch(pool, threads, 1);
+            return search.search(new TicTacToe(1, board[0], board[1]), 0, millis).getNodes();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
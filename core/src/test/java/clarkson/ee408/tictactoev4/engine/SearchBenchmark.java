@@ -0,0 +1,92 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+
+/**
+ * Measures {@link ParallelAlphaBetaSearch} on a fixed set of positions with 1 to N threads and
+ * prints the nodes per second and the speedup over one thread.
+ * <p>
+ * This is not a unit test; run its {@code main} from the IDE, or on the unit test classpath with
+ * {@code java clarkson.ee408.tictactoev4.engine.SearchBenchmark [maxThreads] [rounds]}. Every
+ * search runs to a fixed depth with an empty transposition table, so each thread count does the
+ * same job and the speedup is the ratio of wall-clock times. Parallel searches visit more nodes
+ * than sequential ones, so nodes per second overstates the speedup.
+ */
+public final class SearchBenchmark {
+
+    private static final int TABLE_SIZE_BITS = 20;
+
+    /**
+     * Board side, win length, search depth, then the moves played so far as row, column pairs.
+     */
+    private static final int[][] POSITIONS = {
+            {15, 5, 4, 7, 7, 7, 8},
+            {15, 5, 3, 7, 7, 7, 8, 8, 7, 6, 6, 8, 9, 9, 8},
+            {9, 4, 5, 4, 4, 4, 5, 5, 4},
+            {7, 4, 6, 3, 3, 3, 4, 2, 2},
+    };
+
+    private SearchBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // Warm up the JIT before timing anything
+        run(maxThreads, 1);
+
+        System.out.println("threads   time ms        nodes    nodes/s  speedup");
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            long elapsed = Long.MAX_VALUE;
+            long nodes = 0;
+            for (int round = 0; round < rounds; round++) {
+                long startedAt = System.nanoTime();
+                long roundNodes = run(threads, 1);
+                long roundElapsed = System.nanoTime() - startedAt;
+                if (roundElapsed < elapsed) {
+                    elapsed = roundElapsed;
+                    nodes = roundNodes;
+                }
+            }
+            double millis = elapsed / 1e6;
+            if (threads == 1) {
+                baseline = millis;
+            }
+            System.out.println(String.format(Locale.US, "%7d %9.1f %12d %10.0f %8.2f",
+                    threads, millis, nodes, nodes / (millis / 1000), baseline / millis));
+        }
+    }
+
+    /**
+     * Searches every position with {@code threads} threads.
+     *
+     * @param threads the parallelism of the pool
+     * @param repetitions how many times to search each position
+     * @return the total number of nodes visited
+     */
+    static long run(int threads, int repetitions) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long nodes = 0;
+            for (int repetition = 0; repetition < repetitions; repetition++) {
+                for (int[] spec : POSITIONS) {
+                    TicTacToe game = new TicTacToe(1, spec[0], spec[1]);
+                    for (int i = 3; i + 1 < spec.length; i += 2) {
+                        game.play(spec[i], spec[i + 1]);
+                    }
+                    ParallelAlphaBetaSearch search =
+                            new ParallelAlphaBetaSearch(pool, new TranspositionTable(TABLE_SIZE_BITS));
+                    nodes += search.search(game, spec[2], 0).getNodes();
+                }
+            }
+            return nodes;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
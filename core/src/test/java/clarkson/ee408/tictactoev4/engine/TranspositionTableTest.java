@@ -0,0 +1,79 @@
+package clarkson.ee408.tictactoev4.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TranspositionTableTest {
+
+    private final TranspositionTable table = new TranspositionTable(4);
+
+    @Test
+    public void storedEntriesReadBack() {
+        table.store(0x1234_5678_9ABCL, 7, TranspositionTable.LOWER_BOUND, -AlphaBetaSearch.WIN_SCORE + 3, 224);
+        long entry = table.probe(0x1234_5678_9ABCL);
+        assertEquals(7, TranspositionTable.getDepth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getFlag(entry));
+        assertEquals(-AlphaBetaSearch.WIN_SCORE + 3, TranspositionTable.getScore(entry));
+        assertEquals(224, TranspositionTable.getMove(entry));
+
+        table.store(42, 0, TranspositionTable.EXACT, 0, -1);
+        assertEquals(-1, TranspositionTable.getMove(table.probe(42)));
+    }
+
+    @Test
+    public void deeperEntriesOfOtherPositionsAreKept() {
+        // 1 and 17 share a slot in a 16-slot table
+        table.store(1, 5, TranspositionTable.EXACT, 10, 3);
+        table.store(17, 2, TranspositionTable.EXACT, 20, 4);
+        assertEquals(0, table.probe(17));
+        assertEquals(10, TranspositionTable.getScore(table.probe(1)));
+
+        table.store(17, 6, TranspositionTable.EXACT, 20, 4);
+        assertEquals(0, table.probe(1));
+        table.store(17, 1, TranspositionTable.UPPER_BOUND, 30, 5);
+        assertEquals(30, TranspositionTable.getScore(table.probe(17)));
+
+        table.clear();
+        assertEquals(0, table.probe(17));
+    }
+
+    @Test
+    public void concurrentStoresNeverReadBackForTheWrongPosition() throws Exception {
+        // Every position stores a score derived from its hash; a mixed-up slot would show up as
+        // a score that does not match the hash it was read for
+        TranspositionTable shared = new TranspositionTable(6);
+        AtomicInteger mismatches = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final long seed = t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    long hash = random.nextInt(1000) * 0x9E3779B97F4A7C15L;
+                    int score = (int) (hash >>> 40);
+                    if (random.nextBoolean()) {
+                        shared.store(hash, random.nextInt(10), TranspositionTable.EXACT, score, (int) (hash & 0xFF));
+                    } else {
+                        long entry = shared.probe(hash);
+                        if (entry != 0 && (TranspositionTable.getScore(entry) != score
+                                || TranspositionTable.getMove(entry) != (int) (hash & 0xFF))) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, mismatches.get());
+    }
+}
@@ -0,0 +1,80 @@
+package clarkson.ee408.tictactoev4.simulation;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GameSimulatorTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(3);
+    private final GameSimulator simulator = new GameSimulator(pool);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void randomGamesEndAsOftenAsExpected() {
+        // Exact rates of random play on 3x3: 737/1260, 121/420 and 8/63
+        SimulationStats stats = simulator.run(3, 3, Strategies::random, Strategies::random, 200_000, 1);
+        assertEquals(200_000, stats.getGames());
+        assertEquals(0.5849, stats.getFirstWinRate(), 0.01);
+        assertEquals(0.2881, stats.getSecondWinRate(), 0.01);
+        assertEquals(0.1270, stats.getDrawRate(), 0.01);
+        assertEquals(7.6, stats.getAverageLength(), 0.2);
+    }
+
+    @Test
+    public void perfectPlayNeverLoses() {
+        SimulationStats stats = simulator.run(3, 3, Strategies::perfect, Strategies::perfect, 1000, 1);
+        assertEquals(1000, stats.getDraws());
+        assertEquals(9000, stats.getMoves());
+
+        stats = simulator.run(3, 3, Strategies::random, Strategies::perfect, 10_000, 2);
+        assertEquals(0, stats.getFirstWins());
+        stats = simulator.run(3, 3, Strategies::perfect, Strategies::random, 10_000, 3);
+        assertEquals(0, stats.getSecondWins());
+    }
+
+    @Test
+    public void searchNeverLosesEither() {
+        SimulationStats stats = simulator.run(3, 3, () -> Strategies.search(0), Strategies::random, 300, 4);
+        assertEquals(0, stats.getSecondWins());
+    }
+
+    @Test
+    public void totalsDoNotDependOnThePool() {
+        AtomicLong checksum = new AtomicLong();
+        GameListener listener = (index, moves, moveCount, winner) -> {
+            long sum = index * 31 + winner;
+            for (int i = 0; i < moveCount; i++) {
+                sum = sum * 31 + moves[i];
+            }
+            checksum.addAndGet(sum);
+        };
+        SimulationStats parallel = simulator.run(7, 4, Strategies::random, Strategies::random, 5000, 9, listener);
+        long parallelChecksum = checksum.getAndSet(0);
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            SimulationStats sequential = new GameSimulator(single)
+                    .run(7, 4, Strategies::random, Strategies::random, 5000, 9, listener);
+            assertEquals(parallel.getFirstWins(), sequential.getFirstWins());
+            assertEquals(parallel.getSecondWins(), sequential.getSecondWins());
+            assertEquals(parallel.getMoves(), sequential.getMoves());
+            assertEquals(parallelChecksum, checksum.get());
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void illegalMovesAreRejected() {
+        simulator.run(3, 3, () -> game -> 4, Strategies::random, 10, 1);
+    }
+}
@@ -0,0 +1,44 @@
+package clarkson.ee408.tictactoev4.simulation;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Plays a batch of games for a few pairs of strategies and prints how they ended and how fast.
+ * <p>
+ * This is not a unit test; run its {@code main} from the IDE, or on the unit test classpath with
+ * {@code java clarkson.ee408.tictactoev4.simulation.SelfPlay [games] [threads]}. Comparing the
+ * output before and after an engine change shows whether its play got worse.
+ */
+public final class SelfPlay {
+
+    private SelfPlay() {
+    }
+
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            GameSimulator simulator = new GameSimulator(pool);
+            System.out.println("board  first    second       games  first %  second %  draw %  length     moves/s");
+            print(simulator, 3, 3, "random", Strategies::random, "random", Strategies::random, games);
+            print(simulator, 3, 3, "perfect", Strategies::perfect, "random", Strategies::random, games);
+            print(simulator, 3, 3, "random", Strategies::random, "perfect", Strategies::perfect, games);
+            print(simulator, 15, 5, "random", Strategies::random, "random", Strategies::random, games / 10);
+            print(simulator, 3, 3, "search", () -> Strategies.search(0), "random", Strategies::random, games / 100);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void print(GameSimulator simulator, int side, int winLength, String firstName,
+                              Supplier<Strategy> first, String secondName, Supplier<Strategy> second, long games) {
+        SimulationStats stats = simulator.run(side, winLength, first, second, games, 1);
+        System.out.println(String.format(Locale.US, "%2dx%-2d  %-8s %-8s %9d %8.2f %9.2f %7.2f %7.2f %11.0f",
+                side, winLength, firstName, secondName, stats.getGames(), 100 * stats.getFirstWinRate(),
+                100 * stats.getSecondWinRate(), 100 * stats.getDrawRate(), stats.getAverageLength(),
+                stats.getMovesPerSecond()));
+    }
+}
@@ -0,0 +1,22 @@
+// Simulates many players against a server over the client protocol and reports latencies:
+//   ./gradlew :loadgen:run --args="--players=2000 --duration=60"
+// Without --host=... it plays against a local :server started in the same process.
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+application {
+    mainClass.set("clarkson.ee408.tictactoev4.loadgen.LoadGenerator")
+    applicationDefaultJvmArgs = listOf("-Xss256k")
+}
+
+dependencies {
+    implementation(project(":core"))
+    implementation(project(":server"))
+    testImplementation("junit:junit:4.13.2")
+}
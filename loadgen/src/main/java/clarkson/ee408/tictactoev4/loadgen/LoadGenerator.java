@@ -0,0 +1,304 @@
+package clarkson.ee408.tictactoev4.loadgen;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import clarkson.ee408.tictactoev4.client.Log;
+import clarkson.ee408.tictactoev4.client.Logger;
+import clarkson.ee408.tictactoev4.client.SocketClient;
+import clarkson.ee408.tictactoev4.codec.Codecs;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.server.GameServer;
+import clarkson.ee408.tictactoev4.server.SocketServer;
+
+/**
+ * Plays many {@link SimulatedPlayer simulated players} against a server at once over the real
+ * client protocol, each with its own {@link SocketClient}, and measures the latency of every
+ * request by type.
+ * <p>
+ * Every player runs on a thread of its own with a small stack, since the client blocks on each
+ * request. Players are started evenly over a ramp-up period so their logins do not all arrive at
+ * once; what they send during the ramp-up is measured too.
+ * <p>
+ * From the command line, without {@code --host} it starts a local {@link SocketServer} in the
+ * same process and plays against that:
+ * <pre>
+ *   ./gradlew :loadgen:run --args="--players=2000 --duration=60 --think=exp:1000 --codec=BINARY --multiplexed"
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    private static final long PLAYER_STACK_SIZE = 256 * 1024;
+    private static final long STOP_TIMEOUT_MILLIS = 15000; // longer than any request may be held
+
+    private final String host;
+    private final int port;
+    private int players = 100;
+    private long durationMillis = 30000;
+    private long rampUpMillis = 5000;
+    private ThinkTime thinkTime = ThinkTimes.exponential(1000);
+    private long pollMillis = 1000;
+    private MessageCodec codec;
+    private boolean multiplexed;
+    private String usernamePrefix = "loadgen";
+    private PrintStream progress;
+
+    /**
+     * Creates a load generator for a server.
+     *
+     * @param host the server host name or address
+     * @param port the server port
+     */
+    public LoadGenerator(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Sets how many players play at once.
+     *
+     * @param players the number of simulated clients, each with its own connection
+     */
+    public void setPlayers(int players) {
+        this.players = players;
+    }
+
+    /**
+     * Sets how long the players play once they have all started.
+     *
+     * @param durationMillis the length of the measurement in milliseconds
+     */
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Sets how long it takes to start all the players.
+     *
+     * @param rampUpMillis the time over which the players are started evenly
+     */
+    public void setRampUpMillis(long rampUpMillis) {
+        this.rampUpMillis = rampUpMillis;
+    }
+
+    /**
+     * Sets how long players pause before each move, invitation and answer.
+     *
+     * @param thinkTime the model the pauses are drawn from
+     */
+    public void setThinkTime(ThinkTime thinkTime) {
+        this.thinkTime = thinkTime;
+    }
+
+    /**
+     * Sets how long players wait between polls that the server answers at once, i.e. when they
+     * do not long-poll.
+     *
+     * @param pollMillis the polling interval in milliseconds
+     */
+    public void setPollMillis(long pollMillis) {
+        this.pollMillis = pollMillis;
+    }
+
+    /**
+     * Sets the codec the players negotiate with the server.
+     *
+     * @param codec the codec, or null to stay with JSON
+     */
+    public void setCodec(MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Sets whether the players multiplex their connections, which also makes them long-poll.
+     *
+     * @param multiplexed true to multiplex as the app can
+     */
+    public void setMultiplexed(boolean multiplexed) {
+        this.multiplexed = multiplexed;
+    }
+
+    /**
+     * Sets the prefix of the players' usernames, which are the prefix followed by a number, to
+     * keep runs against the same server apart.
+     *
+     * @param usernamePrefix the prefix
+     */
+    public void setUsernamePrefix(String usernamePrefix) {
+        this.usernamePrefix = usernamePrefix;
+    }
+
+    /**
+     * Sets where to print a line of progress every few seconds.
+     *
+     * @param progress where to print, or null to print nothing while the test runs
+     */
+    public void setProgress(PrintStream progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Starts the players, lets them play for the duration, stops them and returns what was
+     * measured.
+     *
+     * @return the statistics of the requests the players sent, from start to stop
+     * @throws InterruptedException if the calling thread is interrupted while the test runs
+     */
+    public LoadStats run() throws InterruptedException {
+        LoadStats stats = new LoadStats();
+        CountDownLatch stop = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(this.players);
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < this.players; i++) {
+            SocketClient client = new SocketClient(this.host, this.port);
+            client.setMultiplexed(this.multiplexed);
+            if (this.codec != null) {
+                client.setPreferredCodec(this.codec);
+            }
+            SimulatedPlayer player = new SimulatedPlayer(client, this.usernamePrefix + i, this.thinkTime,
+                    this.pollMillis, stats, stop, i);
+            Thread thread = new Thread(null, player, "player-" + i, PLAYER_STACK_SIZE);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+
+            long due = startedAt + TimeUnit.MILLISECONDS.toNanos(this.rampUpMillis * (i + 1) / this.players);
+            long early = due - System.nanoTime();
+            if (early > 0) {
+                TimeUnit.NANOSECONDS.sleep(early);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.durationMillis);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.SECONDS.toNanos(5)));
+            if (this.progress != null) {
+                double seconds = (System.nanoTime() - startedAt) / 1e9;
+                this.progress.println(String.format(Locale.ROOT, "%6.1f s  %d requests  %.1f req/s  %d games",
+                        seconds, stats.getRequestCount(), stats.getRequestCount() / seconds,
+                        stats.getGamesCompleted()));
+            }
+        }
+
+        // Players finish their request in flight, end their game and close their connection
+        stop.countDown();
+        stats.setElapsedNanos(System.nanoTime() - startedAt);
+        long stopDeadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, stopDeadline - System.currentTimeMillis()));
+        }
+        return stats;
+    }
+
+    /**
+     * Runs a load test from the command line and prints the results. The options are
+     * {@code --host}, {@code --port}, {@code --players}, {@code --duration} and {@code --ramp-up}
+     * in seconds, {@code --think} (see {@link ThinkTimes#parse(String)}), {@code --poll} in
+     * milliseconds, {@code --codec}, {@code --multiplexed} and {@code --prefix}, each as
+     * {@code --name=value}.
+     *
+     * @param args the options
+     * @throws IOException if the local server cannot be started
+     * @throws InterruptedException if interrupted while the test runs
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String host = null;
+        int port = SocketServer.DEFAULT_PORT;
+        List<String> options = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--host=")) {
+                host = arg.substring("--host=".length());
+            } else if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else {
+                options.add(arg);
+            }
+        }
+
+        // Thousands of connections opening and closing would drown the report
+        Log.setLogger(new WarningLogger());
+        SocketServer localServer = null;
+        if (host == null) {
+            localServer = new SocketServer(new GameServer(), 0);
+            host = "127.0.0.1";
+            port = localServer.getPort();
+            System.out.println("Started a local server on port " + port);
+        }
+
+        LoadGenerator generator = new LoadGenerator(host, port);
+        for (String option : options) {
+            generator.configure(option);
+        }
+        generator.setProgress(System.out);
+        generator.run().print(System.out);
+
+        if (localServer != null) {
+            localServer.close();
+        }
+    }
+
+    private void configure(String option) {
+        int equals = option.indexOf('=');
+        String name = equals < 0 ? option : option.substring(0, equals);
+        String value = equals < 0 ? null : option.substring(equals + 1);
+        switch (name) {
+            case "--players":
+                setPlayers(Integer.parseInt(value));
+                break;
+            case "--duration":
+                setDurationMillis(TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+                break;
+            case "--ramp-up":
+                setRampUpMillis(TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+                break;
+            case "--think":
+                setThinkTime(ThinkTimes.parse(value));
+                break;
+            case "--poll":
+                setPollMillis(Long.parseLong(value));
+                break;
+            case "--codec":
+                MessageCodec codec = Codecs.forName(value);
+                if (codec == null) {
+                    throw new IllegalArgumentException("Unknown codec " + value);
+                }
+                setCodec(codec);
+                break;
+            case "--multiplexed":
+                setMultiplexed(value == null || Boolean.parseBoolean(value));
+                break;
+            case "--prefix":
+                setUsernamePrefix(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + option);
+        }
+    }
+
+    /**
+     * Prints warnings and errors only.
+     */
+    private static final class WarningLogger implements Logger {
+
+        @Override
+        public void info(String tag, String message) {
+        }
+
+        @Override
+        public void warn(String tag, String message) {
+            System.err.println("W/" + tag + ": " + message);
+        }
+
+        @Override
+        public void error(String tag, String message, Throwable error) {
+            System.err.println("E/" + tag + ": " + message + (error == null ? "" : ": " + error));
+        }
+    }
+}
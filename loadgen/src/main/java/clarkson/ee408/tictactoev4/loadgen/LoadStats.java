@@ -0,0 +1,182 @@
+package clarkson.ee408.tictactoev4.loadgen;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * What a load test measured: the latency of every request by {@link RequestType}, how many of
+ * them failed, and how many games were played.
+ * <p>
+ * A request counts as an error when the server answers it with {@link ResponseStatus#FAILURE}, and
+ * as an I/O error when no answer could be read at all. Latencies are recorded either way, from
+ * the call into the client to its return, so they include any time the server held a long poll.
+ * All counters can be updated from any thread without locking.
+ */
+public final class LoadStats {
+
+    private final Map<RequestType, LatencyHistogram> latencies = new EnumMap<>(RequestType.class);
+    private final Map<RequestType, LongAdder> errors = new EnumMap<>(RequestType.class);
+    private final Map<RequestType, LongAdder> ioErrors = new EnumMap<>(RequestType.class);
+    private final LongAdder gamesCompleted = new LongAdder();
+    private final LongAdder gamesAborted = new LongAdder();
+    private volatile long elapsedNanos;
+
+    /**
+     * Creates empty statistics.
+     */
+    public LoadStats() {
+        // Every map is filled up front, so they are only read afterwards and need no locking
+        for (RequestType type : RequestType.values()) {
+            this.latencies.put(type, new LatencyHistogram());
+            this.errors.put(type, new LongAdder());
+            this.ioErrors.put(type, new LongAdder());
+        }
+    }
+
+    /**
+     * Records a request that got an answer, or none.
+     *
+     * @param type the type of the request
+     * @param nanos how long the request took
+     * @param response the answer, or null if none could be read
+     */
+    public void record(RequestType type, long nanos, Response response) {
+        this.latencies.get(type).record(nanos);
+        if (response == null) {
+            this.ioErrors.get(type).increment();
+        } else if (response.getStatus() != ResponseStatus.SUCCESS) {
+            this.errors.get(type).increment();
+        }
+    }
+
+    /**
+     * Records a game played to its end.
+     */
+    public void gameCompleted() {
+        this.gamesCompleted.increment();
+    }
+
+    /**
+     * Records a game that ended before its end, e.g. because the other player left.
+     */
+    public void gameAborted() {
+        this.gamesAborted.increment();
+    }
+
+    /**
+     * Returns the latencies of one type of request.
+     *
+     * @param type the request type
+     * @return the histogram of its latencies in nanoseconds
+     */
+    public LatencyHistogram getLatencies(RequestType type) {
+        return this.latencies.get(type);
+    }
+
+    /**
+     * Returns the number of requests of a type the server answered with a failure.
+     *
+     * @param type the request type
+     * @return the number of FAILURE answers
+     */
+    public long getErrors(RequestType type) {
+        return this.errors.get(type).sum();
+    }
+
+    /**
+     * Returns the number of requests of a type that got no answer.
+     *
+     * @param type the request type
+     * @return the number of requests that failed with an I/O error
+     */
+    public long getIoErrors(RequestType type) {
+        return this.ioErrors.get(type).sum();
+    }
+
+    /**
+     * Returns the number of requests of every type.
+     *
+     * @return the total count
+     */
+    public long getRequestCount() {
+        long count = 0;
+        for (LatencyHistogram histogram : this.latencies.values()) {
+            count += histogram.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of games played to their end.
+     *
+     * @return the number of completed games, counted once per player
+     */
+    public long getGamesCompleted() {
+        return this.gamesCompleted.sum();
+    }
+
+    /**
+     * Returns the number of games that ended early.
+     *
+     * @return the number of aborted games, counted once per player
+     */
+    public long getGamesAborted() {
+        return this.gamesAborted.sum();
+    }
+
+    /**
+     * Returns how long the players played, which rates are computed over.
+     *
+     * @return the time from the start of the first player to the stop signal, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Prints a table of the throughput, error rate and latency percentiles of every type of
+     * request sent, then the totals.
+     *
+     * @param out where to print
+     */
+    public void print(PrintStream out) {
+        double seconds = Math.max(this.elapsedNanos, 1) / 1e9;
+        out.println(String.format(Locale.ROOT, "%-21s %9s %9s %8s %9s %9s %9s %9s",
+                "request", "count", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        long count = 0;
+        long failed = 0;
+        for (RequestType type : RequestType.values()) {
+            LatencyHistogram histogram = this.latencies.get(type);
+            long typeCount = histogram.getCount();
+            if (typeCount == 0) {
+                continue;
+            }
+            long typeFailed = getErrors(type) + getIoErrors(type);
+            count += typeCount;
+            failed += typeFailed;
+            out.println(String.format(Locale.ROOT, "%-21s %9d %9.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f",
+                    type, typeCount, typeCount / seconds, 100.0 * typeFailed / typeCount,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMax())));
+        }
+        out.println(String.format(Locale.ROOT, "%-21s %9d %9.1f %7.2f%%",
+                "total", count, count / seconds, count == 0 ? 0 : 100.0 * failed / count));
+        out.println(String.format(Locale.ROOT, "games completed %d, aborted %d, in %.1f s",
+                getGamesCompleted(), getGamesAborted(), seconds));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
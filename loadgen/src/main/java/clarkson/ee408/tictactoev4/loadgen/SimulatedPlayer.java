@@ -0,0 +1,241 @@
+package clarkson.ee408.tictactoev4.loadgen;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import clarkson.ee408.tictactoev4.TicTacToe;
+import clarkson.ee408.tictactoev4.client.PresenceStore;
+import clarkson.ee408.tictactoev4.client.SocketClient;
+import clarkson.ee408.tictactoev4.model.Event;
+import clarkson.ee408.tictactoev4.model.EventStatus;
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.simulation.Strategies;
+import clarkson.ee408.tictactoev4.simulation.Strategy;
+import clarkson.ee408.tictactoev4.socket.GamingResponse;
+import clarkson.ee408.tictactoev4.socket.PairingQuery;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * One player of a load test, driving its own {@link SocketClient} the way the app does: it
+ * registers and logs in, polls the lobby, invites random players and answers invitations, and
+ * plays random moves until the game is over.
+ * <p>
+ * It pauses for a {@link ThinkTime} before every action a person would take, and between polls
+ * that the server answered at once. Held long polls are sent again right away, as the app does.
+ */
+final class SimulatedPlayer implements Runnable {
+
+    private static final int PAGE_SIZE = 50;
+    private static final double INVITE_RATE = 0.5; // of lobby polls, while no invitation is out
+    private static final double DECLINE_RATE = 0.1;
+    private static final long INVITATION_TIMEOUT_MILLIS = 15000; // then another player is invited
+    private static final long MOVE_TIMEOUT_MILLIS = 60000; // then the game is given up
+
+    private final SocketClient client;
+    private final String username;
+    private final ThinkTime thinkTime;
+    private final long pollMillis;
+    private final LoadStats stats;
+    private final CountDownLatch stop;
+    private final Random random;
+    private final Strategy strategy = Strategies.random();
+    private final PresenceStore presence = new PresenceStore();
+    private final Gson gson = new Gson();
+
+    private boolean registered;
+    private boolean loggedIn;
+    private long invitedAt;
+
+    SimulatedPlayer(SocketClient client, String username, ThinkTime thinkTime, long pollMillis,
+                    LoadStats stats, CountDownLatch stop, long seed) {
+        this.client = client;
+        this.username = username;
+        this.thinkTime = thinkTime;
+        this.pollMillis = pollMillis;
+        this.stats = stats;
+        this.stop = stop;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!isStopped()) {
+                if (this.loggedIn) {
+                    pollLobby();
+                } else {
+                    logIn();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.client.close();
+        }
+    }
+
+    private void logIn() throws InterruptedException {
+        String user = this.gson.toJson(new User(this.username, this.username, this.username, false));
+        if (!this.registered) {
+            // Fails harmlessly when an earlier run registered the user already
+            this.registered = send(RequestType.REGISTER, user, 0, Response.class) != null;
+        }
+        this.loggedIn = isSuccess(send(RequestType.LOGIN, user, 0, Response.class));
+        if (!this.loggedIn) {
+            pause(this.pollMillis);
+        }
+        this.presence.clear();
+        this.invitedAt = 0;
+    }
+
+    private void pollLobby() throws InterruptedException {
+        int waitMillis = this.client.getLongPollWaitMillis();
+        if (waitMillis == 0) {
+            pause(this.pollMillis);
+        }
+        PairingQuery query = this.presence.getVersion() == 0
+                ? this.presence.newPageQuery(PAGE_SIZE)
+                : this.presence.newRefreshQuery();
+        PairingResponse response = send(RequestType.UPDATE_PAIRING, this.gson.toJson(query), waitMillis,
+                PairingResponse.class);
+        if (!isSuccess(response)) {
+            return;
+        }
+        this.presence.apply(response, query);
+
+        // An accepted invitation has already put this player in a game, so it comes first
+        Event answer = response.getInvitationResponse();
+        if (answer != null) {
+            this.invitedAt = 0;
+            Response acknowledged = send(RequestType.ACKNOWLEDGE_RESPONSE, String.valueOf(answer.getEventId()), 0,
+                    Response.class);
+            if (isSuccess(acknowledged) && answer.getStatus() == EventStatus.ACCEPTED) {
+                play(true);
+            }
+            return;
+        }
+
+        Event invitation = response.getInvitation();
+        if (invitation != null) {
+            pause(this.thinkTime.nextMillis(this.random));
+            String eventId = String.valueOf(invitation.getEventId());
+            if (this.random.nextDouble() < DECLINE_RATE) {
+                send(RequestType.DECLINE_INVITATION, eventId, 0, Response.class);
+            } else if (isSuccess(send(RequestType.ACCEPT_INVITATION, eventId, 0, Response.class))) {
+                play(false);
+            }
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (this.presence.size() > 0 && now - this.invitedAt > INVITATION_TIMEOUT_MILLIS
+                && this.random.nextDouble() < INVITE_RATE) {
+            pause(this.thinkTime.nextMillis(this.random));
+            User opponent = this.presence.get(this.random.nextInt(this.presence.size()));
+            if (isSuccess(send(RequestType.SEND_INVITATION, opponent.getUsername(), 0, Response.class))) {
+                this.invitedAt = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Plays a game to its end. The player who sent the invitation moves first.
+     */
+    private void play(boolean first) throws InterruptedException {
+        int me = first ? 1 : 2;
+        TicTacToe game = new TicTacToe(me);
+        this.strategy.newGame(this.random.nextLong());
+        long lastMoveAt = System.currentTimeMillis();
+
+        while (!game.isGameOver()) {
+            if (isStopped()) {
+                endEarly();
+                return;
+            }
+
+            if (game.getTurn() == me) {
+                pause(this.thinkTime.nextMillis(this.random));
+                if (isStopped()) {
+                    continue;
+                }
+                int cell = this.strategy.chooseMove(game);
+                if (!isSuccess(send(RequestType.SEND_MOVE, String.valueOf(cell), 0, GamingResponse.class))) {
+                    endEarly();
+                    return;
+                }
+                game.play(cell / game.getSide(), cell % game.getSide());
+                lastMoveAt = System.currentTimeMillis();
+                continue;
+            }
+
+            int waitMillis = this.client.getLongPollWaitMillis();
+            GamingResponse response = send(RequestType.REQUEST_MOVE, null, waitMillis, GamingResponse.class);
+            if (response == null || !response.getActive()) {
+                // The other player left, or the connection did and the server ended the game
+                this.stats.gameAborted();
+                return;
+            }
+            if (response.getMove() >= 0) {
+                game.play(response.getMove() / game.getSide(), response.getMove() % game.getSide());
+                lastMoveAt = System.currentTimeMillis();
+            } else if (System.currentTimeMillis() - lastMoveAt > MOVE_TIMEOUT_MILLIS) {
+                endEarly();
+                return;
+            } else if (waitMillis == 0) {
+                pause(this.pollMillis);
+            }
+        }
+
+        send(RequestType.COMPLETE_GAME, null, 0, Response.class);
+        this.stats.gameCompleted();
+    }
+
+    private void endEarly() {
+        if (this.loggedIn) {
+            send(RequestType.ABORT_GAME, null, 0, Response.class);
+        }
+        this.stats.gameAborted();
+    }
+
+    private <T extends Response> T send(RequestType type, String data, int waitMillis, Class<T> responseClass) {
+        Request request = new Request(type, data);
+        request.setWaitMillis(waitMillis);
+        long startedAt = System.nanoTime();
+        T response = null;
+        try {
+            response = this.client.sendRequest(request, responseClass);
+        } catch (IOException ex) {
+            // Counted as an I/O error below
+        }
+        this.stats.record(type, System.nanoTime() - startedAt, response);
+        if (response == null) {
+            // Most often a timeout: the session is still open and a late answer may still arrive,
+            // so drop the connection, which the server logs out, and start over on the next one
+            this.client.close();
+            this.loggedIn = false;
+        }
+        return response;
+    }
+
+    private boolean isStopped() {
+        return this.stop.getCount() == 0;
+    }
+
+    private void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            this.stop.await(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static boolean isSuccess(Response response) {
+        return response != null && response.getStatus() == ResponseStatus.SUCCESS;
+    }
+}
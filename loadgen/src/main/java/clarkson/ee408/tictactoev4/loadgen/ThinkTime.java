@@ -0,0 +1,18 @@
+package clarkson.ee408.tictactoev4.loadgen;
+
+import java.util.Random;
+
+/**
+ * How long a simulated player pauses before each action, like a person reading the screen
+ * before tapping. Made by {@link ThinkTimes}.
+ */
+public interface ThinkTime {
+
+    /**
+     * Draws the next pause.
+     *
+     * @param random the player's own random numbers
+     * @return the pause in milliseconds, never negative
+     */
+    long nextMillis(Random random);
+}
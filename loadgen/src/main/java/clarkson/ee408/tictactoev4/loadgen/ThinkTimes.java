@@ -0,0 +1,81 @@
+package clarkson.ee408.tictactoev4.loadgen;
+
+/**
+ * Makes the {@link ThinkTime} models a {@link LoadGenerator} can use.
+ */
+public final class ThinkTimes {
+
+    private ThinkTimes() {
+    }
+
+    /**
+     * Returns a model without pauses, to find the most the server can take.
+     *
+     * @return a model that always draws 0
+     */
+    public static ThinkTime none() {
+        return random -> 0;
+    }
+
+    /**
+     * Returns a model that always pauses as long.
+     *
+     * @param millis the pause in milliseconds
+     * @return the model
+     */
+    public static ThinkTime fixed(long millis) {
+        return random -> millis;
+    }
+
+    /**
+     * Returns a model that draws pauses evenly from a range.
+     *
+     * @param minMillis the shortest pause in milliseconds
+     * @param maxMillis the longest pause in milliseconds
+     * @return the model
+     * @throws IllegalArgumentException if the range is empty
+     */
+    public static ThinkTime uniform(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("Invalid think time range " + minMillis + "-" + maxMillis);
+        }
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+    }
+
+    /**
+     * Returns a model of independent arrivals: mostly short pauses with the occasional long one,
+     * the usual model of many users acting on their own.
+     *
+     * @param meanMillis the average pause in milliseconds
+     * @return the model
+     */
+    public static ThinkTime exponential(long meanMillis) {
+        return random -> (long) (-Math.log(1 - random.nextDouble()) * meanMillis);
+    }
+
+    /**
+     * Parses a model from the command line: {@code none}, a fixed number of milliseconds such as
+     * {@code 500}, {@code uniform:200-800} or {@code exp:500}.
+     *
+     * @param spec the model
+     * @return the model
+     * @throws IllegalArgumentException if {@code spec} is not one of the above
+     */
+    public static ThinkTime parse(String spec) {
+        try {
+            if ("none".equals(spec)) {
+                return none();
+            }
+            if (spec.startsWith("exp:")) {
+                return exponential(Long.parseLong(spec.substring("exp:".length())));
+            }
+            if (spec.startsWith("uniform:")) {
+                String[] range = spec.substring("uniform:".length()).split("-", 2);
+                return uniform(Long.parseLong(range[0]), Long.parseLong(range[1]));
+            }
+            return fixed(Long.parseLong(spec));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Invalid think time " + spec, ex);
+        }
+    }
+}
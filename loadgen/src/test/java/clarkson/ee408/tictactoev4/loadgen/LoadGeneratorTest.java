@@ -0,0 +1,93 @@
+package clarkson.ee408.tictactoev4.loadgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import clarkson.ee408.tictactoev4.codec.BinaryCodec;
+import clarkson.ee408.tictactoev4.server.GameServer;
+import clarkson.ee408.tictactoev4.server.SocketServer;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+
+/**
+ * Runs short load tests against a local {@link SocketServer}.
+ */
+public class LoadGeneratorTest {
+
+    private final GameServer server = new GameServer();
+    private SocketServer socketServer;
+
+    @Before
+    public void setUp() throws IOException {
+        this.socketServer = new SocketServer(this.server, 0);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.socketServer.close();
+    }
+
+    @Test
+    public void playersPlayWholeGamesByPolling() throws Exception {
+        LoadStats stats = run(false);
+
+        assertEquals(20, this.server.getStore().getAccountCount());
+        assertTrue(stats.getLatencies(RequestType.UPDATE_PAIRING).getCount() > 0);
+        assertTrue(stats.getGamesCompleted() > 0);
+        assertEquals(0, stats.getErrors(RequestType.LOGIN) + stats.getIoErrors(RequestType.LOGIN));
+        assertEquals(0, stats.getErrors(RequestType.SEND_MOVE));
+        assertEquals(0, this.server.getOnlineCount());
+    }
+
+    @Test
+    public void multiplexedPlayersLongPoll() throws Exception {
+        LoadStats stats = run(true);
+
+        assertTrue(stats.getGamesCompleted() > 0);
+        assertEquals(0, stats.getErrors(RequestType.SEND_MOVE));
+        assertEquals(0, stats.getIoErrors(RequestType.REQUEST_MOVE));
+    }
+
+    @Test
+    public void thinkTimesAreParsed() {
+        Random random = new Random(1);
+        assertEquals(0, ThinkTimes.parse("none").nextMillis(random));
+        assertEquals(250, ThinkTimes.parse("250").nextMillis(random));
+        for (int i = 0; i < 100; i++) {
+            long uniform = ThinkTimes.parse("uniform:100-200").nextMillis(random);
+            assertTrue(uniform >= 100 && uniform <= 200);
+            assertTrue(ThinkTimes.parse("exp:100").nextMillis(random) >= 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownThinkTimesAreRejected() {
+        ThinkTimes.parse("uniform:100");
+    }
+
+    private LoadStats run(boolean multiplexed) throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator("127.0.0.1", this.socketServer.getPort());
+        generator.setPlayers(20);
+        generator.setRampUpMillis(200);
+        generator.setDurationMillis(3000);
+        generator.setThinkTime(ThinkTimes.uniform(0, 20));
+        generator.setPollMillis(20);
+        generator.setMultiplexed(multiplexed);
+        if (multiplexed) {
+            generator.setCodec(new BinaryCodec());
+        }
+
+        LoadStats stats = generator.run();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.server.getOnlineCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,19 @@
+// An in-memory stand-in for the game server, to play and load-test the client without a database:
+//   ./gradlew :server:run --args=5000
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+application {
+    mainClass.set("clarkson.ee408.tictactoev4.server.SocketServer")
+}
+
+dependencies {
+    implementation(project(":core"))
+    testImplementation("junit:junit:4.13.2")
+}
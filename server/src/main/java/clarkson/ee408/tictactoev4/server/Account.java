@@ -0,0 +1,61 @@
+package clarkson.ee408.tictactoev4.server;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A registered user, with what the server tracks about them between requests.
+ * <p>
+ * Whether the user is free to play is a single atomic: {@link #activeGame} is {@link #OFFLINE}
+ * while nobody is logged in as the user, 0 while they are in the lobby, and the event id of their
+ * game while they play. Starting a game claims both players with compare-and-set, so two
+ * invitations accepted at once cannot put a player in two games, and a player logging out cannot
+ * be pulled into a new game on the way out.
+ */
+final class Account {
+
+    /**
+     * The value of {@link #activeGame} while the user is logged out.
+     */
+    static final int OFFLINE = -1;
+
+    final String username;
+    final String password;
+    final String displayName;
+
+    /**
+     * {@link #OFFLINE}, 0 in the lobby, or the event id of the game in progress.
+     */
+    final AtomicInteger activeGame = new AtomicInteger(OFFLINE);
+
+    /**
+     * The invitations sent to the user, oldest first, until they stop being pending.
+     */
+    final Deque<Integer> invitations = new ConcurrentLinkedDeque<>();
+
+    /**
+     * The invitations the user sent, oldest first, until the user acknowledges the answer.
+     */
+    final Deque<Integer> sentInvitations = new ConcurrentLinkedDeque<>();
+
+    /**
+     * The event id of the user's last game, which REQUEST_MOVE reports on even after it ended.
+     */
+    volatile int currentGame;
+
+    Account(String username, String password, String displayName) {
+        this.username = username;
+        this.password = password;
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returns whether the user is logged in and not playing.
+     *
+     * @return true if the user belongs in the lobby
+     */
+    boolean isAvailable() {
+        return this.activeGame.get() == 0;
+    }
+}
@@ -0,0 +1,575 @@
+package clarkson.ee408.tictactoev4.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import clarkson.ee408.tictactoev4.client.PushListener;
+import clarkson.ee408.tictactoev4.codec.Codecs;
+import clarkson.ee408.tictactoev4.model.Event;
+import clarkson.ee408.tictactoev4.model.EventStatus;
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.GamingResponse;
+import clarkson.ee408.tictactoev4.socket.PairingQuery;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+import clarkson.ee408.tictactoev4.socket.PushType;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * A stand-in for the game server that keeps everything in a {@link SessionStore} instead of a
+ * database, for running the client against a local server and for load tests.
+ * <p>
+ * It answers every {@link RequestType} the way the real server does, and takes events through the
+ * same lifecycle: an invitation is PENDING until its opponent accepts or declines it, an accepted
+ * game becomes PLAYING when the sender acknowledges the answer, and ends COMPLETED or ABORTED;
+ * a declined invitation is ABORTED once acknowledged. The sender of the invitation moves first.
+ * It also holds {@code REQUEST_MOVE} and {@code UPDATE_PAIRING} requests that ask for it until
+ * something changes, answers lobby queries with deltas, and pushes updates to subscribed
+ * sessions.
+ * <p>
+ * The server itself knows nothing of connections: each one is a {@link Session}, reached in
+ * process through a {@code LoopbackTransport} or over TCP through a {@link SocketServer}.
+ */
+public final class GameServer {
+
+    /**
+     * The longest a request may be held waiting for a change, whatever it asks for.
+     */
+    static final int MAX_WAIT_MILLIS = 30000;
+
+    private final SessionStore store;
+    private final Map<String, Session> online = new ConcurrentHashMap<>();
+    private final AtomicInteger heldRequests = new AtomicInteger();
+    private final Gson gson = new Gson();
+
+    /**
+     * Creates a server with an empty store.
+     */
+    public GameServer() {
+        this(new SessionStore());
+    }
+
+    /**
+     * Creates a server on an existing store, e.g. one with users registered in advance.
+     *
+     * @param store the users, lobby and events
+     */
+    public GameServer(SessionStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Opens a session that cannot receive pushed updates, e.g. for a {@code LoopbackTransport}.
+     *
+     * @return the new session
+     */
+    public Session newSession() {
+        return new Session(this, null);
+    }
+
+    /**
+     * Opens a session whose pushed updates go to {@code pushes} once it subscribes.
+     *
+     * @param pushes where to send updates, on the thread that caused them
+     * @return the new session
+     */
+    public Session newSession(PushListener pushes) {
+        return new Session(this, pushes);
+    }
+
+    /**
+     * Returns the users, lobby and events of this server.
+     *
+     * @return the store
+     */
+    public SessionStore getStore() {
+        return this.store;
+    }
+
+    /**
+     * Returns the number of users logged in.
+     *
+     * @return the number of sessions with a user
+     */
+    public int getOnlineCount() {
+        return this.online.size();
+    }
+
+    /**
+     * Returns the number of requests waiting for a change right now, so that tests can tell when
+     * a request is being held.
+     *
+     * @return the number of held {@code REQUEST_MOVE} and {@code UPDATE_PAIRING} requests
+     */
+    int getHeldRequestCount() {
+        return this.heldRequests.get();
+    }
+
+    Response handle(Session session, Request request) {
+        RequestType type = request.getType();
+        if (type == null) {
+            return new Response(ResponseStatus.FAILURE, "Missing request type");
+        }
+
+        try {
+            switch (type) {
+                case NEGOTIATE_CODEC:
+                    return Codecs.forName(request.getData()) != null
+                            ? success()
+                            : new Response(ResponseStatus.FAILURE, "Unknown codec");
+                case REGISTER:
+                    return register(request);
+                case LOGIN:
+                    return login(session, request);
+                default:
+                    break;
+            }
+
+            Account account = session.account;
+            if (account == null) {
+                return failure(type, "Not logged in");
+            }
+            switch (type) {
+                case UPDATE_PAIRING:
+                    return updatePairing(account, request);
+                case SEND_INVITATION:
+                    return sendInvitation(account, request);
+                case ACCEPT_INVITATION:
+                    return acceptInvitation(account, parseEventId(request));
+                case DECLINE_INVITATION:
+                    return declineInvitation(account, parseEventId(request));
+                case ACKNOWLEDGE_RESPONSE:
+                    return acknowledgeResponse(account, parseEventId(request));
+                case REQUEST_MOVE:
+                    return requestMove(account, request);
+                case SEND_MOVE:
+                    return sendMove(account, request);
+                case ABORT_GAME:
+                    return endGame(account, EventStatus.ABORTED);
+                case COMPLETE_GAME:
+                    return endGame(account, EventStatus.COMPLETED);
+                case SUBSCRIBE:
+                    if (!session.canPush()) {
+                        return new Response(ResponseStatus.FAILURE, "This connection cannot receive pushed updates");
+                    }
+                    session.subscribed = true;
+                    return success();
+                default:
+                    return failure(type, "Unsupported request " + type);
+            }
+        } catch (JsonParseException | NumberFormatException ex) {
+            return failure(type, "Malformed data for " + type);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return failure(type, "Server shutting down");
+        }
+    }
+
+    /**
+     * Logs out the user of a session, if any: they leave the lobby, their game is aborted and
+     * their pending invitations are withdrawn.
+     */
+    void logout(Session session) {
+        Account account = session.account;
+        if (account == null || !this.online.remove(account.username, session)) {
+            return;
+        }
+        session.account = null;
+
+        int game = account.activeGame.getAndSet(Account.OFFLINE);
+        if (game > 0) {
+            finish(account, game, EventStatus.ABORTED);
+        }
+        for (int eventId : account.sentInvitations) {
+            synchronized (this.store.lockFor(eventId)) {
+                Event event = this.store.getEvent(eventId);
+                if (event.getStatus() == EventStatus.PENDING) {
+                    event.setStatus(EventStatus.ABORTED);
+                }
+            }
+        }
+        account.sentInvitations.clear();
+        publishPresence(account);
+        this.store.signalLobby();
+    }
+
+    private Response register(Request request) {
+        User user = this.gson.fromJson(request.getData(), User.class);
+        if (user == null || isBlank(user.getUsername()) || isBlank(user.getPassword())) {
+            return new Response(ResponseStatus.FAILURE, "Username and password are required");
+        }
+        if (!this.store.register(user.getUsername(), user.getPassword(), user.getDisplayName())) {
+            return new Response(ResponseStatus.FAILURE, "Username " + user.getUsername() + " is taken");
+        }
+        return success();
+    }
+
+    private Response login(Session session, Request request) {
+        User user = this.gson.fromJson(request.getData(), User.class);
+        if (session.account != null) {
+            return new Response(ResponseStatus.FAILURE, "Already logged in");
+        }
+        Account account = user == null ? null : this.store.authenticate(user.getUsername(), user.getPassword());
+        if (account == null) {
+            return new Response(ResponseStatus.FAILURE, "Invalid username or password");
+        }
+        if (this.online.putIfAbsent(account.username, session) != null) {
+            return new Response(ResponseStatus.FAILURE, account.username + " is already logged in");
+        }
+
+        session.account = account;
+        account.activeGame.set(0);
+        publishPresence(account);
+        return success();
+    }
+
+    private PairingResponse updatePairing(Account account, Request request) throws InterruptedException {
+        String data = request.getData();
+        PairingQuery query = isBlank(data) ? null : this.gson.fromJson(data, PairingQuery.class);
+        long deadline = System.currentTimeMillis() + Math.min(request.getWaitMillis(), MAX_WAIT_MILLIS);
+
+        long signal = this.store.getLobbySignal();
+        PairingResponse response = pairing(account, query);
+        long remaining = deadline - System.currentTimeMillis();
+        while (remaining > 0 && isUnchanged(response)) {
+            this.heldRequests.incrementAndGet();
+            try {
+                this.store.awaitLobbySignal(signal, remaining);
+            } finally {
+                this.heldRequests.decrementAndGet();
+            }
+            signal = this.store.getLobbySignal();
+            response = pairing(account, query);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return response;
+    }
+
+    private PairingResponse pairing(Account account, PairingQuery query) {
+        PairingResponse response = this.store.queryLobby(query, account.username);
+        response.setStatus(ResponseStatus.SUCCESS);
+        response.setInvitation(firstEvent(account.invitations, EventStatus.PENDING, null));
+        response.setInvitationResponse(firstEvent(account.sentInvitations, EventStatus.ACCEPTED, EventStatus.DECLINED));
+        return response;
+    }
+
+    /**
+     * Returns a copy of the oldest event in {@code eventIds} with one of the given statuses, and
+     * forgets the events that can no longer get either.
+     */
+    private Event firstEvent(Iterable<Integer> eventIds, EventStatus wanted, EventStatus alsoWanted) {
+        for (Iterator<Integer> iterator = eventIds.iterator(); iterator.hasNext(); ) {
+            int eventId = iterator.next();
+            synchronized (this.store.lockFor(eventId)) {
+                Event event = this.store.getEvent(eventId);
+                EventStatus status = event.getStatus();
+                if (status == wanted || status == alsoWanted) {
+                    return copyOf(event);
+                }
+                if (status != EventStatus.PENDING) {
+                    iterator.remove();
+                }
+            }
+        }
+        return null;
+    }
+
+    private Response sendInvitation(Account account, Request request) {
+        String username = request.getData();
+        if (username != null && username.startsWith("\"")) {
+            username = this.gson.fromJson(username, String.class);
+        }
+        Account opponent = this.store.getAccount(username);
+        if (opponent == null || opponent == account || !opponent.isAvailable()) {
+            return new Response(ResponseStatus.FAILURE, username + " is not available");
+        }
+        if (!account.isAvailable()) {
+            return new Response(ResponseStatus.FAILURE, "You are already in a game");
+        }
+
+        Event invitation = this.store.createEvent(account.username, opponent.username);
+        account.sentInvitations.add(invitation.getEventId());
+        opponent.invitations.add(invitation.getEventId());
+        this.store.signalLobby();
+        pushTo(opponent.username, new PushMessage(PushType.INVITATION, 0, invitation, null));
+        return success();
+    }
+
+    private Response acceptInvitation(Account account, int eventId) {
+        Event accepted;
+        Account sender;
+        synchronized (this.store.lockFor(eventId)) {
+            Event event = this.store.getEvent(eventId);
+            if (event == null || event.getStatus() != EventStatus.PENDING
+                    || !account.username.equals(event.getOpponent())) {
+                return new Response(ResponseStatus.FAILURE, "No pending invitation " + eventId);
+            }
+            sender = this.store.getAccount(event.getSender());
+            if (!account.activeGame.compareAndSet(0, eventId)) {
+                return new Response(ResponseStatus.FAILURE, "You are already in a game");
+            }
+            if (!sender.activeGame.compareAndSet(0, eventId)) {
+                account.activeGame.set(0);
+                event.setStatus(EventStatus.ABORTED);
+                return new Response(ResponseStatus.FAILURE, sender.username + " is no longer available");
+            }
+            event.setStatus(EventStatus.ACCEPTED);
+            account.currentGame = eventId;
+            sender.currentGame = eventId;
+            accepted = copyOf(event);
+        }
+
+        publishPresence(account);
+        publishPresence(sender);
+        pushTo(sender.username, new PushMessage(PushType.INVITATION_RESPONSE, 0, accepted, null));
+        return success();
+    }
+
+    private Response declineInvitation(Account account, int eventId) {
+        Event declined;
+        synchronized (this.store.lockFor(eventId)) {
+            Event event = this.store.getEvent(eventId);
+            if (event == null || event.getStatus() != EventStatus.PENDING
+                    || !account.username.equals(event.getOpponent())) {
+                return new Response(ResponseStatus.FAILURE, "No pending invitation " + eventId);
+            }
+            event.setStatus(EventStatus.DECLINED);
+            declined = copyOf(event);
+        }
+
+        this.store.signalLobby();
+        pushTo(declined.getSender(), new PushMessage(PushType.INVITATION_RESPONSE, 0, declined, null));
+        return success();
+    }
+
+    private Response acknowledgeResponse(Account account, int eventId) {
+        synchronized (this.store.lockFor(eventId)) {
+            Event event = this.store.getEvent(eventId);
+            if (event == null || !account.username.equals(event.getSender())) {
+                return new Response(ResponseStatus.FAILURE, "No answer to invitation " + eventId);
+            }
+            if (event.getStatus() == EventStatus.ACCEPTED) {
+                event.setStatus(EventStatus.PLAYING);
+            } else if (event.getStatus() == EventStatus.DECLINED) {
+                event.setStatus(EventStatus.ABORTED);
+            } else {
+                return new Response(ResponseStatus.FAILURE, "No answer to invitation " + eventId);
+            }
+        }
+        return success();
+    }
+
+    private GamingResponse requestMove(Account account, Request request) throws InterruptedException {
+        int eventId = account.currentGame;
+        if (eventId == 0) {
+            return gaming(-1, false, "No game in progress");
+        }
+        long deadline = System.currentTimeMillis() + Math.min(request.getWaitMillis(), MAX_WAIT_MILLIS);
+
+        Object lock = this.store.lockFor(eventId);
+        synchronized (lock) {
+            Event event = this.store.getEvent(eventId);
+            while (true) {
+                // The winning move ends the game on the mover's side first, so deliver it before
+                // reporting the end
+                if (event.getMove() >= 0 && event.getTurn() != null && !event.getTurn().equals(account.username)) {
+                    int move = event.getMove();
+                    event.setMove(-1); // delivered
+                    return gaming(move, true, null);
+                }
+                if (event.getStatus() == EventStatus.ABORTED) {
+                    return gaming(-1, false, "The game was aborted");
+                }
+                if (event.getStatus() == EventStatus.COMPLETED) {
+                    return gaming(-1, false, "The game is over");
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return gaming(-1, true, null);
+                }
+                this.heldRequests.incrementAndGet();
+                try {
+                    lock.wait(remaining);
+                } finally {
+                    this.heldRequests.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private GamingResponse sendMove(Account account, Request request) {
+        int move = Integer.parseInt(request.getData().trim());
+        int eventId = account.activeGame.get();
+        if (move < 0) {
+            return failure(RequestType.SEND_MOVE, "Invalid move " + move);
+        }
+        if (eventId <= 0) {
+            return failure(RequestType.SEND_MOVE, "No game in progress");
+        }
+
+        String opponent;
+        boolean pushed;
+        Object lock = this.store.lockFor(eventId);
+        synchronized (lock) {
+            Event event = this.store.getEvent(eventId);
+            if (event.getStatus() != EventStatus.ACCEPTED && event.getStatus() != EventStatus.PLAYING) {
+                return failure(RequestType.SEND_MOVE, "The game is over");
+            }
+            boolean myTurn = event.getTurn() == null
+                    ? account.username.equals(event.getSender())
+                    : !event.getTurn().equals(account.username);
+            if (!myTurn) {
+                return failure(RequestType.SEND_MOVE, "It is not your turn");
+            }
+
+            opponent = otherPlayer(event, account.username);
+            Session session = this.online.get(opponent);
+            pushed = session != null && session.subscribed;
+            event.setTurn(account.username);
+            event.setMove(pushed ? -1 : move); // a pushed move is delivered already
+            lock.notifyAll();
+        }
+
+        if (pushed) {
+            pushTo(opponent, new PushMessage(PushType.MOVE, move, null, null));
+        }
+        return gaming(move, true, null);
+    }
+
+    private Response endGame(Account account, EventStatus status) {
+        int eventId = account.activeGame.get();
+        if (eventId <= 0 && status == EventStatus.COMPLETED && account.currentGame != 0
+                && copyOf(account.currentGame).getStatus() == EventStatus.COMPLETED) {
+            return success(); // Both players report the end of the game; the first one ended it
+        }
+        if (eventId <= 0 || !account.activeGame.compareAndSet(eventId, 0)) {
+            return new Response(ResponseStatus.FAILURE, "No game in progress");
+        }
+        finish(account, eventId, status);
+        return success();
+    }
+
+    /**
+     * Ends a game that {@code account} already left: records the outcome if the game was still on,
+     * frees the other player and tells everyone concerned.
+     */
+    private void finish(Account account, int eventId, EventStatus status) {
+        Event ended = null;
+        Object lock = this.store.lockFor(eventId);
+        synchronized (lock) {
+            Event event = this.store.getEvent(eventId);
+            if (event.getStatus() == EventStatus.ACCEPTED || event.getStatus() == EventStatus.PLAYING) {
+                event.setStatus(status);
+                lock.notifyAll();
+                ended = copyOf(event);
+            }
+        }
+        publishPresence(account);
+
+        Account other = this.store.getAccount(otherPlayer(ended != null ? ended : copyOf(eventId), account.username));
+        if (other != null && other.activeGame.compareAndSet(eventId, 0)) {
+            publishPresence(other);
+        }
+        if (ended != null && status == EventStatus.ABORTED && other != null) {
+            PushMessage message = new PushMessage(PushType.GAME_ENDED, 0, ended, null);
+            message.setMessage(account.username + " left the game");
+            pushTo(other.username, message);
+        }
+    }
+
+    private Event copyOf(int eventId) {
+        synchronized (this.store.lockFor(eventId)) {
+            return copyOf(this.store.getEvent(eventId));
+        }
+    }
+
+    /**
+     * Brings the lobby in line with whether the user is available and tells subscribers if that
+     * changed.
+     */
+    private void publishPresence(Account account) {
+        User user = this.store.updatePresence(account);
+        if (user == null) {
+            return;
+        }
+        PushMessage message = new PushMessage(PushType.PRESENCE, 0, null, user);
+        for (Session session : this.online.values()) {
+            if (!account.username.equals(session.getUsername())) {
+                session.push(message);
+            }
+        }
+    }
+
+    private void pushTo(String username, PushMessage message) {
+        Session session = username == null ? null : this.online.get(username);
+        if (session != null) {
+            session.push(message);
+        }
+    }
+
+    private static int parseEventId(Request request) {
+        String data = request.getData();
+        if (data == null) {
+            throw new NumberFormatException("Missing event id");
+        }
+        return Integer.parseInt(data.trim());
+    }
+
+    private static boolean isUnchanged(PairingResponse response) {
+        return !response.isSnapshot()
+                && response.getAvailableUsers().isEmpty()
+                && response.getRemovedUsernames().isEmpty()
+                && response.getInvitation() == null
+                && response.getInvitationResponse() == null;
+    }
+
+    private static String otherPlayer(Event event, String username) {
+        return username.equals(event.getSender()) ? event.getOpponent() : event.getSender();
+    }
+
+    private static Event copyOf(Event event) {
+        return new Event(event.getEventId(), event.getSender(), event.getOpponent(), event.getStatus(),
+                event.getTurn(), event.getMove());
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.trim().isEmpty();
+    }
+
+    private static Response success() {
+        return new Response(ResponseStatus.SUCCESS, null);
+    }
+
+    private static GamingResponse gaming(int move, boolean active, String message) {
+        GamingResponse response = new GamingResponse(move, active);
+        response.setStatus(ResponseStatus.SUCCESS);
+        response.setMessage(message);
+        return response;
+    }
+
+    /**
+     * Returns a failure of the class the client decodes the answer to {@code type} as.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Response> T failure(RequestType type, String message) {
+        Response response;
+        if (type == RequestType.UPDATE_PAIRING) {
+            response = new PairingResponse();
+        } else if (type == RequestType.REQUEST_MOVE || type == RequestType.SEND_MOVE) {
+            response = new GamingResponse(-1, false);
+        } else {
+            response = new Response();
+        }
+        response.setStatus(ResponseStatus.FAILURE);
+        response.setMessage(message);
+        return (T) response;
+    }
+}
@@ -0,0 +1,64 @@
+package clarkson.ee408.tictactoev4.server;
+
+import clarkson.ee408.tictactoev4.client.PushListener;
+import clarkson.ee408.tictactoev4.client.RequestHandler;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.Response;
+
+/**
+ * One client connection to a {@link GameServer}: remembers who logged in on it and whether it
+ * subscribed to pushed updates. Closing the session logs the user out, which aborts their game.
+ * <p>
+ * Sessions are {@link RequestHandler}s, so a {@code LoopbackTransport} can talk to the server
+ * without a socket: {@code new LoopbackTransport(server::newSession)}.
+ */
+public final class Session implements RequestHandler {
+
+    private final GameServer server;
+    private final PushListener pushes;
+
+    volatile Account account;
+    volatile boolean subscribed;
+
+    Session(GameServer server, PushListener pushes) {
+        this.server = server;
+        this.pushes = pushes;
+    }
+
+    @Override
+    public Response handle(Request request) {
+        return this.server.handle(this, request);
+    }
+
+    @Override
+    public void close() {
+        this.server.logout(this);
+    }
+
+    /**
+     * Returns the user logged in on this session.
+     *
+     * @return the username, or null before a successful LOGIN
+     */
+    public String getUsername() {
+        Account account = this.account;
+        return account == null ? null : account.username;
+    }
+
+    /**
+     * Returns whether updates can be pushed on this session's connection.
+     */
+    boolean canPush() {
+        return this.pushes != null;
+    }
+
+    /**
+     * Pushes an update to the client if it subscribed.
+     */
+    void push(PushMessage message) {
+        if (this.subscribed) {
+            this.pushes.onPush(message);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package clarkson.ee408.tictactoev4.server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import clarkson.ee408.tictactoev4.model.Event;
+import clarkson.ee408.tictactoev4.model.EventStatus;
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.PairingQuery;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+
+/**
+ * The server's state, kept in memory instead of a database: registered users, the lobby of
+ * available users, and game events.
+ * <p>
+ * Events live in a concurrent map and are guarded by striped locks: the monitor of
+ * {@link #lockFor(int)} must be held to read or change an event, and is notified whenever one of
+ * its events changes, so requests waiting for a move can wait on it. Requests about different
+ * games almost never share a stripe, so thousands of games run without contending, while the
+ * number of lock objects stays fixed however many events there are.
+ * <p>
+ * The lobby is a sorted concurrent map, read without locks for snapshots and ranges. Changes to it
+ * are serialized under one lock and numbered by a presence version, with a bounded log of the
+ * usernames that changed, so an {@code UPDATE_PAIRING} from a client that holds a recent version
+ * is answered with only what changed since. Presence changes only on login, logout and the start
+ * and end of games, which are rare next to the polls that read it.
+ */
+public final class SessionStore {
+
+    /**
+     * The number of event lock stripes, a power of two.
+     */
+    private static final int LOCK_STRIPES = 256;
+
+    /**
+     * How many presence changes are remembered for deltas.
+     */
+    private static final int PRESENCE_LOG_SIZE = 4096;
+
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private final Map<Integer, Event> events = new ConcurrentHashMap<>();
+    private final Object[] eventLocks = new Object[LOCK_STRIPES];
+    private final AtomicInteger nextEventId = new AtomicInteger();
+
+    private final NavigableMap<String, User> lobby = new ConcurrentSkipListMap<>();
+    private final Object lobbyLock = new Object();
+    private final String[] presenceLog = new String[PRESENCE_LOG_SIZE]; // version % size -> username
+    private volatile long presenceVersion;
+    private long lobbySignal; // counts lobby changes, invitations and answers; guarded by lobbyLock
+
+    /**
+     * Creates an empty store.
+     */
+    public SessionStore() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.eventLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Registers a new user.
+     *
+     * @param username the unique username
+     * @param password the password to log in with
+     * @param displayName the name shown to other players, or null to show the username
+     * @return true if the user was registered, false if the username is taken
+     */
+    public boolean register(String username, String password, String displayName) {
+        Account account = new Account(username, password, displayName == null ? username : displayName);
+        return this.accounts.putIfAbsent(username, account) == null;
+    }
+
+    /**
+     * Returns the number of registered users.
+     *
+     * @return the number of accounts
+     */
+    public int getAccountCount() {
+        return this.accounts.size();
+    }
+
+    /**
+     * Returns the number of users in the lobby.
+     *
+     * @return the number of users available to play
+     */
+    public int getLobbySize() {
+        return this.lobby.size();
+    }
+
+    /**
+     * Returns the number of events created so far.
+     *
+     * @return the number of invitations, whatever became of them
+     */
+    public int getEventCount() {
+        return this.events.size();
+    }
+
+    /**
+     * Returns the presence version of the lobby.
+     *
+     * @return the number of changes made to the lobby so far
+     */
+    public long getPresenceVersion() {
+        return this.presenceVersion;
+    }
+
+    Account getAccount(String username) {
+        return username == null ? null : this.accounts.get(username);
+    }
+
+    Account authenticate(String username, String password) {
+        Account account = getAccount(username);
+        return account != null && account.password.equals(password) ? account : null;
+    }
+
+    /**
+     * Creates a PENDING invitation.
+     */
+    Event createEvent(String sender, String opponent) {
+        int eventId = this.nextEventId.incrementAndGet();
+        Event event = new Event(eventId, sender, opponent, EventStatus.PENDING, null, -1);
+        synchronized (lockFor(eventId)) {
+            this.events.put(eventId, event);
+        }
+        return event;
+    }
+
+    /**
+     * Returns the lock guarding an event. Callers must hold it while they use the event.
+     */
+    Object lockFor(int eventId) {
+        int h = eventId * 0x9E3779B9;
+        return this.eventLocks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Returns an event; the caller must hold {@link #lockFor(int)}.
+     */
+    Event getEvent(int eventId) {
+        return this.events.get(eventId);
+    }
+
+    /**
+     * Puts the user in the lobby or takes them out of it, to match {@link Account#isAvailable()}.
+     * Safe to call more than once; only real changes get a new presence version.
+     *
+     * @return the user as listed in the lobby, with its online flag telling whether they are
+     *      available, or null if nothing changed
+     */
+    User updatePresence(Account account) {
+        synchronized (this.lobbyLock) {
+            boolean available = account.isAvailable();
+            if (available == this.lobby.containsKey(account.username)) {
+                return null;
+            }
+
+            User user = new User(account.username, null, account.displayName, available);
+            if (available) {
+                this.lobby.put(account.username, user);
+            } else {
+                this.lobby.remove(account.username);
+            }
+            long version = this.presenceVersion + 1;
+            this.presenceLog[(int) (version % PRESENCE_LOG_SIZE)] = account.username;
+            this.presenceVersion = version;
+            signalLobbyLocked();
+            return user;
+        }
+    }
+
+    /**
+     * Wakes the {@code UPDATE_PAIRING} requests waiting for a change, e.g. after an invitation.
+     */
+    void signalLobby() {
+        synchronized (this.lobbyLock) {
+            signalLobbyLocked();
+        }
+    }
+
+    /**
+     * Returns the number of lobby signals so far, to wait for the next one.
+     */
+    long getLobbySignal() {
+        synchronized (this.lobbyLock) {
+            return this.lobbySignal;
+        }
+    }
+
+    /**
+     * Waits until the lobby is signalled after {@code seen} or the time is up.
+     *
+     * @param seen the value of {@link #getLobbySignal()} the caller last acted on
+     * @param waitMillis the longest wait
+     */
+    void awaitLobbySignal(long seen, long waitMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        synchronized (this.lobbyLock) {
+            long remaining = waitMillis;
+            while (this.lobbySignal == seen && remaining > 0) {
+                this.lobbyLock.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Answers the lobby part of an {@code UPDATE_PAIRING} query, leaving out the user asking.
+     *
+     * @param query the query, or null for the whole lobby
+     * @param self the username of the user asking
+     * @return a response with the available users, either a snapshot or the changes since the
+     *      version of the query
+     */
+    PairingResponse queryLobby(PairingQuery query, String self) {
+        if (query == null) {
+            query = new PairingQuery();
+        }
+        String after = query.getAfter();
+        String through = query.getThrough();
+        String prefix = query.getPrefix();
+        if (after != null && through != null && through.compareTo(after) <= 0) {
+            // An empty range
+            return lobbyResponse(new ArrayList<>(), null, this.presenceVersion, 0, null);
+        }
+
+        if (query.getPresenceVersion() > 0 && query.getPageSize() == 0) {
+            PairingResponse delta = changesSince(query.getPresenceVersion(), after, through, prefix, self);
+            if (delta != null) {
+                return delta;
+            }
+        }
+
+        // Read the version first: the snapshot may then include later changes, which clients
+        // apply again harmlessly, but never misses one
+        long version = this.presenceVersion;
+        List<User> users = new ArrayList<>();
+        String nextCursor = null;
+        for (User user : range(after, through).values()) {
+            if (user.getUsername().equals(self) || !matches(user, prefix)) {
+                continue;
+            }
+            if (query.getPageSize() > 0 && users.size() == query.getPageSize()) {
+                nextCursor = users.get(users.size() - 1).getUsername();
+                break;
+            }
+            users.add(user);
+        }
+        return lobbyResponse(users, null, version, 0, nextCursor);
+    }
+
+    /**
+     * Returns the users in the range that changed since {@code version}, or null if that version
+     * is no longer in the log.
+     */
+    private PairingResponse changesSince(long version, String after, String through, String prefix, String self) {
+        synchronized (this.lobbyLock) {
+            long current = this.presenceVersion;
+            if (version > current || current - version > PRESENCE_LOG_SIZE) {
+                return null;
+            }
+
+            Set<String> changed = new LinkedHashSet<>();
+            for (long v = version + 1; v <= current; v++) {
+                changed.add(this.presenceLog[(int) (v % PRESENCE_LOG_SIZE)]);
+            }
+            List<User> users = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            for (String username : changed) {
+                if (username.equals(self) || (after != null && username.compareTo(after) <= 0)
+                        || (through != null && username.compareTo(through) > 0)) {
+                    continue;
+                }
+                User user = this.lobby.get(username);
+                if (user == null) {
+                    removed.add(username);
+                } else if (matches(user, prefix)) {
+                    users.add(user);
+                }
+            }
+            return lobbyResponse(users, removed, current, version, null);
+        }
+    }
+
+    private NavigableMap<String, User> range(String after, String through) {
+        NavigableMap<String, User> range = after == null ? this.lobby : this.lobby.tailMap(after, false);
+        return through == null ? range : range.headMap(through, true);
+    }
+
+    private void signalLobbyLocked() {
+        this.lobbySignal++;
+        this.lobbyLock.notifyAll();
+    }
+
+    private static boolean matches(User user, String prefix) {
+        return prefix == null || prefix.isEmpty()
+                || user.getUsername().regionMatches(true, 0, prefix, 0, prefix.length())
+                || (user.getDisplayName() != null
+                        && user.getDisplayName().regionMatches(true, 0, prefix, 0, prefix.length()));
+    }
+
+    private static PairingResponse lobbyResponse(List<User> users, List<String> removed, long version,
+                                                 long baseVersion, String nextCursor) {
+        PairingResponse response = new PairingResponse(users, null, null);
+        response.setRemovedUsernames(removed);
+        response.setPresenceVersion(version);
+        response.setBaseVersion(baseVersion);
+        response.setNextCursor(nextCursor);
+        return response;
+    }
+}
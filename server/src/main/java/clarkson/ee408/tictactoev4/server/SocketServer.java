@@ -0,0 +1,214 @@
+package clarkson.ee408.tictactoev4.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import clarkson.ee408.tictactoev4.client.Log;
+import clarkson.ee408.tictactoev4.codec.Codecs;
+import clarkson.ee408.tictactoev4.codec.JsonCodec;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * Serves a {@link GameServer} over TCP with the framing the client speaks: JSON until a
+ * connection negotiates another codec, correlation ids echoed back, and pushed updates with id 0
+ * on connections that subscribe.
+ * <p>
+ * Each connection gets a reader thread with a small stack, so thousands of idle clients cost
+ * little memory. Requests without an id are answered in order on that thread, as non-multiplexed
+ * clients expect. Requests with an id come from multiplexed clients that may hold a long poll
+ * open while sending others, so they are handed to a shared worker pool and answered as they
+ * finish.
+ */
+public final class SocketServer implements Closeable {
+
+    private static final String TAG = "SocketServer";
+
+    /**
+     * The port used when none is given, the one the client connects to by default.
+     */
+    public static final int DEFAULT_PORT = 5000;
+
+    private static final int BACKLOG = 1024;
+    private static final long READER_STACK_SIZE = 256 * 1024;
+
+    private final GameServer server;
+    private final ServerSocket serverSocket;
+    private final ExecutorService workers;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextConnectionId = new AtomicInteger();
+
+    /**
+     * Starts serving on a port.
+     *
+     * @param server the server that answers requests
+     * @param port the port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public SocketServer(GameServer server, int port) throws IOException {
+        this.server = server;
+        this.serverSocket = new ServerSocket(port, BACKLOG);
+        this.workers = Executors.newCachedThreadPool(task -> newThread(task, "SocketServer-worker"));
+        newThread(this::acceptLoop, "SocketServer-accept").start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of open connections.
+     *
+     * @return the number of connected clients
+     */
+    public int getConnectionCount() {
+        return this.connections.size();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones, logging their users out.
+     */
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        for (Connection connection : this.connections) {
+            connection.close();
+        }
+        this.workers.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        try {
+            while (!this.serverSocket.isClosed()) {
+                Socket socket = this.serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                this.connections.add(connection);
+                newThread(connection::serve, "SocketServer-" + this.nextConnectionId.incrementAndGet()).start();
+            }
+        } catch (IOException ex) {
+            if (!this.serverSocket.isClosed()) {
+                Log.e(TAG, "Stopped accepting connections", ex);
+            }
+        }
+    }
+
+    private static Thread newThread(Runnable task, String name) {
+        Thread thread = new Thread(null, task, name, READER_STACK_SIZE);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Runs a server until the process is killed.
+     *
+     * @param args the port to listen on, {@value #DEFAULT_PORT} if omitted
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        SocketServer socketServer = new SocketServer(new GameServer(), port);
+        Log.i(TAG, "Listening on port " + socketServer.getPort());
+        Thread.currentThread().join();
+    }
+
+    private final class Connection {
+        private final Socket socket;
+        private final Session session;
+        private volatile MessageCodec codec = new JsonCodec();
+        private DataOutputStream out;
+
+        private Connection(Socket socket) {
+            this.socket = socket;
+            this.session = server.newSession(this::push);
+        }
+
+        private void serve() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+                this.out = new DataOutputStream(new BufferedOutputStream(this.socket.getOutputStream()));
+                while (true) {
+                    Request request = this.codec.readRequest(in);
+                    if (request.getId() == 0 || request.getType() == RequestType.NEGOTIATE_CODEC) {
+                        // NEGOTIATE_CODEC changes how the next request is read, so it cannot wait
+                        answer(request);
+                    } else {
+                        workers.execute(() -> answerOrClose(request));
+                    }
+                }
+            } catch (EOFException ex) {
+                // Client disconnected
+            } catch (IOException ex) {
+                if (!this.socket.isClosed()) {
+                    Log.w(TAG, "Connection failed: " + ex.getMessage());
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private void answer(Request request) throws IOException {
+            Response response = this.session.handle(request);
+            response.setId(request.getId());
+            synchronized (this) {
+                this.codec.writeResponse(this.out, response);
+                this.out.flush();
+                if (request.getType() == RequestType.NEGOTIATE_CODEC && response.getStatus() == ResponseStatus.SUCCESS) {
+                    this.codec = Codecs.forName(request.getData());
+                }
+            }
+        }
+
+        private void answerOrClose(Request request) {
+            try {
+                answer(request);
+            } catch (IOException ex) {
+                close();
+            }
+        }
+
+        private void push(PushMessage message) {
+            try {
+                synchronized (this) {
+                    this.codec.writeResponse(this.out, message);
+                    this.out.flush();
+                }
+            } catch (IOException ex) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (!connections.remove(this)) {
+                return;
+            }
+            try {
+                this.socket.close();
+            } catch (IOException ex) {
+                // Already closed
+            }
+            this.session.close();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package clarkson.ee408.tictactoev4.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import clarkson.ee408.tictactoev4.client.LoopbackTransport;
+import clarkson.ee408.tictactoev4.codec.BinaryCodec;
+import clarkson.ee408.tictactoev4.model.Event;
+import clarkson.ee408.tictactoev4.model.EventStatus;
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.GamingResponse;
+import clarkson.ee408.tictactoev4.socket.PairingQuery;
+import clarkson.ee408.tictactoev4.socket.PairingResponse;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * Plays through the protocol against a {@link GameServer} in process, one
+ * {@link LoopbackTransport} per client.
+ */
+public class GameServerTest {
+
+    private final GameServer server = new GameServer();
+    private final Gson gson = new Gson();
+    private final List<LoopbackTransport> clients = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        for (LoopbackTransport client : this.clients) {
+            client.close();
+        }
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void registrationAndLogin() throws Exception {
+        LoopbackTransport alice = connect();
+        User user = new User("alice", "secret", "Alice", false);
+
+        assertEquals(ResponseStatus.SUCCESS, send(alice, RequestType.REGISTER, this.gson.toJson(user)).getStatus());
+        assertEquals(ResponseStatus.FAILURE, send(alice, RequestType.REGISTER, this.gson.toJson(user)).getStatus());
+        assertEquals(ResponseStatus.FAILURE, send(alice, RequestType.LOGIN,
+                this.gson.toJson(new User("alice", "wrong", null, false))).getStatus());
+
+        PairingResponse notLoggedIn = alice.sendRequest(new Request(RequestType.UPDATE_PAIRING, null), PairingResponse.class);
+        assertEquals(ResponseStatus.FAILURE, notLoggedIn.getStatus());
+
+        assertEquals(ResponseStatus.SUCCESS, send(alice, RequestType.LOGIN, this.gson.toJson(user)).getStatus());
+        assertEquals(ResponseStatus.FAILURE, send(connect(), RequestType.LOGIN, this.gson.toJson(user)).getStatus());
+        assertEquals(1, this.server.getOnlineCount());
+        assertEquals(1, this.server.getStore().getLobbySize());
+    }
+
+    @Test
+    public void invitationAcceptedAndGamePlayedToTheEnd() throws Exception {
+        LoopbackTransport alice = login("alice");
+        LoopbackTransport bob = login("bob");
+
+        PairingResponse lobby = pairing(alice, null);
+        assertEquals(1, lobby.getAvailableUsers().size());
+        assertEquals("bob", lobby.getAvailableUsers().get(0).getUsername());
+
+        assertSuccess(send(alice, RequestType.SEND_INVITATION, "bob"));
+        Event invitation = pairing(bob, null).getInvitation();
+        assertNotNull(invitation);
+        assertEquals(EventStatus.PENDING, invitation.getStatus());
+        assertEquals("alice", invitation.getSender());
+
+        assertSuccess(send(bob, RequestType.ACCEPT_INVITATION, String.valueOf(invitation.getEventId())));
+        Event answer = pairing(alice, null).getInvitationResponse();
+        assertEquals(EventStatus.ACCEPTED, answer.getStatus());
+        assertSuccess(send(alice, RequestType.ACKNOWLEDGE_RESPONSE, String.valueOf(answer.getEventId())));
+        assertEquals(0, this.server.getStore().getLobbySize());
+
+        // The sender moves first, then turns alternate
+        assertEquals(ResponseStatus.FAILURE, move(bob, 0).getStatus());
+        assertSuccess(move(alice, 4));
+        assertEquals(ResponseStatus.FAILURE, move(alice, 5).getStatus());
+        GamingResponse received = requestMove(bob, 0);
+        assertEquals(4, received.getMove());
+        assertTrue(received.getActive());
+        assertEquals(-1, requestMove(bob, 0).getMove());
+
+        assertSuccess(move(bob, 0));
+        assertEquals(0, requestMove(alice, 0).getMove());
+
+        assertSuccess(send(alice, RequestType.COMPLETE_GAME, null));
+        assertSuccess(send(bob, RequestType.COMPLETE_GAME, null));
+        assertFalse(requestMove(bob, 0).getActive());
+        assertEquals(2, this.server.getStore().getLobbySize());
+    }
+
+    @Test
+    public void theLastMoveReachesTheOtherPlayerAfterTheGameEnds() throws Exception {
+        LoopbackTransport alice = login("alice");
+        LoopbackTransport bob = login("bob");
+        startGame(alice, bob);
+
+        assertSuccess(move(alice, 4));
+        assertSuccess(send(alice, RequestType.COMPLETE_GAME, null));
+
+        GamingResponse last = requestMove(bob, 0);
+        assertEquals(4, last.getMove());
+        assertTrue(last.getActive());
+        assertFalse(requestMove(bob, 0).getActive());
+    }
+
+    @Test
+    public void declinedInvitationIsAbortedOnceAcknowledged() throws Exception {
+        LoopbackTransport alice = login("alice");
+        LoopbackTransport bob = login("bob");
+
+        assertSuccess(send(alice, RequestType.SEND_INVITATION, this.gson.toJson("bob")));
+        int eventId = pairing(bob, null).getInvitation().getEventId();
+        assertSuccess(send(bob, RequestType.DECLINE_INVITATION, String.valueOf(eventId)));
+        assertNull(pairing(bob, null).getInvitation());
+        assertEquals(ResponseStatus.FAILURE, send(bob, RequestType.ACCEPT_INVITATION, String.valueOf(eventId)).getStatus());
+
+        assertEquals(EventStatus.DECLINED, pairing(alice, null).getInvitationResponse().getStatus());
+        assertSuccess(send(alice, RequestType.ACKNOWLEDGE_RESPONSE, String.valueOf(eventId)));
+        assertNull(pairing(alice, null).getInvitationResponse());
+        assertEquals(2, this.server.getStore().getLobbySize());
+    }
+
+    @Test
+    public void aPlayerCanOnlyJoinOneGame() throws Exception {
+        LoopbackTransport alice = login("alice");
+        LoopbackTransport bob = login("bob");
+        LoopbackTransport carol = login("carol");
+
+        assertSuccess(send(alice, RequestType.SEND_INVITATION, "carol"));
+        assertSuccess(send(bob, RequestType.SEND_INVITATION, "carol"));
+        int first = pairing(carol, null).getInvitation().getEventId();
+        assertSuccess(send(carol, RequestType.ACCEPT_INVITATION, String.valueOf(first)));
+
+        Event second = pairing(carol, null).getInvitation();
+        assertNotNull(second);
+        assertEquals("bob", second.getSender());
+        assertEquals(ResponseStatus.FAILURE, send(carol, RequestType.ACCEPT_INVITATION,
+                String.valueOf(second.getEventId())).getStatus());
+        assertEquals(ResponseStatus.FAILURE, send(bob, RequestType.SEND_INVITATION, "alice").getStatus());
+    }
+
+    @Test
+    public void loggingOutAbortsTheGame() throws Exception {
+        LoopbackTransport alice = login("alice");
+        LoopbackTransport bob = login("bob");
+        startGame(alice, bob);
+
+        bob.close();
+        GamingResponse response = requestMove(alice, 0);
+        assertFalse(response.getActive());
+        assertEquals(ResponseStatus.FAILURE, move(alice, 4).getStatus());
+        assertEquals(1, this.server.getOnlineCount());
+        assertEquals(1, this.server.getStore().getLobbySize());
+    }
+
+    @Test
+    public void lobbyQueriesWithAVersionGetOnlyTheChanges() throws Exception {
+        LoopbackTransport alice = login("alice");
+        login("bob");
+        PairingResponse snapshot = pairing(alice, null);
+        assertTrue(snapshot.isSnapshot());
+
+        LoopbackTransport carol = login("carol");
+        PairingQuery query = new PairingQuery();
+        query.setPresenceVersion(snapshot.getPresenceVersion());
+        PairingResponse delta = pairing(alice, query);
+        assertFalse(delta.isSnapshot());
+        assertEquals(1, delta.getAvailableUsers().size());
+        assertEquals("carol", delta.getAvailableUsers().get(0).getUsername());
+
+        carol.close();
+        query.setPresenceVersion(delta.getPresenceVersion());
+        assertEquals(Collections.singletonList("carol"), pairing(alice, query).getRemovedUsernames());
+    }
+
+    @Test
+    public void heldRequestsWakeUpOnChanges() throws Exception {
+        LoopbackTransport alice = login("alice");
+        LoopbackTransport bob = login("bob");
+        PairingQuery query = new PairingQuery();
+        query.setPresenceVersion(pairing(bob, null).getPresenceVersion());
+
+        Future<PairingResponse> heldPairing = this.executor.submit(() -> {
+            Request request = new Request(RequestType.UPDATE_PAIRING, this.gson.toJson(query));
+            request.setWaitMillis(10000);
+            return bob.sendRequest(request, PairingResponse.class);
+        });
+        awaitHeldRequest();
+        assertFalse(heldPairing.isDone());
+        assertSuccess(send(alice, RequestType.SEND_INVITATION, "bob"));
+        Event invitation = heldPairing.get(5, TimeUnit.SECONDS).getInvitation();
+        assertNotNull(invitation);
+
+        assertSuccess(send(bob, RequestType.ACCEPT_INVITATION, String.valueOf(invitation.getEventId())));
+        Future<GamingResponse> heldMove = this.executor.submit(() -> requestMove(bob, 10000));
+        awaitHeldRequest();
+        assertFalse(heldMove.isDone());
+        assertSuccess(move(alice, 8));
+        assertEquals(8, heldMove.get(5, TimeUnit.SECONDS).getMove());
+    }
+
+    @Test
+    public void malformedRequestsFail() throws Exception {
+        LoopbackTransport alice = login("alice");
+        assertEquals(ResponseStatus.FAILURE, send(alice, RequestType.ACCEPT_INVITATION, "x").getStatus());
+        assertEquals(ResponseStatus.FAILURE, send(alice, RequestType.ACCEPT_INVITATION, null).getStatus());
+        assertEquals(ResponseStatus.FAILURE, move(alice, 4).getStatus());
+        assertEquals(ResponseStatus.FAILURE, send(alice, RequestType.SUBSCRIBE, null).getStatus());
+        assertEquals(ResponseStatus.FAILURE, send(alice, null, null).getStatus());
+        assertEquals(ResponseStatus.SUCCESS, send(alice, RequestType.NEGOTIATE_CODEC, BinaryCodec.NAME).getStatus());
+    }
+
+    /**
+     * Waits until the server holds a request, so that what happens next is a change to wake it.
+     */
+    private void awaitHeldRequest() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.server.getHeldRequestCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, this.server.getHeldRequestCount());
+    }
+
+    private void startGame(LoopbackTransport sender, LoopbackTransport opponent) throws IOException {
+        String opponentName = pairing(sender, null).getAvailableUsers().get(0).getUsername();
+        assertSuccess(send(sender, RequestType.SEND_INVITATION, opponentName));
+        int eventId = pairing(opponent, null).getInvitation().getEventId();
+        assertSuccess(send(opponent, RequestType.ACCEPT_INVITATION, String.valueOf(eventId)));
+        assertSuccess(send(sender, RequestType.ACKNOWLEDGE_RESPONSE, String.valueOf(eventId)));
+    }
+
+    private LoopbackTransport connect() {
+        LoopbackTransport client = new LoopbackTransport(this.server::newSession);
+        this.clients.add(client);
+        return client;
+    }
+
+    private LoopbackTransport login(String username) throws IOException {
+        this.server.getStore().register(username, "secret", null);
+        LoopbackTransport client = connect();
+        assertSuccess(send(client, RequestType.LOGIN, this.gson.toJson(new User(username, "secret", null, false))));
+        return client;
+    }
+
+    private PairingResponse pairing(LoopbackTransport client, PairingQuery query) throws IOException {
+        PairingResponse response = client.sendRequest(
+                new Request(RequestType.UPDATE_PAIRING, query == null ? null : this.gson.toJson(query)),
+                PairingResponse.class);
+        assertSuccess(response);
+        return response;
+    }
+
+    private GamingResponse move(LoopbackTransport client, int move) throws IOException {
+        return client.sendRequest(new Request(RequestType.SEND_MOVE, String.valueOf(move)), GamingResponse.class);
+    }
+
+    private GamingResponse requestMove(LoopbackTransport client, int waitMillis) throws IOException {
+        Request request = new Request(RequestType.REQUEST_MOVE, null);
+        request.setWaitMillis(waitMillis);
+        return client.sendRequest(request, GamingResponse.class);
+    }
+
+    private static Response send(LoopbackTransport client, RequestType type, String data) throws IOException {
+        return client.sendRequest(new Request(type, data), Response.class);
+    }
+
+    private static void assertSuccess(Response response) {
+        assertNotNull(response);
+        assertEquals(response.getMessage(), ResponseStatus.SUCCESS, response.getStatus());
+    }
+}
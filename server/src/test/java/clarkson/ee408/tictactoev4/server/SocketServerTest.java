@@ -0,0 +1,212 @@
+package clarkson.ee408.tictactoev4.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import clarkson.ee408.tictactoev4.client.SocketTransport;
+import clarkson.ee408.tictactoev4.codec.BinaryCodec;
+import clarkson.ee408.tictactoev4.codec.MessageCodec;
+import clarkson.ee408.tictactoev4.model.EventStatus;
+import clarkson.ee408.tictactoev4.model.User;
+import clarkson.ee408.tictactoev4.socket.GamingResponse;
+import clarkson.ee408.tictactoev4.socket.PushMessage;
+import clarkson.ee408.tictactoev4.socket.PushType;
+import clarkson.ee408.tictactoev4.socket.Request;
+import clarkson.ee408.tictactoev4.socket.RequestType;
+import clarkson.ee408.tictactoev4.socket.Response;
+import clarkson.ee408.tictactoev4.socket.ResponseStatus;
+
+/**
+ * Plays against a {@link SocketServer} over real sockets with the client's own transport, in both
+ * codecs and with pushed updates.
+ */
+public class SocketServerTest {
+
+    private static final int TIMEOUT_MILLIS = 5000;
+
+    private final GameServer server = new GameServer();
+    private final List<SocketTransport> clients = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private SocketServer socketServer;
+
+    @Before
+    public void setUp() throws IOException {
+        this.socketServer = new SocketServer(this.server, 0);
+        this.server.getStore().register("alice", "secret", null);
+        this.server.getStore().register("bob", "secret", null);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (SocketTransport client : this.clients) {
+            client.close();
+        }
+        this.socketServer.close();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void pushesReachSubscribersOverJson() throws Exception {
+        playInvitationAndMove(null);
+    }
+
+    @Test
+    public void pushesReachSubscribersOverBinary() throws Exception {
+        playInvitationAndMove(new BinaryCodec());
+    }
+
+    @Test
+    public void aHeldRequestDoesNotHoldUpTheConnection() throws Exception {
+        SocketTransport alice = connect("alice", null, null);
+        SocketTransport bob = connect("bob", null, null);
+        send(alice, RequestType.SEND_INVITATION, "bob");
+        send(bob, RequestType.ACCEPT_INVITATION, "1");
+
+        Future<GamingResponse> heldMove = this.executor.submit(() -> {
+            Request request = new Request(RequestType.REQUEST_MOVE, null);
+            request.setWaitMillis(TIMEOUT_MILLIS);
+            return bob.sendRequest(request, GamingResponse.class);
+        });
+        awaitHeldRequest();
+        Response pairing = bob.sendRequest(new Request(RequestType.UPDATE_PAIRING, null), Response.class);
+        assertEquals(ResponseStatus.SUCCESS, pairing.getStatus());
+        assertFalse(heldMove.isDone());
+
+        send(alice, RequestType.SEND_MOVE, "2");
+        assertEquals(2, heldMove.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getMove());
+    }
+
+    @Test
+    public void disconnectingLogsOut() throws Exception {
+        SocketTransport alice = connect("alice", null, null);
+        assertEquals(1, this.server.getOnlineCount());
+
+        alice.close();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (this.server.getOnlineCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, this.server.getOnlineCount());
+        assertEquals(0, this.server.getStore().getLobbySize());
+    }
+
+    @Test
+    public void anEmptyRequestClosesTheConnection() throws Exception {
+        List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, error) -> uncaught.add(error));
+        try (Socket socket = new Socket("127.0.0.1", this.socketServer.getPort())) {
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeUTF("null");
+            out.flush();
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+        assertTrue(uncaught.isEmpty());
+
+        // The server carries on with other connections
+        SocketTransport alice = connect("alice", null, null);
+        assertEquals(ResponseStatus.SUCCESS,
+                alice.sendRequest(new Request(RequestType.UPDATE_PAIRING, null), Response.class).getStatus());
+    }
+
+    /**
+     * Waits until the server holds a request, so that what happens next is a change to wake it.
+     */
+    private void awaitHeldRequest() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (this.server.getHeldRequestCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, this.server.getHeldRequestCount());
+    }
+
+    private void playInvitationAndMove(MessageCodec codec) throws Exception {
+        BlockingQueue<PushMessage> alicePushes = new LinkedBlockingQueue<>();
+        BlockingQueue<PushMessage> bobPushes = new LinkedBlockingQueue<>();
+        SocketTransport alice = connect("alice", codec, alicePushes);
+        SocketTransport bob = connect("bob", codec, bobPushes);
+
+        PushMessage presence = next(alicePushes);
+        assertEquals(PushType.PRESENCE, presence.getType());
+        assertEquals("bob", presence.getUser().getUsername());
+        assertTrue(presence.getUser().getOnline());
+
+        send(alice, RequestType.SEND_INVITATION, "bob");
+        PushMessage invitation = next(bobPushes);
+        assertEquals(PushType.INVITATION, invitation.getType());
+        assertEquals("alice", invitation.getEvent().getSender());
+
+        send(bob, RequestType.ACCEPT_INVITATION, String.valueOf(invitation.getEvent().getEventId()));
+        PushMessage accepted = nextOfType(alicePushes, PushType.INVITATION_RESPONSE);
+        assertEquals(EventStatus.ACCEPTED, accepted.getEvent().getStatus());
+
+        send(alice, RequestType.SEND_MOVE, "4");
+        PushMessage move = nextOfType(bobPushes, PushType.MOVE);
+        assertEquals(4, move.getMove());
+
+        send(bob, RequestType.ABORT_GAME, null);
+        PushMessage ended = nextOfType(alicePushes, PushType.GAME_ENDED);
+        assertEquals("bob left the game", ended.getMessage());
+    }
+
+    private SocketTransport connect(String username, MessageCodec codec, BlockingQueue<PushMessage> pushes)
+            throws IOException {
+        SocketTransport transport = new SocketTransport("127.0.0.1", this.socketServer.getPort(), TIMEOUT_MILLIS);
+        this.clients.add(transport);
+        transport.setMultiplexed(true);
+        if (codec != null) {
+            transport.setPreferredCodec(codec);
+        }
+
+        send(transport, RequestType.LOGIN, new Gson().toJson(new User(username, "secret", null, false)));
+        if (pushes != null) {
+            transport.setPushListener(pushes::add);
+            send(transport, RequestType.SUBSCRIBE, null);
+        }
+        return transport;
+    }
+
+    private static void send(SocketTransport transport, RequestType type, String data) throws IOException {
+        Response response = transport.sendRequest(new Request(type, data), Response.class);
+        assertNotNull(response);
+        assertEquals(response.getMessage(), ResponseStatus.SUCCESS, response.getStatus());
+    }
+
+    private static PushMessage nextOfType(BlockingQueue<PushMessage> pushes, PushType type) throws InterruptedException {
+        PushMessage push = next(pushes);
+        while (push.getType() != type) {
+            push = next(pushes); // skip presence changes
+        }
+        return push;
+    }
+
+    private static PushMessage next(BlockingQueue<PushMessage> pushes) throws InterruptedException {
+        PushMessage push = pushes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertNotNull("Timed out waiting for a pushed update", push);
+        return push;
+    }
+}
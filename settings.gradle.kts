@@ -15,4 +15,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "TicTacToeV4"
 include(":app")
- 
\ No newline at end of file
+include(":core")
+include(":benchmarks")
+include(":server")
+include(":loadgen")